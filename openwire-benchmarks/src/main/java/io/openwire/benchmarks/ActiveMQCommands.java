@@ -0,0 +1,116 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.openwire.benchmarks;
+
+import org.apache.activemq.command.ActiveMQQueue;
+import org.apache.activemq.command.ActiveMQTextMessage;
+import org.apache.activemq.command.ConnectionId;
+import org.apache.activemq.command.ConsumerId;
+import org.apache.activemq.command.ConsumerInfo;
+import org.apache.activemq.command.DataStructure;
+import org.apache.activemq.command.MessageAck;
+import org.apache.activemq.command.MessageDispatch;
+import org.apache.activemq.command.MessageId;
+import org.apache.activemq.command.ProducerId;
+import org.apache.activemq.command.SessionId;
+import org.apache.activemq.command.WireFormatInfo;
+
+/**
+ * Builds the benchmarked commands out of the ActiveMQ command classes, field for field the
+ * same as those built by {@link OpenWireCommands}.
+ */
+public final class ActiveMQCommands {
+
+    private ActiveMQCommands() {
+    }
+
+    public static DataStructure create(BenchmarkCommand command, int version) throws Exception {
+        ConnectionId connectionId = new ConnectionId("ID:benchmark-host-61616-1400000000000-0:1");
+        SessionId sessionId = new SessionId(connectionId, 1);
+        ProducerId producerId = new ProducerId(sessionId, 1);
+        ConsumerId consumerId = new ConsumerId(sessionId, 1);
+        ActiveMQQueue queue = new ActiveMQQueue("BENCHMARK.QUEUE");
+
+        switch (command) {
+            case TEXT_MESSAGE:
+                return createMessage(producerId, queue, false);
+            case TEXT_MESSAGE_WITH_PROPERTIES:
+                return createMessage(producerId, queue, true);
+            case MESSAGE_ACK: {
+                MessageAck ack = new MessageAck();
+                ack.setAckType(MessageAck.STANDARD_ACK_TYPE);
+                ack.setConsumerId(consumerId);
+                ack.setDestination(queue);
+                ack.setFirstMessageId(new MessageId(producerId, 1));
+                ack.setLastMessageId(new MessageId(producerId, 10));
+                ack.setMessageCount(10);
+                return ack;
+            }
+            case MESSAGE_DISPATCH: {
+                MessageDispatch dispatch = new MessageDispatch();
+                dispatch.setConsumerId(consumerId);
+                dispatch.setDestination(queue);
+                dispatch.setMessage(createMessage(producerId, queue, true));
+                dispatch.setRedeliveryCounter(0);
+                return dispatch;
+            }
+            case CONSUMER_INFO: {
+                ConsumerInfo info = new ConsumerInfo(consumerId);
+                info.setDestination(queue);
+                info.setPrefetchSize(1000);
+                info.setSelector("region = 'emea' AND priority > 4");
+                return info;
+            }
+            case WIRE_FORMAT_INFO: {
+                WireFormatInfo info = new WireFormatInfo();
+                info.setVersion(version);
+                info.setCacheEnabled(true);
+                info.setCacheSize(1024);
+                info.setTightEncodingEnabled(true);
+                info.setSizePrefixDisabled(false);
+                info.setStackTraceEnabled(true);
+                info.setTcpNoDelayEnabled(true);
+                info.setMaxInactivityDuration(30000);
+                info.setMaxInactivityDurationInitalDelay(10000);
+                info.setMaxFrameSize(100 * 1024 * 1024);
+                return info;
+            }
+            default:
+                throw new IllegalArgumentException("Unknown benchmark command: " + command);
+        }
+    }
+
+    private static ActiveMQTextMessage createMessage(ProducerId producerId, ActiveMQQueue queue, boolean properties) throws Exception {
+        ActiveMQTextMessage message = new ActiveMQTextMessage();
+        message.setProducerId(producerId);
+        message.setMessageId(new MessageId(producerId, 1));
+        message.setDestination(queue);
+        message.setPersistent(true);
+        message.setPriority((byte) 4);
+        message.setTimestamp(1400000000000L);
+        message.setCorrelationId("correlation-1");
+        message.setText(BenchmarkCommand.TEXT);
+        if (properties) {
+            message.setProperty("region", "emea");
+            message.setProperty("priority", Integer.valueOf(7));
+            message.setProperty("orderId", Long.valueOf(1234567890123L));
+            message.setProperty("express", Boolean.TRUE);
+            message.setProperty("amount", Double.valueOf(99.95));
+        }
+        return message;
+    }
+}
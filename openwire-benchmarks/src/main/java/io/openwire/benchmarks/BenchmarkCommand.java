@@ -0,0 +1,64 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.openwire.benchmarks;
+
+/**
+ * The commands marshaled and unmarshaled by the benchmarks, each is built the same way by
+ * the OpenWire and the ActiveMQ command factories so the results can be compared.
+ */
+public enum BenchmarkCommand {
+
+    /**
+     * A persistent text message with a small body and no properties.
+     */
+    TEXT_MESSAGE,
+
+    /**
+     * The same text message carrying a typical set of application properties.
+     */
+    TEXT_MESSAGE_WITH_PROPERTIES,
+
+    /**
+     * A standard acknowledgement of a range of messages.
+     */
+    MESSAGE_ACK,
+
+    /**
+     * A dispatch of the text message with properties to a consumer.
+     */
+    MESSAGE_DISPATCH,
+
+    /**
+     * The registration of a queue consumer with a selector.
+     */
+    CONSUMER_INFO,
+
+    /**
+     * The wire format negotiation sent when a connection is opened.
+     */
+    WIRE_FORMAT_INFO;
+
+    static final String TEXT;
+
+    static {
+        StringBuilder text = new StringBuilder();
+        while (text.length() < 256) {
+            text.append("The quick brown fox jumps over the lazy dog. ");
+        }
+        TEXT = text.substring(0, 256);
+    }
+}
@@ -0,0 +1,94 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.openwire.benchmarks;
+
+import io.openwire.codec.OpenWireFormat;
+import io.openwire.commands.DataStructure;
+
+import java.util.concurrent.TimeUnit;
+
+import org.fusesource.hawtbuf.Buffer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Marshal and unmarshal throughput of the OpenWire codec for every protocol version and
+ * encoding option.
+ *
+ * With the cache enabled the marshal benchmark measures the steady state of a connection,
+ * after the first operation the cached ids are written as cache references.  The unmarshal
+ * benchmark always decodes the first frame so the cached ids are read in full.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class OpenWireFormatBenchmark {
+
+    @Param({ "1", "2", "3", "4", "5", "6", "7", "8", "9", "10" })
+    public int version;
+
+    @Param({ "true", "false" })
+    public boolean tightEncoding;
+
+    @Param({ "true", "false" })
+    public boolean cacheEnabled;
+
+    @Param({ "TEXT_MESSAGE", "TEXT_MESSAGE_WITH_PROPERTIES", "MESSAGE_ACK", "MESSAGE_DISPATCH", "CONSUMER_INFO", "WIRE_FORMAT_INFO" })
+    public BenchmarkCommand command;
+
+    private OpenWireFormat marshaler;
+    private OpenWireFormat unmarshaler;
+    private DataStructure object;
+    private Buffer frame;
+
+    @Setup
+    public void setUp() throws Exception {
+        marshaler = createOpenWireFormat();
+        unmarshaler = createOpenWireFormat();
+        object = OpenWireCommands.create(command, version);
+        frame = createOpenWireFormat().marshal(object);
+    }
+
+    @Benchmark
+    public Buffer marshal() throws Exception {
+        return marshaler.marshal(object);
+    }
+
+    @Benchmark
+    public Object unmarshal() throws Exception {
+        return unmarshaler.unmarshal(frame);
+    }
+
+    private OpenWireFormat createOpenWireFormat() {
+        OpenWireFormat wireFormat = new OpenWireFormat(version);
+        wireFormat.setTightEncodingEnabled(tightEncoding);
+        wireFormat.setCacheEnabled(cacheEnabled);
+        return wireFormat;
+    }
+}
@@ -20,10 +20,14 @@ import io.openwire.commands.DataStructure;
 
 import java.io.DataInput;
 import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.EOFException;
 import java.io.IOException;
 import java.lang.reflect.Constructor;
 
 import org.fusesource.hawtbuf.Buffer;
+import org.fusesource.hawtbuf.DataByteArrayInputStream;
+import org.fusesource.hawtbuf.DataByteArrayOutputStream;
 
 /**
  * Root of all OpenWire marshalers.
@@ -57,57 +61,71 @@ public abstract class BaseDataStreamMarshaller implements DataStreamMarshaller {
     public void tightMarshal2(OpenWireFormat wireFormat, Object o, DataOutput dataOut, BooleanStream bs) throws IOException {
     }
 
+    @Override
+    public void tightMarshal(OpenWireFormat wireFormat, Object o, DataByteArrayOutputStream dataOut, BooleanStream bs) throws IOException {
+    }
+
+    /**
+     * The root of the byte array form of tightMarshal2, overridden by the marshallers that
+     * implement ByteArrayMarshaller.
+     */
+    public int tightMarshal2(OpenWireFormat wireFormat, Object o, byte[] dataOut, int position, BooleanStream bs) throws IOException {
+        return position;
+    }
+
     @Override
     public void tightUnmarshal(OpenWireFormat wireFormat, Object o, DataInput dataIn, BooleanStream bs) throws IOException {
     }
 
+    // The size code of a tight encoded long, written to the BooleanStream as two bits with
+    // the first bit in the low position so that readBits returns the same value.
+    private static final int LONG_SIZE_ZERO = 0;
+    private static final int LONG_SIZE_INT = 1;
+    private static final int LONG_SIZE_SHORT = 2;
+    private static final int LONG_SIZE_LONG = 3;
+
     public int tightMarshalLong1(OpenWireFormat wireFormat, long o, BooleanStream bs) throws IOException {
         if (o == 0) {
-            bs.writeBoolean(false);
-            bs.writeBoolean(false);
+            bs.writeBits(LONG_SIZE_ZERO, 2);
             return 0;
         } else if ((o & 0xFFFFFFFFFFFF0000L) == 0) {
-            bs.writeBoolean(false);
-            bs.writeBoolean(true);
+            bs.writeBits(LONG_SIZE_SHORT, 2);
             return 2;
         } else if ((o & 0xFFFFFFFF00000000L) == 0) {
-            bs.writeBoolean(true);
-            bs.writeBoolean(false);
+            bs.writeBits(LONG_SIZE_INT, 2);
             return 4;
         } else {
-            bs.writeBoolean(true);
-            bs.writeBoolean(true);
+            bs.writeBits(LONG_SIZE_LONG, 2);
             return 8;
         }
     }
 
     public void tightMarshalLong2(OpenWireFormat wireFormat, long o, DataOutput dataOut, BooleanStream bs) throws IOException {
-        if (bs.readBoolean()) {
-            if (bs.readBoolean()) {
+        switch (bs.readBits(2)) {
+            case LONG_SIZE_LONG:
                 dataOut.writeLong(o);
-            } else {
+                break;
+            case LONG_SIZE_INT:
                 dataOut.writeInt((int) o);
-            }
-        } else {
-            if (bs.readBoolean()) {
+                break;
+            case LONG_SIZE_SHORT:
                 dataOut.writeShort((int) o);
-            }
+                break;
+            default:
+                break;
         }
     }
 
     public long tightUnmarshalLong(OpenWireFormat wireFormat, DataInput dataIn, BooleanStream bs) throws IOException {
-        if (bs.readBoolean()) {
-            if (bs.readBoolean()) {
+        switch (bs.readBits(2)) {
+            case LONG_SIZE_LONG:
                 return dataIn.readLong();
-            } else {
+            case LONG_SIZE_INT:
                 return toLong(dataIn.readInt());
-            }
-        } else {
-            if (bs.readBoolean()) {
+            case LONG_SIZE_SHORT:
                 return toLong(dataIn.readShort());
-            } else {
+            default:
                 return 0;
-            }
         }
     }
 
@@ -153,11 +171,11 @@ public abstract class BaseDataStreamMarshaller implements DataStreamMarshaller {
 
     protected int tightMarshalCachedObject1(OpenWireFormat wireFormat, DataStructure o, BooleanStream bs) throws IOException {
         if (wireFormat.isCacheEnabled()) {
-            Short index = wireFormat.getMarshallCacheIndex(o);
-            bs.writeBoolean(index == null);
-            if (index == null) {
+            boolean cached = wireFormat.lookupMarshallCacheIndex(o) >= 0;
+            bs.writeBoolean(!cached);
+            if (!cached) {
                 int rc = wireFormat.tightMarshalNestedObject1(o, bs);
-                wireFormat.addToMarshallCache(o);
+                wireFormat.setMarshallCacheEncodedSize(wireFormat.addMarshallCacheValue(o), rc);
                 return 2 + rc;
             } else {
                 return 2;
@@ -169,12 +187,12 @@ public abstract class BaseDataStreamMarshaller implements DataStreamMarshaller {
 
     protected void tightMarshalCachedObject2(OpenWireFormat wireFormat, DataStructure o, DataOutput dataOut, BooleanStream bs) throws IOException {
         if (wireFormat.isCacheEnabled()) {
-            Short index = wireFormat.getMarshallCacheIndex(o);
+            short index = wireFormat.findMarshallCacheIndex(o);
             if (bs.readBoolean()) {
-                dataOut.writeShort(index.shortValue());
+                dataOut.writeShort(index);
                 wireFormat.tightMarshalNestedObject2(o, dataOut, bs);
             } else {
-                dataOut.writeShort(index.shortValue());
+                dataOut.writeShort(index);
             }
         } else {
             wireFormat.tightMarshalNestedObject2(o, dataOut, bs);
@@ -290,8 +308,20 @@ public abstract class BaseDataStreamMarshaller implements DataStreamMarshaller {
         }
     }
 
+    /**
+     * Skips over a tightly marshaled String without decoding it.
+     */
+    protected void tightSkipString(DataInput dataIn, BooleanStream bs) throws IOException {
+        if (bs.readBoolean()) {
+            bs.readBoolean();
+            int size = dataIn.readUnsignedShort();
+            if (dataIn.skipBytes(size) != size) {
+                throw new EOFException();
+            }
+        }
+    }
+
     protected int tightMarshalString1(String value, BooleanStream bs) throws IOException {
-        bs.writeBoolean(value != null);
         if (value != null) {
 
             int strlen = value.length();
@@ -318,10 +348,12 @@ public abstract class BaseDataStreamMarshaller implements DataStreamMarshaller {
             if (utflen >= Short.MAX_VALUE) {
                 throw new IOException("Encountered a String value that is too long to encode.");
             }
-            bs.writeBoolean(isOnlyAscii);
+            // The not null marker followed by the ascii only marker
+            bs.writeBits(isOnlyAscii ? 3 : 1, 2);
             return utflen + 2;
 
         } else {
+            bs.writeBoolean(false);
             return 0;
         }
     }
@@ -392,6 +424,10 @@ public abstract class BaseDataStreamMarshaller implements DataStreamMarshaller {
         }
     }
 
+    protected int looseMarshalByteArraySize(OpenWireFormat wireFormat, byte[] data) throws IOException {
+        return data != null ? 1 + 4 + data.length : 1;
+    }
+
     protected byte[] tightUnmarshalByteArray(DataInput dataIn, BooleanStream bs) throws IOException {
         byte rc[] = null;
         if (bs.readBoolean()) {
@@ -429,6 +465,519 @@ public abstract class BaseDataStreamMarshaller implements DataStreamMarshaller {
         return rc;
     }
 
+    protected Buffer tightUnmarshalByteSequence(OpenWireFormat wireFormat, DataInput dataIn, BooleanStream bs) throws IOException {
+        Buffer rc = null;
+        if (bs.readBoolean()) {
+            int size = dataIn.readInt();
+            rc = readByteSequence(wireFormat, dataIn, size);
+        }
+        return rc;
+    }
+
+    //
+    // The single pass tight marshaling logic, each method writes its booleans and
+    // its data together producing the same bits and bytes as the two pass methods.
+    //
+
+    public void tightMarshalLong(OpenWireFormat wireFormat, long o, DataOutput dataOut, BooleanStream bs) throws IOException {
+        if (o == 0) {
+            bs.writeBits(LONG_SIZE_ZERO, 2);
+        } else if ((o & 0xFFFFFFFFFFFF0000L) == 0) {
+            bs.writeBits(LONG_SIZE_SHORT, 2);
+            dataOut.writeShort((int) o);
+        } else if ((o & 0xFFFFFFFF00000000L) == 0) {
+            bs.writeBits(LONG_SIZE_INT, 2);
+            dataOut.writeInt((int) o);
+        } else {
+            bs.writeBits(LONG_SIZE_LONG, 2);
+            dataOut.writeLong(o);
+        }
+    }
+
+    protected void tightMarshalNestedObject(OpenWireFormat wireFormat, DataStructure o, DataByteArrayOutputStream dataOut, BooleanStream bs) throws IOException {
+        wireFormat.tightMarshalNestedObject(o, dataOut, bs);
+    }
+
+    protected void tightMarshalCachedObject(OpenWireFormat wireFormat, DataStructure o, DataByteArrayOutputStream dataOut, BooleanStream bs) throws IOException {
+        if (wireFormat.isCacheEnabled()) {
+            short index = wireFormat.lookupMarshallCacheIndex(o);
+            bs.writeBoolean(index < 0);
+            if (index < 0) {
+                // The two pass encoding adds the value to the cache after its nested values,
+                // so the index is assigned afterwards and written back into its reserved slot.
+                int indexPosition = dataOut.position();
+                dataOut.writeShort(0);
+                wireFormat.tightMarshalNestedObject(o, dataOut, bs);
+                index = wireFormat.addMarshallCacheValue(o);
+                int endPosition = dataOut.position();
+                wireFormat.setMarshallCacheEncodedSize(index, endPosition - indexPosition - 2);
+                dataOut.position(indexPosition);
+                dataOut.writeShort(index);
+                dataOut.position(endPosition);
+            } else {
+                dataOut.writeShort(index);
+            }
+        } else {
+            wireFormat.tightMarshalNestedObject(o, dataOut, bs);
+        }
+    }
+
+    protected void tightMarshalThrowable(OpenWireFormat wireFormat, Throwable o, DataOutput dataOut, BooleanStream bs) throws IOException {
+        bs.writeBoolean(o != null);
+        if (o != null) {
+            tightMarshalString(o.getClass().getName(), dataOut, bs);
+            tightMarshalString(o.getMessage(), dataOut, bs);
+            if (wireFormat.isStackTraceEnabled()) {
+                StackTraceElement[] stackTrace = o.getStackTrace();
+                dataOut.writeShort(stackTrace.length);
+                for (int i = 0; i < stackTrace.length; i++) {
+                    StackTraceElement element = stackTrace[i];
+                    tightMarshalString(element.getClassName(), dataOut, bs);
+                    tightMarshalString(element.getMethodName(), dataOut, bs);
+                    tightMarshalString(element.getFileName(), dataOut, bs);
+                    dataOut.writeInt(element.getLineNumber());
+                }
+                tightMarshalThrowable(wireFormat, o.getCause(), dataOut, bs);
+            }
+        }
+    }
+
+    protected void tightMarshalString(String value, DataOutput dataOut, BooleanStream bs) throws IOException {
+        if (value != null) {
+
+            int strlen = value.length();
+            int utflen = 0;
+            boolean isOnlyAscii = true;
+
+            for (int i = 0; i < strlen; i++) {
+                int c = value.charAt(i);
+                if ((c >= 0x0001) && (c <= 0x007F)) {
+                    utflen++;
+                } else if (c > 0x07FF) {
+                    utflen += 3;
+                    isOnlyAscii = false;
+                } else {
+                    isOnlyAscii = false;
+                    utflen += 2;
+                }
+            }
+
+            if (utflen >= Short.MAX_VALUE) {
+                throw new IOException("Encountered a String value that is too long to encode.");
+            }
+            // The not null marker followed by the ascii only marker
+            bs.writeBits(isOnlyAscii ? 3 : 1, 2);
+
+            if (isOnlyAscii) {
+                dataOut.writeShort(strlen);
+                dataOut.writeBytes(value);
+            } else {
+                dataOut.writeUTF(value);
+            }
+        } else {
+            bs.writeBoolean(false);
+        }
+    }
+
+    protected void tightMarshalObjectArray(OpenWireFormat wireFormat, DataStructure[] objects, DataByteArrayOutputStream dataOut, BooleanStream bs) throws IOException {
+        bs.writeBoolean(objects != null);
+        if (objects != null) {
+            dataOut.writeShort(objects.length);
+            for (int i = 0; i < objects.length; i++) {
+                tightMarshalNestedObject(wireFormat, objects[i], dataOut, bs);
+            }
+        }
+    }
+
+    protected void tightMarshalConstByteArray(byte[] data, DataOutput dataOut, BooleanStream bs, int i) throws IOException {
+        dataOut.write(data, 0, i);
+    }
+
+    protected void tightMarshalByteArray(byte[] data, DataOutput dataOut, BooleanStream bs) throws IOException {
+        bs.writeBoolean(data != null);
+        if (data != null) {
+            dataOut.writeInt(data.length);
+            dataOut.write(data);
+        }
+    }
+
+    protected void tightMarshalByteSequence(Buffer data, DataOutput dataOut, BooleanStream bs) throws IOException {
+        bs.writeBoolean(data != null);
+        if (data != null) {
+            dataOut.writeInt(data.getLength());
+            dataOut.write(data.getData(), data.getOffset(), data.getLength());
+        }
+    }
+
+    //
+    // The byte array tight marshaling logic, the second pass writes straight into the array
+    // backing the frame and each method returns the position following what it wrote.
+    //
+
+    public int tightMarshalLong2(OpenWireFormat wireFormat, long o, byte[] dataOut, int position, BooleanStream bs) throws IOException {
+        switch (bs.readBits(2)) {
+            case LONG_SIZE_LONG:
+                return BigEndianBytes.putLong(dataOut, position, o);
+            case LONG_SIZE_INT:
+                return BigEndianBytes.putInt(dataOut, position, (int) o);
+            case LONG_SIZE_SHORT:
+                return BigEndianBytes.putShort(dataOut, position, (int) o);
+            default:
+                return position;
+        }
+    }
+
+    protected int tightMarshalNestedObject2(OpenWireFormat wireFormat, DataStructure o, byte[] dataOut, int position, BooleanStream bs) throws IOException {
+        return wireFormat.tightMarshalNestedObject2(o, dataOut, position, bs);
+    }
+
+    /**
+     * Writes a nested object whose declared type is known to the generated marshaller, the
+     * given marshaller is called directly when the value is of that type so the call is not
+     * dispatched through the marshaller table of the OpenWireFormat.
+     */
+    protected int tightMarshalNestedObject2(OpenWireFormat wireFormat, DataStructure o, ByteArrayMarshaller marshaller, byte[] dataOut, int position, BooleanStream bs) throws IOException {
+        byte type = marshaller.getDataStructureType();
+        if (o == null || o.getDataStructureType() != type || o.isMarshallAware()) {
+            return wireFormat.tightMarshalNestedObject2(o, dataOut, position, bs);
+        }
+
+        bs.readBoolean();
+        dataOut[position] = type;
+        return marshaller.tightMarshal2(wireFormat, o, dataOut, position + 1, bs);
+    }
+
+    protected int tightMarshalCachedObject2(OpenWireFormat wireFormat, DataStructure o, byte[] dataOut, int position, BooleanStream bs) throws IOException {
+        if (wireFormat.isCacheEnabled()) {
+            short index = wireFormat.findMarshallCacheIndex(o);
+            position = BigEndianBytes.putShort(dataOut, position, index);
+            if (bs.readBoolean()) {
+                position = wireFormat.tightMarshalNestedObject2(o, dataOut, position, bs);
+            }
+            return position;
+        } else {
+            return wireFormat.tightMarshalNestedObject2(o, dataOut, position, bs);
+        }
+    }
+
+    protected int tightMarshalCachedObject2(OpenWireFormat wireFormat, DataStructure o, ByteArrayMarshaller marshaller, byte[] dataOut, int position, BooleanStream bs) throws IOException {
+        if (wireFormat.isCacheEnabled()) {
+            short index = wireFormat.findMarshallCacheIndex(o);
+            position = BigEndianBytes.putShort(dataOut, position, index);
+            if (bs.readBoolean()) {
+                position = tightMarshalNestedObject2(wireFormat, o, marshaller, dataOut, position, bs);
+            }
+            return position;
+        } else {
+            return tightMarshalNestedObject2(wireFormat, o, marshaller, dataOut, position, bs);
+        }
+    }
+
+    protected int tightMarshalThrowable2(OpenWireFormat wireFormat, Throwable o, byte[] dataOut, int position, BooleanStream bs) throws IOException {
+        if (bs.readBoolean()) {
+            position = tightMarshalString2(o.getClass().getName(), dataOut, position, bs);
+            position = tightMarshalString2(o.getMessage(), dataOut, position, bs);
+            if (wireFormat.isStackTraceEnabled()) {
+                StackTraceElement[] stackTrace = o.getStackTrace();
+                position = BigEndianBytes.putShort(dataOut, position, stackTrace.length);
+                for (int i = 0; i < stackTrace.length; i++) {
+                    StackTraceElement element = stackTrace[i];
+                    position = tightMarshalString2(element.getClassName(), dataOut, position, bs);
+                    position = tightMarshalString2(element.getMethodName(), dataOut, position, bs);
+                    position = tightMarshalString2(element.getFileName(), dataOut, position, bs);
+                    position = BigEndianBytes.putInt(dataOut, position, element.getLineNumber());
+                }
+                position = tightMarshalThrowable2(wireFormat, o.getCause(), dataOut, position, bs);
+            }
+        }
+        return position;
+    }
+
+    @SuppressWarnings("deprecation")
+    protected int tightMarshalString2(String value, byte[] dataOut, int position, BooleanStream bs) throws IOException {
+        if (!bs.readBoolean()) {
+            return position;
+        }
+
+        int strlen = value.length();
+
+        // If we verified it only holds ascii values
+        if (bs.readBoolean()) {
+            position = BigEndianBytes.putShort(dataOut, position, strlen);
+            // Yes deprecated, but it copies the low byte of each char which is what we want.
+            value.getBytes(0, strlen, dataOut, position);
+            return position + strlen;
+        }
+
+        // The size was checked in the first pass, the encoded length is written once known.
+        int start = position;
+        position += 2;
+        for (int i = 0; i < strlen; i++) {
+            int c = value.charAt(i);
+            if ((c >= 0x0001) && (c <= 0x007F)) {
+                dataOut[position++] = (byte) c;
+            } else if (c > 0x07FF) {
+                dataOut[position++] = (byte) (0xE0 | ((c >> 12) & 0x0F));
+                dataOut[position++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+                dataOut[position++] = (byte) (0x80 | ((c >> 0) & 0x3F));
+            } else {
+                dataOut[position++] = (byte) (0xC0 | ((c >> 6) & 0x1F));
+                dataOut[position++] = (byte) (0x80 | ((c >> 0) & 0x3F));
+            }
+        }
+        BigEndianBytes.putShort(dataOut, start, position - start - 2);
+        return position;
+    }
+
+    protected int tightMarshalObjectArray2(OpenWireFormat wireFormat, DataStructure[] objects, byte[] dataOut, int position, BooleanStream bs) throws IOException {
+        if (bs.readBoolean()) {
+            position = BigEndianBytes.putShort(dataOut, position, objects.length);
+            for (int i = 0; i < objects.length; i++) {
+                position = tightMarshalNestedObject2(wireFormat, objects[i], dataOut, position, bs);
+            }
+        }
+        return position;
+    }
+
+    protected int tightMarshalConstByteArray2(byte[] data, byte[] dataOut, int position, BooleanStream bs, int i) throws IOException {
+        return BigEndianBytes.putBytes(dataOut, position, data, 0, i);
+    }
+
+    protected int tightMarshalByteArray2(byte[] data, byte[] dataOut, int position, BooleanStream bs) throws IOException {
+        if (bs.readBoolean()) {
+            position = BigEndianBytes.putInt(dataOut, position, data.length);
+            position = BigEndianBytes.putBytes(dataOut, position, data, 0, data.length);
+        }
+        return position;
+    }
+
+    protected int tightMarshalByteSequence2(Buffer data, byte[] dataOut, int position, BooleanStream bs) throws IOException {
+        if (bs.readBoolean()) {
+            position = BigEndianBytes.putInt(dataOut, position, data.getLength());
+            position = BigEndianBytes.putBytes(dataOut, position, data.getData(), data.getOffset(), data.getLength());
+        }
+        return position;
+    }
+
+    //
+    // The byte array tight unmarshaling logic, fixed size values are read in place by the
+    // marshallers while the methods below read the values whose size depends on the frame and
+    // leave the position that follows them in the OpenWireFormat.
+    //
+
+    /**
+     * The root of the byte array form of tightUnmarshal, overridden by the marshallers that
+     * implement ByteArrayMarshaller.
+     */
+    public int tightUnmarshal(OpenWireFormat wireFormat, Object o, byte[] dataIn, int position, BooleanStream bs) throws IOException {
+        return position;
+    }
+
+    public long tightUnmarshalLong(OpenWireFormat wireFormat, byte[] dataIn, int position, BooleanStream bs) throws IOException {
+        switch (bs.readBits(2)) {
+            case LONG_SIZE_LONG:
+                wireFormat.setUnmarshalPosition(position + 8);
+                return BigEndianBytes.getLong(dataIn, position);
+            case LONG_SIZE_INT:
+                wireFormat.setUnmarshalPosition(position + 4);
+                return toLong(BigEndianBytes.getInt(dataIn, position));
+            case LONG_SIZE_SHORT:
+                wireFormat.setUnmarshalPosition(position + 2);
+                return toLong(BigEndianBytes.getShort(dataIn, position));
+            default:
+                wireFormat.setUnmarshalPosition(position);
+                return 0;
+        }
+    }
+
+    protected DataStructure tightUnmarsalNestedObject(OpenWireFormat wireFormat, byte[] dataIn, int position, BooleanStream bs) throws IOException {
+        return wireFormat.tightUnmarshalNestedObject(dataIn, position, bs);
+    }
+
+    /**
+     * Reads a nested object whose declared type is known to the generated marshaller, the
+     * given marshaller is called directly when the value is of that type so the call is not
+     * dispatched through the marshaller table of the OpenWireFormat.
+     */
+    protected DataStructure tightUnmarsalNestedObject(OpenWireFormat wireFormat, ByteArrayMarshaller marshaller, byte[] dataIn, int position, BooleanStream bs) throws IOException {
+        if (!bs.readBoolean()) {
+            wireFormat.setUnmarshalPosition(position);
+            return null;
+        }
+
+        if (dataIn[position] != marshaller.getDataStructureType()) {
+            return wireFormat.tightUnmarshalNestedValue(dataIn, position, bs);
+        }
+
+        DataStructure object = marshaller.createObject();
+        wireFormat.setUnmarshalPosition(marshaller.tightUnmarshal(wireFormat, object, dataIn, position + 1, bs));
+        return object;
+    }
+
+    protected DataStructure tightUnmarsalCachedObject(OpenWireFormat wireFormat, byte[] dataIn, int position, BooleanStream bs) throws IOException {
+        if (wireFormat.isCacheEnabled()) {
+            if (bs.readBoolean()) {
+                short index = BigEndianBytes.getShort(dataIn, position);
+                DataStructure object = wireFormat.tightUnmarshalNestedObject(dataIn, position + 2, bs);
+                wireFormat.setInUnmarshallCache(index, object);
+                return object;
+            } else {
+                short index = BigEndianBytes.getShort(dataIn, position);
+                wireFormat.setUnmarshalPosition(position + 2);
+                return wireFormat.getFromUnmarshallCache(index);
+            }
+        } else {
+            return wireFormat.tightUnmarshalNestedObject(dataIn, position, bs);
+        }
+    }
+
+    protected DataStructure tightUnmarsalCachedObject(OpenWireFormat wireFormat, ByteArrayMarshaller marshaller, byte[] dataIn, int position, BooleanStream bs) throws IOException {
+        if (wireFormat.isCacheEnabled()) {
+            if (bs.readBoolean()) {
+                short index = BigEndianBytes.getShort(dataIn, position);
+                DataStructure object = tightUnmarsalNestedObject(wireFormat, marshaller, dataIn, position + 2, bs);
+                wireFormat.setInUnmarshallCache(index, object);
+                return object;
+            } else {
+                short index = BigEndianBytes.getShort(dataIn, position);
+                wireFormat.setUnmarshalPosition(position + 2);
+                return wireFormat.getFromUnmarshallCache(index);
+            }
+        } else {
+            return tightUnmarsalNestedObject(wireFormat, marshaller, dataIn, position, bs);
+        }
+    }
+
+    protected Throwable tightUnmarsalThrowable(OpenWireFormat wireFormat, byte[] dataIn, int position, BooleanStream bs) throws IOException {
+        if (bs.readBoolean()) {
+            String clazz = tightUnmarshalString(wireFormat, dataIn, position, bs);
+            String message = tightUnmarshalString(wireFormat, dataIn, wireFormat.getUnmarshalPosition(), bs);
+            position = wireFormat.getUnmarshalPosition();
+            Throwable o = createThrowable(clazz, message);
+            if (wireFormat.isStackTraceEnabled()) {
+                short size = BigEndianBytes.getShort(dataIn, position);
+                position += 2;
+                StackTraceElement ss[] = STACK_TRACE_ELEMENT_CONSTRUCTOR != null ? new StackTraceElement[size] : null;
+                for (int i = 0; i < size; i++) {
+                    String className = tightUnmarshalString(wireFormat, dataIn, position, bs);
+                    String methodName = tightUnmarshalString(wireFormat, dataIn, wireFormat.getUnmarshalPosition(), bs);
+                    String fileName = tightUnmarshalString(wireFormat, dataIn, wireFormat.getUnmarshalPosition(), bs);
+                    position = wireFormat.getUnmarshalPosition();
+                    int lineNumber = BigEndianBytes.getInt(dataIn, position);
+                    position += 4;
+                    if (ss != null) {
+                        try {
+                            ss[i] = STACK_TRACE_ELEMENT_CONSTRUCTOR.newInstance(new Object[] { className, methodName, fileName, Integer.valueOf(lineNumber) });
+                        } catch (Throwable e) {
+                        }
+                    }
+                }
+                if (ss != null) {
+                    o.setStackTrace(ss);
+                }
+                o.initCause(tightUnmarsalThrowable(wireFormat, dataIn, position, bs));
+            } else {
+                wireFormat.setUnmarshalPosition(position);
+            }
+            return o;
+        } else {
+            wireFormat.setUnmarshalPosition(position);
+            return null;
+        }
+    }
+
+    @SuppressWarnings("deprecation")
+    protected String tightUnmarshalString(OpenWireFormat wireFormat, byte[] dataIn, int position, BooleanStream bs) throws IOException {
+        if (bs.readBoolean()) {
+            boolean ascii = bs.readBoolean();
+            int size = BigEndianBytes.getShort(dataIn, position) & 0xFFFF;
+            position += 2;
+            require(dataIn, position, size);
+            wireFormat.setUnmarshalPosition(position + size);
+            if (ascii) {
+                // Yes deprecated, but we know what we are doing.
+                // This allows us to create a String from a ASCII byte array. (no UTF-8
+                // decoding)
+                return new String(dataIn, 0, position, size);
+            } else {
+                return OpenWireBufferReader.decodeUTF(dataIn, position, size);
+            }
+        } else {
+            wireFormat.setUnmarshalPosition(position);
+            return null;
+        }
+    }
+
+    /**
+     * Skips over a tightly marshaled String without decoding it.
+     *
+     * @return the position that follows the String.
+     */
+    protected int tightSkipString(OpenWireFormat wireFormat, byte[] dataIn, int position, BooleanStream bs) throws IOException {
+        if (bs.readBoolean()) {
+            bs.readBoolean();
+            int size = BigEndianBytes.getShort(dataIn, position) & 0xFFFF;
+            require(dataIn, position + 2, size);
+            return position + 2 + size;
+        }
+        return position;
+    }
+
+    protected byte[] tightUnmarshalConstByteArray(OpenWireFormat wireFormat, byte[] dataIn, int position, BooleanStream bs, int i) throws IOException {
+        require(dataIn, position, i);
+        byte data[] = new byte[i];
+        System.arraycopy(dataIn, position, data, 0, i);
+        wireFormat.setUnmarshalPosition(position + i);
+        return data;
+    }
+
+    protected byte[] tightUnmarshalByteArray(OpenWireFormat wireFormat, byte[] dataIn, int position, BooleanStream bs) throws IOException {
+        byte rc[] = null;
+        if (bs.readBoolean()) {
+            int size = BigEndianBytes.getInt(dataIn, position);
+            position += 4;
+            require(dataIn, position, size);
+            rc = new byte[size];
+            System.arraycopy(dataIn, position, rc, 0, size);
+            position += size;
+        }
+        wireFormat.setUnmarshalPosition(position);
+        return rc;
+    }
+
+    /**
+     * Reads a byte sequence, when zero copy or lazy message unmarshal is enabled the result
+     * is a slice of the frame's byte array.
+     */
+    protected Buffer tightUnmarshalByteSequence(OpenWireFormat wireFormat, byte[] dataIn, int position, BooleanStream bs) throws IOException {
+        Buffer rc = null;
+        if (bs.readBoolean()) {
+            int size = BigEndianBytes.getInt(dataIn, position);
+            position += 4;
+            require(dataIn, position, size);
+            if (wireFormat.isZeroCopyUnmarshalEnabled() || wireFormat.isLazyMessageUnmarshalEnabled()) {
+                rc = new Buffer(dataIn, position, size);
+            } else {
+                byte[] t = new byte[size];
+                System.arraycopy(dataIn, position, t, 0, size);
+                rc = new Buffer(t, 0, size);
+            }
+            position += size;
+        }
+        wireFormat.setUnmarshalPosition(position);
+        return rc;
+    }
+
+    /**
+     * Checks that a value whose size was read from the frame lies within its array before
+     * anything is allocated for it, the end of the frame itself is checked once it is read.
+     */
+    private static void require(byte[] dataIn, int position, int size) throws EOFException {
+        if (size < 0 || size > dataIn.length - position) {
+            throw new EOFException("Cannot read " + size + " bytes with " + (dataIn.length - position) + " remaining");
+        }
+    }
+
     //
     // The loose marshaling logic
     //
@@ -441,6 +990,11 @@ public abstract class BaseDataStreamMarshaller implements DataStreamMarshaller {
     public void looseUnmarshal(OpenWireFormat wireFormat, Object o, DataInput dataIn) throws IOException {
     }
 
+    @Override
+    public int looseMarshalSize(OpenWireFormat wireFormat, Object o) throws IOException {
+        return 0;
+    }
+
     public void looseMarshalLong(OpenWireFormat wireFormat, long o, DataOutput dataOut) throws IOException {
         dataOut.writeLong(o);
     }
@@ -457,6 +1011,10 @@ public abstract class BaseDataStreamMarshaller implements DataStreamMarshaller {
         wireFormat.looseMarshalNestedObject(o, dataOut);
     }
 
+    protected int looseMarshalNestedObjectSize(OpenWireFormat wireFormat, DataStructure o) throws IOException {
+        return wireFormat.looseMarshalNestedObjectSize(o);
+    }
+
     protected DataStructure looseUnmarsalCachedObject(OpenWireFormat wireFormat, DataInput dataIn) throws IOException {
         if (wireFormat.isCacheEnabled()) {
             if (dataIn.readBoolean()) {
@@ -475,20 +1033,49 @@ public abstract class BaseDataStreamMarshaller implements DataStreamMarshaller {
 
     protected void looseMarshalCachedObject(OpenWireFormat wireFormat, DataStructure o, DataOutput dataOut) throws IOException {
         if (wireFormat.isCacheEnabled()) {
-            Short index = wireFormat.getMarshallCacheIndex(o);
-            dataOut.writeBoolean(index == null);
-            if (index == null) {
-                index = wireFormat.addToMarshallCache(o);
-                dataOut.writeShort(index.shortValue());
+            short index = wireFormat.lookupMarshallCacheIndex(o);
+            dataOut.writeBoolean(index < 0);
+            if (index < 0) {
+                index = wireFormat.addMarshallCacheValue(o);
+                dataOut.writeShort(index);
+                int startPosition = bytesWritten(dataOut);
                 wireFormat.looseMarshalNestedObject(o, dataOut);
+                if (startPosition >= 0) {
+                    wireFormat.setMarshallCacheEncodedSize(index, bytesWritten(dataOut) - startPosition);
+                }
             } else {
-                dataOut.writeShort(index.shortValue());
+                dataOut.writeShort(index);
             }
         } else {
             wireFormat.looseMarshalNestedObject(o, dataOut);
         }
     }
 
+    /**
+     * @return the number of bytes written so far to the given output when it keeps count of
+     *         them, otherwise -1 and the value is not counted in the cache statistics.
+     */
+    private static int bytesWritten(DataOutput dataOut) {
+        if (dataOut instanceof DataByteArrayOutputStream) {
+            return ((DataByteArrayOutputStream) dataOut).position();
+        } else if (dataOut instanceof DataOutputStream) {
+            return ((DataOutputStream) dataOut).size();
+        }
+        return -1;
+    }
+
+    protected int looseMarshalCachedObjectSize(OpenWireFormat wireFormat, DataStructure o) throws IOException {
+        if (wireFormat.isCacheEnabled()) {
+            if (wireFormat.predictMarshallCacheHit(o)) {
+                return 1 + 2;
+            } else {
+                return 1 + 2 + wireFormat.looseMarshalNestedObjectSize(o);
+            }
+        } else {
+            return wireFormat.looseMarshalNestedObjectSize(o);
+        }
+    }
+
     protected Throwable looseUnmarsalThrowable(OpenWireFormat wireFormat, DataInput dataIn) throws IOException {
         if (dataIn.readBoolean()) {
             String clazz = looseUnmarshalString(dataIn);
@@ -545,6 +1132,27 @@ public abstract class BaseDataStreamMarshaller implements DataStreamMarshaller {
         }
     }
 
+    protected int looseMarshalThrowableSize(OpenWireFormat wireFormat, Throwable o) throws IOException {
+        int rc = 1;
+        if (o != null) {
+            rc += looseMarshalStringSize(o.getClass().getName());
+            rc += looseMarshalStringSize(o.getMessage());
+            if (wireFormat.isStackTraceEnabled()) {
+                StackTraceElement[] stackTrace = o.getStackTrace();
+                rc += 2;
+                for (int i = 0; i < stackTrace.length; i++) {
+                    StackTraceElement element = stackTrace[i];
+                    rc += looseMarshalStringSize(element.getClassName());
+                    rc += looseMarshalStringSize(element.getMethodName());
+                    rc += looseMarshalStringSize(element.getFileName());
+                    rc += 4;
+                }
+                rc += looseMarshalThrowableSize(wireFormat, o.getCause());
+            }
+        }
+        return rc;
+    }
+
     protected String looseUnmarshalString(DataInput dataIn) throws IOException {
         if (dataIn.readBoolean()) {
             return dataIn.readUTF();
@@ -560,6 +1168,25 @@ public abstract class BaseDataStreamMarshaller implements DataStreamMarshaller {
         }
     }
 
+    protected int looseMarshalStringSize(String value) throws IOException {
+        int rc = 1;
+        if (value != null) {
+            rc += 2;
+            int strlen = value.length();
+            for (int i = 0; i < strlen; i++) {
+                int c = value.charAt(i);
+                if ((c >= 0x0001) && (c <= 0x007F)) {
+                    rc++;
+                } else if (c > 0x07FF) {
+                    rc += 3;
+                } else {
+                    rc += 2;
+                }
+            }
+        }
+        return rc;
+    }
+
     protected void looseMarshalObjectArray(OpenWireFormat wireFormat, DataStructure[] objects, DataOutput dataOut) throws IOException {
         dataOut.writeBoolean(objects != null);
         if (objects != null) {
@@ -570,6 +1197,17 @@ public abstract class BaseDataStreamMarshaller implements DataStreamMarshaller {
         }
     }
 
+    protected int looseMarshalObjectArraySize(OpenWireFormat wireFormat, DataStructure[] objects) throws IOException {
+        int rc = 1;
+        if (objects != null) {
+            rc += 2;
+            for (int i = 0; i < objects.length; i++) {
+                rc += looseMarshalNestedObjectSize(wireFormat, objects[i]);
+            }
+        }
+        return rc;
+    }
+
     protected void looseMarshalConstByteArray(OpenWireFormat wireFormat, byte[] data, DataOutput dataOut, int i) throws IOException {
         dataOut.write(data, 0, i);
     }
@@ -606,6 +1244,10 @@ public abstract class BaseDataStreamMarshaller implements DataStreamMarshaller {
         }
     }
 
+    protected int looseMarshalByteSequenceSize(OpenWireFormat wireFormat, Buffer data) throws IOException {
+        return data != null ? 1 + 4 + data.getLength() : 1;
+    }
+
     protected Buffer looseUnmarshalByteSequence(DataInput dataIn) throws IOException {
         Buffer rc = null;
         if (dataIn.readBoolean()) {
@@ -616,4 +1258,252 @@ public abstract class BaseDataStreamMarshaller implements DataStreamMarshaller {
         }
         return rc;
     }
+
+    protected Buffer looseUnmarshalByteSequence(OpenWireFormat wireFormat, DataInput dataIn) throws IOException {
+        Buffer rc = null;
+        if (dataIn.readBoolean()) {
+            int size = dataIn.readInt();
+            rc = readByteSequence(wireFormat, dataIn, size);
+        }
+        return rc;
+    }
+
+    /**
+     * Reads a byte sequence of the given size, when zero copy or lazy message unmarshal is
+     * enabled and the input is backed by the frame's byte array the result is a slice of
+     * that array.
+     */
+    private Buffer readByteSequence(OpenWireFormat wireFormat, DataInput dataIn, int size) throws IOException {
+        if (dataIn instanceof OpenWireBufferReader) {
+            return readByteSequence(wireFormat, (OpenWireBufferReader) dataIn, size);
+        }
+
+        if ((wireFormat.isZeroCopyUnmarshalEnabled() || wireFormat.isLazyMessageUnmarshalEnabled()) &&
+            dataIn instanceof DataByteArrayInputStream) {
+            DataByteArrayInputStream frame = (DataByteArrayInputStream) dataIn;
+            if (size < 0 || frame.available() < size) {
+                throw new EOFException();
+            }
+            return frame.readBuffer(size);
+        }
+
+        byte[] t = new byte[size];
+        dataIn.readFully(t);
+        return new Buffer(t, 0, size);
+    }
+
+    //
+    // The OpenWireBufferReader and OpenWireBufferWriter logic, the same as the DataInput and
+    // DataOutput methods above but with calls the JIT can resolve to the final reader and writer.
+    //
+
+    /**
+     * The root of the OpenWireBufferReader form of tightUnmarshal, overridden by the marshallers
+     * that implement OpenWireBufferMarshaller.
+     */
+    public void tightUnmarshal(OpenWireFormat wireFormat, Object o, OpenWireBufferReader dataIn, BooleanStream bs) throws IOException {
+    }
+
+    /**
+     * The root of the OpenWireBufferWriter form of looseMarshal, overridden by the marshallers
+     * that implement OpenWireBufferMarshaller.
+     */
+    public void looseMarshal(OpenWireFormat wireFormat, Object o, OpenWireBufferWriter dataOut) throws IOException {
+    }
+
+    /**
+     * The root of the OpenWireBufferReader form of looseUnmarshal, overridden by the marshallers
+     * that implement OpenWireBufferMarshaller.
+     */
+    public void looseUnmarshal(OpenWireFormat wireFormat, Object o, OpenWireBufferReader dataIn) throws IOException {
+    }
+
+    public long tightUnmarshalLong(OpenWireFormat wireFormat, OpenWireBufferReader dataIn, BooleanStream bs) throws IOException {
+        switch (bs.readBits(2)) {
+            case LONG_SIZE_LONG:
+                return dataIn.readLong();
+            case LONG_SIZE_INT:
+                return toLong(dataIn.readInt());
+            case LONG_SIZE_SHORT:
+                return toLong(dataIn.readShort());
+            default:
+                return 0;
+        }
+    }
+
+    protected DataStructure tightUnmarsalNestedObject(OpenWireFormat wireFormat, OpenWireBufferReader dataIn, BooleanStream bs) throws IOException {
+        return wireFormat.tightUnmarshalNestedObject(dataIn, bs);
+    }
+
+    protected DataStructure tightUnmarsalCachedObject(OpenWireFormat wireFormat, OpenWireBufferReader dataIn, BooleanStream bs) throws IOException {
+        if (wireFormat.isCacheEnabled()) {
+            if (bs.readBoolean()) {
+                short index = dataIn.readShort();
+                DataStructure object = wireFormat.tightUnmarshalNestedObject(dataIn, bs);
+                wireFormat.setInUnmarshallCache(index, object);
+                return object;
+            } else {
+                short index = dataIn.readShort();
+                return wireFormat.getFromUnmarshallCache(index);
+            }
+        } else {
+            return wireFormat.tightUnmarshalNestedObject(dataIn, bs);
+        }
+    }
+
+    @SuppressWarnings("deprecation")
+    protected String tightUnmarshalString(OpenWireBufferReader dataIn, BooleanStream bs) throws IOException {
+        if (bs.readBoolean()) {
+            if (bs.readBoolean()) {
+                int size = dataIn.readShort();
+                byte data[] = new byte[size];
+                dataIn.readFully(data);
+                // Yes deprecated, but we know what we are doing.
+                // This allows us to create a String from a ASCII byte array. (no UTF-8
+                // decoding)
+                return new String(data, 0);
+            } else {
+                return dataIn.readUTF();
+            }
+        } else {
+            return null;
+        }
+    }
+
+    protected byte[] tightUnmarshalByteArray(OpenWireBufferReader dataIn, BooleanStream bs) throws IOException {
+        byte rc[] = null;
+        if (bs.readBoolean()) {
+            int size = dataIn.readInt();
+            rc = new byte[size];
+            dataIn.readFully(rc);
+        }
+        return rc;
+    }
+
+    protected Buffer tightUnmarshalByteSequence(OpenWireBufferReader dataIn, BooleanStream bs) throws IOException {
+        Buffer rc = null;
+        if (bs.readBoolean()) {
+            int size = dataIn.readInt();
+            byte[] t = new byte[size];
+            dataIn.readFully(t);
+            return new Buffer(t, 0, size);
+        }
+        return rc;
+    }
+
+    protected Buffer tightUnmarshalByteSequence(OpenWireFormat wireFormat, OpenWireBufferReader dataIn, BooleanStream bs) throws IOException {
+        Buffer rc = null;
+        if (bs.readBoolean()) {
+            int size = dataIn.readInt();
+            rc = readByteSequence(wireFormat, dataIn, size);
+        }
+        return rc;
+    }
+
+    public void looseMarshalLong(OpenWireFormat wireFormat, long o, OpenWireBufferWriter dataOut) throws IOException {
+        dataOut.writeLong(o);
+    }
+
+    public long looseUnmarshalLong(OpenWireFormat wireFormat, OpenWireBufferReader dataIn) throws IOException {
+        return dataIn.readLong();
+    }
+
+    protected DataStructure looseUnmarsalNestedObject(OpenWireFormat wireFormat, OpenWireBufferReader dataIn) throws IOException {
+        return wireFormat.looseUnmarshalNestedObject(dataIn);
+    }
+
+    protected void looseMarshalNestedObject(OpenWireFormat wireFormat, DataStructure o, OpenWireBufferWriter dataOut) throws IOException {
+        wireFormat.looseMarshalNestedObject(o, dataOut);
+    }
+
+    protected DataStructure looseUnmarsalCachedObject(OpenWireFormat wireFormat, OpenWireBufferReader dataIn) throws IOException {
+        if (wireFormat.isCacheEnabled()) {
+            if (dataIn.readBoolean()) {
+                short index = dataIn.readShort();
+                DataStructure object = wireFormat.looseUnmarshalNestedObject(dataIn);
+                wireFormat.setInUnmarshallCache(index, object);
+                return object;
+            } else {
+                short index = dataIn.readShort();
+                return wireFormat.getFromUnmarshallCache(index);
+            }
+        } else {
+            return wireFormat.looseUnmarshalNestedObject(dataIn);
+        }
+    }
+
+    protected void looseMarshalCachedObject(OpenWireFormat wireFormat, DataStructure o, OpenWireBufferWriter dataOut) throws IOException {
+        if (wireFormat.isCacheEnabled()) {
+            short index = wireFormat.lookupMarshallCacheIndex(o);
+            dataOut.writeBoolean(index < 0);
+            if (index < 0) {
+                index = wireFormat.addMarshallCacheValue(o);
+                dataOut.writeShort(index);
+                int startPosition = dataOut.position();
+                wireFormat.looseMarshalNestedObject(o, dataOut);
+                wireFormat.setMarshallCacheEncodedSize(index, dataOut.position() - startPosition);
+            } else {
+                dataOut.writeShort(index);
+            }
+        } else {
+            wireFormat.looseMarshalNestedObject(o, dataOut);
+        }
+    }
+
+    protected String looseUnmarshalString(OpenWireBufferReader dataIn) throws IOException {
+        if (dataIn.readBoolean()) {
+            return dataIn.readUTF();
+        } else {
+            return null;
+        }
+    }
+
+    protected void looseMarshalString(String value, OpenWireBufferWriter dataOut) throws IOException {
+        dataOut.writeBoolean(value != null);
+        if (value != null) {
+            dataOut.writeUTF(value);
+        }
+    }
+
+    protected void looseMarshalByteSequence(OpenWireFormat wireFormat, Buffer data, OpenWireBufferWriter dataOut) throws IOException {
+        dataOut.writeBoolean(data != null);
+        if (data != null) {
+            dataOut.writeInt(data.getLength());
+            dataOut.write(data.getData(), data.getOffset(), data.getLength());
+        }
+    }
+
+    protected Buffer looseUnmarshalByteSequence(OpenWireBufferReader dataIn) throws IOException {
+        Buffer rc = null;
+        if (dataIn.readBoolean()) {
+            int size = dataIn.readInt();
+            byte[] t = new byte[size];
+            dataIn.readFully(t);
+            rc = new Buffer(t, 0, size);
+        }
+        return rc;
+    }
+
+    protected Buffer looseUnmarshalByteSequence(OpenWireFormat wireFormat, OpenWireBufferReader dataIn) throws IOException {
+        Buffer rc = null;
+        if (dataIn.readBoolean()) {
+            int size = dataIn.readInt();
+            rc = readByteSequence(wireFormat, dataIn, size);
+        }
+        return rc;
+    }
+
+    /**
+     * Reads a byte sequence of the given size, when zero copy or lazy message unmarshal is
+     * enabled the result is a slice of the frame's byte array.
+     */
+    private Buffer readByteSequence(OpenWireFormat wireFormat, OpenWireBufferReader dataIn, int size) throws IOException {
+        if (wireFormat.isZeroCopyUnmarshalEnabled() || wireFormat.isLazyMessageUnmarshalEnabled()) {
+            return dataIn.readBuffer(size);
+        }
+
+        byte[] t = new byte[size];
+        dataIn.readFully(t);
+        return new Buffer(t, 0, size);
+    }
 }
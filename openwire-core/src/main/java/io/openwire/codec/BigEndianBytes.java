@@ -0,0 +1,91 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.openwire.codec;
+
+/**
+ * Big endian primitive reads and writes against a byte array at an explicit position, used
+ * by the marshallers that work straight against the array backing a frame.
+ *
+ * No bounds checks are made beyond those of the array itself, the callers size the array
+ * from the first tight marshal pass before anything is written and check that a frame was
+ * not read past its end once it has been unmarshaled.  Each put method returns the position
+ * that follows the last byte it wrote.
+ */
+public final class BigEndianBytes {
+
+    private BigEndianBytes() {
+    }
+
+    public static int putBoolean(byte[] data, int position, boolean value) {
+        data[position] = value ? (byte) 1 : (byte) 0;
+        return position + 1;
+    }
+
+    public static int putByte(byte[] data, int position, int value) {
+        data[position] = (byte) value;
+        return position + 1;
+    }
+
+    public static int putShort(byte[] data, int position, int value) {
+        data[position] = (byte) (value >>> 8);
+        data[position + 1] = (byte) value;
+        return position + 2;
+    }
+
+    public static int putChar(byte[] data, int position, int value) {
+        data[position] = (byte) (value >>> 8);
+        data[position + 1] = (byte) value;
+        return position + 2;
+    }
+
+    public static int putInt(byte[] data, int position, int value) {
+        data[position] = (byte) (value >>> 24);
+        data[position + 1] = (byte) (value >>> 16);
+        data[position + 2] = (byte) (value >>> 8);
+        data[position + 3] = (byte) value;
+        return position + 4;
+    }
+
+    public static int putLong(byte[] data, int position, long value) {
+        putInt(data, position, (int) (value >>> 32));
+        return putInt(data, position + 4, (int) value);
+    }
+
+    public static int putBytes(byte[] data, int position, byte[] value, int offset, int length) {
+        System.arraycopy(value, offset, data, position, length);
+        return position + length;
+    }
+
+    public static short getShort(byte[] data, int position) {
+        return (short) (((data[position] & 0xFF) << 8) | (data[position + 1] & 0xFF));
+    }
+
+    public static char getChar(byte[] data, int position) {
+        return (char) getShort(data, position);
+    }
+
+    public static int getInt(byte[] data, int position) {
+        return ((data[position] & 0xFF) << 24) | ((data[position + 1] & 0xFF) << 16) |
+               ((data[position + 2] & 0xFF) << 8) | (data[position + 3] & 0xFF);
+    }
+
+    public static long getLong(byte[] data, int position) {
+        long high = getInt(data, position);
+        long low = getInt(data, position + 4);
+        return (high << 32) | (low & 0xFFFFFFFFL);
+    }
+}
@@ -21,46 +21,149 @@ import java.io.DataOutput;
 import java.io.IOException;
 import java.nio.ByteBuffer;
 
+/**
+ * Stream of bits used by the tight encoding to pack all the boolean values and
+ * null markers of a command together at the front of its frame.
+ *
+ * The bits are held in long words, bit N of the stream being bit (N % 64) of word
+ * (N / 64), which keeps the little endian byte layout of the wire format so each word
+ * maps onto eight consecutive bytes of the marshaled form.  An instance is meant to be
+ * reset and reused for every frame rather than being created per frame.
+ */
 public final class BooleanStream {
 
-    byte data[] = new byte[48];
-    short arrayLimit;
-    short arrayPos;
-    byte bytePos;
+    private static final int INITIAL_WORDS = 8;
+
+    private long words[];
+    private int bitLimit;
+    private int bitPos;
+
+    public BooleanStream() {
+        this.words = new long[INITIAL_WORDS];
+    }
+
+    private BooleanStream(long words[], int bitLimit, int bitPos) {
+        this.words = words;
+        this.bitLimit = bitLimit;
+        this.bitPos = bitPos;
+    }
 
     public boolean readBoolean() throws IOException {
-        assert arrayPos <= arrayLimit;
-        byte b = data[arrayPos];
-        boolean rc = ((b >> bytePos) & 0x01) != 0;
-        bytePos++;
-        if (bytePos >= 8) {
-            bytePos = 0;
-            arrayPos++;
-        }
+        assert bitPos < bitLimit;
+        boolean rc = ((words[bitPos >>> 6] >>> bitPos) & 0x01L) != 0;
+        bitPos++;
         return rc;
     }
 
+    /**
+     * Reads several bits at once, the first bit read being the least significant bit
+     * of the returned value.
+     *
+     * @param count
+     *        the number of bits to read, between 1 and 32.
+     *
+     * @return the bits that were read.
+     *
+     * @throws IOException if an error occurs while reading the bits.
+     */
+    public int readBits(int count) throws IOException {
+        assert bitPos + count <= bitLimit;
+        int bits = getBits(bitPos, count);
+        bitPos += count;
+        return bits;
+    }
+
+    /**
+     * Skips over bits that are not needed, as if they had been read.
+     *
+     * @param count
+     *        the number of bits to skip.
+     */
+    public void skipBits(int count) {
+        assert bitPos + count <= bitLimit;
+        bitPos += count;
+    }
+
+    /**
+     * @return the index of the next bit to read.
+     */
+    public int getBitPosition() {
+        return bitPos;
+    }
+
+    private int getBits(int position, int count) {
+        int index = position >>> 6;
+        int offset = position & 63;
+        long bits = words[index] >>> offset;
+        if (offset + count > 64) {
+            bits |= words[index + 1] << (64 - offset);
+        }
+        return (int) (bits & ((1L << count) - 1));
+    }
+
     public void writeBoolean(boolean value) throws IOException {
-        if (bytePos == 0) {
-            arrayLimit++;
-            if (arrayLimit >= data.length) {
-                // re-grow the array.
-                byte d[] = new byte[data.length * 2];
-                System.arraycopy(data, 0, d, 0, data.length);
-                data = d;
-            }
+        int index = bitLimit >>> 6;
+        if ((bitLimit & 63) == 0) {
+            ensureCapacity(index + 1);
+            words[index] = 0;
         }
         if (value) {
-            data[arrayPos] |= 0x01 << bytePos;
+            words[index] |= 1L << bitLimit;
         }
-        bytePos++;
-        if (bytePos >= 8) {
-            bytePos = 0;
-            arrayPos++;
+        bitLimit++;
+    }
+
+    /**
+     * Copies bits of another stream, which is left unchanged, to the end of this one.
+     *
+     * @param source
+     *        the stream to copy the bits from.
+     * @param position
+     *        the index in the source of the first bit to copy.
+     * @param count
+     *        the number of bits to copy.
+     *
+     * @throws IOException if an error occurs while writing the bits.
+     */
+    public void writeBits(BooleanStream source, int position, int count) throws IOException {
+        while (count > 0) {
+            int n = Math.min(32, count);
+            writeBits(source.getBits(position, n), n);
+            position += n;
+            count -= n;
         }
     }
 
+    /**
+     * Writes several bits at once, the least significant bit of the value is written
+     * first so that it is the first one returned when the bits are read back.
+     *
+     * @param value
+     *        the bits to write.
+     * @param count
+     *        the number of bits to write, between 1 and 32.
+     *
+     * @throws IOException if an error occurs while writing the bits.
+     */
+    public void writeBits(int value, int count) throws IOException {
+        long bits = value & ((1L << count) - 1);
+        int index = bitLimit >>> 6;
+        int offset = bitLimit & 63;
+        if (offset == 0) {
+            ensureCapacity(index + 1);
+            words[index] = bits;
+        } else {
+            words[index] |= bits << offset;
+            if (offset + count > 64) {
+                ensureCapacity(index + 2);
+                words[index + 1] = bits >>> (64 - offset);
+            }
+        }
+        bitLimit += count;
+    }
+
     public void marshal(DataOutput dataOut) throws IOException {
+        int arrayLimit = arrayLimit();
         if (arrayLimit < 64) {
             dataOut.writeByte(arrayLimit);
         } else if (arrayLimit < 256) { // max value of unsigned byte
@@ -71,11 +174,21 @@ public final class BooleanStream {
             dataOut.writeShort(arrayLimit);
         }
 
-        dataOut.write(data, 0, arrayLimit);
+        int fullWords = arrayLimit >>> 3;
+        for (int i = 0; i < fullWords; i++) {
+            dataOut.writeLong(Long.reverseBytes(words[i]));
+        }
+        for (int i = fullWords << 3; i < arrayLimit; i++) {
+            dataOut.writeByte((int) (words[i >>> 3] >>> ((i & 7) << 3)));
+        }
         clear();
     }
 
+    /**
+     * Writes the stream to the given buffer, which must be in big endian order.
+     */
     public void marshal(ByteBuffer dataOut) {
+        int arrayLimit = arrayLimit();
         if (arrayLimit < 64) {
             dataOut.put((byte) arrayLimit);
         } else if (arrayLimit < 256) { // max value of unsigned byte
@@ -83,32 +196,154 @@ public final class BooleanStream {
             dataOut.put((byte) arrayLimit);
         } else {
             dataOut.put((byte) 0x80);
-            dataOut.putShort(arrayLimit);
+            dataOut.putShort((short) arrayLimit);
         }
 
-        dataOut.put(data, 0, arrayLimit);
+        int fullWords = arrayLimit >>> 3;
+        for (int i = 0; i < fullWords; i++) {
+            dataOut.putLong(Long.reverseBytes(words[i]));
+        }
+        for (int i = fullWords << 3; i < arrayLimit; i++) {
+            dataOut.put((byte) (words[i >>> 3] >>> ((i & 7) << 3)));
+        }
+        clear();
+    }
+
+    /**
+     * Writes the stream into the given array at the given position.
+     *
+     * @return the position that follows the last byte written.
+     */
+    public int marshal(byte[] dataOut, int position) {
+        int arrayLimit = arrayLimit();
+        if (arrayLimit < 64) {
+            dataOut[position++] = (byte) arrayLimit;
+        } else if (arrayLimit < 256) { // max value of unsigned byte
+            dataOut[position++] = (byte) 0xC0;
+            dataOut[position++] = (byte) arrayLimit;
+        } else {
+            dataOut[position++] = (byte) 0x80;
+            position = BigEndianBytes.putShort(dataOut, position, arrayLimit);
+        }
+
+        int fullWords = arrayLimit >>> 3;
+        for (int i = 0; i < fullWords; i++) {
+            position = BigEndianBytes.putLong(dataOut, position, Long.reverseBytes(words[i]));
+        }
+        for (int i = fullWords << 3; i < arrayLimit; i++) {
+            dataOut[position++] = (byte) (words[i >>> 3] >>> ((i & 7) << 3));
+        }
+        clear();
+        return position;
     }
 
     public void unmarshal(DataInput dataIn) throws IOException {
-        arrayLimit = (short) (dataIn.readByte() & 0xFF);
+        int arrayLimit = dataIn.readByte() & 0xFF;
         if (arrayLimit == 0xC0) {
-            arrayLimit = (short) (dataIn.readByte() & 0xFF);
+            arrayLimit = dataIn.readByte() & 0xFF;
         } else if (arrayLimit == 0x80) {
             arrayLimit = dataIn.readShort();
         }
-        if (data.length < arrayLimit) {
-            data = new byte[arrayLimit];
+
+        int wordCount = (arrayLimit + 7) >>> 3;
+        ensureCapacity(wordCount);
+
+        int fullWords = arrayLimit >>> 3;
+        for (int i = 0; i < fullWords; i++) {
+            words[i] = Long.reverseBytes(dataIn.readLong());
+        }
+        if (fullWords < wordCount) {
+            long word = 0;
+            for (int i = 0; i < (arrayLimit & 7); i++) {
+                word |= (dataIn.readByte() & 0xFFL) << (i << 3);
+            }
+            words[fullWords] = word;
+        }
+
+        bitLimit = arrayLimit << 3;
+        clear();
+    }
+
+    /**
+     * Reads the stream from the given array at the given position.
+     *
+     * @return the position that follows the last byte read.
+     */
+    public int unmarshal(byte[] dataIn, int position) {
+        int arrayLimit = dataIn[position++] & 0xFF;
+        if (arrayLimit == 0xC0) {
+            arrayLimit = dataIn[position++] & 0xFF;
+        } else if (arrayLimit == 0x80) {
+            arrayLimit = BigEndianBytes.getShort(dataIn, position);
+            position += 2;
+        }
+
+        int wordCount = (arrayLimit + 7) >>> 3;
+        ensureCapacity(wordCount);
+
+        int fullWords = arrayLimit >>> 3;
+        for (int i = 0; i < fullWords; i++) {
+            words[i] = Long.reverseBytes(BigEndianBytes.getLong(dataIn, position));
+            position += 8;
+        }
+        if (fullWords < wordCount) {
+            long word = 0;
+            for (int i = 0; i < (arrayLimit & 7); i++) {
+                word |= (dataIn[position++] & 0xFFL) << (i << 3);
+            }
+            words[fullWords] = word;
         }
-        dataIn.readFully(data, 0, arrayLimit);
+
+        bitLimit = arrayLimit << 3;
         clear();
+        return position;
+    }
+
+    /**
+     * Creates a stream holding the bits that have not yet been read from this one, used
+     * to come back to the fields of a command whose unmarshal has been deferred.  Only the
+     * words still needed are copied and this stream is left unchanged.
+     *
+     * @return a new stream positioned at the next bit this stream would read.
+     */
+    public BooleanStream remaining() {
+        return remaining(bitPos);
     }
 
+    /**
+     * Creates a stream holding the bits of this one from the given position on, which can
+     * be a bit that has already been read.
+     *
+     * @param position
+     *        the index of the first bit the new stream holds.
+     *
+     * @return a new stream positioned at the given bit.
+     */
+    public BooleanStream remaining(int position) {
+        int first = position >>> 6;
+        int last = (bitLimit + 63) >>> 6;
+        long w[] = new long[Math.max(1, last - first)];
+        System.arraycopy(words, first, w, 0, last - first);
+        return new BooleanStream(w, bitLimit - (first << 6), position - (first << 6));
+    }
+
+    /**
+     * Rewinds the stream so that the bits written to it can be read back.
+     */
     public void clear() {
-        arrayPos = 0;
-        bytePos = 0;
+        bitPos = 0;
+    }
+
+    /**
+     * Discards all the bits in the stream so that it can be reused for another frame.
+     */
+    public void reset() {
+        bitLimit = 0;
+        bitPos = 0;
     }
 
     public int marshalledSize() {
+        int arrayLimit = arrayLimit();
         if (arrayLimit < 64) {
             return 1 + arrayLimit;
         } else if (arrayLimit < 256) {
@@ -117,4 +352,16 @@ public final class BooleanStream {
             return 3 + arrayLimit;
         }
     }
+
+    private int arrayLimit() {
+        return (bitLimit + 7) >>> 3;
+    }
+
+    private void ensureCapacity(int wordCount) {
+        if (wordCount > words.length) {
+            long w[] = new long[Math.max(wordCount, words.length * 2)];
+            System.arraycopy(words, 0, w, 0, words.length);
+            words = w;
+        }
+    }
 }
@@ -0,0 +1,74 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.openwire.codec;
+
+import java.io.IOException;
+
+/**
+ * Implemented by the marshallers that can run the second tight marshal pass and the tight
+ * unmarshal straight against the byte array that backs a frame instead of through a
+ * DataOutput or a DataInput.
+ *
+ * An OpenWireFormat only takes this path when every marshaller of its protocol version
+ * implements this interface, so the nested objects of a command can always be written
+ * and read the same way as the command itself.
+ */
+public interface ByteArrayMarshaller extends DataStreamMarshaller {
+
+    /**
+     * Writes the object into the given array, the BooleanStream must hold the booleans
+     * produced by tightMarshal1 for the same object.
+     *
+     * @param format
+     *        the OpenWireFormat the object is marshaled with.
+     * @param c
+     *        the object to marshal.
+     * @param data
+     *        the array to write to, which must have room for the size that tightMarshal1 returned.
+     * @param position
+     *        the position in the array of the first byte to write.
+     * @param bs
+     *        the BooleanStream filled by tightMarshal1.
+     *
+     * @return the position that follows the last byte written.
+     *
+     * @throws IOException if an error occurs while marshaling the object.
+     */
+    int tightMarshal2(OpenWireFormat format, Object c, byte[] data, int position, BooleanStream bs) throws IOException;
+
+    /**
+     * Reads the object from the given array, the BooleanStream must hold the booleans of the
+     * frame positioned at the first one that belongs to the object.
+     *
+     * @param format
+     *        the OpenWireFormat the object is unmarshaled with.
+     * @param o
+     *        the object to fill in.
+     * @param data
+     *        the array holding the frame.
+     * @param position
+     *        the position in the array of the first byte to read.
+     * @param bs
+     *        the BooleanStream read from the frame.
+     *
+     * @return the position that follows the last byte read.
+     *
+     * @throws IOException if an error occurs while unmarshaling the object.
+     */
+    int tightUnmarshal(OpenWireFormat format, Object o, byte[] data, int position, BooleanStream bs) throws IOException;
+
+}
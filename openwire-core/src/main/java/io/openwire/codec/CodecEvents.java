@@ -0,0 +1,140 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.openwire.codec;
+
+import java.util.Iterator;
+import java.util.ServiceLoader;
+
+/**
+ * Entry point for the optional tracing events emitted while frames are encoded and
+ * decoded and while message bodies are compressed.
+ *
+ * The events are produced by a {@link Provider} discovered once with the ServiceLoader,
+ * the openwire-jfr module supplies one that records Java Flight Recorder events.  When no
+ * provider is present every begin method returns null and the only cost to the codec is a
+ * check of a static final field, when a provider is present but its events are disabled
+ * the cost is the provider's own enabled check.
+ */
+public final class CodecEvents {
+
+    /**
+     * Creates the events, implementations are registered in
+     * META-INF/services/io.openwire.codec.CodecEvents$Provider
+     */
+    public interface Provider {
+
+        /**
+         * @return a started event for the encode of one frame, or null if the event is disabled.
+         */
+        FrameEvent beginEncode();
+
+        /**
+         * @return a started event for the decode of one frame, or null if the event is disabled.
+         */
+        FrameEvent beginDecode();
+
+        /**
+         * @return a started event for the compression of a message body, or null if disabled.
+         */
+        CompressionEvent beginCompress();
+
+        /**
+         * @return a started event for the decompression of a message body, or null if disabled.
+         */
+        CompressionEvent beginDecompress();
+
+    }
+
+    /**
+     * An in progress frame encode or decode.
+     */
+    public interface FrameEvent {
+
+        /**
+         * Ends the event and records it.
+         *
+         * @param version
+         *        the OpenWire protocol version of the frame.
+         * @param type
+         *        the data structure type of the command, NULL_TYPE for a null command.
+         * @param size
+         *        the size of the frame in bytes including any size prefix, zero if unknown.
+         */
+        void commit(int version, byte type, int size);
+
+    }
+
+    /**
+     * An in progress message body compression or decompression.
+     */
+    public interface CompressionEvent {
+
+        /**
+         * Ends the event and records it.
+         *
+         * @param type
+         *        the data structure type of the message.
+         * @param size
+         *        the size of the uncompressed body in bytes.
+         * @param compressedSize
+         *        the size of the compressed body in bytes.
+         */
+        void commit(byte type, int size, int compressedSize);
+
+    }
+
+    private static final Provider PROVIDER = loadProvider();
+
+    private CodecEvents() {
+    }
+
+    /**
+     * @return true if a provider was found and events may be emitted.
+     */
+    public static boolean isProviderPresent() {
+        return PROVIDER != null;
+    }
+
+    static FrameEvent beginEncode() {
+        return PROVIDER != null ? PROVIDER.beginEncode() : null;
+    }
+
+    static FrameEvent beginDecode() {
+        return PROVIDER != null ? PROVIDER.beginDecode() : null;
+    }
+
+    public static CompressionEvent beginCompress() {
+        return PROVIDER != null ? PROVIDER.beginCompress() : null;
+    }
+
+    public static CompressionEvent beginDecompress() {
+        return PROVIDER != null ? PROVIDER.beginDecompress() : null;
+    }
+
+    private static Provider loadProvider() {
+        try {
+            Iterator<Provider> providers = ServiceLoader.load(Provider.class, CodecEvents.class.getClassLoader()).iterator();
+            if (providers.hasNext()) {
+                return providers.next();
+            }
+        } catch (Throwable error) {
+            // A provider that cannot run on this JVM, such as one built on JFR, is ignored.
+        }
+
+        return null;
+    }
+}
@@ -0,0 +1,236 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.openwire.codec;
+
+import io.openwire.commands.DataStructure;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Counts the frames encoded and decoded by one or more OpenWireFormat instances, per command
+ * type, along with their total size and a histogram of the time spent marshaling them.
+ *
+ * Each OpenWireFormat that the metrics are given to records into a {@link Recorder} of its own,
+ * which is only ever updated by the thread encoding or decoding with that instance, so recording
+ * needs no locking or contended atomic updates.  A {@link #snapshot()} sums the recorders, the
+ * counters are written with ordered stores so a snapshot taken by another thread may lag behind
+ * the frames in progress.
+ *
+ * A recorder is only weakly tied to the OpenWireFormat it belongs to, once that instance is
+ * garbage collected or moves to other metrics its counts are folded into the retired totals and
+ * the recorder is dropped, so metrics shared by many short lived connections don't grow.
+ */
+public final class CodecMetrics {
+
+    /**
+     * The number of buckets in a latency histogram, bucket i counts the operations that took
+     * less than 2^i nanoseconds and at least 2^(i-1), the last bucket counts all the slower ones.
+     */
+    public static final int LATENCY_BUCKETS = 32;
+
+    private static final int TYPES = 256;
+
+    // Layout of the counters kept for each direction of each type.
+    static final int FRAMES = 0;
+    static final int BYTES = 1;
+    static final int MAX_BYTES = 2;
+    static final int NANOS = 3;
+    static final int FIRST_BUCKET = 4;
+    static final int COUNTERS = FIRST_BUCKET + LATENCY_BUCKETS;
+
+    private final List<Registration> registrations = new ArrayList<Registration>();
+
+    // The totals of the recorders that have been dropped, guarded by this.
+    private final long[][] retiredEncoded = new long[TYPES][];
+    private final long[][] retiredDecoded = new long[TYPES][];
+
+    /**
+     * @param owner
+     *        the OpenWireFormat that records with the new Recorder.
+     *
+     * @return a new Recorder whose counts are included in the snapshots of these metrics.
+     */
+    synchronized Recorder createRecorder(Object owner) {
+        pruneRecorders();
+        Recorder recorder = new Recorder();
+        registrations.add(new Registration(owner, recorder));
+        return recorder;
+    }
+
+    /**
+     * Drops a Recorder that will no longer be written, keeping its counts in the totals.
+     *
+     * @param recorder
+     *        the Recorder returned by an earlier call to createRecorder.
+     */
+    synchronized void removeRecorder(Recorder recorder) {
+        for (Iterator<Registration> iterator = registrations.iterator(); iterator.hasNext();) {
+            Registration registration = iterator.next();
+            if (registration.recorder == recorder) {
+                retire(recorder);
+                iterator.remove();
+                return;
+            }
+        }
+    }
+
+    /**
+     * @return the totals recorded so far by every OpenWireFormat using these metrics.
+     */
+    public synchronized CodecMetricsSnapshot snapshot() {
+        pruneRecorders();
+
+        long[][] encoded = new long[TYPES][];
+        long[][] decoded = new long[TYPES][];
+
+        for (int type = 0; type < TYPES; ++type) {
+            if (retiredEncoded[type] != null) {
+                encoded[type] = retiredEncoded[type].clone();
+                decoded[type] = retiredDecoded[type].clone();
+            }
+        }
+
+        for (Registration registration : registrations) {
+            sum(encoded, decoded, registration.recorder);
+        }
+
+        return new CodecMetricsSnapshot(encoded, decoded);
+    }
+
+    /**
+     * @return the number of recorders still registered, used by the tests.
+     */
+    synchronized int getRecorderCount() {
+        pruneRecorders();
+        return registrations.size();
+    }
+
+    private void pruneRecorders() {
+        for (Iterator<Registration> iterator = registrations.iterator(); iterator.hasNext();) {
+            Registration registration = iterator.next();
+            if (registration.owner.get() == null) {
+                retire(registration.recorder);
+                iterator.remove();
+            }
+        }
+    }
+
+    private void retire(Recorder recorder) {
+        sum(retiredEncoded, retiredDecoded, recorder);
+    }
+
+    private static void sum(long[][] encoded, long[][] decoded, Recorder recorder) {
+        for (int type = 0; type < TYPES; ++type) {
+            TypeCounters counters = recorder.types.get(type);
+            if (counters != null) {
+                encoded[type] = sum(encoded[type], counters.encoded);
+                decoded[type] = sum(decoded[type], counters.decoded);
+            }
+        }
+    }
+
+    static int latencyBucket(long nanos) {
+        if (nanos <= 0) {
+            return 0;
+        }
+        return Math.min(64 - Long.numberOfLeadingZeros(nanos), LATENCY_BUCKETS - 1);
+    }
+
+    private static long[] sum(long[] totals, AtomicLongArray counters) {
+        if (totals == null) {
+            totals = new long[COUNTERS];
+        }
+        for (int i = 0; i < COUNTERS; ++i) {
+            long value = counters.get(i);
+            if (i == MAX_BYTES) {
+                totals[i] = Math.max(totals[i], value);
+            } else {
+                totals[i] += value;
+            }
+        }
+        return totals;
+    }
+
+    /**
+     * Records the frames of a single OpenWireFormat, the encode and decode counters are each
+     * only written by the one thread encoding or decoding at a time with that instance.
+     */
+    static final class Recorder {
+
+        private final AtomicReferenceArray<TypeCounters> types = new AtomicReferenceArray<TypeCounters>(TYPES);
+
+        void recordEncode(Object command, int size, long nanos) {
+            if (command != null) {
+                record(counters(((DataStructure) command).getDataStructureType()).encoded, size, nanos);
+            }
+        }
+
+        void recordDecode(Object command, int size, long nanos) {
+            if (command != null) {
+                record(counters(((DataStructure) command).getDataStructureType()).decoded, size, nanos);
+            }
+        }
+
+        private TypeCounters counters(byte type) {
+            TypeCounters counters = types.get(type & 0xFF);
+            if (counters == null) {
+                // The encode and decode threads can race to create the counters of a type.
+                types.compareAndSet(type & 0xFF, null, new TypeCounters());
+                counters = types.get(type & 0xFF);
+            }
+            return counters;
+        }
+
+        private static void record(AtomicLongArray counters, int size, long nanos) {
+            increment(counters, FRAMES, 1);
+            increment(counters, BYTES, size);
+            if (size > counters.get(MAX_BYTES)) {
+                counters.lazySet(MAX_BYTES, size);
+            }
+            increment(counters, NANOS, nanos);
+            increment(counters, FIRST_BUCKET + latencyBucket(nanos), 1);
+        }
+
+        private static void increment(AtomicLongArray counters, int index, long delta) {
+            // Single writer, so an ordered store is enough to publish the new value.
+            counters.lazySet(index, counters.get(index) + delta);
+        }
+    }
+
+    private static final class Registration {
+
+        final WeakReference<Object> owner;
+        final Recorder recorder;
+
+        Registration(Object owner, Recorder recorder) {
+            this.owner = new WeakReference<Object>(owner);
+            this.recorder = recorder;
+        }
+    }
+
+    private static final class TypeCounters {
+
+        final AtomicLongArray encoded = new AtomicLongArray(COUNTERS);
+        final AtomicLongArray decoded = new AtomicLongArray(COUNTERS);
+
+    }
+}
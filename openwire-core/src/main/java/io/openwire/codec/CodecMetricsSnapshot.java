@@ -0,0 +1,64 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.openwire.codec;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A point in time snapshot of the counters kept by a {@link CodecMetrics}, holding the
+ * metrics of every command type that has been encoded or decoded at least once.
+ */
+public final class CodecMetricsSnapshot {
+
+    private final CommandTypeMetrics[] types = new CommandTypeMetrics[256];
+    private final List<CommandTypeMetrics> commandTypes;
+
+    CodecMetricsSnapshot(long[][] encoded, long[][] decoded) {
+        List<CommandTypeMetrics> present = new ArrayList<CommandTypeMetrics>();
+        for (int type = 0; type < types.length; ++type) {
+            if (encoded[type] != null || decoded[type] != null) {
+                types[type] = new CommandTypeMetrics((byte) type, encoded[type], decoded[type]);
+                present.add(types[type]);
+            }
+        }
+        this.commandTypes = Collections.unmodifiableList(present);
+    }
+
+    /**
+     * @return the metrics of each command type seen so far, ordered by type.
+     */
+    public List<CommandTypeMetrics> getCommandTypes() {
+        return commandTypes;
+    }
+
+    /**
+     * @param type
+     *        the data structure type of the command, for example ExceptionResponse.DATA_STRUCTURE_TYPE.
+     *
+     * @return the metrics of the given command type, or null if none was encoded or decoded.
+     */
+    public CommandTypeMetrics getCommandType(byte type) {
+        return types[type & 0xFF];
+    }
+
+    @Override
+    public String toString() {
+        return "CodecMetricsSnapshot" + commandTypes;
+    }
+}
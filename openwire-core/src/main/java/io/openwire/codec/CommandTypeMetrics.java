@@ -0,0 +1,107 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.openwire.codec;
+
+/**
+ * The encode and decode totals of a single command type taken from a CodecMetrics snapshot.
+ */
+public final class CommandTypeMetrics {
+
+    private final byte type;
+    private final long[] encoded;
+    private final long[] decoded;
+    private final LatencyHistogram encodeLatency;
+    private final LatencyHistogram decodeLatency;
+
+    CommandTypeMetrics(byte type, long[] encoded, long[] decoded) {
+        this.type = type;
+        this.encoded = encoded != null ? encoded : new long[CodecMetrics.COUNTERS];
+        this.decoded = decoded != null ? decoded : new long[CodecMetrics.COUNTERS];
+        this.encodeLatency = new LatencyHistogram(this.encoded);
+        this.decodeLatency = new LatencyHistogram(this.decoded);
+    }
+
+    /**
+     * @return the data structure type of the command these metrics are for.
+     */
+    public byte getType() {
+        return type;
+    }
+
+    /**
+     * @return the number of frames of this type that were encoded.
+     */
+    public long getEncodedFrames() {
+        return encoded[CodecMetrics.FRAMES];
+    }
+
+    /**
+     * @return the total size in bytes of the frames of this type that were encoded.
+     */
+    public long getEncodedBytes() {
+        return encoded[CodecMetrics.BYTES];
+    }
+
+    /**
+     * @return the size in bytes of the largest frame of this type that was encoded.
+     */
+    public long getLargestEncodedFrame() {
+        return encoded[CodecMetrics.MAX_BYTES];
+    }
+
+    /**
+     * @return the time taken to encode the frames of this type.
+     */
+    public LatencyHistogram getEncodeLatency() {
+        return encodeLatency;
+    }
+
+    /**
+     * @return the number of frames of this type that were decoded.
+     */
+    public long getDecodedFrames() {
+        return decoded[CodecMetrics.FRAMES];
+    }
+
+    /**
+     * @return the total size in bytes of the frames of this type that were decoded, frames read
+     *         from a DataInput without a size prefix are counted but their size is not known.
+     */
+    public long getDecodedBytes() {
+        return decoded[CodecMetrics.BYTES];
+    }
+
+    /**
+     * @return the size in bytes of the largest frame of this type that was decoded.
+     */
+    public long getLargestDecodedFrame() {
+        return decoded[CodecMetrics.MAX_BYTES];
+    }
+
+    /**
+     * @return the time taken to decode the frames of this type.
+     */
+    public LatencyHistogram getDecodeLatency() {
+        return decodeLatency;
+    }
+
+    @Override
+    public String toString() {
+        return "CommandTypeMetrics{type=" + type + ", encodedFrames=" + getEncodedFrames() + ", encodedBytes=" + getEncodedBytes() +
+               ", decodedFrames=" + getDecodedFrames() + ", decodedBytes=" + getDecodedBytes() + "}";
+    }
+}
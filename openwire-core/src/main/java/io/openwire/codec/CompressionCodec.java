@@ -0,0 +1,66 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.openwire.codec;
+
+import java.io.IOException;
+
+import org.fusesource.hawtbuf.Buffer;
+
+/**
+ * Compresses and decompresses message bodies.
+ *
+ * The codec in use on a connection is agreed when the WireFormatInfo is exchanged, a peer
+ * that does not advertise a codec is always sent bodies compressed with the built in
+ * "deflate" codec.  Additional codecs are registered in
+ * META-INF/services/io.openwire.codec.CompressionCodec and must be thread safe.
+ */
+public interface CompressionCodec {
+
+    /**
+     * @return the name used to advertise the codec to the remote peer.
+     */
+    String getName();
+
+    /**
+     * Compresses the given bytes.
+     *
+     * @param data
+     *        the bytes to compress.
+     * @param reserved
+     *        the number of bytes to leave unwritten at the start of the result for a header.
+     *
+     * @return a Buffer that holds the reserved bytes followed by the compressed data.
+     *
+     * @throws IOException if an error occurs while compressing the data.
+     */
+    Buffer compress(Buffer data, int reserved) throws IOException;
+
+    /**
+     * Decompresses the given bytes.
+     *
+     * @param data
+     *        the compressed bytes.
+     * @param size
+     *        the size of the decompressed data if known, or -1 if it is not.
+     *
+     * @return a Buffer that holds the decompressed data.
+     *
+     * @throws IOException if the data is not valid or cannot be decompressed.
+     */
+    Buffer decompress(Buffer data, int size) throws IOException;
+
+}
@@ -0,0 +1,188 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.openwire.codec;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.ServiceLoader;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Registry of the known message body compression codecs.
+ *
+ * The deflate codec is always present, other codecs are discovered once with the
+ * ServiceLoader or registered at runtime, for instance deflate codecs with a preset
+ * dictionary.  Codecs are advertised in the WireFormatInfo as a comma separated list
+ * of names in order of preference, see {@link #negotiate(String, String)} for how the
+ * two lists of a connection are combined.
+ */
+public final class CompressionCodecs {
+
+    /**
+     * The codec used when nothing else has been agreed with the remote peer.
+     */
+    public static final CompressionCodec DEFLATE = new DeflateCompressionCodec();
+
+    private static final ConcurrentMap<String, CompressionCodec> CODECS = loadCodecs();
+
+    private CompressionCodecs() {
+    }
+
+    /**
+     * @param name
+     *        the name of the codec.
+     *
+     * @return the codec registered with the given name, or null if there is none.
+     */
+    public static CompressionCodec getCodec(String name) {
+        return CODECS.get(name);
+    }
+
+    /**
+     * Registers a codec so that it can be agreed with peers that advertise it, any codec
+     * already registered with the same name is replaced.  The deflate codec cannot be replaced.
+     *
+     * @param codec
+     *        the codec to register.
+     */
+    public static void register(CompressionCodec codec) {
+        if (DEFLATE.getName().equals(codec.getName())) {
+            throw new IllegalArgumentException("The " + DEFLATE.getName() + " codec cannot be replaced");
+        }
+        if (codec.getName().indexOf(',') >= 0) {
+            throw new IllegalArgumentException("Invalid codec name: " + codec.getName());
+        }
+        CODECS.put(codec.getName(), codec);
+    }
+
+    /**
+     * Removes a codec registered with {@link #register(CompressionCodec)}.
+     *
+     * @param name
+     *        the name of the codec to remove.
+     */
+    public static void unregister(String name) {
+        if (!DEFLATE.getName().equals(name)) {
+            CODECS.remove(name);
+        }
+    }
+
+    /**
+     * @return the names of all registered codecs.
+     */
+    public static Set<String> getCodecNames() {
+        return Collections.unmodifiableSet(CODECS.keySet());
+    }
+
+    /**
+     * Selects the codec to use between two peers from the codecs they have both advertised
+     * and that are registered here.  Both peers must arrive at the same codec whichever side
+     * is local, so the codec with the lowest sum of its positions in the two lists is chosen
+     * and a tie between codecs is broken by their names.
+     *
+     * @param preferred
+     *        the comma separated codec names advertised locally, may be null.
+     * @param offered
+     *        the comma separated codec names advertised by the remote peer, may be null.
+     *
+     * @return the agreed codec, deflate if there is no other codec in common.
+     */
+    public static CompressionCodec negotiate(String preferred, String offered) {
+        if (preferred == null || offered == null) {
+            return DEFLATE;
+        }
+
+        List<String> local = split(preferred);
+        List<String> remote = split(offered);
+
+        CompressionCodec selected = null;
+        int selectedRank = Integer.MAX_VALUE;
+        for (int i = 0; i < local.size(); ++i) {
+            String name = local.get(i);
+            CompressionCodec codec = CODECS.get(name);
+            int j = remote.indexOf(name);
+            if (codec == null || j < 0) {
+                continue;
+            }
+
+            int rank = i + j;
+            if (rank < selectedRank || (rank == selectedRank && name.compareTo(selected.getName()) < 0)) {
+                selected = codec;
+                selectedRank = rank;
+            }
+        }
+
+        return selected != null ? selected : DEFLATE;
+    }
+
+    /**
+     * @param codecs
+     *        the comma separated codec names to advertise, may be null.
+     *
+     * @return the given names without the ones that are not registered, or null if none are.
+     */
+    static String filterRegistered(String codecs) {
+        if (codecs == null) {
+            return null;
+        }
+
+        StringBuilder registered = new StringBuilder();
+        for (String name : split(codecs)) {
+            if (CODECS.containsKey(name)) {
+                if (registered.length() > 0) {
+                    registered.append(',');
+                }
+                registered.append(name);
+            }
+        }
+        return registered.length() > 0 ? registered.toString() : null;
+    }
+
+    private static List<String> split(String codecs) {
+        List<String> names = new ArrayList<String>();
+        for (String name : codecs.split(",")) {
+            name = name.trim();
+            if (name.length() > 0 && !names.contains(name)) {
+                names.add(name);
+            }
+        }
+        return names;
+    }
+
+    private static ConcurrentMap<String, CompressionCodec> loadCodecs() {
+        ConcurrentMap<String, CompressionCodec> codecs = new ConcurrentHashMap<String, CompressionCodec>();
+        codecs.put(DEFLATE.getName(), DEFLATE);
+
+        try {
+            Iterator<CompressionCodec> providers = ServiceLoader.load(CompressionCodec.class, CompressionCodecs.class.getClassLoader()).iterator();
+            while (providers.hasNext()) {
+                CompressionCodec codec = providers.next();
+                if (!codecs.containsKey(codec.getName())) {
+                    codecs.put(codec.getName(), codec);
+                }
+            }
+        } catch (Throwable error) {
+            // A codec that cannot be loaded on this JVM is ignored, deflate is always available.
+        }
+
+        return codecs;
+    }
+}
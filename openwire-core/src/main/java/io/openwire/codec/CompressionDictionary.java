@@ -0,0 +1,118 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.openwire.codec;
+
+import java.util.zip.Adler32;
+
+/**
+ * A preset dictionary for the deflate codec.
+ *
+ * Small message bodies give deflate too little history to find repeats in, priming it with
+ * a dictionary of the content that is common to most bodies, such as the keys of a JSON or
+ * XML document, lets even the first occurrence of that content be encoded as a short back
+ * reference.  Both peers must hold the exact same dictionary, so each one is identified by a
+ * name and a version that become part of the name of the codec advertised to the peer.  A
+ * new dictionary for the same content must be given a new version.
+ *
+ * @see CompressionDictionaryTrainer
+ */
+public final class CompressionDictionary {
+
+    /**
+     * The largest useful dictionary, deflate cannot refer further back than this.
+     */
+    public static final int MAX_SIZE = 32 * 1024;
+
+    private final String name;
+    private final int version;
+    private final byte[] data;
+    private final int checksum;
+
+    /**
+     * Creates a new dictionary.
+     *
+     * @param name
+     *        the name of the dictionary, letters, digits, '_', '-' and '.' only.
+     * @param version
+     *        the version of the dictionary.
+     * @param data
+     *        the dictionary content, the most common content should be at the end.
+     */
+    public CompressionDictionary(String name, int version, byte[] data) {
+        if (name == null || name.length() == 0) {
+            throw new IllegalArgumentException("A dictionary must have a name");
+        }
+        for (int i = 0; i < name.length(); ++i) {
+            char c = name.charAt(i);
+            if (!Character.isLetterOrDigit(c) && c != '_' && c != '-' && c != '.') {
+                throw new IllegalArgumentException("Invalid dictionary name: " + name);
+            }
+        }
+        if (version < 0) {
+            throw new IllegalArgumentException("Invalid dictionary version: " + version);
+        }
+        if (data == null || data.length == 0 || data.length > MAX_SIZE) {
+            throw new IllegalArgumentException("Dictionary size must be between 1 and " + MAX_SIZE + " bytes");
+        }
+
+        this.name = name;
+        this.version = version;
+        this.data = data.clone();
+
+        Adler32 adler = new Adler32();
+        adler.update(data);
+        this.checksum = (int) adler.getValue();
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getVersion() {
+        return version;
+    }
+
+    /**
+     * @return the size of the dictionary in bytes.
+     */
+    public int getSize() {
+        return data.length;
+    }
+
+    /**
+     * @return a copy of the dictionary content.
+     */
+    public byte[] getData() {
+        return data.clone();
+    }
+
+    /**
+     * @return the Adler-32 checksum zlib records in the compressed data to identify the dictionary.
+     */
+    public int getChecksum() {
+        return checksum;
+    }
+
+    byte[] data() {
+        return data;
+    }
+
+    @Override
+    public String toString() {
+        return name + ":" + version;
+    }
+}
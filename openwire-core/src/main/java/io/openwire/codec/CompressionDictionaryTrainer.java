@@ -0,0 +1,260 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.openwire.codec;
+
+import io.openwire.commands.OpenWireMessage;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.jms.JMSException;
+
+import org.fusesource.hawtbuf.Buffer;
+
+/**
+ * Builds a {@link CompressionDictionary} from a sample of message bodies.
+ *
+ * Every run of {@link #GRAM_SIZE} bytes is counted by the number of samples it appears in.
+ * The dictionary is then filled greedily with the segment of a sample whose runs are shared
+ * by the most samples, the runs it covers no longer count towards later segments so the
+ * dictionary holds each common run once.  The best segments are placed at the end of the
+ * dictionary where deflate can refer to them with the shortest distances.
+ *
+ * A trainer is not thread safe, the samples should be representative of the traffic the
+ * dictionary will be used for and should not include sensitive content since it can end up
+ * in the dictionary.
+ */
+public final class CompressionDictionaryTrainer {
+
+    public static final int DEFAULT_DICTIONARY_SIZE = 4 * 1024;
+    public static final int DEFAULT_SEGMENT_SIZE = 64;
+
+    static final int GRAM_SIZE = 8;
+
+    private final List<byte[]> samples = new ArrayList<byte[]>();
+    private int dictionarySize = DEFAULT_DICTIONARY_SIZE;
+    private int segmentSize = DEFAULT_SEGMENT_SIZE;
+
+    /**
+     * Adds the given bytes to the sample corpus.
+     *
+     * @param sample
+     *        a message body, bodies shorter than a few bytes are ignored.
+     */
+    public void addSample(Buffer sample) {
+        if (sample != null && sample.getLength() >= GRAM_SIZE) {
+            samples.add(sample.toByteArray());
+        }
+    }
+
+    /**
+     * Adds the given bytes to the sample corpus.
+     *
+     * @param sample
+     *        a message body, bodies shorter than a few bytes are ignored.
+     */
+    public void addSample(byte[] sample) {
+        if (sample != null) {
+            addSample(new Buffer(sample));
+        }
+    }
+
+    /**
+     * Adds the uncompressed payload of the given message to the sample corpus.
+     *
+     * @param message
+     *        the message whose payload is sampled.
+     *
+     * @throws JMSException if the payload of the message cannot be read.
+     */
+    public void addSample(OpenWireMessage message) throws JMSException {
+        message.storeContent();
+        addSample(message.getPayload());
+    }
+
+    /**
+     * @return the number of samples added so far.
+     */
+    public int getSampleCount() {
+        return samples.size();
+    }
+
+    public int getDictionarySize() {
+        return dictionarySize;
+    }
+
+    /**
+     * @param dictionarySize
+     *        the largest dictionary to build, a larger dictionary costs more time to
+     *        prime each compression with.
+     */
+    public void setDictionarySize(int dictionarySize) {
+        if (dictionarySize <= 0 || dictionarySize > CompressionDictionary.MAX_SIZE) {
+            throw new IllegalArgumentException("Dictionary size must be between 1 and " + CompressionDictionary.MAX_SIZE);
+        }
+        this.dictionarySize = dictionarySize;
+    }
+
+    public int getSegmentSize() {
+        return segmentSize;
+    }
+
+    /**
+     * @param segmentSize
+     *        the number of bytes copied from a sample into the dictionary at a time.
+     */
+    public void setSegmentSize(int segmentSize) {
+        if (segmentSize < GRAM_SIZE) {
+            throw new IllegalArgumentException("Segment size must be at least " + GRAM_SIZE);
+        }
+        this.segmentSize = segmentSize;
+    }
+
+    /**
+     * Builds a dictionary from the samples added so far.
+     *
+     * @param name
+     *        the name of the dictionary.
+     * @param version
+     *        the version of the dictionary.
+     *
+     * @return the new dictionary.
+     *
+     * @throws IllegalStateException if the samples have no content in common.
+     */
+    public CompressionDictionary train(String name, int version) {
+        long[][] grams = new long[samples.size()][];
+        for (int i = 0; i < grams.length; ++i) {
+            grams[i] = grams(samples.get(i));
+        }
+        Map<Long, int[]> frequencies = countSampleFrequencies(grams);
+
+        List<byte[]> segments = new ArrayList<byte[]>();
+        int size = 0;
+        while (size < dictionarySize) {
+            int length = Math.min(segmentSize, dictionarySize - size);
+            byte[] segment = selectSegment(grams, frequencies, length);
+            if (segment == null) {
+                break;
+            }
+            segments.add(segment);
+            size += segment.length;
+        }
+
+        if (size == 0) {
+            throw new IllegalStateException("The samples have no content in common");
+        }
+
+        // The first selected and so most valuable segment ends up last.
+        byte[] data = new byte[size];
+        int position = size;
+        for (byte[] segment : segments) {
+            position -= segment.length;
+            System.arraycopy(segment, 0, data, position, segment.length);
+        }
+
+        return new CompressionDictionary(name, version, data);
+    }
+
+    private Map<Long, int[]> countSampleFrequencies(long[][] grams) {
+        Map<Long, int[]> frequencies = new HashMap<Long, int[]>();
+        Set<Long> seen = new HashSet<Long>();
+        for (long[] sampleGrams : grams) {
+            seen.clear();
+            for (long value : sampleGrams) {
+                Long gram = Long.valueOf(value);
+                if (seen.add(gram)) {
+                    int[] count = frequencies.get(gram);
+                    if (count == null) {
+                        frequencies.put(gram, new int[] { 1 });
+                    } else {
+                        count[0]++;
+                    }
+                }
+            }
+        }
+        return frequencies;
+    }
+
+    /**
+     * Finds the segment with the highest score, where a segment scores the number of samples
+     * each run in it appears in, counting only runs shared by at least two samples.
+     */
+    private byte[] selectSegment(long[][] grams, Map<Long, int[]> frequencies, int length) {
+        long bestScore = 0;
+        byte[] bestSample = null;
+        int bestStart = 0;
+
+        for (int s = 0; s < grams.length; ++s) {
+            byte[] sample = samples.get(s);
+            long[] sampleGrams = grams[s];
+
+            int window = Math.max(1, Math.min(length, sample.length) - GRAM_SIZE + 1);
+            int[] scores = new int[sampleGrams.length];
+            for (int i = 0; i < sampleGrams.length; ++i) {
+                int[] count = frequencies.get(Long.valueOf(sampleGrams[i]));
+                scores[i] = count != null && count[0] > 1 ? count[0] : 0;
+            }
+
+            long score = 0;
+            for (int i = 0; i < sampleGrams.length; ++i) {
+                score += scores[i];
+                if (i >= window) {
+                    score -= scores[i - window];
+                }
+                if (i >= window - 1 && score > bestScore) {
+                    bestScore = score;
+                    bestSample = sample;
+                    bestStart = i - window + 1;
+                }
+            }
+        }
+
+        if (bestSample == null) {
+            return null;
+        }
+
+        int end = Math.min(bestSample.length, bestStart + length);
+        byte[] segment = new byte[end - bestStart];
+        System.arraycopy(bestSample, bestStart, segment, 0, segment.length);
+
+        for (long gram : grams(segment)) {
+            frequencies.remove(Long.valueOf(gram));
+        }
+
+        return segment;
+    }
+
+    /**
+     * @return every run of GRAM_SIZE bytes in the data packed into a long.
+     */
+    private static long[] grams(byte[] data) {
+        long[] grams = new long[Math.max(0, data.length - GRAM_SIZE + 1)];
+        long value = 0;
+        for (int i = 0; i < data.length; ++i) {
+            value = (value << 8) | (data[i] & 0xFF);
+            if (i >= GRAM_SIZE - 1) {
+                grams[i - GRAM_SIZE + 1] = value;
+            }
+        }
+        return grams;
+    }
+}
@@ -0,0 +1,231 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.openwire.codec;
+
+import io.openwire.commands.OpenWireMessage;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Decides whether the payload of a message that has useCompression set is worth compressing.
+ *
+ * Payloads smaller than the minimum size are never compressed.  For larger ones the saving
+ * achieved is sampled per destination, or per content type, and once the average saving
+ * drops below the minimum saving the policy stops compressing for that key, compressing only
+ * an occasional probe message to notice when the content becomes compressible again.  A
+ * result that does not save at least the minimum is discarded and the message is sent with
+ * its original payload and compressed left false.
+ *
+ * A policy is thread safe and is normally shared by all the producers of a connection.
+ */
+public class CompressionPolicy {
+
+    /**
+     * Samples the saving per destination, the default.
+     */
+    public static final String SAMPLE_BY_DESTINATION = "destination";
+
+    /**
+     * Samples the saving per message content type.
+     */
+    public static final String SAMPLE_BY_CONTENT_TYPE = "contentType";
+
+    public static final int DEFAULT_MINIMUM_SIZE = 1024;
+    public static final double DEFAULT_MINIMUM_SAVING = 0.1;
+    public static final int DEFAULT_PROBE_INTERVAL = 100;
+
+    // Limits the memory used when there are many short lived destinations.
+    private static final int MAX_SAMPLES = 1024;
+    private static final double SAMPLE_WEIGHT = 0.1;
+
+    private final ConcurrentMap<Object, Sample> samples = new ConcurrentHashMap<Object, Sample>();
+
+    private volatile int minimumSize = DEFAULT_MINIMUM_SIZE;
+    private volatile double minimumSaving = DEFAULT_MINIMUM_SAVING;
+    private volatile int probeInterval = DEFAULT_PROBE_INTERVAL;
+    private volatile String sampleBy = SAMPLE_BY_DESTINATION;
+
+    /**
+     * Called before a payload is compressed.
+     *
+     * @param message
+     *        the message whose payload is about to be compressed.
+     * @param size
+     *        the size of the uncompressed payload.
+     *
+     * @return true if the payload should be compressed.
+     */
+    public boolean shouldCompress(OpenWireMessage message, int size) {
+        if (size < minimumSize) {
+            return false;
+        }
+
+        Sample sample = samples.get(getSampleKey(message));
+        return sample == null || sample.shouldCompress(probeInterval);
+    }
+
+    /**
+     * Called with the outcome of each compression so the achieved saving can be sampled.
+     *
+     * @param message
+     *        the message whose payload was compressed.
+     * @param size
+     *        the size of the uncompressed payload.
+     * @param compressedSize
+     *        the size of the compressed payload.
+     *
+     * @return true if the compressed payload should be kept, false to send it uncompressed.
+     */
+    public boolean onCompressed(OpenWireMessage message, int size, int compressedSize) {
+        double saving = size > 0 ? 1.0 - ((double) compressedSize / size) : 0;
+
+        Object key = getSampleKey(message);
+        Sample sample = samples.get(key);
+        if (sample == null) {
+            if (samples.size() >= MAX_SAMPLES) {
+                samples.clear();
+            }
+
+            sample = new Sample();
+            Sample existing = samples.putIfAbsent(key, sample);
+            if (existing != null) {
+                sample = existing;
+            }
+        }
+        sample.update(saving, minimumSaving);
+
+        return saving >= minimumSaving;
+    }
+
+    /**
+     * Returns the average saving sampled for the destination or content type of the
+     * given message.
+     *
+     * @param message
+     *        the message whose sample is returned.
+     *
+     * @return the average fraction of the payload saved, or -1 if nothing was sampled yet.
+     */
+    public double getAverageSaving(OpenWireMessage message) {
+        Sample sample = samples.get(getSampleKey(message));
+        return sample != null ? sample.getAverageSaving() : -1;
+    }
+
+    /**
+     * Discards everything sampled so far.
+     */
+    public void reset() {
+        samples.clear();
+    }
+
+    public int getMinimumSize() {
+        return minimumSize;
+    }
+
+    /**
+     * @param minimumSize
+     *        the size in bytes below which a payload is never compressed.
+     */
+    public void setMinimumSize(int minimumSize) {
+        this.minimumSize = minimumSize;
+    }
+
+    public double getMinimumSaving() {
+        return minimumSaving;
+    }
+
+    /**
+     * @param minimumSaving
+     *        the fraction of the payload size, from 0 to 1, that compression must save.
+     */
+    public void setMinimumSaving(double minimumSaving) {
+        if (minimumSaving < 0 || minimumSaving > 1) {
+            throw new IllegalArgumentException("Minimum saving must be between 0 and 1: " + minimumSaving);
+        }
+        this.minimumSaving = minimumSaving;
+    }
+
+    public int getProbeInterval() {
+        return probeInterval;
+    }
+
+    /**
+     * @param probeInterval
+     *        while compression is stopped for a key, one payload in this many is still
+     *        compressed to sample the saving again.
+     */
+    public void setProbeInterval(int probeInterval) {
+        if (probeInterval <= 0) {
+            throw new IllegalArgumentException("Probe interval must be positive: " + probeInterval);
+        }
+        this.probeInterval = probeInterval;
+    }
+
+    public String getSampleBy() {
+        return sampleBy;
+    }
+
+    /**
+     * @param sampleBy
+     *        either {@link #SAMPLE_BY_DESTINATION} or {@link #SAMPLE_BY_CONTENT_TYPE}.
+     */
+    public void setSampleBy(String sampleBy) {
+        if (!SAMPLE_BY_DESTINATION.equals(sampleBy) && !SAMPLE_BY_CONTENT_TYPE.equals(sampleBy)) {
+            throw new IllegalArgumentException("Unknown sample key: " + sampleBy);
+        }
+        this.sampleBy = sampleBy;
+        samples.clear();
+    }
+
+    private Object getSampleKey(OpenWireMessage message) {
+        Object key = null;
+        if (SAMPLE_BY_DESTINATION.equals(sampleBy)) {
+            key = message.getDestination();
+        }
+
+        return key != null ? key : message.getMimeType();
+    }
+
+    private static final class Sample {
+
+        private double averageSaving = -1;
+        private boolean compressing = true;
+        private int skipped;
+
+        public synchronized boolean shouldCompress(int probeInterval) {
+            if (compressing || ++skipped >= probeInterval) {
+                skipped = 0;
+                return true;
+            }
+            return false;
+        }
+
+        public synchronized void update(double saving, double minimumSaving) {
+            if (averageSaving < 0) {
+                averageSaving = saving;
+            } else {
+                averageSaving += (saving - averageSaving) * SAMPLE_WEIGHT;
+            }
+            compressing = averageSaving >= minimumSaving;
+        }
+
+        public synchronized double getAverageSaving() {
+            return averageSaving;
+        }
+    }
+}
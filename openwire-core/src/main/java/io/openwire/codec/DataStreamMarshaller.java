@@ -22,6 +22,8 @@ import java.io.DataInput;
 import java.io.DataOutput;
 import java.io.IOException;
 
+import org.fusesource.hawtbuf.DataByteArrayOutputStream;
+
 public interface DataStreamMarshaller {
 
     byte getDataStructureType();
@@ -32,10 +34,24 @@ public interface DataStreamMarshaller {
 
     void tightMarshal2(OpenWireFormat format, Object c, DataOutput ds, BooleanStream bs) throws IOException;
 
+    /**
+     * Tight marshals the object in a single pass, the booleans are written to the given
+     * BooleanStream as the data is written to the output so the caller must prepend the
+     * BooleanStream once the whole object has been written.
+     */
+    void tightMarshal(OpenWireFormat format, Object c, DataByteArrayOutputStream ds, BooleanStream bs) throws IOException;
+
     void tightUnmarshal(OpenWireFormat format, Object data, DataInput dis, BooleanStream bs) throws IOException;
 
     void looseMarshal(OpenWireFormat format, Object c, DataOutput ds) throws IOException;
 
     void looseUnmarshal(OpenWireFormat format, Object data, DataInput dis) throws IOException;
 
+    /**
+     * Computes the number of bytes that looseMarshal would write for the object, so the size
+     * of a loose encoded frame can be written before the frame itself.  Must be called right
+     * before the object is marshaled as the result depends on the state of the marshal cache.
+     */
+    int looseMarshalSize(OpenWireFormat format, Object c) throws IOException;
+
 }
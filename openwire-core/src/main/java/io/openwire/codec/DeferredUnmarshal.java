@@ -0,0 +1,37 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.openwire.codec;
+
+import java.io.IOException;
+
+/**
+ * Decodes the fields of an unmarshaled command whose decoding was deferred until they
+ * are first accessed.  Instances reference the frame the command was read from.
+ */
+public interface DeferredUnmarshal {
+
+    /**
+     * Decodes the deferred fields and applies them to the given command.
+     *
+     * @param target
+     *        the command that was partially unmarshaled.
+     *
+     * @throws IOException if the deferred fields cannot be decoded.
+     */
+    void unmarshal(Object target) throws IOException;
+
+}
@@ -0,0 +1,213 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.openwire.codec;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+import org.fusesource.hawtbuf.Buffer;
+
+/**
+ * The zlib based codec every OpenWire peer understands.
+ *
+ * The output is the same zlib stream the DeflaterOutputStream used by ActiveMQ produces.
+ * Deflater and Inflater instances are pooled since each one holds native zlib state that is
+ * costly to create and is only released when the instance is ended or finalized, and the
+ * data is compressed straight from the source array into the result array with no
+ * intermediate streams.
+ *
+ * A codec created with a {@link CompressionDictionary} primes every compression with it and
+ * is advertised as "deflate:name:version", only a peer that holds the same dictionary can
+ * decompress its output so it is used only when both peers have agreed on it.
+ */
+public final class DeflateCompressionCodec implements CompressionCodec {
+
+    public static final String NAME = "deflate";
+
+    private static final int POOL_SIZE = Runtime.getRuntime().availableProcessors() * 2;
+    private static final int MIN_BUFFER_SIZE = 64;
+
+    private final int level;
+    private final CompressionDictionary dictionary;
+    private final String name;
+    private final ArrayBlockingQueue<Deflater> deflaters = new ArrayBlockingQueue<Deflater>(POOL_SIZE);
+    private final ArrayBlockingQueue<Inflater> inflaters = new ArrayBlockingQueue<Inflater>(POOL_SIZE);
+
+    /**
+     * Creates a codec that uses the default zlib compression level.
+     */
+    public DeflateCompressionCodec() {
+        this(Deflater.DEFAULT_COMPRESSION);
+    }
+
+    /**
+     * Creates a codec that uses the default zlib compression level and the given dictionary.
+     *
+     * @param dictionary
+     *        the preset dictionary to use.
+     */
+    public DeflateCompressionCodec(CompressionDictionary dictionary) {
+        this(Deflater.DEFAULT_COMPRESSION, dictionary);
+    }
+
+    /**
+     * Creates a codec that uses the given zlib compression level, every level produces
+     * data that any peer can decompress so the level need not be negotiated.
+     *
+     * @param level
+     *        the compression level, from Deflater.BEST_SPEED to Deflater.BEST_COMPRESSION.
+     */
+    public DeflateCompressionCodec(int level) {
+        this(level, null);
+    }
+
+    /**
+     * Creates a codec that uses the given zlib compression level and dictionary.
+     *
+     * @param level
+     *        the compression level, from Deflater.BEST_SPEED to Deflater.BEST_COMPRESSION.
+     * @param dictionary
+     *        the preset dictionary to use, or null for none.
+     */
+    public DeflateCompressionCodec(int level, CompressionDictionary dictionary) {
+        if ((level < Deflater.BEST_SPEED || level > Deflater.BEST_COMPRESSION) && level != Deflater.DEFAULT_COMPRESSION) {
+            throw new IllegalArgumentException("Invalid compression level: " + level);
+        }
+
+        this.level = level;
+        this.dictionary = dictionary;
+        this.name = dictionary != null ? NAME + ":" + dictionary : NAME;
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * @return the preset dictionary used by this codec, or null if it has none.
+     */
+    public CompressionDictionary getDictionary() {
+        return dictionary;
+    }
+
+    /**
+     * @return the zlib compression level used by this codec.
+     */
+    public int getLevel() {
+        return level;
+    }
+
+    @Override
+    public Buffer compress(Buffer data, int reserved) throws IOException {
+        Deflater deflater = deflaters.poll();
+        if (deflater == null) {
+            deflater = new Deflater(level);
+        }
+
+        try {
+            if (dictionary != null) {
+                deflater.setDictionary(dictionary.data());
+            }
+            deflater.setInput(data.getData(), data.getOffset(), data.getLength());
+            deflater.finish();
+
+            byte[] output = new byte[reserved + Math.max(MIN_BUFFER_SIZE, data.getLength() / 2)];
+            int position = reserved;
+            while (!deflater.finished()) {
+                if (position == output.length) {
+                    output = grow(output);
+                }
+                position += deflater.deflate(output, position, output.length - position);
+            }
+
+            // The body can be held for a long time so don't keep a mostly empty array alive.
+            if (output.length - position > position / 4) {
+                byte[] trimmed = new byte[position];
+                System.arraycopy(output, 0, trimmed, 0, position);
+                output = trimmed;
+            }
+
+            return new Buffer(output, 0, position);
+        } finally {
+            release(deflater);
+        }
+    }
+
+    @Override
+    public Buffer decompress(Buffer data, int size) throws IOException {
+        Inflater inflater = inflaters.poll();
+        if (inflater == null) {
+            inflater = new Inflater();
+        }
+
+        try {
+            inflater.setInput(data.getData(), data.getOffset(), data.getLength());
+
+            byte[] output = new byte[size >= 0 ? size : Math.max(MIN_BUFFER_SIZE, data.getLength() * 4)];
+            int position = 0;
+            while (true) {
+                int count = inflater.inflate(output, position, output.length - position);
+                position += count;
+                if (inflater.finished()) {
+                    break;
+                }
+
+                if (inflater.needsDictionary()) {
+                    if (dictionary == null || inflater.getAdler() != dictionary.getChecksum()) {
+                        throw new IOException("Compressed data needs an unknown preset dictionary");
+                    }
+                    inflater.setDictionary(dictionary.data());
+                } else if (position == output.length) {
+                    output = grow(output);
+                } else if (count == 0 && inflater.needsInput()) {
+                    throw new EOFException("Unexpected end of compressed data");
+                }
+            }
+
+            return new Buffer(output, 0, position);
+        } catch (DataFormatException e) {
+            throw new IOException("Invalid compressed data", e);
+        } finally {
+            release(inflater);
+        }
+    }
+
+    private static byte[] grow(byte[] array) {
+        byte[] grown = new byte[Math.max(MIN_BUFFER_SIZE, array.length * 2)];
+        System.arraycopy(array, 0, grown, 0, array.length);
+        return grown;
+    }
+
+    private void release(Deflater deflater) {
+        deflater.reset();
+        if (!deflaters.offer(deflater)) {
+            deflater.end();
+        }
+    }
+
+    private void release(Inflater inflater) {
+        inflater.reset();
+        if (!inflaters.offer(inflater)) {
+            inflater.end();
+        }
+    }
+}
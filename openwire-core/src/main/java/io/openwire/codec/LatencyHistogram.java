@@ -0,0 +1,97 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.openwire.codec;
+
+/**
+ * A histogram of operation times with power of two buckets, bucket i holds the operations that
+ * took at least 2^(i-1) and less than 2^i nanoseconds.
+ */
+public final class LatencyHistogram {
+
+    private final long count;
+    private final long totalNanos;
+    private final long[] buckets = new long[CodecMetrics.LATENCY_BUCKETS];
+
+    LatencyHistogram(long[] counters) {
+        this.count = counters[CodecMetrics.FRAMES];
+        this.totalNanos = counters[CodecMetrics.NANOS];
+        System.arraycopy(counters, CodecMetrics.FIRST_BUCKET, buckets, 0, buckets.length);
+    }
+
+    /**
+     * @return the number of operations recorded.
+     */
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * @return the total time taken by all the recorded operations.
+     */
+    public long getTotalNanos() {
+        return totalNanos;
+    }
+
+    /**
+     * @return the mean time taken by an operation, or zero if none were recorded.
+     */
+    public long getMeanNanos() {
+        return count > 0 ? totalNanos / count : 0;
+    }
+
+    /**
+     * @return the number of operations counted in each bucket.
+     */
+    public long[] getBuckets() {
+        return buckets.clone();
+    }
+
+    /**
+     * @param bucket
+     *        the index of the bucket.
+     *
+     * @return the exclusive upper bound in nanoseconds of the given bucket, or Long.MAX_VALUE
+     *         for the last one.
+     */
+    public static long getBucketUpperBound(int bucket) {
+        return bucket < CodecMetrics.LATENCY_BUCKETS - 1 ? 1L << bucket : Long.MAX_VALUE;
+    }
+
+    /**
+     * Estimates a percentile as the upper bound of the bucket it falls in.
+     *
+     * @param percentile
+     *        the percentile to estimate, from 0 to 100.
+     *
+     * @return an upper bound in nanoseconds of the given percentile, or zero if nothing was recorded.
+     */
+    public long getPercentile(double percentile) {
+        if (count == 0) {
+            return 0;
+        }
+
+        long rank = (long) Math.ceil(count * Math.min(Math.max(percentile, 0.0), 100.0) / 100.0);
+        long seen = 0;
+        for (int i = 0; i < buckets.length; ++i) {
+            seen += buckets[i];
+            if (seen >= rank && seen > 0) {
+                return getBucketUpperBound(i);
+            }
+        }
+        return getBucketUpperBound(buckets.length - 1);
+    }
+}
@@ -0,0 +1,217 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.openwire.codec;
+
+import io.openwire.commands.DataStructure;
+
+/**
+ * The marshal side of the OpenWire value cache.
+ *
+ * Assigns a cache index to each value the first time it is marshaled and picks the entries
+ * to evict once the cache fills up.  The peer only ever stores a value at the index it is
+ * sent with, so any eviction order is compatible with it as long as an index is never
+ * reported as a hit after it has been given to another value.  Evicted indexes go back
+ * into a queue of free indexes that new values are assigned from.
+ *
+ * Eviction uses a hand that sweeps around the indexes.  With the FIFO policy the hand
+ * evicts every entry it reaches, which is the order in which they were added.  With the
+ * CLOCK policy an entry that was hit since the hand last passed it is spared once, and
+ * with the FREQUENCY policy each hit buys an entry one more pass, up to a small limit, so
+ * hot values are retained while values seen only once are evicted first.
+ */
+final class MarshallCache {
+
+    static final int FIFO = 0;
+    static final int CLOCK = 1;
+    static final int FREQUENCY = 2;
+
+    private static final int MAX_FREQUENCY = 15;
+
+    private final int policy;
+    private final int capacity;
+    private final MarshallCacheMap map = new MarshallCacheMap();
+    private final DataStructure values[];
+    private final boolean occupied[];
+    private final byte weights[];
+    private final int encodedSizes[];
+    private final short freeIndexes[];
+    private int freeHead;
+    private int freeCount;
+    private int hand;
+
+    private long hits;
+    private long misses;
+    private long evictions;
+    private long bytesSaved;
+
+    public MarshallCache(int capacity, int policy) {
+        this.capacity = capacity;
+        this.policy = policy;
+        this.values = new DataStructure[capacity];
+        this.occupied = new boolean[capacity];
+        this.weights = new byte[capacity];
+        this.encodedSizes = new int[capacity];
+        this.freeIndexes = new short[capacity];
+        for (int i = 0; i < capacity; i++) {
+            freeIndexes[i] = (short) i;
+        }
+        this.freeCount = capacity;
+    }
+
+    /**
+     * Looks up the index of a value that is about to be marshaled, recording a hit or a
+     * miss for the eviction policy and the statistics.
+     *
+     * @return the cache index of the value or -1 if it is not in the cache.
+     */
+    public short lookup(DataStructure o) {
+        short index = map.get(o);
+        if (index >= 0) {
+            hits++;
+            bytesSaved += encodedSizes[index];
+            if (policy == CLOCK) {
+                weights[index] = 1;
+            } else if (policy == FREQUENCY && weights[index] < MAX_FREQUENCY) {
+                weights[index]++;
+            }
+        } else {
+            misses++;
+        }
+        return index;
+    }
+
+    /**
+     * @return the cache index of the value or -1 if it is not in the cache.
+     */
+    public short find(DataStructure o) {
+        return map.get(o);
+    }
+
+    /**
+     * Assigns a free index to the given value.
+     *
+     * @return the index assigned to the value or -1 if the cache has no free index.
+     */
+    public short add(DataStructure o) {
+        if (freeCount == 0) {
+            return -1;
+        }
+
+        short index = freeIndexes[freeHead];
+        freeHead = next(freeHead);
+        freeCount--;
+
+        values[index] = o;
+        occupied[index] = true;
+        weights[index] = 0;
+        encodedSizes[index] = 0;
+        map.put(o, index);
+        return index;
+    }
+
+    /**
+     * Records the number of bytes the marshaled form of the value at the given index takes,
+     * which is what each later hit on it saves.
+     */
+    public void setEncodedSize(short index, int size) {
+        if (index >= 0) {
+            encodedSizes[index] = size;
+        }
+    }
+
+    /**
+     * Evicts entries until at least the given number of indexes are free.
+     */
+    public void evict(int freeSpace) {
+        int target = Math.min(freeSpace, capacity);
+        while (freeCount < target) {
+            int index = selectVictim();
+            release(index);
+            freeIndexes[(freeHead + freeCount) % capacity] = (short) index;
+            freeCount++;
+            evictions++;
+        }
+    }
+
+    /**
+     * @return a mark that can be passed to rollback to undo the additions made after it.
+     */
+    public int mark() {
+        return freeCount;
+    }
+
+    /**
+     * Undoes the additions made since the given mark was taken, used when a marshaled frame
+     * is abandoned and the values it added will therefore never reach the peer.  No entry
+     * may have been evicted since the mark was taken.
+     */
+    public void rollback(int mark) {
+        while (freeCount < mark) {
+            freeHead = freeHead == 0 ? capacity - 1 : freeHead - 1;
+            freeCount++;
+            release(freeIndexes[freeHead]);
+        }
+    }
+
+    public int size() {
+        return capacity - freeCount;
+    }
+
+    /**
+     * @return the number of values that can be added before the cache is full.
+     */
+    public int available() {
+        return freeCount;
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+
+    public MarshallCacheStatistics getStatistics() {
+        return new MarshallCacheStatistics(hits, misses, evictions, bytesSaved, size(), capacity);
+    }
+
+    private int selectVictim() {
+        while (true) {
+            int index = hand;
+            hand = next(hand);
+
+            if (!occupied[index]) {
+                continue;
+            }
+            if (weights[index] > 0) {
+                weights[index]--;
+                continue;
+            }
+            return index;
+        }
+    }
+
+    private void release(int index) {
+        DataStructure o = values[index];
+        if (map.get(o) == index) {
+            map.remove(o);
+        }
+        values[index] = null;
+        occupied[index] = false;
+    }
+
+    private int next(int index) {
+        return index + 1 == capacity ? 0 : index + 1;
+    }
+}
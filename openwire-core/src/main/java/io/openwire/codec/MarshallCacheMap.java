@@ -0,0 +1,195 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.openwire.codec;
+
+import io.openwire.commands.DataStructure;
+
+import java.util.Arrays;
+
+/**
+ * Maps the values held in the marshal cache to their cache index.
+ *
+ * An open addressing table with linear probing that stores the index as a primitive
+ * short and the hash of every key next to it, so lookups neither box nor allocate and
+ * the equals method of a key is only called when its hash matches.  The same instance
+ * is usually cached so an identity check is made before that.  A null value is a valid
+ * key as the marshallers cache null fields like any other value.
+ */
+final class MarshallCacheMap {
+
+    /**
+     * Returned by the lookup methods when the value is not in the map.
+     */
+    public static final short NOT_FOUND = -1;
+
+    private static final int INITIAL_CAPACITY = 64;
+
+    private DataStructure keys[];
+    private int hashes[];
+    private short values[];
+    private int size;
+    private short nullValue = NOT_FOUND;
+
+    public MarshallCacheMap() {
+        allocate(INITIAL_CAPACITY);
+    }
+
+    /**
+     * @return the cache index of the value or NOT_FOUND if the value is not mapped.
+     */
+    public short get(DataStructure key) {
+        if (key == null) {
+            return nullValue;
+        }
+
+        int hash = hash(key);
+        int mask = keys.length - 1;
+        for (int i = hash & mask; ; i = (i + 1) & mask) {
+            DataStructure k = keys[i];
+            if (k == null) {
+                return NOT_FOUND;
+            }
+            if (k == key || (hashes[i] == hash && k.equals(key))) {
+                return values[i];
+            }
+        }
+    }
+
+    public void put(DataStructure key, short value) {
+        if (key == null) {
+            if (nullValue == NOT_FOUND) {
+                size++;
+            }
+            nullValue = value;
+            return;
+        }
+
+        int hash = hash(key);
+        int mask = keys.length - 1;
+        int i = hash & mask;
+        for (; keys[i] != null; i = (i + 1) & mask) {
+            if (keys[i] == key || (hashes[i] == hash && keys[i].equals(key))) {
+                values[i] = value;
+                return;
+            }
+        }
+
+        keys[i] = key;
+        hashes[i] = hash;
+        values[i] = value;
+        size++;
+
+        // Keep the table at most half full so probe sequences stay short.
+        if (size * 2 > keys.length) {
+            resize(keys.length * 2);
+        }
+    }
+
+    /**
+     * @return the cache index the value was mapped to or NOT_FOUND if it was not mapped.
+     */
+    public short remove(DataStructure key) {
+        if (key == null) {
+            short rc = nullValue;
+            if (rc != NOT_FOUND) {
+                nullValue = NOT_FOUND;
+                size--;
+            }
+            return rc;
+        }
+
+        int hash = hash(key);
+        int mask = keys.length - 1;
+        for (int i = hash & mask; ; i = (i + 1) & mask) {
+            DataStructure k = keys[i];
+            if (k == null) {
+                return NOT_FOUND;
+            }
+            if (k == key || (hashes[i] == hash && k.equals(key))) {
+                short rc = values[i];
+                delete(i);
+                size--;
+                return rc;
+            }
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public void clear() {
+        if (size > 0) {
+            Arrays.fill(keys, null);
+            nullValue = NOT_FOUND;
+            size = 0;
+        }
+    }
+
+    /**
+     * Removes the entry at the given slot and shifts back the entries of the probe
+     * sequence that follows it, so no tombstones are needed to keep lookups correct.
+     */
+    private void delete(int slot) {
+        int mask = keys.length - 1;
+        int hole = slot;
+        for (int i = (slot + 1) & mask; keys[i] != null; i = (i + 1) & mask) {
+            int home = hashes[i] & mask;
+            // Move the entry into the hole unless its home slot lies cyclically in (hole, i].
+            if (((i - home) & mask) >= ((i - hole) & mask)) {
+                keys[hole] = keys[i];
+                hashes[hole] = hashes[i];
+                values[hole] = values[i];
+                hole = i;
+            }
+        }
+        keys[hole] = null;
+    }
+
+    private void resize(int capacity) {
+        DataStructure oldKeys[] = keys;
+        int oldHashes[] = hashes;
+        short oldValues[] = values;
+
+        allocate(capacity);
+
+        int mask = capacity - 1;
+        for (int j = 0; j < oldKeys.length; j++) {
+            if (oldKeys[j] != null) {
+                int i = oldHashes[j] & mask;
+                while (keys[i] != null) {
+                    i = (i + 1) & mask;
+                }
+                keys[i] = oldKeys[j];
+                hashes[i] = oldHashes[j];
+                values[i] = oldValues[j];
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        keys = new DataStructure[capacity];
+        hashes = new int[capacity];
+        values = new short[capacity];
+    }
+
+    private static int hash(DataStructure key) {
+        // Spread the bits since the table index only uses the low ones.
+        int h = key.hashCode() * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+}
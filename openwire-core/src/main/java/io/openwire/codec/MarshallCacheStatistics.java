@@ -0,0 +1,99 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.openwire.codec;
+
+/**
+ * A point in time snapshot of the counters kept by the marshal side value cache of an
+ * OpenWireFormat, used to judge how well the negotiated cache size and eviction policy
+ * suit the traffic of a connection.
+ */
+public final class MarshallCacheStatistics {
+
+    private final long hits;
+    private final long misses;
+    private final long evictions;
+    private final long bytesSaved;
+    private final int size;
+    private final int capacity;
+
+    public MarshallCacheStatistics(long hits, long misses, long evictions, long bytesSaved, int size, int capacity) {
+        this.hits = hits;
+        this.misses = misses;
+        this.evictions = evictions;
+        this.bytesSaved = bytesSaved;
+        this.size = size;
+        this.capacity = capacity;
+    }
+
+    /**
+     * @return the number of cached fields that were sent as an index only.
+     */
+    public long getHits() {
+        return hits;
+    }
+
+    /**
+     * @return the number of cached fields that had to be sent in full.
+     */
+    public long getMisses() {
+        return misses;
+    }
+
+    /**
+     * @return the number of values evicted to make room for new ones.
+     */
+    public long getEvictions() {
+        return evictions;
+    }
+
+    /**
+     * @return an estimate of the bytes not sent thanks to cache hits, based on the size
+     *         of each value when it was first marshaled.  Values loosely marshaled to a
+     *         DataOutput that does not count the bytes written to it are not included.
+     */
+    public long getBytesSaved() {
+        return bytesSaved;
+    }
+
+    /**
+     * @return the number of values currently in the cache.
+     */
+    public int getSize() {
+        return size;
+    }
+
+    /**
+     * @return the number of values the cache can hold.
+     */
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * @return the fraction of lookups that were hits, or zero if there were none.
+     */
+    public double getHitRatio() {
+        long lookups = hits + misses;
+        return lookups == 0 ? 0 : (double) hits / lookups;
+    }
+
+    @Override
+    public String toString() {
+        return "MarshallCacheStatistics{hits=" + hits + ", misses=" + misses + ", evictions=" + evictions +
+               ", bytesSaved=" + bytesSaved + ", size=" + size + ", capacity=" + capacity + "}";
+    }
+}
@@ -0,0 +1,160 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.openwire.codec;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Holds the marshaller table of every OpenWire protocol version in use.
+ *
+ * A table is resolved the first time its version is requested and then shared by all
+ * OpenWireFormat instances, so configuring or renegotiating the version of a connection
+ * is a simple array lookup.  The versions whose marshallers are part of this module are
+ * resolved with a direct call, the others are located by name through reflection which is
+ * done once per version.  The marshallers hold no per connection state, and the tables
+ * are private copies that are never handed out, so sharing them is safe.
+ *
+ * The legacy versions can instead be served by the descriptor driven marshallers of the
+ * openwire-legacy module, those tables are kept apart from the generated ones.
+ */
+final class MarshallerRegistry {
+
+    private static final int MAX_VERSION = 255;
+
+    private static final AtomicReferenceArray<DataStreamMarshaller[]> TABLES =
+        new AtomicReferenceArray<DataStreamMarshaller[]>(MAX_VERSION + 1);
+    private static final AtomicReferenceArray<DataStreamMarshaller[]> DESCRIPTOR_TABLES =
+        new AtomicReferenceArray<DataStreamMarshaller[]>(MAX_VERSION + 1);
+
+    private static final String DESCRIPTOR_FACTORY = "io.openwire.codec.descriptor.DescriptorMarshallerFactory";
+
+    private MarshallerRegistry() {
+    }
+
+    /**
+     * Returns the marshaller table of the given version, indexed by data structure type.
+     *
+     * @param version
+     *        the OpenWire protocol version.
+     *
+     * @return the shared marshaller table of the version.
+     *
+     * @throws IllegalArgumentException if there are no marshallers for the given version.
+     */
+    public static DataStreamMarshaller[] getMarshallers(int version) {
+        return getMarshallers(version, false);
+    }
+
+    /**
+     * Returns the marshaller table of the given version, indexed by data structure type.
+     *
+     * @param version
+     *        the OpenWire protocol version.
+     * @param descriptorMarshalling
+     *        true to use the descriptor driven marshallers for a version whose generated
+     *        marshallers are not part of this module.
+     *
+     * @return the shared marshaller table of the version.
+     *
+     * @throws IllegalArgumentException if there are no marshallers for the given version.
+     */
+    public static DataStreamMarshaller[] getMarshallers(int version, boolean descriptorMarshalling) {
+        if (version < 0 || version > MAX_VERSION) {
+            throw new IllegalArgumentException("Invalid version: " + version);
+        }
+
+        AtomicReferenceArray<DataStreamMarshaller[]> tables = TABLES;
+        if (descriptorMarshalling && !isCoreVersion(version)) {
+            tables = DESCRIPTOR_TABLES;
+        }
+
+        DataStreamMarshaller[] table = tables.get(version);
+        if (table == null) {
+            // Concurrent first requests may both resolve the table, only one is kept.
+            tables.compareAndSet(version, null, tables == DESCRIPTOR_TABLES ? resolveDescriptors(version) : resolve(version));
+            table = tables.get(version);
+        }
+        return table;
+    }
+
+    private static boolean isCoreVersion(int version) {
+        return version == 1 || version == 9 || version == 10;
+    }
+
+    private static DataStreamMarshaller[] resolve(int version) {
+        DataStreamMarshaller[] table;
+        switch (version) {
+        case 1:
+            table = io.openwire.codec.v1.MarshallerFactory.createMarshallerMap(null);
+            break;
+        case 9:
+            table = io.openwire.codec.v9.MarshallerFactory.createMarshallerMap(null);
+            break;
+        case 10:
+            table = io.openwire.codec.v10.MarshallerFactory.createMarshallerMap(null);
+            break;
+        default:
+            table = resolveByName(version);
+        }
+        return table.clone();
+    }
+
+    private static DataStreamMarshaller[] resolveDescriptors(int version) {
+        Class<?> factoryClass;
+        try {
+            factoryClass = Class.forName(DESCRIPTOR_FACTORY, false, MarshallerRegistry.class.getClassLoader());
+        } catch (ClassNotFoundException e) {
+            throw new IllegalArgumentException("Invalid version: " + version + ", could not load " + DESCRIPTOR_FACTORY, e);
+        }
+
+        DataStreamMarshaller[] table;
+        try {
+            Method method = factoryClass.getMethod("createMarshallerMap", new Class<?>[] { int.class });
+            table = (DataStreamMarshaller[]) method.invoke(null, new Object[] { Integer.valueOf(version) });
+        } catch (InvocationTargetException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IllegalArgumentException) {
+                throw (IllegalArgumentException) cause;
+            }
+            throw new IllegalArgumentException("Invalid version: " + version + ", " + DESCRIPTOR_FACTORY
+                + " could not create the marshallers.", cause);
+        } catch (Throwable e) {
+            throw new IllegalArgumentException("Invalid version: " + version + ", " + DESCRIPTOR_FACTORY
+                + " does not properly implement the createMarshallerMap method.", e);
+        }
+        return table.clone();
+    }
+
+    private static DataStreamMarshaller[] resolveByName(int version) {
+        String mfName = "io.openwire.codec.v" + version + ".MarshallerFactory";
+        Class<?> mfClass;
+        try {
+            mfClass = Class.forName(mfName, false, MarshallerRegistry.class.getClassLoader());
+        } catch (ClassNotFoundException e) {
+            throw new IllegalArgumentException("Invalid version: " + version + ", could not load " + mfName, e);
+        }
+        try {
+            Method method = mfClass.getMethod("createMarshallerMap", new Class[] { OpenWireFormat.class });
+            return (DataStreamMarshaller[]) method.invoke(null, new Object[] { null });
+        } catch (Throwable e) {
+            throw new IllegalArgumentException("Invalid version: " + version + ", " + mfName
+                + " does not properly implement the createMarshallerMap method.", e);
+        }
+    }
+}
@@ -0,0 +1,144 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.openwire.codec;
+
+import io.openwire.commands.Message;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Prepares messages for marshaling on a pool of worker threads.
+ *
+ * Storing the body of a message, marshaling its properties and compressing it is normally
+ * done while the message is marshaled, which holds the OpenWireFormat of the connection so
+ * that one slow compression delays every other send on it.  A MessagePreparer does that work
+ * ahead of time with {@link Message#prepareForMarshall(OpenWireFormat)} so that the thread
+ * that writes to the connection only frames bytes that are already prepared.
+ *
+ * A message handed to {@link #prepare(Message)} must not be touched until the returned Future
+ * has completed, waiting on the Futures in the order the messages were submitted preserves
+ * the order in which they are sent.  Any Executor can be used, such as a ForkJoinPool or one
+ * that starts a virtual thread per task, {@link #createExecutor(int, int)} creates a bounded
+ * pool that prepares messages on the submitting thread when the pool is saturated.
+ */
+public final class MessagePreparer {
+
+    private final OpenWireFormat wireFormat;
+    private final Executor executor;
+
+    /**
+     * Creates a new preparer.
+     *
+     * @param wireFormat
+     *        the OpenWireFormat of the connection the prepared messages are sent on.
+     * @param executor
+     *        the Executor that runs the preparation of each message.
+     */
+    public MessagePreparer(OpenWireFormat wireFormat, Executor executor) {
+        if (wireFormat == null) {
+            throw new IllegalArgumentException("OpenWireFormat cannot be null");
+        }
+        if (executor == null) {
+            throw new IllegalArgumentException("Executor cannot be null");
+        }
+
+        this.wireFormat = wireFormat;
+        this.executor = executor;
+    }
+
+    /**
+     * Submits a message to be prepared for marshaling.
+     *
+     * @param message
+     *        the message to prepare.
+     *
+     * @return a Future that completes with the given message once it has been prepared, or
+     *         with the IOException thrown while preparing it.
+     */
+    public <T extends Message> Future<T> prepare(final T message) {
+        FutureTask<T> task = new FutureTask<T>(new Callable<T>() {
+
+            @Override
+            public T call() throws Exception {
+                message.prepareForMarshall(wireFormat);
+                return message;
+            }
+        });
+
+        executor.execute(task);
+        return task;
+    }
+
+    /**
+     * @return the OpenWireFormat that messages are prepared for.
+     */
+    public OpenWireFormat getWireFormat() {
+        return wireFormat;
+    }
+
+    /**
+     * @return the Executor that runs the preparation of each message.
+     */
+    public Executor getExecutor() {
+        return executor;
+    }
+
+    /**
+     * Creates a bounded pool of daemon threads for preparing messages.  When every thread is
+     * busy and the queue is full a message is prepared by the thread that submits it, which
+     * holds back producers that outpace the pool.
+     *
+     * @param threads
+     *        the number of worker threads.
+     * @param queueSize
+     *        the number of messages that can wait for a worker thread.
+     *
+     * @return a new ExecutorService that must be shut down once it is no longer needed.
+     */
+    public static ExecutorService createExecutor(int threads, int queueSize) {
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(
+            threads, threads, 60, TimeUnit.SECONDS,
+            new ArrayBlockingQueue<Runnable>(queueSize), new PreparerThreadFactory(),
+            new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    private static final class PreparerThreadFactory implements ThreadFactory {
+
+        private static final AtomicInteger POOL_COUNT = new AtomicInteger();
+
+        private final int pool = POOL_COUNT.incrementAndGet();
+        private final AtomicInteger count = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "OpenWire Message Preparer " + pool + "-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
@@ -0,0 +1,35 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.openwire.codec;
+
+import java.io.IOException;
+
+/**
+ * Implemented by the marshallers that have overloads taking the final OpenWireBufferReader
+ * and OpenWireBufferWriter in place of DataInput and DataOutput.  The bodies are the same
+ * as those of the DataInput and DataOutput methods, only the calls they make resolve to
+ * the concrete reader and writer.
+ */
+public interface OpenWireBufferMarshaller extends DataStreamMarshaller {
+
+    void tightUnmarshal(OpenWireFormat format, Object data, OpenWireBufferReader dis, BooleanStream bs) throws IOException;
+
+    void looseMarshal(OpenWireFormat format, Object c, OpenWireBufferWriter ds) throws IOException;
+
+    void looseUnmarshal(OpenWireFormat format, Object data, OpenWireBufferReader dis) throws IOException;
+
+}
@@ -0,0 +1,257 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.openwire.codec;
+
+import java.io.DataInput;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UTFDataFormatException;
+
+import org.fusesource.hawtbuf.Buffer;
+
+/**
+ * Reads the primitives of an OpenWire frame held in a byte array.
+ *
+ * The class is final so the marshaller overloads that take it, rather than a DataInput,
+ * make direct calls the JIT can inline whatever other DataInput implementations the
+ * application uses.  Every read is checked against the end of the frame and fails with
+ * an EOFException rather than reading past it.  It still implements DataInput so it can
+ * be handed to the marshallers that have no such overloads.
+ */
+public final class OpenWireBufferReader implements DataInput {
+
+    private static final byte[] EMPTY = new byte[0];
+
+    private byte[] data = EMPTY;
+    private int pos;
+    private int limit;
+
+    public OpenWireBufferReader() {
+    }
+
+    public OpenWireBufferReader(Buffer buffer) {
+        restart(buffer);
+    }
+
+    /**
+     * Starts reading the given buffer from its first byte.
+     */
+    public void restart(Buffer buffer) {
+        this.data = buffer.getData();
+        this.pos = buffer.getOffset();
+        this.limit = buffer.getOffset() + buffer.getLength();
+    }
+
+    /**
+     * @return the array being read.
+     */
+    public byte[] getRawData() {
+        return data;
+    }
+
+    /**
+     * @return the position in the array of the next byte to read.
+     */
+    public int getPos() {
+        return pos;
+    }
+
+    /**
+     * @return the number of bytes left before the end of the frame.
+     */
+    public int available() {
+        return limit - pos;
+    }
+
+    /**
+     * Returns the next size bytes as a Buffer that shares the array being read.
+     */
+    public Buffer readBuffer(int size) throws IOException {
+        require(size);
+        Buffer answer = new Buffer(data, pos, size);
+        pos += size;
+        return answer;
+    }
+
+    @Override
+    public void readFully(byte[] b) throws IOException {
+        readFully(b, 0, b.length);
+    }
+
+    @Override
+    public void readFully(byte[] b, int off, int len) throws IOException {
+        require(len);
+        System.arraycopy(data, pos, b, off, len);
+        pos += len;
+    }
+
+    @Override
+    public int skipBytes(int n) throws IOException {
+        int skipped = Math.max(0, Math.min(n, limit - pos));
+        pos += skipped;
+        return skipped;
+    }
+
+    @Override
+    public boolean readBoolean() throws IOException {
+        require(1);
+        return data[pos++] != 0;
+    }
+
+    @Override
+    public byte readByte() throws IOException {
+        require(1);
+        return data[pos++];
+    }
+
+    @Override
+    public int readUnsignedByte() throws IOException {
+        require(1);
+        return data[pos++] & 0xFF;
+    }
+
+    @Override
+    public short readShort() throws IOException {
+        require(2);
+        short answer = (short) (((data[pos] & 0xFF) << 8) | (data[pos + 1] & 0xFF));
+        pos += 2;
+        return answer;
+    }
+
+    @Override
+    public int readUnsignedShort() throws IOException {
+        return readShort() & 0xFFFF;
+    }
+
+    @Override
+    public char readChar() throws IOException {
+        return (char) readShort();
+    }
+
+    @Override
+    public int readInt() throws IOException {
+        require(4);
+        int answer = ((data[pos] & 0xFF) << 24) | ((data[pos + 1] & 0xFF) << 16) |
+                     ((data[pos + 2] & 0xFF) << 8) | (data[pos + 3] & 0xFF);
+        pos += 4;
+        return answer;
+    }
+
+    @Override
+    public long readLong() throws IOException {
+        require(8);
+        long high = readInt();
+        long low = readInt();
+        return (high << 32) | (low & 0xFFFFFFFFL);
+    }
+
+    @Override
+    public float readFloat() throws IOException {
+        return Float.intBitsToFloat(readInt());
+    }
+
+    @Override
+    public double readDouble() throws IOException {
+        return Double.longBitsToDouble(readLong());
+    }
+
+    @Override
+    public String readLine() throws IOException {
+        if (pos >= limit) {
+            return null;
+        }
+
+        StringBuilder answer = new StringBuilder();
+        while (pos < limit) {
+            int c = data[pos++] & 0xFF;
+            if (c == '\n') {
+                break;
+            } else if (c == '\r') {
+                if (pos < limit && data[pos] == '\n') {
+                    pos++;
+                }
+                break;
+            }
+            answer.append((char) c);
+        }
+        return answer.toString();
+    }
+
+    @Override
+    public String readUTF() throws IOException {
+        int utflen = readUnsignedShort();
+        require(utflen);
+
+        String answer = decodeUTF(data, pos, utflen);
+        pos += utflen;
+        return answer;
+    }
+
+    /**
+     * Decodes the given number of bytes of modified UTF-8 starting at the given position,
+     * the caller has checked that they are all within the frame.
+     */
+    static String decodeUTF(byte[] data, int position, int utflen) throws UTFDataFormatException {
+        char[] chars = new char[utflen];
+        int count = 0;
+        int pos = position;
+        int end = position + utflen;
+        while (pos < end) {
+            int c = data[pos] & 0xFF;
+            switch (c >> 4) {
+                case 0: case 1: case 2: case 3: case 4: case 5: case 6: case 7:
+                    pos++;
+                    chars[count++] = (char) c;
+                    break;
+                case 12: case 13: {
+                    if (pos + 2 > end) {
+                        throw new UTFDataFormatException("Partial character at end of input");
+                    }
+                    int c2 = data[pos + 1];
+                    if ((c2 & 0xC0) != 0x80) {
+                        throw new UTFDataFormatException("Malformed input around byte " + (pos - position));
+                    }
+                    chars[count++] = (char) (((c & 0x1F) << 6) | (c2 & 0x3F));
+                    pos += 2;
+                    break;
+                }
+                case 14: {
+                    if (pos + 3 > end) {
+                        throw new UTFDataFormatException("Partial character at end of input");
+                    }
+                    int c2 = data[pos + 1];
+                    int c3 = data[pos + 2];
+                    if (((c2 & 0xC0) != 0x80) || ((c3 & 0xC0) != 0x80)) {
+                        throw new UTFDataFormatException("Malformed input around byte " + (pos - position));
+                    }
+                    chars[count++] = (char) (((c & 0x0F) << 12) | ((c2 & 0x3F) << 6) | (c3 & 0x3F));
+                    pos += 3;
+                    break;
+                }
+                default:
+                    throw new UTFDataFormatException("Malformed input around byte " + (pos - position));
+            }
+        }
+        return new String(chars, 0, count);
+    }
+
+    private void require(int size) throws EOFException {
+        if (size < 0 || size > limit - pos) {
+            throw new EOFException("Cannot read " + size + " bytes with " + (limit - pos) + " remaining");
+        }
+    }
+}
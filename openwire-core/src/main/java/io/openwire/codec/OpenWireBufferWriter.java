@@ -0,0 +1,217 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.openwire.codec;
+
+import java.io.DataOutput;
+import java.io.IOException;
+import java.io.UTFDataFormatException;
+
+import org.fusesource.hawtbuf.Buffer;
+
+/**
+ * Writes the primitives of an OpenWire frame into a byte array that grows as needed.
+ *
+ * The class is final so the marshaller overloads that take it, rather than a DataOutput,
+ * make direct calls the JIT can inline whatever other DataOutput implementations the
+ * application uses.  It still implements DataOutput so it can be handed to the marshallers
+ * that have no such overloads.
+ */
+public final class OpenWireBufferWriter implements DataOutput {
+
+    private static final int DEFAULT_SIZE = 2048;
+
+    private byte[] data;
+    private int pos;
+
+    public OpenWireBufferWriter() {
+        this(DEFAULT_SIZE);
+    }
+
+    public OpenWireBufferWriter(int size) {
+        this.data = new byte[size];
+    }
+
+    /**
+     * Starts a new frame in a new array, so a Buffer returned by an earlier call to
+     * {@link #toBuffer()} is never overwritten.
+     */
+    public void restart() {
+        restart(DEFAULT_SIZE);
+    }
+
+    /**
+     * Starts a new frame in a new array of the given size.
+     */
+    public void restart(int size) {
+        this.data = new byte[size];
+        this.pos = 0;
+    }
+
+    /**
+     * @return the number of bytes written since the last restart.
+     */
+    public int position() {
+        return pos;
+    }
+
+    /**
+     * @return the bytes written since the last restart, sharing the array of this writer.
+     */
+    public Buffer toBuffer() {
+        return new Buffer(data, 0, pos);
+    }
+
+    /**
+     * Overwrites four bytes that were written earlier, used to fill in the size of a frame
+     * once the rest of it has been written.
+     */
+    public void backfillInt(int position, int value) {
+        if (position < 0 || position + 4 > pos) {
+            throw new IndexOutOfBoundsException("Cannot backfill at " + position + " with " + pos + " bytes written");
+        }
+        BigEndianBytes.putInt(data, position, value);
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        ensureCapacity(1);
+        data[pos++] = (byte) b;
+    }
+
+    @Override
+    public void write(byte[] b) throws IOException {
+        write(b, 0, b.length);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        ensureCapacity(len);
+        System.arraycopy(b, off, data, pos, len);
+        pos += len;
+    }
+
+    @Override
+    public void writeBoolean(boolean v) throws IOException {
+        ensureCapacity(1);
+        data[pos++] = v ? (byte) 1 : (byte) 0;
+    }
+
+    @Override
+    public void writeByte(int v) throws IOException {
+        ensureCapacity(1);
+        data[pos++] = (byte) v;
+    }
+
+    @Override
+    public void writeShort(int v) throws IOException {
+        ensureCapacity(2);
+        pos = BigEndianBytes.putShort(data, pos, v);
+    }
+
+    @Override
+    public void writeChar(int v) throws IOException {
+        ensureCapacity(2);
+        pos = BigEndianBytes.putChar(data, pos, v);
+    }
+
+    @Override
+    public void writeInt(int v) throws IOException {
+        ensureCapacity(4);
+        pos = BigEndianBytes.putInt(data, pos, v);
+    }
+
+    @Override
+    public void writeLong(long v) throws IOException {
+        ensureCapacity(8);
+        pos = BigEndianBytes.putLong(data, pos, v);
+    }
+
+    @Override
+    public void writeFloat(float v) throws IOException {
+        writeInt(Float.floatToIntBits(v));
+    }
+
+    @Override
+    public void writeDouble(double v) throws IOException {
+        writeLong(Double.doubleToLongBits(v));
+    }
+
+    @Override
+    @SuppressWarnings("deprecation")
+    public void writeBytes(String s) throws IOException {
+        int length = s.length();
+        ensureCapacity(length);
+        // Yes deprecated, but it copies the low byte of each char which is what we want.
+        s.getBytes(0, length, data, pos);
+        pos += length;
+    }
+
+    @Override
+    public void writeChars(String s) throws IOException {
+        int length = s.length();
+        ensureCapacity(length * 2);
+        for (int i = 0; i < length; i++) {
+            pos = BigEndianBytes.putChar(data, pos, s.charAt(i));
+        }
+    }
+
+    @Override
+    public void writeUTF(String str) throws IOException {
+        int strlen = str.length();
+        int utflen = 0;
+
+        for (int i = 0; i < strlen; i++) {
+            int c = str.charAt(i);
+            if ((c >= 0x0001) && (c <= 0x007F)) {
+                utflen++;
+            } else if (c > 0x07FF) {
+                utflen += 3;
+            } else {
+                utflen += 2;
+            }
+        }
+
+        if (utflen > 65535) {
+            throw new UTFDataFormatException("Encoded string too long: " + utflen + " bytes");
+        }
+
+        ensureCapacity(utflen + 2);
+        pos = BigEndianBytes.putShort(data, pos, utflen);
+        for (int i = 0; i < strlen; i++) {
+            int c = str.charAt(i);
+            if ((c >= 0x0001) && (c <= 0x007F)) {
+                data[pos++] = (byte) c;
+            } else if (c > 0x07FF) {
+                data[pos++] = (byte) (0xE0 | ((c >> 12) & 0x0F));
+                data[pos++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+                data[pos++] = (byte) (0x80 | ((c >> 0) & 0x3F));
+            } else {
+                data[pos++] = (byte) (0xC0 | ((c >> 6) & 0x1F));
+                data[pos++] = (byte) (0x80 | ((c >> 0) & 0x3F));
+            }
+        }
+    }
+
+    private void ensureCapacity(int size) {
+        int required = pos + size;
+        if (required > data.length) {
+            byte[] grown = new byte[Math.max(required, data.length << 1)];
+            System.arraycopy(data, 0, grown, 0, pos);
+            data = grown;
+        }
+    }
+}
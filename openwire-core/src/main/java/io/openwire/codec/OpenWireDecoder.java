@@ -0,0 +1,108 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.openwire.codec;
+
+import java.io.DataInput;
+import java.io.IOException;
+
+import org.fusesource.hawtbuf.Buffer;
+
+/**
+ * The decoding half of an OpenWireFormat.
+ *
+ * A decoder owns its own unmarshal side value cache and scratch buffers and shares no mutable
+ * state with the OpenWireEncoder created from the same OpenWireFormat, which allows a reader
+ * thread and a writer thread to work on one connection without contending on a common monitor.
+ *
+ * A decoder is not thread safe and is meant to be used by the single thread that reads from a
+ * connection.  Configuration changes made on the parent OpenWireFormat, such as the result of
+ * wire format negotiation, are picked up on the next call to decode.
+ */
+public final class OpenWireDecoder {
+
+    private final OpenWireFormat parent;
+    private final OpenWireFormat wireFormat;
+    private int generation;
+
+    OpenWireDecoder(OpenWireFormat parent) {
+        this.parent = parent;
+        this.generation = parent.getConfigurationGeneration();
+        this.wireFormat = new OpenWireFormat(parent.getVersion());
+        this.wireFormat.configureFrom(parent);
+    }
+
+    /**
+     * Unmarshals a single command from the given Buffer.
+     *
+     * @param sequence
+     *        the Buffer holding one complete frame.
+     *
+     * @return the decoded command, can be null.
+     *
+     * @throws IOException if an error occurs while unmarshaling the command.
+     */
+    public Object decode(Buffer sequence) throws IOException {
+        checkConfiguration();
+        return wireFormat.decode(sequence);
+    }
+
+    /**
+     * Unmarshals a single command from the given DataInput.
+     *
+     * @param dataIn
+     *        the DataInput positioned at the start of a frame.
+     *
+     * @return the decoded command, can be null.
+     *
+     * @throws IOException if an error occurs while unmarshaling the command.
+     */
+    public Object decode(DataInput dataIn) throws IOException {
+        checkConfiguration();
+        return wireFormat.decode(dataIn);
+    }
+
+    /**
+     * @return true if the frames read by this decoder carry no size prefix.
+     */
+    public boolean isSizePrefixDisabled() {
+        checkConfiguration();
+        return wireFormat.isSizePrefixDisabled();
+    }
+
+    /**
+     * @return the largest frame size that this decoder will accept.
+     */
+    public long getMaxFrameSize() {
+        checkConfiguration();
+        return wireFormat.getMaxFrameSize();
+    }
+
+    /**
+     * @return the OpenWireFormat that this decoder was created from.
+     */
+    public OpenWireFormat getWireFormat() {
+        return parent;
+    }
+
+    private void checkConfiguration() {
+        int current = parent.getConfigurationGeneration();
+        if (current != generation) {
+            generation = current;
+            wireFormat.configureFrom(parent);
+        }
+    }
+}
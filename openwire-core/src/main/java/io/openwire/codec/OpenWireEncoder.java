@@ -0,0 +1,173 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.openwire.codec;
+
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Iterator;
+
+import org.fusesource.hawtbuf.Buffer;
+
+/**
+ * The encoding half of an OpenWireFormat.
+ *
+ * An encoder owns its own marshal side value cache and scratch buffers and shares no mutable
+ * state with the OpenWireDecoder created from the same OpenWireFormat, which allows a writer
+ * thread and a reader thread to work on one connection without contending on a common monitor.
+ *
+ * An encoder is not thread safe and is meant to be used by the single thread that writes to a
+ * connection.  Configuration changes made on the parent OpenWireFormat, such as the result of
+ * wire format negotiation, are picked up on the next call to encode.
+ */
+public final class OpenWireEncoder {
+
+    private final OpenWireFormat parent;
+    private final OpenWireFormat wireFormat;
+    private int generation;
+
+    OpenWireEncoder(OpenWireFormat parent) {
+        this.parent = parent;
+        this.generation = parent.getConfigurationGeneration();
+        this.wireFormat = new OpenWireFormat(parent.getVersion());
+        this.wireFormat.configureFrom(parent);
+    }
+
+    /**
+     * Marshals the given command into a new Buffer.
+     *
+     * @param command
+     *        the command to marshal, can be null.
+     *
+     * @return a Buffer containing the marshaled frame.
+     *
+     * @throws IOException if an error occurs while marshaling the command.
+     */
+    public Buffer encode(Object command) throws IOException {
+        checkConfiguration();
+        return wireFormat.encode(command);
+    }
+
+    /**
+     * Marshals the given command to the provided DataOutput.
+     *
+     * @param command
+     *        the command to marshal, can be null.
+     * @param dataOut
+     *        the DataOutput that receives the marshaled frame.
+     *
+     * @throws IOException if an error occurs while marshaling the command.
+     */
+    public void encode(Object command, DataOutput dataOut) throws IOException {
+        checkConfiguration();
+        wireFormat.encode(command, dataOut);
+    }
+
+    /**
+     * Marshals the given command directly into the target ByteBuffer.
+     *
+     * @param command
+     *        the command to marshal, can be null.
+     * @param target
+     *        the buffer that receives the marshaled frame.
+     *
+     * @return the number of bytes written, or the negated number of bytes required on overflow.
+     *
+     * @throws IOException if an error occurs while marshaling the command.
+     *
+     * @see OpenWireFormat#marshal(Object, ByteBuffer)
+     */
+    public int encode(Object command, ByteBuffer target) throws IOException {
+        checkConfiguration();
+        return wireFormat.encode(command, target);
+    }
+
+    /**
+     * Marshals the given command as a sequence of segments meant for a gathering write.
+     *
+     * @param command
+     *        the command to marshal, can be null.
+     *
+     * @return the segments that make up the marshaled frame, in order.
+     *
+     * @throws IOException if an error occurs while marshaling the command.
+     *
+     * @see OpenWireFormat#marshalSegments(Object)
+     */
+    public ByteBuffer[] encodeSegments(Object command) throws IOException {
+        checkConfiguration();
+        return wireFormat.encodeSegments(command);
+    }
+
+    /**
+     * Marshals the given commands back to back into one Buffer.
+     *
+     * @param commands
+     *        the commands to marshal, which can contain null elements.
+     *
+     * @return a Buffer containing the marshaled frames in iteration order.
+     *
+     * @throws IOException if an error occurs while marshaling one of the commands.
+     *
+     * @see OpenWireFormat#marshalBatch(Iterable)
+     */
+    public Buffer encodeBatch(Iterable<?> commands) throws IOException {
+        return encodeBatch(commands.iterator());
+    }
+
+    /**
+     * Marshals the commands returned by the given iterator back to back into one Buffer.
+     *
+     * @param commands
+     *        an iterator over the commands to marshal, which can return null elements.
+     *
+     * @return a Buffer containing the marshaled frames in iteration order.
+     *
+     * @throws IOException if an error occurs while marshaling one of the commands.
+     *
+     * @see OpenWireFormat#marshalBatch(Iterator)
+     */
+    public Buffer encodeBatch(Iterator<?> commands) throws IOException {
+        checkConfiguration();
+        return wireFormat.encodeBatch(commands);
+    }
+
+    /**
+     * @return a snapshot of the counters of this encoder's value cache, or null if the
+     *         cache is not enabled.
+     *
+     * @see OpenWireFormat#getMarshallCacheStatistics()
+     */
+    public MarshallCacheStatistics getMarshallCacheStatistics() {
+        return wireFormat.getMarshallCacheStatistics();
+    }
+
+    /**
+     * @return the OpenWireFormat that this encoder was created from.
+     */
+    public OpenWireFormat getWireFormat() {
+        return parent;
+    }
+
+    private void checkConfiguration() {
+        int current = parent.getConfigurationGeneration();
+        if (current != generation) {
+            generation = current;
+            wireFormat.configureFrom(parent);
+        }
+    }
+}
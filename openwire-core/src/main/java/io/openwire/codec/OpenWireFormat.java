@@ -18,17 +18,21 @@ package io.openwire.codec;
 
 import io.openwire.commands.CommandTypes;
 import io.openwire.commands.DataStructure;
+import io.openwire.commands.Message;
 import io.openwire.commands.WireFormatInfo;
 
 import java.io.DataInput;
 import java.io.DataOutput;
+import java.io.EOFException;
 import java.io.IOException;
-import java.lang.reflect.Method;
-import java.util.HashMap;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.fusesource.hawtbuf.Buffer;
-import org.fusesource.hawtbuf.DataByteArrayInputStream;
 import org.fusesource.hawtbuf.DataByteArrayOutputStream;
 
 /**
@@ -39,30 +43,78 @@ public final class OpenWireFormat {
     public static final int DEFAULT_VERSION = CommandTypes.PROTOCOL_STORE_VERSION;
     public static final int DEFAULT_WIRE_VERSION = CommandTypes.PROTOCOL_VERSION;
     public static final long DEFAULT_MAX_FRAME_SIZE = Long.MAX_VALUE;
+    public static final int DEFAULT_SEGMENT_THRESHOLD = 8 * 1024;
 
     static final byte NULL_TYPE = CommandTypes.NULL;
     private static final int MARSHAL_CACHE_SIZE = Short.MAX_VALUE / 2;
     private static final int MARSHAL_CACHE_FREE_SPACE = 100;
+    private static final int TIGHT_HEADER_RESERVE = 64;
+    private static final AtomicInteger CACHE_GENERATIONS = new AtomicInteger();
+
+    /**
+     * Evicts value cache entries in the order they were added.
+     */
+    public static final String CACHE_EVICTION_FIFO = "fifo";
+
+    /**
+     * Spares value cache entries that were hit since the eviction hand last passed them.
+     */
+    public static final String CACHE_EVICTION_CLOCK = "clock";
+
+    /**
+     * Retains value cache entries in proportion to how often they are hit.
+     */
+    public static final String CACHE_EVICTION_FREQUENCY = "frequency";
 
     private DataStreamMarshaller dataMarshallers[];
+    private boolean byteArrayMarshalling;
     private int version;
     private boolean stackTraceEnabled;
     private boolean tcpNoDelayEnabled;
     private boolean cacheEnabled;
     private boolean tightEncodingEnabled;
     private boolean sizePrefixDisabled;
+    private boolean singlePassTightEncodingEnabled;
+    private boolean zeroCopyUnmarshalEnabled;
+    private boolean lazyMessageUnmarshalEnabled;
     private long maxFrameSize = DEFAULT_MAX_FRAME_SIZE;
+    private String cacheEvictionPolicy = CACHE_EVICTION_FIFO;
+    private int segmentThreshold = DEFAULT_SEGMENT_THRESHOLD;
+    private boolean descriptorMarshallingEnabled;
+    private CodecMetrics codecMetrics;
+    private CodecMetrics.Recorder metricsRecorder;
+    private volatile CompressionCodec compressionCodec = CompressionCodecs.DEFLATE;
 
     // The following fields are used for value caching
-    private short nextMarshallCacheIndex;
-    private short nextMarshallCacheEvictionIndex;
-    private Map<DataStructure, Short> marshallCacheMap = new HashMap<DataStructure, Short>();
-    private DataStructure marshallCache[] = null;
+    private MarshallCache marshallCache = null;
     private DataStructure unmarshallCache[] = null;
     private final DataByteArrayOutputStream bytesOut = new DataByteArrayOutputStream();
-    private final DataByteArrayInputStream bytesIn = new DataByteArrayInputStream();
+    private final OpenWireBufferReader bytesIn = new OpenWireBufferReader();
+    private final OpenWireBufferWriter looseOut = new OpenWireBufferWriter();
+    private final ByteBufferDataOutput byteBufferOut = new ByteBufferDataOutput();
+    private final MarshallCacheMap pendingMarshallCache = new MarshallCacheMap();
+    private final SegmentedDataOutput segmentedOut = new SegmentedDataOutput();
+    private final BooleanStream marshalStream = new BooleanStream();
+    private final BooleanStream unmarshalStream = new BooleanStream();
+    private BooleanStream nestedUnmarshalStreams[] = new BooleanStream[0];
+    private int nestedUnmarshalDepth;
+
+    // The position that follows the last value read from a frame array by the byte array
+    // unmarshal helpers.
+    private int unmarshalPosition;
+    private boolean looseMarshalSized;
+
+    // The messages of the frame being marshaled that were converted to the codec of this connection.
+    private final Map<Message, Message> convertedMessages = new IdentityHashMap<Message, Message>();
     private WireFormatInfo preferedWireFormatInfo;
 
+    // Incremented on every configuration change so that encoder and decoder halves can resync
+    private volatile int configurationGeneration;
+
+    // Identifies the current value caches, encoder and decoder halves only discard their own
+    // caches when these are replaced since the peer keeps referring to the entries otherwise.
+    private int cacheGeneration = CACHE_GENERATIONS.incrementAndGet();
+
     public OpenWireFormat() {
         this(DEFAULT_VERSION);
     }
@@ -84,6 +136,14 @@ public final class OpenWireFormat {
         answer.cacheEnabled = cacheEnabled;
         answer.tightEncodingEnabled = tightEncodingEnabled;
         answer.sizePrefixDisabled = sizePrefixDisabled;
+        answer.singlePassTightEncodingEnabled = singlePassTightEncodingEnabled;
+        answer.zeroCopyUnmarshalEnabled = zeroCopyUnmarshalEnabled;
+        answer.lazyMessageUnmarshalEnabled = lazyMessageUnmarshalEnabled;
+        answer.cacheEvictionPolicy = cacheEvictionPolicy;
+        answer.segmentThreshold = segmentThreshold;
+        answer.setDescriptorMarshallingEnabled(descriptorMarshallingEnabled);
+        answer.setCodecMetrics(codecMetrics);
+        answer.compressionCodec = compressionCodec;
         answer.preferedWireFormatInfo = preferedWireFormatInfo;
         return answer;
     }
@@ -109,6 +169,133 @@ public final class OpenWireFormat {
     }
 
     public synchronized Buffer marshal(Object command) throws IOException {
+        return encode(command);
+    }
+
+    public synchronized Object unmarshal(Buffer sequence) throws IOException {
+        return decode(sequence);
+    }
+
+    public synchronized void marshal(Object o, DataOutput dataOut) throws IOException {
+        encode(o, dataOut);
+    }
+
+    /**
+     * Marshals the given command directly into the target ByteBuffer, which can be either a
+     * heap or a direct buffer.  The frame is written starting at the buffer's current position
+     * and the position is advanced past it.
+     *
+     * If the buffer does not have enough space remaining for the complete frame then nothing is
+     * written, any value cache entries created for the command are discarded and the negated
+     * size of the frame is returned so that the caller can retry with a larger buffer.
+     *
+     * @param command
+     *        the command to marshal, can be null.
+     * @param target
+     *        the buffer that receives the marshaled frame.
+     *
+     * @return the number of bytes written, or the negated number of bytes required on overflow.
+     *
+     * @throws IOException if an error occurs while marshaling the command.
+     */
+    public synchronized int marshal(Object command, ByteBuffer target) throws IOException {
+        return encode(command, target);
+    }
+
+    /**
+     * Marshals the given commands back to back into one Buffer, each as a complete frame,
+     * so that a batch of commands can be handed to the transport in a single write.
+     *
+     * @param commands
+     *        the commands to marshal, which can contain null elements.
+     *
+     * @return a Buffer containing the marshaled frames in iteration order.
+     *
+     * @throws IOException if an error occurs while marshaling one of the commands.
+     */
+    public synchronized Buffer marshalBatch(Iterable<?> commands) throws IOException {
+        return encodeBatch(commands.iterator());
+    }
+
+    /**
+     * Marshals the commands returned by the given iterator back to back into one Buffer.
+     *
+     * @param commands
+     *        an iterator over the commands to marshal, which can return null elements.
+     *
+     * @return a Buffer containing the marshaled frames in iteration order.
+     *
+     * @throws IOException if an error occurs while marshaling one of the commands.
+     *
+     * @see #marshalBatch(Iterable)
+     */
+    public synchronized Buffer marshalBatch(Iterator<?> commands) throws IOException {
+        return encodeBatch(commands);
+    }
+
+    /**
+     * Marshals the given command as a sequence of segments meant for a gathering write.
+     * Byte sequences of at least {@link #getSegmentThreshold()} bytes, such as the content
+     * of a large message, are returned as segments that wrap the command's own arrays so
+     * they are never copied into an encode buffer.  Those arrays must therefore not be
+     * modified until the segments have been written.
+     *
+     * The frame is tightly encoded in two passes whenever tight encoding is enabled since
+     * the single pass encoding needs the whole frame in one array.
+     *
+     * @param command
+     *        the command to marshal, can be null.
+     *
+     * @return the segments that make up the marshaled frame, in order.
+     *
+     * @throws IOException if an error occurs while marshaling the command.
+     */
+    public synchronized ByteBuffer[] marshalSegments(Object command) throws IOException {
+        return encodeSegments(command);
+    }
+
+    public Object unmarshal(DataInput dis) throws IOException {
+        return decode(dis);
+    }
+
+    /**
+     * Creates an encoder that marshals commands using the settings of this OpenWireFormat but
+     * with its own value cache and scratch buffers, so it never contends with the decoder half
+     * of the same connection.  The encoder follows any later changes to this instance such as
+     * those made by {@link #renegotiateWireFormat(WireFormatInfo)}.
+     *
+     * @return a new OpenWireEncoder bound to this OpenWireFormat.
+     */
+    public OpenWireEncoder createEncoder() {
+        return new OpenWireEncoder(this);
+    }
+
+    /**
+     * Creates a decoder that unmarshals commands using the settings of this OpenWireFormat but
+     * with its own value cache and scratch buffers, so it never contends with the encoder half
+     * of the same connection.  The decoder follows any later changes to this instance such as
+     * those made by {@link #renegotiateWireFormat(WireFormatInfo)}.
+     *
+     * @return a new OpenWireDecoder bound to this OpenWireFormat.
+     */
+    public OpenWireDecoder createDecoder() {
+        return new OpenWireDecoder(this);
+    }
+
+    Buffer encode(Object command) throws IOException {
+        CodecMetrics.Recorder recorder = metricsRecorder;
+        CodecEvents.FrameEvent event = CodecEvents.beginEncode();
+        if (recorder == null && event == null) {
+            return doEncode(command);
+        }
+
+        long start = System.nanoTime();
+        Buffer sequence = doEncode(command);
+        recordEncode(recorder, event, command, sequence.getLength(), start);
+        return sequence;
+    }
+
+    private Buffer doEncode(Object command) throws IOException {
         if (cacheEnabled) {
             runMarshallCacheEvictionSweep();
         }
@@ -116,45 +303,47 @@ public final class OpenWireFormat {
         Buffer sequence = null;
         int size = 1;
         if (command != null) {
-            DataStructure c = (DataStructure) command;
+            DataStructure c = marshalCommand((DataStructure) command);
             byte type = c.getDataStructureType();
             DataStreamMarshaller dsm = dataMarshallers[type & 0xFF];
             if (dsm == null) {
                 throw new IOException("Unknown data type: " + type);
             }
-            if (tightEncodingEnabled) {
+            if (tightEncodingEnabled && singlePassTightEncodingEnabled) {
+                sequence = tightMarshalSinglePass(dsm, c, type);
+            } else if (tightEncodingEnabled) {
 
-                BooleanStream bs = new BooleanStream();
+                BooleanStream bs = marshalStream;
+                bs.reset();
                 size += dsm.tightMarshal1(this, c, bs);
                 size += bs.marshalledSize();
 
-                bytesOut.restart(size);
-                if (!sizePrefixDisabled) {
-                    bytesOut.writeInt(size);
+                bytesOut.restart(sizePrefixDisabled ? size : size + 4);
+                if (byteArrayMarshalling) {
+                    tightMarshal2(dsm, c, type, size, bs, bytesOut);
+                } else {
+                    if (!sizePrefixDisabled) {
+                        bytesOut.writeInt(size);
+                    }
+                    bytesOut.writeByte(type);
+                    bs.marshal(bytesOut);
+                    dsm.tightMarshal2(this, c, bytesOut, bs);
                 }
-                bytesOut.writeByte(type);
-                bs.marshal(bytesOut);
-                dsm.tightMarshal2(this, c, bytesOut, bs);
                 sequence = bytesOut.toBuffer();
 
             } else {
-                bytesOut.restart();
+                looseOut.restart();
                 if (!sizePrefixDisabled) {
                     // we don't know the final size yet but write this here for now.
-                    bytesOut.writeInt(0);
+                    looseOut.writeInt(0);
                 }
-                bytesOut.writeByte(type);
-                dsm.looseMarshal(this, c, bytesOut);
-                sequence = bytesOut.toBuffer();
+                looseOut.writeByte(type);
+                looseMarshal(dsm, c, looseOut);
 
                 if (!sizePrefixDisabled) {
-                    size = sequence.getLength() - 4;
-                    int length = sequence.length;
-                    int offset = sequence.offset;
-                    sequence.bigEndianEditor().writeInt(size);
-                    sequence.length = length;
-                    sequence.offset = offset;
+                    looseOut.backfillInt(0, looseOut.position() - 4);
                 }
+                sequence = looseOut.toBuffer();
             }
         } else {
             bytesOut.restart(5);
@@ -166,7 +355,20 @@ public final class OpenWireFormat {
         return sequence;
     }
 
-    public synchronized Object unmarshal(Buffer sequence) throws IOException {
+    Object decode(Buffer sequence) throws IOException {
+        CodecMetrics.Recorder recorder = metricsRecorder;
+        CodecEvents.FrameEvent event = CodecEvents.beginDecode();
+        if (recorder == null && event == null) {
+            return doDecode(sequence);
+        }
+
+        long start = System.nanoTime();
+        Object command = doDecode(sequence);
+        recordDecode(recorder, event, command, sequence.getLength(), start);
+        return command;
+    }
+
+    private Object doDecode(Buffer sequence) throws IOException {
         bytesIn.restart(sequence);
 
         if (!sizePrefixDisabled) {
@@ -176,11 +378,70 @@ public final class OpenWireFormat {
             }
         }
 
+        if (byteArrayMarshalling && tightEncodingEnabled) {
+            return tightUnmarshal(bytesIn.getRawData(), bytesIn.getPos(), sequence.getOffset() + sequence.getLength());
+        }
+
         Object command = doUnmarshal(bytesIn);
         return command;
     }
 
-    public synchronized void marshal(Object o, DataOutput dataOut) throws IOException {
+    /**
+     * Reads a tightly encoded command straight from the array holding its frame, the
+     * counterpart of the byte array form of the second tight marshal pass.  The fixed size
+     * values are read without bounds checks beyond those of the array, a frame whose command
+     * ends past its limit is only rejected once it has been read.
+     */
+    private Object tightUnmarshal(byte[] data, int position, int limit) throws IOException {
+        if (position >= limit) {
+            throw new EOFException("Frame holds no data type");
+        }
+
+        byte dataType = data[position++];
+        if (dataType == NULL_TYPE) {
+            return null;
+        }
+
+        ByteArrayMarshaller dsm = (ByteArrayMarshaller) dataMarshallers[dataType & 0xFF];
+        if (dsm == null) {
+            throw new IOException("Unknown data type: " + dataType);
+        }
+
+        DataStructure command = dsm.createObject();
+        try {
+            BooleanStream bs = unmarshalStream;
+            position = bs.unmarshal(data, position);
+            position = dsm.tightUnmarshal(this, command, data, position, bs);
+        } catch (ArrayIndexOutOfBoundsException e) {
+            throw new EOFException("Frame of type " + dataType + " ends before its command");
+        }
+
+        if (position > limit) {
+            throw new EOFException("Frame of type " + dataType + " ends before its command");
+        }
+        return command;
+    }
+
+    void encode(Object o, DataOutput dataOut) throws IOException {
+        CodecMetrics.Recorder recorder = metricsRecorder;
+        CodecEvents.FrameEvent event = CodecEvents.beginEncode();
+        if (recorder == null && event == null) {
+            doEncode(o, dataOut, false);
+            return;
+        }
+
+        long start = System.nanoTime();
+        int size = doEncode(o, dataOut, true);
+        recordEncode(recorder, event, o, size, start);
+    }
+
+    /**
+     * @param measured
+     *        true if the loose frame size must be computed even when no size prefix is written.
+     *
+     * @return the size of the frame written, including its size prefix.
+     */
+    private int doEncode(Object o, DataOutput dataOut, boolean measured) throws IOException {
 
         if (cacheEnabled) {
             runMarshallCacheEvictionSweep();
@@ -189,14 +450,19 @@ public final class OpenWireFormat {
         int size = 1;
         if (o != null) {
 
-            DataStructure c = (DataStructure) o;
+            DataStructure c = marshalCommand((DataStructure) o);
             byte type = c.getDataStructureType();
             DataStreamMarshaller dsm = dataMarshallers[type & 0xFF];
             if (dsm == null) {
                 throw new IOException("Unknown data type: " + type);
             }
-            if (tightEncodingEnabled) {
-                BooleanStream bs = new BooleanStream();
+            if (tightEncodingEnabled && singlePassTightEncodingEnabled) {
+                Buffer sequence = tightMarshalSinglePass(dsm, c, type);
+                dataOut.write(sequence.getData(), sequence.getOffset(), sequence.getLength());
+                return sequence.getLength();
+            } else if (tightEncodingEnabled) {
+                BooleanStream bs = marshalStream;
+                bs.reset();
                 size += dsm.tightMarshal1(this, c, bs);
                 size += bs.marshalledSize();
 
@@ -209,22 +475,20 @@ public final class OpenWireFormat {
                 dsm.tightMarshal2(this, c, dataOut, bs);
 
             } else {
-                DataOutput looseOut = dataOut;
-
                 if (!sizePrefixDisabled) {
-                    bytesOut.restart();
-                    looseOut = bytesOut;
+                    size = looseMarshalSize(dsm, c);
+                    dataOut.writeInt(size);
+                } else if (measured) {
+                    size = looseMarshalSize(dsm, c);
                 }
 
-                looseOut.writeByte(type);
-                dsm.looseMarshal(this, c, looseOut);
-
-                if (!sizePrefixDisabled) {
-                    Buffer sequence = bytesOut.toBuffer();
-                    dataOut.writeInt(sequence.getLength());
-                    dataOut.write(sequence.getData(), sequence.getOffset(), sequence.getLength());
+                dataOut.writeByte(type);
+                looseMarshalSized = !sizePrefixDisabled || measured;
+                try {
+                    dsm.looseMarshal(this, c, dataOut);
+                } finally {
+                    looseMarshalSized = false;
                 }
-
             }
 
         } else {
@@ -233,157 +497,676 @@ public final class OpenWireFormat {
             }
             dataOut.writeByte(NULL_TYPE);
         }
-    }
 
-    public Object unmarshal(DataInput dis) throws IOException {
-        DataInput dataIn = dis;
-        if (!sizePrefixDisabled) {
-            int size = dis.readInt();
-            if (size > maxFrameSize) {
-                throw new IOException("Frame size of " + (size / (1024 * 1024)) + " MB larger than max allowed " + (maxFrameSize / (1024 * 1024)) + " MB");
-            }
-        }
-        return doUnmarshal(dataIn);
+        return sizePrefixDisabled ? size : size + 4;
     }
 
-    /**
-     * Used by NIO or AIO transports
-     */
-    public int tightMarshal1(Object o, BooleanStream bs) throws IOException {
-        int size = 1;
-        if (o != null) {
-            DataStructure c = (DataStructure) o;
-            byte type = c.getDataStructureType();
-            DataStreamMarshaller dsm = dataMarshallers[type & 0xFF];
-            if (dsm == null) {
-                throw new IOException("Unknown data type: " + type);
-            }
+    int encode(Object command, ByteBuffer target) throws IOException {
+        CodecMetrics.Recorder recorder = metricsRecorder;
+        CodecEvents.FrameEvent event = CodecEvents.beginEncode();
+        if (recorder == null && event == null) {
+            return doEncode(command, target);
+        }
 
-            size += dsm.tightMarshal1(this, c, bs);
-            size += bs.marshalledSize();
+        long start = System.nanoTime();
+        int size = doEncode(command, target);
+        if (size > 0) {
+            recordEncode(recorder, event, command, size, start);
         }
         return size;
     }
 
-    /**
-     * Used by NIO or AIO transports; note that the size is not written as part of this method.
-     */
-    public void tightMarshal2(Object o, DataOutput ds, BooleanStream bs) throws IOException {
+    private int doEncode(Object command, ByteBuffer target) throws IOException {
         if (cacheEnabled) {
             runMarshallCacheEvictionSweep();
         }
 
-        if (o != null) {
-            DataStructure c = (DataStructure) o;
+        int size = 1;
+        int prefixSize = sizePrefixDisabled ? 0 : 4;
+
+        if (command != null) {
+            DataStructure c = marshalCommand((DataStructure) command);
             byte type = c.getDataStructureType();
             DataStreamMarshaller dsm = dataMarshallers[type & 0xFF];
             if (dsm == null) {
                 throw new IOException("Unknown data type: " + type);
             }
-            ds.writeByte(type);
-            bs.marshal(ds);
-            dsm.tightMarshal2(this, c, ds, bs);
+
+            int cacheMark = cacheEnabled ? marshallCache.mark() : 0;
+
+            if (tightEncodingEnabled && singlePassTightEncodingEnabled) {
+                Buffer sequence = tightMarshalSinglePass(dsm, c, type);
+                size = sequence.getLength() - prefixSize;
+
+                if (target.remaining() < sequence.getLength()) {
+                    rollbackMarshallCache(cacheMark);
+                    return -sequence.getLength();
+                }
+
+                target.put(sequence.getData(), sequence.getOffset(), sequence.getLength());
+            } else if (tightEncodingEnabled) {
+                BooleanStream bs = marshalStream;
+                bs.reset();
+                size += dsm.tightMarshal1(this, c, bs);
+                size += bs.marshalledSize();
+
+                if (target.remaining() < size + prefixSize) {
+                    rollbackMarshallCache(cacheMark);
+                    return -(size + prefixSize);
+                }
+
+                ByteOrder order = target.order();
+                target.order(ByteOrder.BIG_ENDIAN);
+                try {
+                    if (!sizePrefixDisabled) {
+                        target.putInt(size);
+                    }
+                    target.put(type);
+                    bs.marshal(target);
+                    bs.clear();
+
+                    byteBufferOut.setBuffer(target);
+                    dsm.tightMarshal2(this, c, byteBufferOut, bs);
+                } finally {
+                    byteBufferOut.setBuffer(null);
+                    target.order(order);
+                }
+            } else {
+                size = looseMarshalSize(dsm, c);
+
+                if (target.remaining() < size + prefixSize) {
+                    return -(size + prefixSize);
+                }
+
+                ByteOrder order = target.order();
+                target.order(ByteOrder.BIG_ENDIAN);
+                try {
+                    if (!sizePrefixDisabled) {
+                        target.putInt(size);
+                    }
+                    target.put(type);
+
+                    byteBufferOut.setBuffer(target);
+                    looseMarshalSized = true;
+                    dsm.looseMarshal(this, c, byteBufferOut);
+                } finally {
+                    looseMarshalSized = false;
+                    byteBufferOut.setBuffer(null);
+                    target.order(order);
+                }
+            }
+        } else {
+            if (target.remaining() < size + prefixSize) {
+                return -(size + prefixSize);
+            }
+
+            ByteOrder order = target.order();
+            target.order(ByteOrder.BIG_ENDIAN);
+            try {
+                if (!sizePrefixDisabled) {
+                    target.putInt(size);
+                }
+                target.put(NULL_TYPE);
+            } finally {
+                target.order(order);
+            }
         }
+
+        return size + prefixSize;
     }
 
     /**
-     * Allows you to dynamically switch the version of the openwire protocol being used.
-     *
-     * @param version
+     * Marshals the command as the segments of one frame and records the frame with the
+     * codec metrics and events when either is enabled.
      */
-    public void setVersion(int version) {
-        String mfName = "io.openwire.codec.v" + version + ".MarshallerFactory";
-        Class<?> mfClass;
-        try {
-            mfClass = Class.forName(mfName, false, getClass().getClassLoader());
-        } catch (ClassNotFoundException e) {
-            throw new IllegalArgumentException("Invalid version: " + version + ", could not load " + mfName, e);
+    ByteBuffer[] encodeSegments(Object command) throws IOException {
+        CodecMetrics.Recorder recorder = metricsRecorder;
+        CodecEvents.FrameEvent event = CodecEvents.beginEncode();
+        if (recorder == null && event == null) {
+            return doEncodeSegments(command);
         }
-        try {
-            Method method = mfClass.getMethod("createMarshallerMap", new Class[] { OpenWireFormat.class });
-            dataMarshallers = (DataStreamMarshaller[]) method.invoke(null, new Object[] { this });
-        } catch (Throwable e) {
-            throw new IllegalArgumentException("Invalid version: " + version + ", " + mfName
-                + " does not properly implement the createMarshallerMap method.", e);
-        }
-        this.version = version;
-    }
 
-    public Object doUnmarshal(DataInput dis) throws IOException {
-        byte dataType = dis.readByte();
-        if (dataType != NULL_TYPE) {
-            DataStreamMarshaller dsm = dataMarshallers[dataType & 0xFF];
-            if (dsm == null) {
-                throw new IOException("Unknown data type: " + dataType);
-            }
-            Object data = dsm.createObject();
-            if (this.tightEncodingEnabled) {
-                BooleanStream bs = new BooleanStream();
-                bs.unmarshal(dis);
-                dsm.tightUnmarshal(this, data, dis, bs);
-            } else {
-                dsm.looseUnmarshal(this, data, dis);
-            }
-            return data;
-        } else {
-            return null;
+        long start = System.nanoTime();
+        ByteBuffer[] segments = doEncodeSegments(command);
+
+        int size = 0;
+        for (ByteBuffer segment : segments) {
+            size += segment.remaining();
         }
+        recordEncode(recorder, event, command, size, start);
+        return segments;
     }
 
-    public int tightMarshalNestedObject1(DataStructure o, BooleanStream bs) throws IOException {
-        bs.writeBoolean(o != null);
-        if (o == null) {
-            return 0;
+    private ByteBuffer[] doEncodeSegments(Object command) throws IOException {
+        if (cacheEnabled) {
+            runMarshallCacheEvictionSweep();
         }
 
-        if (o.isMarshallAware()) {
-            // Legacy code, always writes false
-            Buffer sequence = null;
-            bs.writeBoolean(sequence != null);
+        SegmentedDataOutput out = segmentedOut;
+        out.restart(segmentThreshold);
+
+        if (command == null) {
+            if (!sizePrefixDisabled) {
+                out.writeInt(1);
+            }
+            out.writeByte(NULL_TYPE);
+            return out.toByteBuffers();
         }
 
-        byte type = o.getDataStructureType();
+        DataStructure c = marshalCommand((DataStructure) command);
+        byte type = c.getDataStructureType();
         DataStreamMarshaller dsm = dataMarshallers[type & 0xFF];
         if (dsm == null) {
             throw new IOException("Unknown data type: " + type);
         }
-        return 1 + dsm.tightMarshal1(this, o, bs);
-    }
-
-    public void tightMarshalNestedObject2(DataStructure o, DataOutput ds, BooleanStream bs) throws IOException {
-        if (!bs.readBoolean()) {
-            return;
-        }
 
-        byte type = o.getDataStructureType();
-        ds.writeByte(type);
+        if (tightEncodingEnabled) {
+            BooleanStream bs = marshalStream;
+            bs.reset();
+            int size = 1 + dsm.tightMarshal1(this, c, bs) + bs.marshalledSize();
 
-        if (o.isMarshallAware() && bs.readBoolean()) {
-            // We should not be doing any caching
-            throw new IOException("Corrupted stream");
+            if (!sizePrefixDisabled) {
+                out.writeInt(size);
+            }
+            out.writeByte(type);
+            bs.marshal(out);
+            dsm.tightMarshal2(this, c, out, bs);
         } else {
-            DataStreamMarshaller dsm = dataMarshallers[type & 0xFF];
-            if (dsm == null) {
-                throw new IOException("Unknown data type: " + type);
+            if (!sizePrefixDisabled) {
+                // The size is written once the frame is complete.
+                out.writeInt(0);
+            }
+            out.writeByte(type);
+            dsm.looseMarshal(this, c, out);
+
+            if (!sizePrefixDisabled) {
+                out.backfillInt(0, out.size() - 4);
             }
-            dsm.tightMarshal2(this, o, ds, bs);
         }
-    }
 
-    public DataStructure tightUnmarshalNestedObject(DataInput dis, BooleanStream bs) throws IOException {
-        if (bs.readBoolean()) {
+        return out.toByteBuffers();
+    }
 
-            byte dataType = dis.readByte();
-            DataStreamMarshaller dsm = dataMarshallers[dataType & 0xFF];
-            if (dsm == null) {
-                throw new IOException("Unknown data type: " + dataType);
-            }
-            DataStructure data = dsm.createObject();
+    Buffer encodeBatch(Iterator<?> commands) throws IOException {
+        CodecMetrics.Recorder recorder = metricsRecorder;
+        bytesOut.restart();
 
-            if (data.isMarshallAware() && bs.readBoolean()) {
+        // A failure part way through discards the frames already encoded as well, so their
+        // cache entries are rolled back too.  The sweep therefore runs once for the whole
+        // batch, since no entry may be evicted after the mark is taken.
+        int cacheMark = 0;
+        if (cacheEnabled) {
+            runMarshallCacheEvictionSweep();
+            cacheMark = marshallCache.mark();
+        }
 
-                dis.readInt();
-                dis.readByte();
+        try {
+            while (commands.hasNext()) {
+                Object command = commands.next();
+                CodecEvents.FrameEvent event = CodecEvents.beginEncode();
+                if (recorder == null && event == null) {
+                    encodeFrame(command, bytesOut);
+                } else {
+                    long start = System.nanoTime();
+                    int position = bytesOut.position();
+                    encodeFrame(command, bytesOut);
+                    recordEncode(recorder, event, command, bytesOut.position() - position, start);
+                }
+            }
+        } catch (IOException e) {
+            rollbackMarshallCache(cacheMark);
+            throw e;
+        } catch (RuntimeException e) {
+            rollbackMarshallCache(cacheMark);
+            throw e;
+        }
+        return bytesOut.toBuffer();
+    }
+
+    /**
+     * Appends one frame to the given stream without any intermediate copy of the frame.
+     */
+    private void encodeFrame(Object command, DataByteArrayOutputStream out) throws IOException {
+        if (command == null) {
+            if (!sizePrefixDisabled) {
+                out.writeInt(1);
+            }
+            out.writeByte(NULL_TYPE);
+            return;
+        }
+
+        DataStructure c = marshalCommand((DataStructure) command);
+        byte type = c.getDataStructureType();
+        DataStreamMarshaller dsm = dataMarshallers[type & 0xFF];
+        if (dsm == null) {
+            throw new IOException("Unknown data type: " + type);
+        }
+
+        if (tightEncodingEnabled && singlePassTightEncodingEnabled) {
+            tightMarshalSinglePass(dsm, c, type, out, true);
+        } else if (tightEncodingEnabled) {
+            BooleanStream bs = marshalStream;
+            bs.reset();
+            int size = 1 + dsm.tightMarshal1(this, c, bs) + bs.marshalledSize();
+
+            if (byteArrayMarshalling) {
+                tightMarshal2(dsm, c, type, size, bs, out);
+            } else {
+                if (!sizePrefixDisabled) {
+                    out.writeInt(size);
+                }
+                out.writeByte(type);
+                bs.marshal(out);
+                dsm.tightMarshal2(this, c, out, bs);
+            }
+        } else {
+            int start = out.position();
+            if (!sizePrefixDisabled) {
+                // The size is written once the frame is complete.
+                out.writeInt(0);
+            }
+            out.writeByte(type);
+            dsm.looseMarshal(this, c, out);
+
+            if (!sizePrefixDisabled) {
+                int end = out.position();
+                out.position(start);
+                out.writeInt(end - start - 4);
+                out.position(end);
+            }
+        }
+    }
+
+    /**
+     * Writes the second pass of a tightly encoded frame of the given size straight into the
+     * array of the stream, starting at its current position, and leaves the stream positioned
+     * at the end of the frame.
+     */
+    private void tightMarshal2(DataStreamMarshaller dsm, DataStructure c, byte type, int size, BooleanStream bs, DataByteArrayOutputStream out) throws IOException {
+        int position = out.position();
+        int end = position + (sizePrefixDisabled ? 0 : 4) + size;
+        out.position(end);
+
+        byte[] data = out.getData();
+        if (!sizePrefixDisabled) {
+            position = BigEndianBytes.putInt(data, position, size);
+        }
+        data[position++] = type;
+        position = bs.marshal(data, position);
+        position = ((ByteArrayMarshaller) dsm).tightMarshal2(this, c, data, position, bs);
+
+        if (position != end) {
+            throw new IOException("Marshaled frame of type " + type + " does not match its computed size of " + size + " bytes");
+        }
+    }
+
+    /**
+     * Tight marshals the command in one pass, the body is written after a reserved region
+     * which is then back filled with the size prefix, type and BooleanStream once they are
+     * known.  The resulting frame is identical to the one produced by the two pass encoding.
+     */
+    private Buffer tightMarshalSinglePass(DataStreamMarshaller dsm, DataStructure c, byte type) throws IOException {
+        bytesOut.restart();
+        return tightMarshalSinglePass(dsm, c, type, bytesOut, false);
+    }
+
+    /**
+     * Writes a tightly encoded frame starting at the current position of the given stream
+     * and leaves the stream positioned at its end.  The body is written after a reserved
+     * region that the header is then written into, unless packed is set the frame can start
+     * after the current position when the header is smaller than the reserved region.
+     */
+    private Buffer tightMarshalSinglePass(DataStreamMarshaller dsm, DataStructure c, byte type, DataByteArrayOutputStream out, boolean packed) throws IOException {
+        BooleanStream bs = marshalStream;
+        bs.reset();
+
+        int base = out.position();
+        int bodyStart = base + TIGHT_HEADER_RESERVE;
+        out.position(bodyStart);
+        dsm.tightMarshal(this, c, out, bs);
+
+        int end = out.position();
+        int bodyLength = end - bodyStart;
+        int headerLength = (sizePrefixDisabled ? 0 : 4) + 1 + bs.marshalledSize();
+        int start = bodyStart - headerLength;
+
+        if (start < base || (packed && start != base)) {
+            // The booleans don't fit in the reserved region, or the frame has to follow on
+            // from the previous one, so the body has to be moved.
+            start = base;
+            end = start + headerLength + bodyLength;
+            out.position(Math.max(end, bodyStart + bodyLength));
+            byte[] data = out.getData();
+            System.arraycopy(data, bodyStart, data, start + headerLength, bodyLength);
+        }
+
+        out.position(start);
+        if (!sizePrefixDisabled) {
+            out.writeInt(end - start - 4);
+        }
+        out.writeByte(type);
+        bs.marshal(out);
+        out.position(end);
+
+        return new Buffer(out.getData(), start, end - start);
+    }
+
+    Object decode(DataInput dis) throws IOException {
+        DataInput dataIn = dis;
+        int size = 0;
+        if (!sizePrefixDisabled) {
+            size = dis.readInt();
+            if (size > maxFrameSize) {
+                throw new IOException("Frame size of " + (size / (1024 * 1024)) + " MB larger than max allowed " + (maxFrameSize / (1024 * 1024)) + " MB");
+            }
+        }
+
+        CodecMetrics.Recorder recorder = metricsRecorder;
+        CodecEvents.FrameEvent event = CodecEvents.beginDecode();
+        if (recorder == null && event == null) {
+            return doUnmarshal(dataIn);
+        }
+
+        // Timed from the end of the size prefix so time spent waiting for the frame is excluded.
+        long start = System.nanoTime();
+        Object command = doUnmarshal(dataIn);
+        recordDecode(recorder, event, command, sizePrefixDisabled ? 0 : size + 4, start);
+        return command;
+    }
+
+    private void recordEncode(CodecMetrics.Recorder recorder, CodecEvents.FrameEvent event, Object command, int size, long start) {
+        if (recorder != null) {
+            recorder.recordEncode(command, size, System.nanoTime() - start);
+        }
+        if (event != null) {
+            event.commit(version, dataStructureType(command), size);
+        }
+    }
+
+    private void recordDecode(CodecMetrics.Recorder recorder, CodecEvents.FrameEvent event, Object command, int size, long start) {
+        if (recorder != null) {
+            recorder.recordDecode(command, size, System.nanoTime() - start);
+        }
+        if (event != null) {
+            event.commit(version, dataStructureType(command), size);
+        }
+    }
+
+    private static byte dataStructureType(Object command) {
+        return command != null ? ((DataStructure) command).getDataStructureType() : NULL_TYPE;
+    }
+
+    /**
+     * Used by NIO or AIO transports
+     */
+    public int tightMarshal1(Object o, BooleanStream bs) throws IOException {
+        int size = 1;
+        if (o != null) {
+            DataStructure c = marshalCommand((DataStructure) o);
+            byte type = c.getDataStructureType();
+            DataStreamMarshaller dsm = dataMarshallers[type & 0xFF];
+            if (dsm == null) {
+                throw new IOException("Unknown data type: " + type);
+            }
+
+            size += dsm.tightMarshal1(this, c, bs);
+            size += bs.marshalledSize();
+        }
+        return size;
+    }
+
+    /**
+     * Used by NIO or AIO transports; note that the size is not written as part of this method.
+     */
+    public void tightMarshal2(Object o, DataOutput ds, BooleanStream bs) throws IOException {
+        if (cacheEnabled) {
+            runMarshallCacheEvictionSweep();
+        }
+
+        if (o != null) {
+            DataStructure c = marshalValue((DataStructure) o);
+            byte type = c.getDataStructureType();
+            DataStreamMarshaller dsm = dataMarshallers[type & 0xFF];
+            if (dsm == null) {
+                throw new IOException("Unknown data type: " + type);
+            }
+            ds.writeByte(type);
+            bs.marshal(ds);
+            dsm.tightMarshal2(this, c, ds, bs);
+        }
+    }
+
+    /**
+     * Allows you to dynamically switch the version of the openwire protocol being used.
+     *
+     * @param version
+     */
+    public void setVersion(int version) {
+        setDataMarshallers(MarshallerRegistry.getMarshallers(version, descriptorMarshallingEnabled));
+        this.version = version;
+        configurationGeneration++;
+    }
+
+    /**
+     * Installs the marshaller table, frames are written straight into their backing array
+     * when every marshaller of the table supports it.
+     */
+    private void setDataMarshallers(DataStreamMarshaller[] marshallers) {
+        boolean byteArrays = true;
+        for (int i = 0; i < marshallers.length; i++) {
+            if (marshallers[i] != null && !(marshallers[i] instanceof ByteArrayMarshaller)) {
+                byteArrays = false;
+                break;
+            }
+        }
+
+        this.dataMarshallers = marshallers;
+        this.byteArrayMarshalling = byteArrays;
+    }
+
+    public Object doUnmarshal(DataInput dis) throws IOException {
+        if (dis instanceof OpenWireBufferReader) {
+            return doUnmarshal((OpenWireBufferReader) dis);
+        }
+
+        byte dataType = dis.readByte();
+        if (dataType != NULL_TYPE) {
+            DataStreamMarshaller dsm = dataMarshallers[dataType & 0xFF];
+            if (dsm == null) {
+                throw new IOException("Unknown data type: " + dataType);
+            }
+            Object data = dsm.createObject();
+            if (this.tightEncodingEnabled) {
+                // This path can be reached without holding the lock through unmarshal(DataInput)
+                // so it does not share the streams reused by the byte array path.
+                BooleanStream bs = new BooleanStream();
+                bs.unmarshal(dis);
+                dsm.tightUnmarshal(this, data, dis, bs);
+            } else {
+                dsm.looseUnmarshal(this, data, dis);
+            }
+            return data;
+        } else {
+            return null;
+        }
+    }
+
+    /**
+     * Unmarshals a command from an OpenWireBufferReader, the marshallers that implement
+     * OpenWireBufferMarshaller read it through their OpenWireBufferReader overloads.
+     */
+    public Object doUnmarshal(OpenWireBufferReader dis) throws IOException {
+        byte dataType = dis.readByte();
+        if (dataType != NULL_TYPE) {
+            DataStreamMarshaller dsm = dataMarshallers[dataType & 0xFF];
+            if (dsm == null) {
+                throw new IOException("Unknown data type: " + dataType);
+            }
+            DataStructure data = dsm.createObject();
+            if (this.tightEncodingEnabled) {
+                BooleanStream bs = new BooleanStream();
+                bs.unmarshal(dis);
+                tightUnmarshal(dsm, data, dis, bs);
+            } else {
+                looseUnmarshal(dsm, data, dis);
+            }
+            return data;
+        } else {
+            return null;
+        }
+    }
+
+    /**
+     * Returns the value to marshal in place of the given one.  The peer decompresses message
+     * bodies with the codec agreed for this connection, so a message whose body was compressed
+     * with another codec is replaced by a copy whose body is converted.  The message itself may
+     * be shared with other connections and is left as it is.
+     */
+    private DataStructure marshalValue(DataStructure o) throws IOException {
+        if (!(o instanceof Message)) {
+            return o;
+        }
+
+        Message message = (Message) o;
+        CompressionCodec codec = compressionCodec;
+        if (codec.getName().equals(message.getCompressionCodec().getName())) {
+            return o;
+        }
+
+        // A body that is compressed as it is stored has to be converted as well.
+        message.storeContent();
+        Buffer content = message.getContent();
+        if (!message.isCompressed() || content == null) {
+            return o;
+        }
+
+        // Each pass over the frame asks again, they must all marshal the same copy.
+        Message converted = convertedMessages.get(message);
+        if (converted == null) {
+            converted = message.copy(codec);
+            convertedMessages.put(message, converted);
+        }
+        return converted;
+    }
+
+    /**
+     * Starts marshaling a new frame of the given command, see {@link #marshalValue(DataStructure)}.
+     */
+    private DataStructure marshalCommand(DataStructure c) throws IOException {
+        if (!convertedMessages.isEmpty()) {
+            convertedMessages.clear();
+        }
+        return marshalValue(c);
+    }
+
+    public int tightMarshalNestedObject1(DataStructure o, BooleanStream bs) throws IOException {
+        bs.writeBoolean(o != null);
+        if (o == null) {
+            return 0;
+        }
+        o = marshalValue(o);
+
+        if (o.isMarshallAware()) {
+            // Legacy code, always writes false
+            Buffer sequence = null;
+            bs.writeBoolean(sequence != null);
+        }
+
+        byte type = o.getDataStructureType();
+        DataStreamMarshaller dsm = dataMarshallers[type & 0xFF];
+        if (dsm == null) {
+            throw new IOException("Unknown data type: " + type);
+        }
+        return 1 + dsm.tightMarshal1(this, o, bs);
+    }
+
+    public void tightMarshalNestedObject2(DataStructure o, DataOutput ds, BooleanStream bs) throws IOException {
+        if (!bs.readBoolean()) {
+            return;
+        }
+        o = marshalValue(o);
+
+        byte type = o.getDataStructureType();
+        ds.writeByte(type);
+
+        if (o.isMarshallAware() && bs.readBoolean()) {
+            // We should not be doing any caching
+            throw new IOException("Corrupted stream");
+        } else {
+            DataStreamMarshaller dsm = dataMarshallers[type & 0xFF];
+            if (dsm == null) {
+                throw new IOException("Unknown data type: " + type);
+            }
+            dsm.tightMarshal2(this, o, ds, bs);
+        }
+    }
+
+    /**
+     * Byte array form of {@link #tightMarshalNestedObject2(DataStructure, DataOutput, BooleanStream)},
+     * only used when every marshaller of the current version is a ByteArrayMarshaller.
+     *
+     * @return the position that follows the last byte written.
+     */
+    public int tightMarshalNestedObject2(DataStructure o, byte[] ds, int position, BooleanStream bs) throws IOException {
+        if (!bs.readBoolean()) {
+            return position;
+        }
+        o = marshalValue(o);
+
+        byte type = o.getDataStructureType();
+        ds[position++] = type;
+
+        if (o.isMarshallAware() && bs.readBoolean()) {
+            // We should not be doing any caching
+            throw new IOException("Corrupted stream");
+        } else {
+            ByteArrayMarshaller dsm = (ByteArrayMarshaller) dataMarshallers[type & 0xFF];
+            if (dsm == null) {
+                throw new IOException("Unknown data type: " + type);
+            }
+            return dsm.tightMarshal2(this, o, ds, position, bs);
+        }
+    }
+
+    public void tightMarshalNestedObject(DataStructure o, DataByteArrayOutputStream ds, BooleanStream bs) throws IOException {
+        bs.writeBoolean(o != null);
+        if (o == null) {
+            return;
+        }
+        o = marshalValue(o);
+
+        if (o.isMarshallAware()) {
+            // Legacy code, always writes false
+            bs.writeBoolean(false);
+        }
+
+        byte type = o.getDataStructureType();
+        DataStreamMarshaller dsm = dataMarshallers[type & 0xFF];
+        if (dsm == null) {
+            throw new IOException("Unknown data type: " + type);
+        }
+        ds.writeByte(type);
+        dsm.tightMarshal(this, o, ds, bs);
+    }
+
+    public DataStructure tightUnmarshalNestedObject(DataInput dis, BooleanStream bs) throws IOException {
+        if (dis instanceof OpenWireBufferReader) {
+            return tightUnmarshalNestedObject((OpenWireBufferReader) dis, bs);
+        }
+
+        if (bs.readBoolean()) {
+
+            byte dataType = dis.readByte();
+            DataStreamMarshaller dsm = dataMarshallers[dataType & 0xFF];
+            if (dsm == null) {
+                throw new IOException("Unknown data type: " + dataType);
+            }
+            DataStructure data = dsm.createObject();
+
+            if (data.isMarshallAware() && bs.readBoolean()) {
+
+                dis.readInt();
+                dis.readByte();
 
                 BooleanStream bs2 = new BooleanStream();
                 bs2.unmarshal(dis);
@@ -398,7 +1181,104 @@ public final class OpenWireFormat {
         }
     }
 
+    public DataStructure tightUnmarshalNestedObject(OpenWireBufferReader dis, BooleanStream bs) throws IOException {
+        if (bs.readBoolean()) {
+
+            byte dataType = dis.readByte();
+            DataStreamMarshaller dsm = dataMarshallers[dataType & 0xFF];
+            if (dsm == null) {
+                throw new IOException("Unknown data type: " + dataType);
+            }
+            DataStructure data = dsm.createObject();
+
+            if (data.isMarshallAware() && bs.readBoolean()) {
+
+                dis.readInt();
+                dis.readByte();
+
+                BooleanStream bs2 = new BooleanStream();
+                bs2.unmarshal(dis);
+                tightUnmarshal(dsm, data, dis, bs2);
+            } else {
+                tightUnmarshal(dsm, data, dis, bs);
+            }
+
+            return data;
+        } else {
+            return null;
+        }
+    }
+
+    /**
+     * Byte array form of {@link #tightUnmarshalNestedObject(DataInput, BooleanStream)}, only used
+     * when every marshaller of the current version is a ByteArrayMarshaller.  The position that
+     * follows the object is left in {@link #getUnmarshalPosition()}.
+     */
+    public DataStructure tightUnmarshalNestedObject(byte[] dis, int position, BooleanStream bs) throws IOException {
+        if (bs.readBoolean()) {
+            return tightUnmarshalNestedValue(dis, position, bs);
+        } else {
+            unmarshalPosition = position;
+            return null;
+        }
+    }
+
+    /**
+     * Reads a nested object whose not null marker has already been read.
+     */
+    DataStructure tightUnmarshalNestedValue(byte[] dis, int position, BooleanStream bs) throws IOException {
+        byte dataType = dis[position++];
+        ByteArrayMarshaller dsm = (ByteArrayMarshaller) dataMarshallers[dataType & 0xFF];
+        if (dsm == null) {
+            throw new IOException("Unknown data type: " + dataType);
+        }
+        DataStructure data = dsm.createObject();
+
+        if (data.isMarshallAware() && bs.readBoolean()) {
+
+            // Skips the size and type of the legacy marshaled form.
+            position += 5;
+
+            // Marshal aware objects can nest so each level needs its own stream.
+            if (nestedUnmarshalDepth == nestedUnmarshalStreams.length) {
+                BooleanStream streams[] = new BooleanStream[nestedUnmarshalDepth + 1];
+                System.arraycopy(nestedUnmarshalStreams, 0, streams, 0, nestedUnmarshalDepth);
+                streams[nestedUnmarshalDepth] = new BooleanStream();
+                nestedUnmarshalStreams = streams;
+            }
+
+            BooleanStream bs2 = nestedUnmarshalStreams[nestedUnmarshalDepth++];
+            try {
+                position = bs2.unmarshal(dis, position);
+                position = dsm.tightUnmarshal(this, data, dis, position, bs2);
+            } finally {
+                nestedUnmarshalDepth--;
+            }
+        } else {
+            position = dsm.tightUnmarshal(this, data, dis, position, bs);
+        }
+
+        unmarshalPosition = position;
+        return data;
+    }
+
+    /**
+     * @return the position in the frame array that follows the last value read from it by the
+     *         byte array unmarshal methods.
+     */
+    public int getUnmarshalPosition() {
+        return unmarshalPosition;
+    }
+
+    void setUnmarshalPosition(int position) {
+        this.unmarshalPosition = position;
+    }
+
     public DataStructure looseUnmarshalNestedObject(DataInput dis) throws IOException {
+        if (dis instanceof OpenWireBufferReader) {
+            return looseUnmarshalNestedObject((OpenWireBufferReader) dis);
+        }
+
         if (dis.readBoolean()) {
 
             byte dataType = dis.readByte();
@@ -415,9 +1295,32 @@ public final class OpenWireFormat {
         }
     }
 
+    public DataStructure looseUnmarshalNestedObject(OpenWireBufferReader dis) throws IOException {
+        if (dis.readBoolean()) {
+
+            byte dataType = dis.readByte();
+            DataStreamMarshaller dsm = dataMarshallers[dataType & 0xFF];
+            if (dsm == null) {
+                throw new IOException("Unknown data type: " + dataType);
+            }
+            DataStructure data = dsm.createObject();
+            looseUnmarshal(dsm, data, dis);
+            return data;
+
+        } else {
+            return null;
+        }
+    }
+
     public void looseMarshalNestedObject(DataStructure o, DataOutput dataOut) throws IOException {
+        if (dataOut instanceof OpenWireBufferWriter) {
+            looseMarshalNestedObject(o, (OpenWireBufferWriter) dataOut);
+            return;
+        }
+
         dataOut.writeBoolean(o != null);
         if (o != null) {
+            o = marshalValue(o);
             byte type = o.getDataStructureType();
             dataOut.writeByte(type);
             DataStreamMarshaller dsm = dataMarshallers[type & 0xFF];
@@ -428,39 +1331,180 @@ public final class OpenWireFormat {
         }
     }
 
+    public void looseMarshalNestedObject(DataStructure o, OpenWireBufferWriter dataOut) throws IOException {
+        dataOut.writeBoolean(o != null);
+        if (o != null) {
+            o = marshalValue(o);
+            byte type = o.getDataStructureType();
+            dataOut.writeByte(type);
+            DataStreamMarshaller dsm = dataMarshallers[type & 0xFF];
+            if (dsm == null) {
+                throw new IOException("Unknown data type: " + type);
+            }
+            looseMarshal(dsm, o, dataOut);
+        }
+    }
+
+    //
+    // The OpenWireBufferReader and OpenWireBufferWriter overloads are only implemented by
+    // some marshallers, the others are handed the reader or writer as a DataInput or DataOutput.
+    //
+
+    private void tightUnmarshal(DataStreamMarshaller dsm, Object data, OpenWireBufferReader dis, BooleanStream bs) throws IOException {
+        if (dsm instanceof OpenWireBufferMarshaller) {
+            ((OpenWireBufferMarshaller) dsm).tightUnmarshal(this, data, dis, bs);
+        } else {
+            dsm.tightUnmarshal(this, data, (DataInput) dis, bs);
+        }
+    }
+
+    private void looseUnmarshal(DataStreamMarshaller dsm, Object data, OpenWireBufferReader dis) throws IOException {
+        if (dsm instanceof OpenWireBufferMarshaller) {
+            ((OpenWireBufferMarshaller) dsm).looseUnmarshal(this, data, dis);
+        } else {
+            dsm.looseUnmarshal(this, data, (DataInput) dis);
+        }
+    }
+
+    private void looseMarshal(DataStreamMarshaller dsm, Object o, OpenWireBufferWriter dataOut) throws IOException {
+        if (dsm instanceof OpenWireBufferMarshaller) {
+            ((OpenWireBufferMarshaller) dsm).looseMarshal(this, o, dataOut);
+        } else {
+            dsm.looseMarshal(this, o, (DataOutput) dataOut);
+        }
+    }
+
+    /**
+     * Computes the size of the loose encoding of a command including its type byte, nothing is
+     * written and the marshal cache is left untouched.
+     */
+    private int looseMarshalSize(DataStreamMarshaller dsm, DataStructure c) throws IOException {
+        pendingMarshallCache.clear();
+        return 1 + dsm.looseMarshalSize(this, c);
+    }
+
+    /**
+     * @return true while a loosely encoded frame whose size was computed first is written, the
+     *         marshal aware values in it have then already been prepared by the size pass.
+     */
+    public boolean isLooseMarshalSized() {
+        return looseMarshalSized;
+    }
+
+    public int looseMarshalNestedObjectSize(DataStructure o) throws IOException {
+        int rc = 1;
+        if (o != null) {
+            o = marshalValue(o);
+            byte type = o.getDataStructureType();
+            DataStreamMarshaller dsm = dataMarshallers[type & 0xFF];
+            if (dsm == null) {
+                throw new IOException("Unknown data type: " + type);
+            }
+            rc += 1 + dsm.looseMarshalSize(this, o);
+        }
+        return rc;
+    }
+
+    /**
+     * Predicts whether marshaling the given value will hit the marshal cache, used while the
+     * size of a loose encoded frame is computed.  The values that the frame itself will add
+     * to the cache are tracked so that later references to them within the frame count as
+     * hits, just as they will when the frame is actually marshaled.
+     */
+    boolean predictMarshallCacheHit(DataStructure o) {
+        if (marshallCache.find(o) >= 0 || pendingMarshallCache.get(o) >= 0) {
+            return true;
+        }
+
+        // A value is only added when the cache has a free index left for it.
+        if (marshallCache.available() > pendingMarshallCache.size()) {
+            pendingMarshallCache.put(o, (short) pendingMarshallCache.size());
+        }
+        return false;
+    }
+
     public void runMarshallCacheEvictionSweep() {
         // Do we need to start evicting??
-        while (marshallCacheMap.size() > marshallCache.length - MARSHAL_CACHE_FREE_SPACE) {
-            marshallCacheMap.remove(marshallCache[nextMarshallCacheEvictionIndex]);
-            marshallCache[nextMarshallCacheEvictionIndex] = null;
+        marshallCache.evict(MARSHAL_CACHE_FREE_SPACE);
+    }
 
-            nextMarshallCacheEvictionIndex++;
-            if (nextMarshallCacheEvictionIndex >= marshallCache.length) {
-                nextMarshallCacheEvictionIndex = 0;
-            }
+    /**
+     * Discards the value cache entries that were added since the given mark was taken, used
+     * when a marshaled frame is abandoned and its cache entries will therefore never reach
+     * the remote peer.
+     */
+    private void rollbackMarshallCache(int mark) {
+        if (!cacheEnabled) {
+            return;
         }
+
+        marshallCache.rollback(mark);
     }
 
     public Short getMarshallCacheIndex(DataStructure o) {
-        return marshallCacheMap.get(o);
+        short index = marshallCache.find(o);
+        return index >= 0 ? Short.valueOf(index) : null;
+    }
+
+    /**
+     * Looks up the cache index of a value without boxing the result.
+     *
+     * @param o
+     *        the value to look up.
+     *
+     * @return the cache index of the value or -1 if it is not in the marshal cache.
+     */
+    public short findMarshallCacheIndex(DataStructure o) {
+        return marshallCache.find(o);
+    }
+
+    /**
+     * Looks up the cache index of a value that is about to be marshaled, unlike
+     * {@link #findMarshallCacheIndex(DataStructure)} the lookup counts as a use of the value
+     * for the eviction policy and the cache statistics, so it is made once per marshaled field.
+     *
+     * @param o
+     *        the value to look up.
+     *
+     * @return the cache index of the value or -1 if it is not in the marshal cache.
+     */
+    public short lookupMarshallCacheIndex(DataStructure o) {
+        return marshallCache.lookup(o);
     }
 
     public Short addToMarshallCache(DataStructure o) {
-        short i = nextMarshallCacheIndex++;
-        if (nextMarshallCacheIndex >= marshallCache.length) {
-            nextMarshallCacheIndex = 0;
-        }
+        return Short.valueOf(addMarshallCacheValue(o));
+    }
 
-        // We can only cache that item if there is space left.
-        if (marshallCacheMap.size() < marshallCache.length) {
-            marshallCache[i] = o;
-            Short index = new Short(i);
-            marshallCacheMap.put(o, index);
-            return index;
-        } else {
-            // Use -1 to indicate that the value was not cached due to cache being full.
-            return new Short((short) -1);
-        }
+    /**
+     * Adds a value to the marshal cache without boxing the resulting index.
+     *
+     * @param o
+     *        the value to add.
+     *
+     * @return the cache index of the value or -1 if it could not be cached.
+     */
+    public short addMarshallCacheValue(DataStructure o) {
+        // Use -1 to indicate that the value was not cached due to cache being full.
+        return marshallCache.add(o);
+    }
+
+    /**
+     * Records the size of the marshaled form of a cached value, which each later cache hit
+     * on the value is counted as saving.
+     */
+    void setMarshallCacheEncodedSize(short index, int size) {
+        marshallCache.setEncodedSize(index, size);
+    }
+
+    /**
+     * @return a snapshot of the marshal side value cache counters, or null if the cache is
+     *         not enabled.  The counters are updated by the thread marshaling commands
+     *         without synchronization so a snapshot taken by another thread may lag behind.
+     */
+    public MarshallCacheStatistics getMarshallCacheStatistics() {
+        MarshallCache cache = marshallCache;
+        return cache != null ? cache.getStatistics() : null;
     }
 
     public void setInUnmarshallCache(short index, DataStructure o) {
@@ -478,6 +1522,7 @@ public final class OpenWireFormat {
 
     public void setStackTraceEnabled(boolean b) {
         stackTraceEnabled = b;
+        configurationGeneration++;
     }
 
     public boolean isStackTraceEnabled() {
@@ -490,6 +1535,7 @@ public final class OpenWireFormat {
 
     public void setTcpNoDelayEnabled(boolean tcpNoDelayEnabled) {
         this.tcpNoDelayEnabled = tcpNoDelayEnabled;
+        configurationGeneration++;
     }
 
     public boolean isCacheEnabled() {
@@ -498,10 +1544,12 @@ public final class OpenWireFormat {
 
     public void setCacheEnabled(boolean cacheEnabled) {
         if (cacheEnabled) {
-            marshallCache = new DataStructure[MARSHAL_CACHE_SIZE];
+            marshallCache = createMarshallCache(MARSHAL_CACHE_SIZE);
             unmarshallCache = new DataStructure[MARSHAL_CACHE_SIZE];
         }
         this.cacheEnabled = cacheEnabled;
+        cacheGeneration = CACHE_GENERATIONS.incrementAndGet();
+        configurationGeneration++;
     }
 
     public boolean isTightEncodingEnabled() {
@@ -510,6 +1558,176 @@ public final class OpenWireFormat {
 
     public void setTightEncodingEnabled(boolean tightEncodingEnabled) {
         this.tightEncodingEnabled = tightEncodingEnabled;
+        configurationGeneration++;
+    }
+
+    public boolean isSinglePassTightEncodingEnabled() {
+        return singlePassTightEncodingEnabled;
+    }
+
+    /**
+     * When enabled tight encoding writes each command in a single pass over its fields
+     * instead of sizing it first and writing it on a second pass.  The frames produced
+     * are identical so this setting is local and is not negotiated with the peer.
+     *
+     * @param singlePassTightEncodingEnabled
+     *        true if tight encoding should be done in a single pass.
+     */
+    public void setSinglePassTightEncodingEnabled(boolean singlePassTightEncodingEnabled) {
+        this.singlePassTightEncodingEnabled = singlePassTightEncodingEnabled;
+        configurationGeneration++;
+    }
+
+    public boolean isZeroCopyUnmarshalEnabled() {
+        return zeroCopyUnmarshalEnabled;
+    }
+
+    /**
+     * When enabled the message content and marshaled properties of commands unmarshaled
+     * from a Buffer are slices of that Buffer's byte array instead of copies.  The caller
+     * must then not reuse or modify the array once the frame has been unmarshaled.
+     *
+     * @param zeroCopyUnmarshalEnabled
+     *        true if byte sequences should reference the frame they were read from.
+     */
+    public void setZeroCopyUnmarshalEnabled(boolean zeroCopyUnmarshalEnabled) {
+        this.zeroCopyUnmarshalEnabled = zeroCopyUnmarshalEnabled;
+        configurationGeneration++;
+    }
+
+    public String getCacheEvictionPolicy() {
+        return cacheEvictionPolicy;
+    }
+
+    /**
+     * Selects how entries are evicted from the marshal side value cache once it is full, one
+     * of {@link #CACHE_EVICTION_FIFO}, {@link #CACHE_EVICTION_CLOCK} or
+     * {@link #CACHE_EVICTION_FREQUENCY}.  The peer stores values at whatever index they are
+     * sent with so this setting is local and is not negotiated.  Changing it discards the
+     * entries of the marshal cache.
+     *
+     * @param cacheEvictionPolicy
+     *        the name of the eviction policy to use.
+     */
+    public void setCacheEvictionPolicy(String cacheEvictionPolicy) {
+        if (!CACHE_EVICTION_FIFO.equals(cacheEvictionPolicy) && !CACHE_EVICTION_CLOCK.equals(cacheEvictionPolicy) &&
+            !CACHE_EVICTION_FREQUENCY.equals(cacheEvictionPolicy)) {
+            throw new IllegalArgumentException("Unknown cache eviction policy: " + cacheEvictionPolicy);
+        }
+
+        this.cacheEvictionPolicy = cacheEvictionPolicy;
+        if (marshallCache != null) {
+            marshallCache = createMarshallCache(marshallCache.capacity());
+        }
+        cacheGeneration = CACHE_GENERATIONS.incrementAndGet();
+        configurationGeneration++;
+    }
+
+    public int getSegmentThreshold() {
+        return segmentThreshold;
+    }
+
+    /**
+     * Sets the size from which byte sequences are returned by reference rather than copied
+     * when a command is marshaled into segments.
+     *
+     * @param segmentThreshold
+     *        the minimum size of a byte sequence that gets a segment of its own.
+     *
+     * @see #marshalSegments(Object)
+     */
+    public void setSegmentThreshold(int segmentThreshold) {
+        this.segmentThreshold = segmentThreshold;
+        configurationGeneration++;
+    }
+
+    public boolean isDescriptorMarshallingEnabled() {
+        return descriptorMarshallingEnabled;
+    }
+
+    /**
+     * When enabled the legacy protocol versions, those whose generated marshallers live in
+     * the openwire-legacy module, are marshaled by the descriptor driven marshallers of that
+     * module instead of the generated ones.  Both produce the same frames, the descriptor
+     * driven ones share a few code paths across all the old versions instead of loading a
+     * class per command type and version.  The versions bundled with this module always
+     * use their generated marshallers.
+     *
+     * @param descriptorMarshallingEnabled
+     *        true if the legacy versions should use the descriptor driven marshallers.
+     */
+    public void setDescriptorMarshallingEnabled(boolean descriptorMarshallingEnabled) {
+        setDataMarshallers(MarshallerRegistry.getMarshallers(version, descriptorMarshallingEnabled));
+        this.descriptorMarshallingEnabled = descriptorMarshallingEnabled;
+        configurationGeneration++;
+    }
+
+    public CodecMetrics getCodecMetrics() {
+        return codecMetrics;
+    }
+
+    /**
+     * Sets the metrics that count the frames encoded and decoded by this instance, and by the
+     * encoders and decoders created from it, per command type.  Nothing is recorded when no
+     * metrics are set, which is the default.  The same metrics can be shared by many instances
+     * to gather the totals of a group of connections.
+     *
+     * @param codecMetrics
+     *        the metrics to record into, or null to stop recording.
+     */
+    public void setCodecMetrics(CodecMetrics codecMetrics) {
+        if (this.codecMetrics != codecMetrics) {
+            useCodecMetrics(codecMetrics);
+        }
+        configurationGeneration++;
+    }
+
+    private void useCodecMetrics(CodecMetrics codecMetrics) {
+        if (this.codecMetrics != null) {
+            this.codecMetrics.removeRecorder(metricsRecorder);
+        }
+        this.codecMetrics = codecMetrics;
+        this.metricsRecorder = codecMetrics != null ? codecMetrics.createRecorder(this) : null;
+    }
+
+    /**
+     * @return the codec used for compressed message bodies on this connection, deflate
+     *         unless another codec was agreed with the remote peer.
+     */
+    public CompressionCodec getCompressionCodec() {
+        return compressionCodec;
+    }
+
+    /**
+     * Sets the codec used for compressed message bodies.  This is normally the result of the
+     * wire format negotiation and should only be set directly when the remote peer is known
+     * to support the codec.
+     *
+     * @param compressionCodec
+     *        the codec to use, or null to use deflate.
+     */
+    public void setCompressionCodec(CompressionCodec compressionCodec) {
+        this.compressionCodec = compressionCodec != null ? compressionCodec : CompressionCodecs.DEFLATE;
+        configurationGeneration++;
+    }
+
+    public boolean isLazyMessageUnmarshalEnabled() {
+        return lazyMessageUnmarshalEnabled;
+    }
+
+    /**
+     * When enabled messages that are tightly unmarshaled from a Buffer only decode the
+     * fields needed to route them, the broker path, cluster and user id are decoded from
+     * the frame when first accessed and the content and marshaled properties are slices
+     * of the frame.  The caller must then not reuse or modify the array once the frame
+     * has been unmarshaled.
+     *
+     * @param lazyMessageUnmarshalEnabled
+     *        true if messages should defer decoding the fields not needed for routing.
+     */
+    public void setLazyMessageUnmarshalEnabled(boolean lazyMessageUnmarshalEnabled) {
+        this.lazyMessageUnmarshalEnabled = lazyMessageUnmarshalEnabled;
+        configurationGeneration++;
     }
 
     public boolean isSizePrefixDisabled() {
@@ -518,6 +1736,7 @@ public final class OpenWireFormat {
 
     public void setSizePrefixDisabled(boolean prefixPacketSize) {
         this.sizePrefixDisabled = prefixPacketSize;
+        configurationGeneration++;
     }
 
     public void setPreferedWireFormatInfo(WireFormatInfo info) {
@@ -534,6 +1753,7 @@ public final class OpenWireFormat {
 
     public void setMaxFrameSize(long maxFrameSize) {
         this.maxFrameSize = maxFrameSize;
+        configurationGeneration++;
     }
 
     public void renegotiateWireFormat(WireFormatInfo info) throws IOException {
@@ -541,11 +1761,16 @@ public final class OpenWireFormat {
             throw new IllegalStateException("Wireformat cannot not be renegotiated.");
         }
 
-        this.setVersion(min(preferedWireFormatInfo.getVersion(), info.getVersion()));
-        info.setVersion(this.getVersion());
+        // The fields are assigned directly rather than through their setters so that the
+        // configuration generation is only bumped once all of them are set, the encoder and
+        // decoder halves would otherwise copy a partly renegotiated configuration.
+        int version = min(preferedWireFormatInfo.getVersion(), info.getVersion());
+        setDataMarshallers(MarshallerRegistry.getMarshallers(version, descriptorMarshallingEnabled));
+        this.version = version;
+        info.setVersion(this.version);
 
-        this.setMaxFrameSize(min(preferedWireFormatInfo.getMaxFrameSize(), info.getMaxFrameSize()));
-        info.setMaxFrameSize(this.getMaxFrameSize());
+        this.maxFrameSize = min(preferedWireFormatInfo.getMaxFrameSize(), info.getMaxFrameSize());
+        info.setMaxFrameSize(this.maxFrameSize);
 
         this.stackTraceEnabled = info.isStackTraceEnabled() && preferedWireFormatInfo.isStackTraceEnabled();
         info.setStackTraceEnabled(this.stackTraceEnabled);
@@ -562,6 +1787,12 @@ public final class OpenWireFormat {
         this.sizePrefixDisabled = info.isSizePrefixDisabled() && preferedWireFormatInfo.isSizePrefixDisabled();
         info.setSizePrefixDisabled(this.sizePrefixDisabled);
 
+        // Peers that do not advertise any codecs, ActiveMQ included, only understand deflate.
+        this.compressionCodec = CompressionCodecs.negotiate(preferedWireFormatInfo.getCompressionCodecs(), info.getCompressionCodecs());
+        if (info.getCompressionCodecs() != null) {
+            info.setCompressionCodecs(this.compressionCodec.getName());
+        }
+
         if (cacheEnabled) {
             int size = Math.min(preferedWireFormatInfo.getCacheSize(), info.getCacheSize());
             info.setCacheSize(size);
@@ -570,18 +1801,77 @@ public final class OpenWireFormat {
                 size = MARSHAL_CACHE_SIZE;
             }
 
-            marshallCache = new DataStructure[size];
+            marshallCache = createMarshallCache(size);
             unmarshallCache = new DataStructure[size];
-            nextMarshallCacheIndex = 0;
-            nextMarshallCacheEvictionIndex = 0;
-            marshallCacheMap = new HashMap<DataStructure, Short>();
         } else {
             marshallCache = null;
             unmarshallCache = null;
-            nextMarshallCacheIndex = 0;
-            nextMarshallCacheEvictionIndex = 0;
-            marshallCacheMap = null;
         }
+
+        cacheGeneration = CACHE_GENERATIONS.incrementAndGet();
+        configurationGeneration++;
+    }
+
+    /**
+     * @return a counter that changes whenever the configuration of this instance is modified.
+     */
+    int getConfigurationGeneration() {
+        return configurationGeneration;
+    }
+
+    /**
+     * Applies the negotiated configuration of the given OpenWireFormat to this instance.  The
+     * value cache is only reset, to the size in use by the source, when the source replaced
+     * its own caches by renegotiating or changing the cache settings, any other change keeps
+     * the entries the peer already holds.  The marshallers are shared with the source since
+     * they hold no per connection state.
+     *
+     * @param source
+     *        the OpenWireFormat whose configuration is copied.
+     */
+    void configureFrom(OpenWireFormat source) {
+        this.dataMarshallers = source.dataMarshallers;
+        this.byteArrayMarshalling = source.byteArrayMarshalling;
+        this.version = source.version;
+        this.stackTraceEnabled = source.stackTraceEnabled;
+        this.tcpNoDelayEnabled = source.tcpNoDelayEnabled;
+        this.tightEncodingEnabled = source.tightEncodingEnabled;
+        this.sizePrefixDisabled = source.sizePrefixDisabled;
+        this.singlePassTightEncodingEnabled = source.singlePassTightEncodingEnabled;
+        this.zeroCopyUnmarshalEnabled = source.zeroCopyUnmarshalEnabled;
+        this.lazyMessageUnmarshalEnabled = source.lazyMessageUnmarshalEnabled;
+        this.maxFrameSize = source.maxFrameSize;
+        this.cacheEnabled = source.cacheEnabled;
+        this.cacheEvictionPolicy = source.cacheEvictionPolicy;
+        this.segmentThreshold = source.segmentThreshold;
+        this.descriptorMarshallingEnabled = source.descriptorMarshallingEnabled;
+        this.compressionCodec = source.compressionCodec;
+
+        if (codecMetrics != source.codecMetrics) {
+            useCodecMetrics(source.codecMetrics);
+        }
+
+        if (cacheGeneration != source.cacheGeneration) {
+            cacheGeneration = source.cacheGeneration;
+            if (cacheEnabled) {
+                int size = source.marshallCache != null ? source.marshallCache.capacity() : MARSHAL_CACHE_SIZE;
+                marshallCache = createMarshallCache(size);
+                unmarshallCache = new DataStructure[size];
+            } else {
+                marshallCache = null;
+                unmarshallCache = null;
+            }
+        }
+    }
+
+    private MarshallCache createMarshallCache(int size) {
+        int policy = MarshallCache.FIFO;
+        if (CACHE_EVICTION_CLOCK.equals(cacheEvictionPolicy)) {
+            policy = MarshallCache.CLOCK;
+        } else if (CACHE_EVICTION_FREQUENCY.equals(cacheEvictionPolicy)) {
+            policy = MarshallCache.FREQUENCY;
+        }
+        return new MarshallCache(size, policy);
     }
 
     protected int min(int version1, int version2) {
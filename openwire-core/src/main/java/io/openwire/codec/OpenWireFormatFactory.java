@@ -34,9 +34,19 @@ public class OpenWireFormatFactory {
     private boolean cacheEnabled = true;
     private boolean tightEncodingEnabled = true;
     private boolean sizePrefixDisabled;
+    private boolean singlePassTightEncodingEnabled;
+    private boolean zeroCopyUnmarshalEnabled;
+    private boolean lazyMessageUnmarshalEnabled;
     private long maxInactivityDuration = 30 * 1000;
     private long maxInactivityDurationInitalDelay = 10 * 1000;
     private int cacheSize = 1024;
+    private String cacheEvictionPolicy = OpenWireFormat.CACHE_EVICTION_FIFO;
+    private int segmentThreshold = OpenWireFormat.DEFAULT_SEGMENT_THRESHOLD;
+    private boolean descriptorMarshallingEnabled;
+    private boolean codecMetricsEnabled;
+    private String compressionCodecs;
+    private CompressionDictionary compressionDictionary;
+    private CompressionCodec compressionDictionaryCodec;
     private long maxFrameSize = OpenWireFormat.DEFAULT_MAX_FRAME_SIZE;
     private String host = null;
 
@@ -57,6 +67,16 @@ public class OpenWireFormatFactory {
             if (host != null) {
                 info.setHost(host);
             }
+            String codecs = compressionCodecs;
+            CompressionCodec codec = compressionDictionaryCodec;
+            if (codec != null) {
+                codecs = codecs != null ? codec.getName() + "," + codecs : codec.getName();
+            }
+            // Only codecs registered here are advertised, so both peers choose from the same ones.
+            codecs = CompressionCodecs.filterRegistered(codecs);
+            if (codecs != null) {
+                info.setCompressionCodecs(codecs);
+            }
         } catch (Exception e) {
             IllegalStateException ise = new IllegalStateException("Could not configure WireFormatInfo");
             ise.initCause(e);
@@ -65,6 +85,15 @@ public class OpenWireFormatFactory {
 
         OpenWireFormat f = new OpenWireFormat(version);
         f.setMaxFrameSize(maxFrameSize);
+        f.setSinglePassTightEncodingEnabled(singlePassTightEncodingEnabled);
+        f.setZeroCopyUnmarshalEnabled(zeroCopyUnmarshalEnabled);
+        f.setLazyMessageUnmarshalEnabled(lazyMessageUnmarshalEnabled);
+        f.setCacheEvictionPolicy(cacheEvictionPolicy);
+        f.setSegmentThreshold(segmentThreshold);
+        f.setDescriptorMarshallingEnabled(descriptorMarshallingEnabled);
+        if (codecMetricsEnabled) {
+            f.setCodecMetrics(new CodecMetrics());
+        }
         f.setPreferedWireFormatInfo(info);
         return f;
     }
@@ -117,6 +146,30 @@ public class OpenWireFormatFactory {
         this.sizePrefixDisabled = sizePrefixDisabled;
     }
 
+    public boolean isSinglePassTightEncodingEnabled() {
+        return singlePassTightEncodingEnabled;
+    }
+
+    public void setSinglePassTightEncodingEnabled(boolean singlePassTightEncodingEnabled) {
+        this.singlePassTightEncodingEnabled = singlePassTightEncodingEnabled;
+    }
+
+    public boolean isZeroCopyUnmarshalEnabled() {
+        return zeroCopyUnmarshalEnabled;
+    }
+
+    public void setZeroCopyUnmarshalEnabled(boolean zeroCopyUnmarshalEnabled) {
+        this.zeroCopyUnmarshalEnabled = zeroCopyUnmarshalEnabled;
+    }
+
+    public boolean isLazyMessageUnmarshalEnabled() {
+        return lazyMessageUnmarshalEnabled;
+    }
+
+    public void setLazyMessageUnmarshalEnabled(boolean lazyMessageUnmarshalEnabled) {
+        this.lazyMessageUnmarshalEnabled = lazyMessageUnmarshalEnabled;
+    }
+
     public long getMaxInactivityDuration() {
         return maxInactivityDuration;
     }
@@ -133,6 +186,76 @@ public class OpenWireFormatFactory {
         this.cacheSize = cacheSize;
     }
 
+    public String getCacheEvictionPolicy() {
+        return cacheEvictionPolicy;
+    }
+
+    public void setCacheEvictionPolicy(String cacheEvictionPolicy) {
+        this.cacheEvictionPolicy = cacheEvictionPolicy;
+    }
+
+    public int getSegmentThreshold() {
+        return segmentThreshold;
+    }
+
+    public void setSegmentThreshold(int segmentThreshold) {
+        this.segmentThreshold = segmentThreshold;
+    }
+
+    public boolean isDescriptorMarshallingEnabled() {
+        return descriptorMarshallingEnabled;
+    }
+
+    public void setDescriptorMarshallingEnabled(boolean descriptorMarshallingEnabled) {
+        this.descriptorMarshallingEnabled = descriptorMarshallingEnabled;
+    }
+
+    public boolean isCodecMetricsEnabled() {
+        return codecMetricsEnabled;
+    }
+
+    /**
+     * When enabled each OpenWireFormat created is given its own CodecMetrics, so the frames of
+     * every connection are counted per command type.
+     */
+    public void setCodecMetricsEnabled(boolean codecMetricsEnabled) {
+        this.codecMetricsEnabled = codecMetricsEnabled;
+    }
+
+    public String getCompressionCodecs() {
+        return compressionCodecs;
+    }
+
+    /**
+     * Sets the comma separated names of the message body compression codecs to advertise in
+     * order of preference, names that are not registered are left out.  Of the codecs the
+     * remote peer also advertises the one the two peers rank highest together is used, deflate
+     * is used when there is none in common or when nothing is advertised, which is the default.
+     */
+    public void setCompressionCodecs(String compressionCodecs) {
+        this.compressionCodecs = compressionCodecs;
+    }
+
+    public CompressionDictionary getCompressionDictionary() {
+        return compressionDictionary;
+    }
+
+    /**
+     * Sets a preset dictionary used to deflate message bodies.  The dictionary codec is
+     * registered once here and advertised ahead of the configured compression codecs by
+     * every wire format created, peers that do not hold the same dictionary name and version
+     * negotiate one of the others instead.
+     */
+    public void setCompressionDictionary(CompressionDictionary compressionDictionary) {
+        CompressionCodec codec = null;
+        if (compressionDictionary != null) {
+            codec = new DeflateCompressionCodec(compressionDictionary);
+            CompressionCodecs.register(codec);
+        }
+        this.compressionDictionary = compressionDictionary;
+        this.compressionDictionaryCodec = codec;
+    }
+
     public long getMaxInactivityDurationInitalDelay() {
         return maxInactivityDurationInitalDelay;
     }
@@ -0,0 +1,172 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.openwire.codec;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import org.fusesource.hawtbuf.Buffer;
+
+/**
+ * Non-blocking OpenWire frame decoder.
+ *
+ * Accepts the bytes read from a non-blocking channel in whatever chunks the read loop
+ * happens to deliver them, reassembles the size prefixed frames and hands each fully
+ * decoded command to the configured listener.  The bytes of a frame are copied exactly
+ * once, from the incoming ByteBuffer into the frame array that is then unmarshaled.
+ *
+ * An instance is meant to be owned by the single thread that reads from a connection, frames
+ * are unmarshaled with an OpenWireDecoder so the reader never contends with writers that use
+ * the same OpenWireFormat.
+ */
+public final class OpenWireFrameDecoder {
+
+    private static final int SIZE_PREFIX_LENGTH = 4;
+
+    /**
+     * Receives the commands produced by an OpenWireFrameDecoder.
+     */
+    public interface Listener {
+
+        /**
+         * Called for every command that has been fully decoded.
+         *
+         * @param command
+         *        the decoded command, may be null if the peer sent a NULL frame.
+         *
+         * @throws IOException if the listener cannot process the command.
+         */
+        void onCommand(Object command) throws IOException;
+
+    }
+
+    private final OpenWireDecoder decoder;
+    private final Listener listener;
+
+    private final byte[] header = new byte[SIZE_PREFIX_LENGTH];
+    private int headerRead;
+    private byte[] frame;
+    private int frameRead;
+
+    /**
+     * Creates a new decoder.
+     *
+     * @param wireFormat
+     *        the OpenWireFormat used to unmarshal each completed frame.
+     * @param listener
+     *        the listener that is handed each decoded command.
+     */
+    public OpenWireFrameDecoder(OpenWireFormat wireFormat, Listener listener) {
+        this(wireFormat != null ? wireFormat.createDecoder() : null, listener);
+    }
+
+    /**
+     * Creates a new decoder.
+     *
+     * @param decoder
+     *        the OpenWireDecoder used to unmarshal each completed frame.
+     * @param listener
+     *        the listener that is handed each decoded command.
+     */
+    public OpenWireFrameDecoder(OpenWireDecoder decoder, Listener listener) {
+        if (decoder == null) {
+            throw new IllegalArgumentException("OpenWireDecoder cannot be null");
+        }
+        if (listener == null) {
+            throw new IllegalArgumentException("Listener cannot be null");
+        }
+
+        this.decoder = decoder;
+        this.listener = listener;
+    }
+
+    /**
+     * Consumes all the remaining bytes of the given buffer, decoding and dispatching every
+     * frame that is completed along the way.  Any trailing partial frame is retained until
+     * the next call supplies the rest of it.
+     *
+     * @param incoming
+     *        the newly read bytes, the buffer position is advanced to its limit.
+     *
+     * @throws IOException if a frame is invalid or cannot be unmarshaled.
+     */
+    public void decode(ByteBuffer incoming) throws IOException {
+        if (decoder.isSizePrefixDisabled()) {
+            throw new IOException("Cannot decode frames when the size prefix is disabled");
+        }
+
+        while (incoming.hasRemaining()) {
+            if (frame == null) {
+                int count = Math.min(SIZE_PREFIX_LENGTH - headerRead, incoming.remaining());
+                incoming.get(header, headerRead, count);
+                headerRead += count;
+
+                if (headerRead == SIZE_PREFIX_LENGTH) {
+                    startFrame();
+                }
+            } else {
+                int count = Math.min(frame.length - frameRead, incoming.remaining());
+                incoming.get(frame, frameRead, count);
+                frameRead += count;
+            }
+
+            if (frame != null && frameRead == frame.length) {
+                completeFrame();
+            }
+        }
+    }
+
+    /**
+     * @return true if the decoder holds part of a frame that has not yet been completed.
+     */
+    public boolean isFrameInProgress() {
+        return headerRead > 0;
+    }
+
+    /**
+     * Discards any partially received frame, used when the connection is being reset.
+     */
+    public void reset() {
+        headerRead = 0;
+        frame = null;
+        frameRead = 0;
+    }
+
+    private void startFrame() throws IOException {
+        int size = ((header[0] & 0xFF) << 24) | ((header[1] & 0xFF) << 16) |
+                   ((header[2] & 0xFF) << 8) | (header[3] & 0xFF);
+
+        if (size <= 0) {
+            throw new IOException("Invalid frame size: " + size);
+        }
+
+        long maxFrameSize = decoder.getMaxFrameSize();
+        if (size > maxFrameSize) {
+            throw new IOException("Frame size of " + (size / (1024 * 1024)) + " MB larger than max allowed " + (maxFrameSize / (1024 * 1024)) + " MB");
+        }
+
+        frame = new byte[SIZE_PREFIX_LENGTH + size];
+        System.arraycopy(header, 0, frame, 0, SIZE_PREFIX_LENGTH);
+        frameRead = SIZE_PREFIX_LENGTH;
+    }
+
+    private void completeFrame() throws IOException {
+        Buffer sequence = new Buffer(frame, 0, frame.length);
+        reset();
+        listener.onCommand(decoder.decode(sequence));
+    }
+}
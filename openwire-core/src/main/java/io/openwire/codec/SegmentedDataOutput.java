@@ -0,0 +1,202 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.openwire.codec;
+
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import org.fusesource.hawtbuf.DataByteArrayOutputStream;
+
+/**
+ * DataOutput that splits what is written to it into segments for a gathering write.
+ *
+ * Byte arrays written in chunks of at least the threshold size, such as the content of a
+ * large message, are kept by reference as segments of their own while everything else is
+ * accumulated into scratch segments, so the large chunks are never copied.  The referenced
+ * arrays must not be modified until the segments have been written.
+ */
+final class SegmentedDataOutput implements DataOutput {
+
+    private static final int INITIAL_SEGMENTS = 8;
+
+    private final DataByteArrayOutputStream scratch = new DataByteArrayOutputStream();
+    private int threshold;
+    private int scratchStart;
+    private int size;
+
+    // A null array marks a region of the scratch buffer, whose array can change as it grows.
+    private byte[][] arrays = new byte[INITIAL_SEGMENTS][];
+    private int offsets[] = new int[INITIAL_SEGMENTS];
+    private int lengths[] = new int[INITIAL_SEGMENTS];
+    private int count;
+
+    /**
+     * Discards any previous segments, the scratch buffer is replaced rather than reused
+     * since the segments returned for the previous frame reference it.
+     *
+     * @param threshold
+     *        the minimum length of a byte array write that is kept by reference.
+     */
+    public void restart(int threshold) {
+        this.threshold = threshold;
+        this.scratch.restart();
+        this.scratchStart = 0;
+        this.size = 0;
+        for (int i = 0; i < count; i++) {
+            arrays[i] = null;
+        }
+        this.count = 0;
+    }
+
+    /**
+     * @return the total number of bytes written.
+     */
+    public int size() {
+        return size + scratch.position() - scratchStart;
+    }
+
+    /**
+     * Overwrites four bytes previously written to the scratch buffer, used to fill in a size
+     * prefix once the size of the frame is known.
+     */
+    public void backfillInt(int scratchPosition, int value) throws IOException {
+        int position = scratch.position();
+        scratch.position(scratchPosition);
+        scratch.writeInt(value);
+        scratch.position(position);
+    }
+
+    /**
+     * @return the segments written so far, in order, as buffers ready for a gathering write.
+     */
+    public ByteBuffer[] toByteBuffers() {
+        closeScratchSegment();
+
+        byte[] scratchData = scratch.getData();
+        ByteBuffer[] result = new ByteBuffer[count];
+        for (int i = 0; i < count; i++) {
+            byte[] data = arrays[i] != null ? arrays[i] : scratchData;
+            result[i] = ByteBuffer.wrap(data, offsets[i], lengths[i]);
+        }
+        return result;
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        if (len >= threshold) {
+            closeScratchSegment();
+            addSegment(b, off, len);
+            size += len;
+        } else {
+            scratch.write(b, off, len);
+        }
+    }
+
+    @Override
+    public void write(byte[] b) throws IOException {
+        write(b, 0, b.length);
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        scratch.write(b);
+    }
+
+    @Override
+    public void writeBoolean(boolean v) throws IOException {
+        scratch.writeBoolean(v);
+    }
+
+    @Override
+    public void writeByte(int v) throws IOException {
+        scratch.writeByte(v);
+    }
+
+    @Override
+    public void writeShort(int v) throws IOException {
+        scratch.writeShort(v);
+    }
+
+    @Override
+    public void writeChar(int v) throws IOException {
+        scratch.writeChar(v);
+    }
+
+    @Override
+    public void writeInt(int v) throws IOException {
+        scratch.writeInt(v);
+    }
+
+    @Override
+    public void writeLong(long v) throws IOException {
+        scratch.writeLong(v);
+    }
+
+    @Override
+    public void writeFloat(float v) throws IOException {
+        scratch.writeFloat(v);
+    }
+
+    @Override
+    public void writeDouble(double v) throws IOException {
+        scratch.writeDouble(v);
+    }
+
+    @Override
+    public void writeBytes(String s) throws IOException {
+        scratch.writeBytes(s);
+    }
+
+    @Override
+    public void writeChars(String s) throws IOException {
+        scratch.writeChars(s);
+    }
+
+    @Override
+    public void writeUTF(String s) throws IOException {
+        scratch.writeUTF(s);
+    }
+
+    private void closeScratchSegment() {
+        int end = scratch.position();
+        if (end > scratchStart) {
+            addSegment(null, scratchStart, end - scratchStart);
+            size += end - scratchStart;
+            scratchStart = end;
+        }
+    }
+
+    private void addSegment(byte[] data, int offset, int length) {
+        if (count == arrays.length) {
+            int capacity = count * 2;
+            byte[][] a = new byte[capacity][];
+            System.arraycopy(arrays, 0, a, 0, count);
+            arrays = a;
+            int o[] = new int[capacity];
+            System.arraycopy(offsets, 0, o, 0, count);
+            offsets = o;
+            int l[] = new int[capacity];
+            System.arraycopy(lengths, 0, l, 0, count);
+            lengths = l;
+        }
+        arrays[count] = data;
+        offsets[count] = offset;
+        lengths[count] = length;
+        count++;
+    }
+}
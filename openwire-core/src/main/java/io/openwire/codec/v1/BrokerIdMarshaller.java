@@ -26,6 +26,8 @@ import java.io.DataInput;
 import java.io.DataOutput;
 import java.io.IOException;
 
+import org.fusesource.hawtbuf.DataByteArrayOutputStream;
+
 public class BrokerIdMarshaller extends BaseDataStreamMarshaller {
 
     /**
@@ -90,6 +92,23 @@ public class BrokerIdMarshaller extends BaseDataStreamMarshaller {
         tightMarshalString2(info.getValue(), dataOut, bs);
     }
 
+    /**
+     * Write the booleans and the data of this object in a single pass
+     *
+     * @param o
+     *        the instance to be marshaled
+     * @param dataOut
+     *        the output stream
+     * @throws IOException
+     *         thrown if an error occurs
+     */
+    @Override
+    public void tightMarshal(OpenWireFormat wireFormat, Object o, DataByteArrayOutputStream dataOut, BooleanStream bs) throws IOException {
+        super.tightMarshal(wireFormat, o, dataOut, bs);
+        BrokerId info = (BrokerId) o;
+        tightMarshalString(info.getValue(), dataOut, bs);
+    }
+
     /**
      * Un-marshal an object instance from the data input stream
      *
@@ -115,4 +134,16 @@ public class BrokerIdMarshaller extends BaseDataStreamMarshaller {
         super.looseMarshal(wireFormat, o, dataOut);
         looseMarshalString(info.getValue(), dataOut);
     }
+
+    /**
+     * Compute the number of bytes the loose encoding of this object takes
+     */
+    @Override
+    public int looseMarshalSize(OpenWireFormat wireFormat, Object o) throws IOException {
+        BrokerId info = (BrokerId) o;
+        int rc = super.looseMarshalSize(wireFormat, o);
+        rc += looseMarshalStringSize(info.getValue());
+
+        return rc + 0;
+    }
 }
@@ -26,6 +26,8 @@ import java.io.DataInput;
 import java.io.DataOutput;
 import java.io.IOException;
 
+import org.fusesource.hawtbuf.DataByteArrayOutputStream;
+
 public class BrokerInfoMarshaller extends BaseCommandMarshaller {
 
     /**
@@ -123,6 +125,30 @@ public class BrokerInfoMarshaller extends BaseCommandMarshaller {
         bs.readBoolean();
     }
 
+    /**
+     * Write the booleans and the data of this object in a single pass
+     *
+     * @param o
+     *        the instance to be marshaled
+     * @param dataOut
+     *        the output stream
+     * @throws IOException
+     *         thrown if an error occurs
+     */
+    @Override
+    public void tightMarshal(OpenWireFormat wireFormat, Object o, DataByteArrayOutputStream dataOut, BooleanStream bs) throws IOException {
+        super.tightMarshal(wireFormat, o, dataOut, bs);
+
+        BrokerInfo info = (BrokerInfo) o;
+        tightMarshalCachedObject(wireFormat, info.getBrokerId(), dataOut, bs);
+        tightMarshalString(info.getBrokerURL(), dataOut, bs);
+        tightMarshalObjectArray(wireFormat, info.getPeerBrokerInfos(), dataOut, bs);
+        tightMarshalString(info.getBrokerName(), dataOut, bs);
+        bs.writeBoolean(info.isSlaveBroker());
+        bs.writeBoolean(info.isMasterBroker());
+        bs.writeBoolean(info.isFaultTolerantConfiguration());
+    }
+
     /**
      * Un-marshal an object instance from the data input stream
      *
@@ -172,4 +198,20 @@ public class BrokerInfoMarshaller extends BaseCommandMarshaller {
         dataOut.writeBoolean(info.isMasterBroker());
         dataOut.writeBoolean(info.isFaultTolerantConfiguration());
     }
+
+    /**
+     * Compute the number of bytes the loose encoding of this object takes
+     */
+    @Override
+    public int looseMarshalSize(OpenWireFormat wireFormat, Object o) throws IOException {
+        BrokerInfo info = (BrokerInfo) o;
+
+        int rc = super.looseMarshalSize(wireFormat, o);
+        rc += looseMarshalCachedObjectSize(wireFormat, info.getBrokerId());
+        rc += looseMarshalStringSize(info.getBrokerURL());
+        rc += looseMarshalObjectArraySize(wireFormat, info.getPeerBrokerInfos());
+        rc += looseMarshalStringSize(info.getBrokerName());
+
+        return rc + 3;
+    }
 }
@@ -25,6 +25,8 @@ import java.io.DataInput;
 import java.io.DataOutput;
 import java.io.IOException;
 
+import org.fusesource.hawtbuf.DataByteArrayOutputStream;
+
 /**
  * Marshalling code for Open Wire Format for ConnectionInfoMarshaller
  *
@@ -134,6 +136,31 @@ public class ConnectionInfoMarshaller extends BaseCommandMarshaller {
 
     }
 
+    /**
+     * Write the booleans and the data of this object in a single pass
+     *
+     * @param o
+     *        the instance to be marshaled
+     * @param dataOut
+     *        the output stream
+     * @throws IOException
+     *         thrown if an error occurs
+     */
+    @Override
+    public void tightMarshal(OpenWireFormat wireFormat, Object o, DataByteArrayOutputStream dataOut, BooleanStream bs) throws IOException {
+        super.tightMarshal(wireFormat, o, dataOut, bs);
+
+        ConnectionInfo info = (ConnectionInfo) o;
+        tightMarshalCachedObject(wireFormat, info.getConnectionId(), dataOut, bs);
+        tightMarshalString(info.getClientId(), dataOut, bs);
+        tightMarshalString(info.getPassword(), dataOut, bs);
+        tightMarshalString(info.getUserName(), dataOut, bs);
+        tightMarshalObjectArray(wireFormat, info.getBrokerPath(), dataOut, bs);
+        bs.writeBoolean(info.isBrokerMasterConnector());
+        bs.writeBoolean(info.isManageable());
+
+    }
+
     /**
      * Un-marshal an object instance from the data input stream
      *
@@ -186,4 +213,22 @@ public class ConnectionInfoMarshaller extends BaseCommandMarshaller {
         dataOut.writeBoolean(info.isManageable());
 
     }
+
+    /**
+     * Compute the number of bytes the loose encoding of this object takes
+     */
+    @Override
+    public int looseMarshalSize(OpenWireFormat wireFormat, Object o) throws IOException {
+
+        ConnectionInfo info = (ConnectionInfo) o;
+
+        int rc = super.looseMarshalSize(wireFormat, o);
+        rc += looseMarshalCachedObjectSize(wireFormat, info.getConnectionId());
+        rc += looseMarshalStringSize(info.getClientId());
+        rc += looseMarshalStringSize(info.getPassword());
+        rc += looseMarshalStringSize(info.getUserName());
+        rc += looseMarshalObjectArraySize(wireFormat, info.getBrokerPath());
+
+        return rc + 2;
+    }
 }
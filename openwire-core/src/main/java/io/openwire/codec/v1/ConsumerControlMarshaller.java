@@ -25,6 +25,8 @@ import java.io.DataInput;
 import java.io.DataOutput;
 import java.io.IOException;
 
+import org.fusesource.hawtbuf.DataByteArrayOutputStream;
+
 /**
  * Marshalling code for Open Wire Format for ConsumerControlMarshaller
  *
@@ -111,6 +113,27 @@ public class ConsumerControlMarshaller extends BaseCommandMarshaller {
 
     }
 
+    /**
+     * Write the booleans and the data of this object in a single pass
+     *
+     * @param o
+     *        the instance to be marshaled
+     * @param dataOut
+     *        the output stream
+     * @throws IOException
+     *         thrown if an error occurs
+     */
+    @Override
+    public void tightMarshal(OpenWireFormat wireFormat, Object o, DataByteArrayOutputStream dataOut, BooleanStream bs) throws IOException {
+        super.tightMarshal(wireFormat, o, dataOut, bs);
+
+        ConsumerControl info = (ConsumerControl) o;
+        bs.writeBoolean(info.isClose());
+        tightMarshalNestedObject(wireFormat, info.getConsumerId(), dataOut, bs);
+        dataOut.writeInt(info.getPrefetch());
+
+    }
+
     /**
      * Un-marshal an object instance from the data input stream
      *
@@ -145,4 +168,18 @@ public class ConsumerControlMarshaller extends BaseCommandMarshaller {
         dataOut.writeInt(info.getPrefetch());
 
     }
+
+    /**
+     * Compute the number of bytes the loose encoding of this object takes
+     */
+    @Override
+    public int looseMarshalSize(OpenWireFormat wireFormat, Object o) throws IOException {
+
+        ConsumerControl info = (ConsumerControl) o;
+
+        int rc = super.looseMarshalSize(wireFormat, o);
+        rc += looseMarshalNestedObjectSize(wireFormat, info.getConsumerId());
+
+        return rc + 5;
+    }
 }
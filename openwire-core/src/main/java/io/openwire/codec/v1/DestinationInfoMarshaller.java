@@ -26,6 +26,8 @@ import java.io.DataInput;
 import java.io.DataOutput;
 import java.io.IOException;
 
+import org.fusesource.hawtbuf.DataByteArrayOutputStream;
+
 public class DestinationInfoMarshaller extends BaseCommandMarshaller {
 
     /**
@@ -116,6 +118,28 @@ public class DestinationInfoMarshaller extends BaseCommandMarshaller {
         tightMarshalObjectArray2(wireFormat, info.getBrokerPath(), dataOut, bs);
     }
 
+    /**
+     * Write the booleans and the data of this object in a single pass
+     *
+     * @param o
+     *        the instance to be marshaled
+     * @param dataOut
+     *        the output stream
+     * @throws IOException
+     *         thrown if an error occurs
+     */
+    @Override
+    public void tightMarshal(OpenWireFormat wireFormat, Object o, DataByteArrayOutputStream dataOut, BooleanStream bs) throws IOException {
+        super.tightMarshal(wireFormat, o, dataOut, bs);
+
+        DestinationInfo info = (DestinationInfo) o;
+        tightMarshalCachedObject(wireFormat, info.getConnectionId(), dataOut, bs);
+        tightMarshalCachedObject(wireFormat, info.getDestination(), dataOut, bs);
+        dataOut.writeByte(info.getOperationType());
+        tightMarshalLong(wireFormat, info.getTimeout(), dataOut, bs);
+        tightMarshalObjectArray(wireFormat, info.getBrokerPath(), dataOut, bs);
+    }
+
     /**
      * Un-marshal an object instance from the data input stream
      *
@@ -161,4 +185,19 @@ public class DestinationInfoMarshaller extends BaseCommandMarshaller {
         looseMarshalLong(wireFormat, info.getTimeout(), dataOut);
         looseMarshalObjectArray(wireFormat, info.getBrokerPath(), dataOut);
     }
+
+    /**
+     * Compute the number of bytes the loose encoding of this object takes
+     */
+    @Override
+    public int looseMarshalSize(OpenWireFormat wireFormat, Object o) throws IOException {
+        DestinationInfo info = (DestinationInfo) o;
+
+        int rc = super.looseMarshalSize(wireFormat, o);
+        rc += looseMarshalCachedObjectSize(wireFormat, info.getConnectionId());
+        rc += looseMarshalCachedObjectSize(wireFormat, info.getDestination());
+        rc += looseMarshalObjectArraySize(wireFormat, info.getBrokerPath());
+
+        return rc + 9;
+    }
 }
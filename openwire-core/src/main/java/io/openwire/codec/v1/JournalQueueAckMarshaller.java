@@ -27,6 +27,8 @@ import java.io.DataInput;
 import java.io.DataOutput;
 import java.io.IOException;
 
+import org.fusesource.hawtbuf.DataByteArrayOutputStream;
+
 public class JournalQueueAckMarshaller extends BaseDataStreamMarshaller {
 
     /**
@@ -98,6 +100,25 @@ public class JournalQueueAckMarshaller extends BaseDataStreamMarshaller {
         tightMarshalNestedObject2(wireFormat, info.getMessageAck(), dataOut, bs);
     }
 
+    /**
+     * Write the booleans and the data of this object in a single pass
+     *
+     * @param o
+     *        the instance to be marshaled
+     * @param dataOut
+     *        the output stream
+     * @throws IOException
+     *         thrown if an error occurs
+     */
+    @Override
+    public void tightMarshal(OpenWireFormat wireFormat, Object o, DataByteArrayOutputStream dataOut, BooleanStream bs) throws IOException {
+        super.tightMarshal(wireFormat, o, dataOut, bs);
+
+        JournalQueueAck info = (JournalQueueAck) o;
+        tightMarshalNestedObject(wireFormat, info.getDestination(), dataOut, bs);
+        tightMarshalNestedObject(wireFormat, info.getMessageAck(), dataOut, bs);
+    }
+
     /**
      * Un-marshal an object instance from the data input stream
      *
@@ -127,4 +148,18 @@ public class JournalQueueAckMarshaller extends BaseDataStreamMarshaller {
         looseMarshalNestedObject(wireFormat, info.getDestination(), dataOut);
         looseMarshalNestedObject(wireFormat, info.getMessageAck(), dataOut);
     }
+
+    /**
+     * Compute the number of bytes the loose encoding of this object takes
+     */
+    @Override
+    public int looseMarshalSize(OpenWireFormat wireFormat, Object o) throws IOException {
+        JournalQueueAck info = (JournalQueueAck) o;
+
+        int rc = super.looseMarshalSize(wireFormat, o);
+        rc += looseMarshalNestedObjectSize(wireFormat, info.getDestination());
+        rc += looseMarshalNestedObjectSize(wireFormat, info.getMessageAck());
+
+        return rc + 0;
+    }
 }
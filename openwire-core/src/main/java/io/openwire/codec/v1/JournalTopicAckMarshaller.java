@@ -27,6 +27,8 @@ import java.io.DataInput;
 import java.io.DataOutput;
 import java.io.IOException;
 
+import org.fusesource.hawtbuf.DataByteArrayOutputStream;
+
 public class JournalTopicAckMarshaller extends BaseDataStreamMarshaller {
 
     /**
@@ -110,6 +112,29 @@ public class JournalTopicAckMarshaller extends BaseDataStreamMarshaller {
         tightMarshalNestedObject2(wireFormat, info.getTransactionId(), dataOut, bs);
     }
 
+    /**
+     * Write the booleans and the data of this object in a single pass
+     *
+     * @param o
+     *        the instance to be marshaled
+     * @param dataOut
+     *        the output stream
+     * @throws IOException
+     *         thrown if an error occurs
+     */
+    @Override
+    public void tightMarshal(OpenWireFormat wireFormat, Object o, DataByteArrayOutputStream dataOut, BooleanStream bs) throws IOException {
+        super.tightMarshal(wireFormat, o, dataOut, bs);
+
+        JournalTopicAck info = (JournalTopicAck) o;
+        tightMarshalNestedObject(wireFormat, info.getDestination(), dataOut, bs);
+        tightMarshalNestedObject(wireFormat, info.getMessageId(), dataOut, bs);
+        tightMarshalLong(wireFormat, info.getMessageSequenceId(), dataOut, bs);
+        tightMarshalString(info.getSubscritionName(), dataOut, bs);
+        tightMarshalString(info.getClientId(), dataOut, bs);
+        tightMarshalNestedObject(wireFormat, info.getTransactionId(), dataOut, bs);
+    }
+
     /**
      * Un-marshal an object instance from the data input stream
      *
@@ -147,4 +172,21 @@ public class JournalTopicAckMarshaller extends BaseDataStreamMarshaller {
         looseMarshalString(info.getClientId(), dataOut);
         looseMarshalNestedObject(wireFormat, info.getTransactionId(), dataOut);
     }
+
+    /**
+     * Compute the number of bytes the loose encoding of this object takes
+     */
+    @Override
+    public int looseMarshalSize(OpenWireFormat wireFormat, Object o) throws IOException {
+        JournalTopicAck info = (JournalTopicAck) o;
+
+        int rc = super.looseMarshalSize(wireFormat, o);
+        rc += looseMarshalNestedObjectSize(wireFormat, info.getDestination());
+        rc += looseMarshalNestedObjectSize(wireFormat, info.getMessageId());
+        rc += looseMarshalStringSize(info.getSubscritionName());
+        rc += looseMarshalStringSize(info.getClientId());
+        rc += looseMarshalNestedObjectSize(wireFormat, info.getTransactionId());
+
+        return rc + 8;
+    }
 }
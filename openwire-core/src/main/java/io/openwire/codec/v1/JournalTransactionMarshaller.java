@@ -26,6 +26,8 @@ import java.io.DataInput;
 import java.io.DataOutput;
 import java.io.IOException;
 
+import org.fusesource.hawtbuf.DataByteArrayOutputStream;
+
 public class JournalTransactionMarshaller extends BaseDataStreamMarshaller {
 
     /**
@@ -99,6 +101,26 @@ public class JournalTransactionMarshaller extends BaseDataStreamMarshaller {
         bs.readBoolean();
     }
 
+    /**
+     * Write the booleans and the data of this object in a single pass
+     *
+     * @param o
+     *        the instance to be marshaled
+     * @param dataOut
+     *        the output stream
+     * @throws IOException
+     *         thrown if an error occurs
+     */
+    @Override
+    public void tightMarshal(OpenWireFormat wireFormat, Object o, DataByteArrayOutputStream dataOut, BooleanStream bs) throws IOException {
+        super.tightMarshal(wireFormat, o, dataOut, bs);
+
+        JournalTransaction info = (JournalTransaction) o;
+        tightMarshalNestedObject(wireFormat, info.getTransactionId(), dataOut, bs);
+        dataOut.writeByte(info.getType());
+        bs.writeBoolean(info.getWasPrepared());
+    }
+
     /**
      * Un-marshal an object instance from the data input stream
      *
@@ -130,4 +152,17 @@ public class JournalTransactionMarshaller extends BaseDataStreamMarshaller {
         dataOut.writeByte(info.getType());
         dataOut.writeBoolean(info.getWasPrepared());
     }
+
+    /**
+     * Compute the number of bytes the loose encoding of this object takes
+     */
+    @Override
+    public int looseMarshalSize(OpenWireFormat wireFormat, Object o) throws IOException {
+        JournalTransaction info = (JournalTransaction) o;
+
+        int rc = super.looseMarshalSize(wireFormat, o);
+        rc += looseMarshalNestedObjectSize(wireFormat, info.getTransactionId());
+
+        return rc + 2;
+    }
 }
@@ -27,6 +27,8 @@ import java.io.DataInput;
 import java.io.DataOutput;
 import java.io.IOException;
 
+import org.fusesource.hawtbuf.DataByteArrayOutputStream;
+
 public class MessageDispatchMarshaller extends BaseCommandMarshaller {
 
     /**
@@ -103,6 +105,27 @@ public class MessageDispatchMarshaller extends BaseCommandMarshaller {
         dataOut.writeInt(info.getRedeliveryCounter());
     }
 
+    /**
+     * Write the booleans and the data of this object in a single pass
+     *
+     * @param o
+     *        the instance to be marshaled
+     * @param dataOut
+     *        the output stream
+     * @throws IOException
+     *         thrown if an error occurs
+     */
+    @Override
+    public void tightMarshal(OpenWireFormat wireFormat, Object o, DataByteArrayOutputStream dataOut, BooleanStream bs) throws IOException {
+        super.tightMarshal(wireFormat, o, dataOut, bs);
+
+        MessageDispatch info = (MessageDispatch) o;
+        tightMarshalCachedObject(wireFormat, info.getConsumerId(), dataOut, bs);
+        tightMarshalCachedObject(wireFormat, info.getDestination(), dataOut, bs);
+        tightMarshalNestedObject(wireFormat, info.getMessage(), dataOut, bs);
+        dataOut.writeInt(info.getRedeliveryCounter());
+    }
+
     /**
      * Un-marshal an object instance from the data input stream
      *
@@ -136,4 +159,19 @@ public class MessageDispatchMarshaller extends BaseCommandMarshaller {
         looseMarshalNestedObject(wireFormat, info.getMessage(), dataOut);
         dataOut.writeInt(info.getRedeliveryCounter());
     }
+
+    /**
+     * Compute the number of bytes the loose encoding of this object takes
+     */
+    @Override
+    public int looseMarshalSize(OpenWireFormat wireFormat, Object o) throws IOException {
+        MessageDispatch info = (MessageDispatch) o;
+
+        int rc = super.looseMarshalSize(wireFormat, o);
+        rc += looseMarshalCachedObjectSize(wireFormat, info.getConsumerId());
+        rc += looseMarshalCachedObjectSize(wireFormat, info.getDestination());
+        rc += looseMarshalNestedObjectSize(wireFormat, info.getMessage());
+
+        return rc + 4;
+    }
 }
@@ -27,6 +27,8 @@ import java.io.DataInput;
 import java.io.DataOutput;
 import java.io.IOException;
 
+import org.fusesource.hawtbuf.DataByteArrayOutputStream;
+
 public class MessageDispatchNotificationMarshaller extends BaseCommandMarshaller {
 
     /**
@@ -104,6 +106,27 @@ public class MessageDispatchNotificationMarshaller extends BaseCommandMarshaller
         tightMarshalNestedObject2(wireFormat, info.getMessageId(), dataOut, bs);
     }
 
+    /**
+     * Write the booleans and the data of this object in a single pass
+     *
+     * @param o
+     *        the instance to be marshaled
+     * @param dataOut
+     *        the output stream
+     * @throws IOException
+     *         thrown if an error occurs
+     */
+    @Override
+    public void tightMarshal(OpenWireFormat wireFormat, Object o, DataByteArrayOutputStream dataOut, BooleanStream bs) throws IOException {
+        super.tightMarshal(wireFormat, o, dataOut, bs);
+
+        MessageDispatchNotification info = (MessageDispatchNotification) o;
+        tightMarshalCachedObject(wireFormat, info.getConsumerId(), dataOut, bs);
+        tightMarshalCachedObject(wireFormat, info.getDestination(), dataOut, bs);
+        tightMarshalLong(wireFormat, info.getDeliverySequenceId(), dataOut, bs);
+        tightMarshalNestedObject(wireFormat, info.getMessageId(), dataOut, bs);
+    }
+
     /**
      * Un-marshal an object instance from the data input stream
      *
@@ -137,4 +160,19 @@ public class MessageDispatchNotificationMarshaller extends BaseCommandMarshaller
         looseMarshalLong(wireFormat, info.getDeliverySequenceId(), dataOut);
         looseMarshalNestedObject(wireFormat, info.getMessageId(), dataOut);
     }
+
+    /**
+     * Compute the number of bytes the loose encoding of this object takes
+     */
+    @Override
+    public int looseMarshalSize(OpenWireFormat wireFormat, Object o) throws IOException {
+        MessageDispatchNotification info = (MessageDispatchNotification) o;
+
+        int rc = super.looseMarshalSize(wireFormat, o);
+        rc += looseMarshalCachedObjectSize(wireFormat, info.getConsumerId());
+        rc += looseMarshalCachedObjectSize(wireFormat, info.getDestination());
+        rc += looseMarshalNestedObjectSize(wireFormat, info.getMessageId());
+
+        return rc + 8;
+    }
 }
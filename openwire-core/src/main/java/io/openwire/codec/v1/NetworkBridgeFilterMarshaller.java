@@ -27,6 +27,8 @@ import java.io.DataInput;
 import java.io.DataOutput;
 import java.io.IOException;
 
+import org.fusesource.hawtbuf.DataByteArrayOutputStream;
+
 public class NetworkBridgeFilterMarshaller extends BaseDataStreamMarshaller {
 
     /**
@@ -97,6 +99,25 @@ public class NetworkBridgeFilterMarshaller extends BaseDataStreamMarshaller {
         tightMarshalCachedObject2(wireFormat, info.getNetworkBrokerId(), dataOut, bs);
     }
 
+    /**
+     * Write the booleans and the data of this object in a single pass
+     *
+     * @param o
+     *        the instance to be marshaled
+     * @param dataOut
+     *        the output stream
+     * @throws IOException
+     *         thrown if an error occurs
+     */
+    @Override
+    public void tightMarshal(OpenWireFormat wireFormat, Object o, DataByteArrayOutputStream dataOut, BooleanStream bs) throws IOException {
+        super.tightMarshal(wireFormat, o, dataOut, bs);
+
+        NetworkBridgeFilter info = (NetworkBridgeFilter) o;
+        dataOut.writeInt(info.getNetworkTTL());
+        tightMarshalCachedObject(wireFormat, info.getNetworkBrokerId(), dataOut, bs);
+    }
+
     /**
      * Un-marshal an object instance from the data input stream
      *
@@ -126,4 +147,17 @@ public class NetworkBridgeFilterMarshaller extends BaseDataStreamMarshaller {
         dataOut.writeInt(info.getNetworkTTL());
         looseMarshalCachedObject(wireFormat, info.getNetworkBrokerId(), dataOut);
     }
+
+    /**
+     * Compute the number of bytes the loose encoding of this object takes
+     */
+    @Override
+    public int looseMarshalSize(OpenWireFormat wireFormat, Object o) throws IOException {
+        NetworkBridgeFilter info = (NetworkBridgeFilter) o;
+
+        int rc = super.looseMarshalSize(wireFormat, o);
+        rc += looseMarshalCachedObjectSize(wireFormat, info.getNetworkBrokerId());
+
+        return rc + 4;
+    }
 }
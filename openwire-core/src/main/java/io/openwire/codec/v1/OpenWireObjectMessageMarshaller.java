@@ -25,6 +25,8 @@ import java.io.DataInput;
 import java.io.DataOutput;
 import java.io.IOException;
 
+import org.fusesource.hawtbuf.DataByteArrayOutputStream;
+
 public class OpenWireObjectMessageMarshaller extends OpenWireMessageMarshaller {
 
     /**
@@ -83,6 +85,21 @@ public class OpenWireObjectMessageMarshaller extends OpenWireMessageMarshaller {
         super.tightMarshal2(wireFormat, o, dataOut, bs);
     }
 
+    /**
+     * Write the booleans and the data of this object in a single pass
+     *
+     * @param o
+     *        the instance to be marshaled
+     * @param dataOut
+     *        the output stream
+     * @throws IOException
+     *         thrown if an error occurs
+     */
+    @Override
+    public void tightMarshal(OpenWireFormat wireFormat, Object o, DataByteArrayOutputStream dataOut, BooleanStream bs) throws IOException {
+        super.tightMarshal(wireFormat, o, dataOut, bs);
+    }
+
     /**
      * Un-marshal an object instance from the data input stream
      *
@@ -104,4 +121,14 @@ public class OpenWireObjectMessageMarshaller extends OpenWireMessageMarshaller {
     public void looseMarshal(OpenWireFormat wireFormat, Object o, DataOutput dataOut) throws IOException {
         super.looseMarshal(wireFormat, o, dataOut);
     }
+
+    /**
+     * Compute the number of bytes the loose encoding of this object takes
+     */
+    @Override
+    public int looseMarshalSize(OpenWireFormat wireFormat, Object o) throws IOException {
+        int rc = super.looseMarshalSize(wireFormat, o);
+
+        return rc + 0;
+    }
 }
@@ -28,6 +28,8 @@ import java.io.DataInput;
 import java.io.DataOutput;
 import java.io.IOException;
 
+import org.fusesource.hawtbuf.DataByteArrayOutputStream;
+
 public class ProducerInfoMarshaller extends BaseCommandMarshaller {
 
     /**
@@ -112,6 +114,26 @@ public class ProducerInfoMarshaller extends BaseCommandMarshaller {
         tightMarshalObjectArray2(wireFormat, info.getBrokerPath(), dataOut, bs);
     }
 
+    /**
+     * Write the booleans and the data of this object in a single pass
+     *
+     * @param o
+     *        the instance to be marshaled
+     * @param dataOut
+     *        the output stream
+     * @throws IOException
+     *         thrown if an error occurs
+     */
+    @Override
+    public void tightMarshal(OpenWireFormat wireFormat, Object o, DataByteArrayOutputStream dataOut, BooleanStream bs) throws IOException {
+        super.tightMarshal(wireFormat, o, dataOut, bs);
+
+        ProducerInfo info = (ProducerInfo) o;
+        tightMarshalCachedObject(wireFormat, info.getProducerId(), dataOut, bs);
+        tightMarshalCachedObject(wireFormat, info.getDestination(), dataOut, bs);
+        tightMarshalObjectArray(wireFormat, info.getBrokerPath(), dataOut, bs);
+    }
+
     /**
      * Un-marshal an object instance from the data input stream
      *
@@ -153,4 +175,19 @@ public class ProducerInfoMarshaller extends BaseCommandMarshaller {
         looseMarshalCachedObject(wireFormat, info.getDestination(), dataOut);
         looseMarshalObjectArray(wireFormat, info.getBrokerPath(), dataOut);
     }
+
+    /**
+     * Compute the number of bytes the loose encoding of this object takes
+     */
+    @Override
+    public int looseMarshalSize(OpenWireFormat wireFormat, Object o) throws IOException {
+        ProducerInfo info = (ProducerInfo) o;
+
+        int rc = super.looseMarshalSize(wireFormat, o);
+        rc += looseMarshalCachedObjectSize(wireFormat, info.getProducerId());
+        rc += looseMarshalCachedObjectSize(wireFormat, info.getDestination());
+        rc += looseMarshalObjectArraySize(wireFormat, info.getBrokerPath());
+
+        return rc + 0;
+    }
 }
@@ -25,6 +25,8 @@ import java.io.DataInput;
 import java.io.DataOutput;
 import java.io.IOException;
 
+import org.fusesource.hawtbuf.DataByteArrayOutputStream;
+
 public class ReplayCommandMarshaller extends BaseCommandMarshaller {
 
     /**
@@ -92,6 +94,25 @@ public class ReplayCommandMarshaller extends BaseCommandMarshaller {
         dataOut.writeInt(info.getLastNakNumber());
     }
 
+    /**
+     * Write the booleans and the data of this object in a single pass
+     *
+     * @param o
+     *        the instance to be marshaled
+     * @param dataOut
+     *        the output stream
+     * @throws IOException
+     *         thrown if an error occurs
+     */
+    @Override
+    public void tightMarshal(OpenWireFormat wireFormat, Object o, DataByteArrayOutputStream dataOut, BooleanStream bs) throws IOException {
+        super.tightMarshal(wireFormat, o, dataOut, bs);
+
+        ReplayCommand info = (ReplayCommand) o;
+        dataOut.writeInt(info.getFirstNakNumber());
+        dataOut.writeInt(info.getLastNakNumber());
+    }
+
     /**
      * Un-marshal an object instance from the data input stream
      *
@@ -121,4 +142,16 @@ public class ReplayCommandMarshaller extends BaseCommandMarshaller {
         dataOut.writeInt(info.getFirstNakNumber());
         dataOut.writeInt(info.getLastNakNumber());
     }
+
+    /**
+     * Compute the number of bytes the loose encoding of this object takes
+     */
+    @Override
+    public int looseMarshalSize(OpenWireFormat wireFormat, Object o) throws IOException {
+        ReplayCommand info = (ReplayCommand) o;
+
+        int rc = super.looseMarshalSize(wireFormat, o);
+
+        return rc + 8;
+    }
 }
@@ -26,6 +26,8 @@ import java.io.DataInput;
 import java.io.DataOutput;
 import java.io.IOException;
 
+import org.fusesource.hawtbuf.DataByteArrayOutputStream;
+
 public class SessionIdMarshaller extends BaseDataStreamMarshaller {
 
     /**
@@ -97,6 +99,25 @@ public class SessionIdMarshaller extends BaseDataStreamMarshaller {
         tightMarshalLong2(wireFormat, info.getValue(), dataOut, bs);
     }
 
+    /**
+     * Write the booleans and the data of this object in a single pass
+     *
+     * @param o
+     *        the instance to be marshaled
+     * @param dataOut
+     *        the output stream
+     * @throws IOException
+     *         thrown if an error occurs
+     */
+    @Override
+    public void tightMarshal(OpenWireFormat wireFormat, Object o, DataByteArrayOutputStream dataOut, BooleanStream bs) throws IOException {
+        super.tightMarshal(wireFormat, o, dataOut, bs);
+
+        SessionId info = (SessionId) o;
+        tightMarshalString(info.getConnectionId(), dataOut, bs);
+        tightMarshalLong(wireFormat, info.getValue(), dataOut, bs);
+    }
+
     /**
      * Un-marshal an object instance from the data input stream
      *
@@ -127,4 +148,18 @@ public class SessionIdMarshaller extends BaseDataStreamMarshaller {
         looseMarshalString(info.getConnectionId(), dataOut);
         looseMarshalLong(wireFormat, info.getValue(), dataOut);
     }
+
+    /**
+     * Compute the number of bytes the loose encoding of this object takes
+     */
+    @Override
+    public int looseMarshalSize(OpenWireFormat wireFormat, Object o) throws IOException {
+
+        SessionId info = (SessionId) o;
+
+        int rc = super.looseMarshalSize(wireFormat, o);
+        rc += looseMarshalStringSize(info.getConnectionId());
+
+        return rc + 8;
+    }
 }
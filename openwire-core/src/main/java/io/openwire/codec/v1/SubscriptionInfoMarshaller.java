@@ -27,6 +27,8 @@ import java.io.DataInput;
 import java.io.DataOutput;
 import java.io.IOException;
 
+import org.fusesource.hawtbuf.DataByteArrayOutputStream;
+
 public class SubscriptionInfoMarshaller extends BaseDataStreamMarshaller {
 
     /**
@@ -104,6 +106,27 @@ public class SubscriptionInfoMarshaller extends BaseDataStreamMarshaller {
         tightMarshalString2(info.getSubscriptionName(), dataOut, bs);
     }
 
+    /**
+     * Write the booleans and the data of this object in a single pass
+     *
+     * @param o
+     *        the instance to be marshaled
+     * @param dataOut
+     *        the output stream
+     * @throws IOException
+     *         thrown if an error occurs
+     */
+    @Override
+    public void tightMarshal(OpenWireFormat wireFormat, Object o, DataByteArrayOutputStream dataOut, BooleanStream bs) throws IOException {
+        super.tightMarshal(wireFormat, o, dataOut, bs);
+
+        SubscriptionInfo info = (SubscriptionInfo) o;
+        tightMarshalString(info.getClientId(), dataOut, bs);
+        tightMarshalCachedObject(wireFormat, info.getDestination(), dataOut, bs);
+        tightMarshalString(info.getSelector(), dataOut, bs);
+        tightMarshalString(info.getSubscriptionName(), dataOut, bs);
+    }
+
     /**
      * Un-marshal an object instance from the data input stream
      *
@@ -137,4 +160,20 @@ public class SubscriptionInfoMarshaller extends BaseDataStreamMarshaller {
         looseMarshalString(info.getSelector(), dataOut);
         looseMarshalString(info.getSubscriptionName(), dataOut);
     }
+
+    /**
+     * Compute the number of bytes the loose encoding of this object takes
+     */
+    @Override
+    public int looseMarshalSize(OpenWireFormat wireFormat, Object o) throws IOException {
+        SubscriptionInfo info = (SubscriptionInfo) o;
+
+        int rc = super.looseMarshalSize(wireFormat, o);
+        rc += looseMarshalStringSize(info.getClientId());
+        rc += looseMarshalCachedObjectSize(wireFormat, info.getDestination());
+        rc += looseMarshalStringSize(info.getSelector());
+        rc += looseMarshalStringSize(info.getSubscriptionName());
+
+        return rc + 0;
+    }
 }
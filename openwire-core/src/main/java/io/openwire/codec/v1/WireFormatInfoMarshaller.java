@@ -26,6 +26,8 @@ import java.io.DataInput;
 import java.io.DataOutput;
 import java.io.IOException;
 
+import org.fusesource.hawtbuf.DataByteArrayOutputStream;
+
 public class WireFormatInfoMarshaller extends BaseDataStreamMarshaller {
 
     /**
@@ -65,7 +67,7 @@ public class WireFormatInfoMarshaller extends BaseDataStreamMarshaller {
 
         info.setMagic(tightUnmarshalConstByteArray(dataIn, bs, 8));
         info.setVersion(dataIn.readInt());
-        info.setMarshalledProperties(tightUnmarshalByteSequence(dataIn, bs));
+        info.setMarshalledProperties(tightUnmarshalByteSequence(wireFormat, dataIn, bs));
 
         info.afterUnmarshall(wireFormat);
     }
@@ -109,6 +111,30 @@ public class WireFormatInfoMarshaller extends BaseDataStreamMarshaller {
         info.afterMarshall(wireFormat);
     }
 
+    /**
+     * Write the booleans and the data of this object in a single pass
+     *
+     * @param o
+     *        the instance to be marshaled
+     * @param dataOut
+     *        the output stream
+     * @throws IOException
+     *         thrown if an error occurs
+     */
+    @Override
+    public void tightMarshal(OpenWireFormat wireFormat, Object o, DataByteArrayOutputStream dataOut, BooleanStream bs) throws IOException {
+        WireFormatInfo info = (WireFormatInfo) o;
+
+        info.beforeMarshall(wireFormat);
+
+        super.tightMarshal(wireFormat, o, dataOut, bs);
+        tightMarshalConstByteArray(info.getMagic(), dataOut, bs, 8);
+        dataOut.writeInt(info.getVersion());
+        tightMarshalByteSequence(info.getMarshalledProperties(), dataOut, bs);
+
+        info.afterMarshall(wireFormat);
+    }
+
     /**
      * Un-marshal an object instance from the data input stream
      *
@@ -128,7 +154,7 @@ public class WireFormatInfoMarshaller extends BaseDataStreamMarshaller {
 
         info.setMagic(looseUnmarshalConstByteArray(dataIn, 8));
         info.setVersion(dataIn.readInt());
-        info.setMarshalledProperties(looseUnmarshalByteSequence(dataIn));
+        info.setMarshalledProperties(looseUnmarshalByteSequence(wireFormat, dataIn));
 
         info.afterUnmarshall(wireFormat);
     }
@@ -140,11 +166,28 @@ public class WireFormatInfoMarshaller extends BaseDataStreamMarshaller {
     public void looseMarshal(OpenWireFormat wireFormat, Object o, DataOutput dataOut) throws IOException {
         WireFormatInfo info = (WireFormatInfo) o;
 
-        info.beforeMarshall(wireFormat);
+        if (!wireFormat.isLooseMarshalSized()) {
+            info.beforeMarshall(wireFormat);
+        }
 
         super.looseMarshal(wireFormat, o, dataOut);
         looseMarshalConstByteArray(wireFormat, info.getMagic(), dataOut, 8);
         dataOut.writeInt(info.getVersion());
         looseMarshalByteSequence(wireFormat, info.getMarshalledProperties(), dataOut);
     }
+
+    /**
+     * Compute the number of bytes the loose encoding of this object takes
+     */
+    @Override
+    public int looseMarshalSize(OpenWireFormat wireFormat, Object o) throws IOException {
+        WireFormatInfo info = (WireFormatInfo) o;
+
+        info.beforeMarshall(wireFormat);
+
+        int rc = super.looseMarshalSize(wireFormat, o);
+        rc += looseMarshalByteSequenceSize(wireFormat, info.getMarshalledProperties());
+
+        return rc + 12;
+    }
 }
@@ -25,6 +25,8 @@ import java.io.DataInput;
 import java.io.DataOutput;
 import java.io.IOException;
 
+import org.fusesource.hawtbuf.DataByteArrayOutputStream;
+
 public class XATransactionIdMarshaller extends TransactionIdMarshaller {
 
     /**
@@ -101,6 +103,27 @@ public class XATransactionIdMarshaller extends TransactionIdMarshaller {
 
     }
 
+    /**
+     * Write the booleans and the data of this object in a single pass
+     *
+     * @param o
+     *        the instance to be marshaled
+     * @param dataOut
+     *        the output stream
+     * @throws IOException
+     *         thrown if an error occurs
+     */
+    @Override
+    public void tightMarshal(OpenWireFormat wireFormat, Object o, DataByteArrayOutputStream dataOut, BooleanStream bs) throws IOException {
+        super.tightMarshal(wireFormat, o, dataOut, bs);
+
+        XATransactionId info = (XATransactionId) o;
+        dataOut.writeInt(info.getFormatId());
+        tightMarshalByteArray(info.getGlobalTransactionId(), dataOut, bs);
+        tightMarshalByteArray(info.getBranchQualifier(), dataOut, bs);
+
+    }
+
     /**
      * Un-marshal an object instance from the data input stream
      *
@@ -135,4 +158,19 @@ public class XATransactionIdMarshaller extends TransactionIdMarshaller {
         looseMarshalByteArray(wireFormat, info.getBranchQualifier(), dataOut);
 
     }
+
+    /**
+     * Compute the number of bytes the loose encoding of this object takes
+     */
+    @Override
+    public int looseMarshalSize(OpenWireFormat wireFormat, Object o) throws IOException {
+
+        XATransactionId info = (XATransactionId) o;
+
+        int rc = super.looseMarshalSize(wireFormat, o);
+        rc += looseMarshalByteArraySize(wireFormat, info.getGlobalTransactionId());
+        rc += looseMarshalByteArraySize(wireFormat, info.getBranchQualifier());
+
+        return rc + 4;
+    }
 }
@@ -17,7 +17,12 @@
 package io.openwire.codec.v10;
 
 import io.openwire.codec.BaseDataStreamMarshaller;
+import io.openwire.codec.BigEndianBytes;
 import io.openwire.codec.BooleanStream;
+import io.openwire.codec.ByteArrayMarshaller;
+import io.openwire.codec.OpenWireBufferMarshaller;
+import io.openwire.codec.OpenWireBufferReader;
+import io.openwire.codec.OpenWireBufferWriter;
 import io.openwire.codec.OpenWireFormat;
 import io.openwire.commands.BaseCommand;
 
@@ -25,7 +30,9 @@ import java.io.DataInput;
 import java.io.DataOutput;
 import java.io.IOException;
 
-public abstract class BaseCommandMarshaller extends BaseDataStreamMarshaller {
+import org.fusesource.hawtbuf.DataByteArrayOutputStream;
+
+public abstract class BaseCommandMarshaller extends BaseDataStreamMarshaller implements ByteArrayMarshaller, OpenWireBufferMarshaller {
 
     /**
      * Un-marshal an object instance from the data input stream
@@ -45,6 +52,48 @@ public abstract class BaseCommandMarshaller extends BaseDataStreamMarshaller {
         info.setResponseRequired(bs.readBoolean());
     }
 
+    /**
+     * Un-marshal an object instance from the OpenWire buffer reader
+     *
+     * @param o
+     *        the object to un-marshal
+     * @param dataIn
+     *        the buffer reader to build the object from
+     * @throws IOException
+     */
+    @Override
+    public void tightUnmarshal(OpenWireFormat wireFormat, Object o, OpenWireBufferReader dataIn, BooleanStream bs) throws IOException {
+        super.tightUnmarshal(wireFormat, o, dataIn, bs);
+
+        BaseCommand info = (BaseCommand) o;
+        info.setCommandId(dataIn.readInt());
+        info.setResponseRequired(bs.readBoolean());
+    }
+
+    /**
+     * Un-marshal an object instance directly from the byte array backing the frame
+     *
+     * @param o
+     *        the object to un-marshal
+     * @param dataIn
+     *        the byte array to read from
+     * @param position
+     *        the position in the array to start reading at
+     * @return the position following the last byte read
+     * @throws IOException
+     */
+    @Override
+    public int tightUnmarshal(OpenWireFormat wireFormat, Object o, byte[] dataIn, int position, BooleanStream bs) throws IOException {
+        position = super.tightUnmarshal(wireFormat, o, dataIn, position, bs);
+
+        BaseCommand info = (BaseCommand) o;
+        info.setCommandId(BigEndianBytes.getInt(dataIn, position));
+        position += 4;
+        info.setResponseRequired(bs.readBoolean());
+
+        return position;
+    }
+
     /**
      * Write the booleans that this object uses to a BooleanStream
      */
@@ -77,6 +126,49 @@ public abstract class BaseCommandMarshaller extends BaseDataStreamMarshaller {
         bs.readBoolean();
     }
 
+    /**
+     * Write a object instance directly into the byte array backing the frame
+     *
+     * @param o
+     *        the instance to be marshaled
+     * @param dataOut
+     *        the byte array to write to
+     * @param position
+     *        the position in the array to start writing at
+     * @return the position following the last byte written
+     * @throws IOException
+     *         thrown if an error occurs
+     */
+    @Override
+    public int tightMarshal2(OpenWireFormat wireFormat, Object o, byte[] dataOut, int position, BooleanStream bs) throws IOException {
+        position = super.tightMarshal2(wireFormat, o, dataOut, position, bs);
+
+        BaseCommand info = (BaseCommand) o;
+        position = BigEndianBytes.putInt(dataOut, position, info.getCommandId());
+        bs.readBoolean();
+
+        return position;
+    }
+
+    /**
+     * Write the booleans and the data of this object in a single pass
+     *
+     * @param o
+     *        the instance to be marshaled
+     * @param dataOut
+     *        the output stream
+     * @throws IOException
+     *         thrown if an error occurs
+     */
+    @Override
+    public void tightMarshal(OpenWireFormat wireFormat, Object o, DataByteArrayOutputStream dataOut, BooleanStream bs) throws IOException {
+        super.tightMarshal(wireFormat, o, dataOut, bs);
+
+        BaseCommand info = (BaseCommand) o;
+        dataOut.writeInt(info.getCommandId());
+        bs.writeBoolean(info.isResponseRequired());
+    }
+
     /**
      * Un-marshal an object instance from the data input stream
      *
@@ -95,6 +187,24 @@ public abstract class BaseCommandMarshaller extends BaseDataStreamMarshaller {
         info.setResponseRequired(dataIn.readBoolean());
     }
 
+    /**
+     * Un-marshal an object instance from the OpenWire buffer reader
+     *
+     * @param o
+     *        the object to un-marshal
+     * @param dataIn
+     *        the buffer reader to build the object from
+     * @throws IOException
+     */
+    @Override
+    public void looseUnmarshal(OpenWireFormat wireFormat, Object o, OpenWireBufferReader dataIn) throws IOException {
+        super.looseUnmarshal(wireFormat, o, dataIn);
+
+        BaseCommand info = (BaseCommand) o;
+        info.setCommandId(dataIn.readInt());
+        info.setResponseRequired(dataIn.readBoolean());
+    }
+
     /**
      * Write the booleans that this object uses to a BooleanStream
      */
@@ -106,4 +216,35 @@ public abstract class BaseCommandMarshaller extends BaseDataStreamMarshaller {
         dataOut.writeInt(info.getCommandId());
         dataOut.writeBoolean(info.isResponseRequired());
     }
+
+    /**
+     * Write a object instance to the OpenWire buffer writer
+     *
+     * @param o
+     *        the instance to be marshaled
+     * @param dataOut
+     *        the buffer writer to write to
+     * @throws IOException
+     *         thrown if an error occurs
+     */
+    @Override
+    public void looseMarshal(OpenWireFormat wireFormat, Object o, OpenWireBufferWriter dataOut) throws IOException {
+        BaseCommand info = (BaseCommand) o;
+
+        super.looseMarshal(wireFormat, o, dataOut);
+        dataOut.writeInt(info.getCommandId());
+        dataOut.writeBoolean(info.isResponseRequired());
+    }
+
+    /**
+     * Compute the number of bytes the loose encoding of this object takes
+     */
+    @Override
+    public int looseMarshalSize(OpenWireFormat wireFormat, Object o) throws IOException {
+        BaseCommand info = (BaseCommand) o;
+
+        int rc = super.looseMarshalSize(wireFormat, o);
+
+        return rc + 5;
+    }
 }
@@ -18,6 +18,10 @@ package io.openwire.codec.v10;
 
 import io.openwire.codec.BaseDataStreamMarshaller;
 import io.openwire.codec.BooleanStream;
+import io.openwire.codec.ByteArrayMarshaller;
+import io.openwire.codec.OpenWireBufferMarshaller;
+import io.openwire.codec.OpenWireBufferReader;
+import io.openwire.codec.OpenWireBufferWriter;
 import io.openwire.codec.OpenWireFormat;
 import io.openwire.commands.BrokerId;
 import io.openwire.commands.DataStructure;
@@ -26,7 +30,9 @@ import java.io.DataInput;
 import java.io.DataOutput;
 import java.io.IOException;
 
-public class BrokerIdMarshaller extends BaseDataStreamMarshaller {
+import org.fusesource.hawtbuf.DataByteArrayOutputStream;
+
+public class BrokerIdMarshaller extends BaseDataStreamMarshaller implements ByteArrayMarshaller, OpenWireBufferMarshaller {
 
     /**
      * Return the type of Data Structure we marshal
@@ -63,6 +69,46 @@ public class BrokerIdMarshaller extends BaseDataStreamMarshaller {
         info.setValue(tightUnmarshalString(dataIn, bs));
     }
 
+    /**
+     * Un-marshal an object instance from the OpenWire buffer reader
+     *
+     * @param o
+     *        the object to un-marshal
+     * @param dataIn
+     *        the buffer reader to build the object from
+     * @throws IOException
+     */
+    @Override
+    public void tightUnmarshal(OpenWireFormat wireFormat, Object o, OpenWireBufferReader dataIn, BooleanStream bs) throws IOException {
+        super.tightUnmarshal(wireFormat, o, dataIn, bs);
+
+        BrokerId info = (BrokerId) o;
+        info.setValue(tightUnmarshalString(dataIn, bs));
+    }
+
+    /**
+     * Un-marshal an object instance directly from the byte array backing the frame
+     *
+     * @param o
+     *        the object to un-marshal
+     * @param dataIn
+     *        the byte array to read from
+     * @param position
+     *        the position in the array to start reading at
+     * @return the position following the last byte read
+     * @throws IOException
+     */
+    @Override
+    public int tightUnmarshal(OpenWireFormat wireFormat, Object o, byte[] dataIn, int position, BooleanStream bs) throws IOException {
+        position = super.tightUnmarshal(wireFormat, o, dataIn, position, bs);
+
+        BrokerId info = (BrokerId) o;
+        info.setValue(tightUnmarshalString(wireFormat, dataIn, position, bs));
+        position = wireFormat.getUnmarshalPosition();
+
+        return position;
+    }
+
     /**
      * Write the booleans that this object uses to a BooleanStream
      */
@@ -94,6 +140,47 @@ public class BrokerIdMarshaller extends BaseDataStreamMarshaller {
         tightMarshalString2(info.getValue(), dataOut, bs);
     }
 
+    /**
+     * Write a object instance directly into the byte array backing the frame
+     *
+     * @param o
+     *        the instance to be marshaled
+     * @param dataOut
+     *        the byte array to write to
+     * @param position
+     *        the position in the array to start writing at
+     * @return the position following the last byte written
+     * @throws IOException
+     *         thrown if an error occurs
+     */
+    @Override
+    public int tightMarshal2(OpenWireFormat wireFormat, Object o, byte[] dataOut, int position, BooleanStream bs) throws IOException {
+        position = super.tightMarshal2(wireFormat, o, dataOut, position, bs);
+
+        BrokerId info = (BrokerId) o;
+        position = tightMarshalString2(info.getValue(), dataOut, position, bs);
+
+        return position;
+    }
+
+    /**
+     * Write the booleans and the data of this object in a single pass
+     *
+     * @param o
+     *        the instance to be marshaled
+     * @param dataOut
+     *        the output stream
+     * @throws IOException
+     *         thrown if an error occurs
+     */
+    @Override
+    public void tightMarshal(OpenWireFormat wireFormat, Object o, DataByteArrayOutputStream dataOut, BooleanStream bs) throws IOException {
+        super.tightMarshal(wireFormat, o, dataOut, bs);
+
+        BrokerId info = (BrokerId) o;
+        tightMarshalString(info.getValue(), dataOut, bs);
+    }
+
     /**
      * Un-marshal an object instance from the data input stream
      *
@@ -111,6 +198,23 @@ public class BrokerIdMarshaller extends BaseDataStreamMarshaller {
         info.setValue(looseUnmarshalString(dataIn));
     }
 
+    /**
+     * Un-marshal an object instance from the OpenWire buffer reader
+     *
+     * @param o
+     *        the object to un-marshal
+     * @param dataIn
+     *        the buffer reader to build the object from
+     * @throws IOException
+     */
+    @Override
+    public void looseUnmarshal(OpenWireFormat wireFormat, Object o, OpenWireBufferReader dataIn) throws IOException {
+        super.looseUnmarshal(wireFormat, o, dataIn);
+
+        BrokerId info = (BrokerId) o;
+        info.setValue(looseUnmarshalString(dataIn));
+    }
+
     /**
      * Write the booleans that this object uses to a BooleanStream
      */
@@ -121,4 +225,35 @@ public class BrokerIdMarshaller extends BaseDataStreamMarshaller {
         super.looseMarshal(wireFormat, o, dataOut);
         looseMarshalString(info.getValue(), dataOut);
     }
+
+    /**
+     * Write a object instance to the OpenWire buffer writer
+     *
+     * @param o
+     *        the instance to be marshaled
+     * @param dataOut
+     *        the buffer writer to write to
+     * @throws IOException
+     *         thrown if an error occurs
+     */
+    @Override
+    public void looseMarshal(OpenWireFormat wireFormat, Object o, OpenWireBufferWriter dataOut) throws IOException {
+        BrokerId info = (BrokerId) o;
+
+        super.looseMarshal(wireFormat, o, dataOut);
+        looseMarshalString(info.getValue(), dataOut);
+    }
+
+    /**
+     * Compute the number of bytes the loose encoding of this object takes
+     */
+    @Override
+    public int looseMarshalSize(OpenWireFormat wireFormat, Object o) throws IOException {
+        BrokerId info = (BrokerId) o;
+
+        int rc = super.looseMarshalSize(wireFormat, o);
+        rc += looseMarshalStringSize(info.getValue());
+
+        return rc + 0;
+    }
 }
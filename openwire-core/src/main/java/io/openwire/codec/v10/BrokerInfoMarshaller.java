@@ -16,7 +16,12 @@
  */
 package io.openwire.codec.v10;
 
+import io.openwire.codec.BigEndianBytes;
 import io.openwire.codec.BooleanStream;
+import io.openwire.codec.ByteArrayMarshaller;
+import io.openwire.codec.OpenWireBufferMarshaller;
+import io.openwire.codec.OpenWireBufferReader;
+import io.openwire.codec.OpenWireBufferWriter;
 import io.openwire.codec.OpenWireFormat;
 import io.openwire.commands.BrokerId;
 import io.openwire.commands.BrokerInfo;
@@ -26,7 +31,11 @@ import java.io.DataInput;
 import java.io.DataOutput;
 import java.io.IOException;
 
-public class BrokerInfoMarshaller extends BaseCommandMarshaller {
+import org.fusesource.hawtbuf.DataByteArrayOutputStream;
+
+public class BrokerInfoMarshaller extends BaseCommandMarshaller implements ByteArrayMarshaller, OpenWireBufferMarshaller {
+
+    private static final BrokerIdMarshaller BROKER_ID_MARSHALLER = new BrokerIdMarshaller();
 
     /**
      * Return the type of Data Structure we marshal
@@ -84,6 +93,95 @@ public class BrokerInfoMarshaller extends BaseCommandMarshaller {
         info.setNetworkProperties(tightUnmarshalString(dataIn, bs));
     }
 
+    /**
+     * Un-marshal an object instance from the OpenWire buffer reader
+     *
+     * @param o
+     *        the object to un-marshal
+     * @param dataIn
+     *        the buffer reader to build the object from
+     * @throws IOException
+     */
+    @Override
+    public void tightUnmarshal(OpenWireFormat wireFormat, Object o, OpenWireBufferReader dataIn, BooleanStream bs) throws IOException {
+        super.tightUnmarshal(wireFormat, o, dataIn, bs);
+
+        BrokerInfo info = (BrokerInfo) o;
+        info.setBrokerId((BrokerId) tightUnmarsalCachedObject(wireFormat, dataIn, bs));
+        info.setBrokerURL(tightUnmarshalString(dataIn, bs));
+
+        if (bs.readBoolean()) {
+            short size = dataIn.readShort();
+            BrokerInfo value[] = new BrokerInfo[size];
+            for (int i = 0; i < size; i++) {
+                value[i] = (BrokerInfo) tightUnmarsalNestedObject(wireFormat, dataIn, bs);
+            }
+            info.setPeerBrokerInfos(value);
+        } else {
+            info.setPeerBrokerInfos(null);
+        }
+        info.setBrokerName(tightUnmarshalString(dataIn, bs));
+        info.setSlaveBroker(bs.readBoolean());
+        info.setMasterBroker(bs.readBoolean());
+        info.setFaultTolerantConfiguration(bs.readBoolean());
+        info.setDuplexConnection(bs.readBoolean());
+        info.setNetworkConnection(bs.readBoolean());
+        info.setConnectionId(tightUnmarshalLong(wireFormat, dataIn, bs));
+        info.setBrokerUploadUrl(tightUnmarshalString(dataIn, bs));
+        info.setNetworkProperties(tightUnmarshalString(dataIn, bs));
+    }
+
+    /**
+     * Un-marshal an object instance directly from the byte array backing the frame
+     *
+     * @param o
+     *        the object to un-marshal
+     * @param dataIn
+     *        the byte array to read from
+     * @param position
+     *        the position in the array to start reading at
+     * @return the position following the last byte read
+     * @throws IOException
+     */
+    @Override
+    public int tightUnmarshal(OpenWireFormat wireFormat, Object o, byte[] dataIn, int position, BooleanStream bs) throws IOException {
+        position = super.tightUnmarshal(wireFormat, o, dataIn, position, bs);
+
+        BrokerInfo info = (BrokerInfo) o;
+        info.setBrokerId((BrokerId) tightUnmarsalCachedObject(wireFormat, BROKER_ID_MARSHALLER, dataIn, position, bs));
+        position = wireFormat.getUnmarshalPosition();
+        info.setBrokerURL(tightUnmarshalString(wireFormat, dataIn, position, bs));
+        position = wireFormat.getUnmarshalPosition();
+
+        if (bs.readBoolean()) {
+            short size = BigEndianBytes.getShort(dataIn, position);
+            position += 2;
+            BrokerInfo value[] = new BrokerInfo[size];
+            for (int i = 0; i < size; i++) {
+                value[i] = (BrokerInfo) tightUnmarsalNestedObject(wireFormat, dataIn, position, bs);
+                position = wireFormat.getUnmarshalPosition();
+            }
+            info.setPeerBrokerInfos(value);
+        } else {
+            info.setPeerBrokerInfos(null);
+        }
+        info.setBrokerName(tightUnmarshalString(wireFormat, dataIn, position, bs));
+        position = wireFormat.getUnmarshalPosition();
+        info.setSlaveBroker(bs.readBoolean());
+        info.setMasterBroker(bs.readBoolean());
+        info.setFaultTolerantConfiguration(bs.readBoolean());
+        info.setDuplexConnection(bs.readBoolean());
+        info.setNetworkConnection(bs.readBoolean());
+        info.setConnectionId(tightUnmarshalLong(wireFormat, dataIn, position, bs));
+        position = wireFormat.getUnmarshalPosition();
+        info.setBrokerUploadUrl(tightUnmarshalString(wireFormat, dataIn, position, bs));
+        position = wireFormat.getUnmarshalPosition();
+        info.setNetworkProperties(tightUnmarshalString(wireFormat, dataIn, position, bs));
+        position = wireFormat.getUnmarshalPosition();
+
+        return position;
+    }
+
     /**
      * Write the booleans that this object uses to a BooleanStream
      */
@@ -137,6 +235,69 @@ public class BrokerInfoMarshaller extends BaseCommandMarshaller {
         tightMarshalString2(info.getNetworkProperties(), dataOut, bs);
     }
 
+    /**
+     * Write a object instance directly into the byte array backing the frame
+     *
+     * @param o
+     *        the instance to be marshaled
+     * @param dataOut
+     *        the byte array to write to
+     * @param position
+     *        the position in the array to start writing at
+     * @return the position following the last byte written
+     * @throws IOException
+     *         thrown if an error occurs
+     */
+    @Override
+    public int tightMarshal2(OpenWireFormat wireFormat, Object o, byte[] dataOut, int position, BooleanStream bs) throws IOException {
+        position = super.tightMarshal2(wireFormat, o, dataOut, position, bs);
+
+        BrokerInfo info = (BrokerInfo) o;
+        position = tightMarshalCachedObject2(wireFormat, info.getBrokerId(), BROKER_ID_MARSHALLER, dataOut, position, bs);
+        position = tightMarshalString2(info.getBrokerURL(), dataOut, position, bs);
+        position = tightMarshalObjectArray2(wireFormat, info.getPeerBrokerInfos(), dataOut, position, bs);
+        position = tightMarshalString2(info.getBrokerName(), dataOut, position, bs);
+        bs.readBoolean();
+        bs.readBoolean();
+        bs.readBoolean();
+        bs.readBoolean();
+        bs.readBoolean();
+        position = tightMarshalLong2(wireFormat, info.getConnectionId(), dataOut, position, bs);
+        position = tightMarshalString2(info.getBrokerUploadUrl(), dataOut, position, bs);
+        position = tightMarshalString2(info.getNetworkProperties(), dataOut, position, bs);
+
+        return position;
+    }
+
+    /**
+     * Write the booleans and the data of this object in a single pass
+     *
+     * @param o
+     *        the instance to be marshaled
+     * @param dataOut
+     *        the output stream
+     * @throws IOException
+     *         thrown if an error occurs
+     */
+    @Override
+    public void tightMarshal(OpenWireFormat wireFormat, Object o, DataByteArrayOutputStream dataOut, BooleanStream bs) throws IOException {
+        super.tightMarshal(wireFormat, o, dataOut, bs);
+
+        BrokerInfo info = (BrokerInfo) o;
+        tightMarshalCachedObject(wireFormat, info.getBrokerId(), dataOut, bs);
+        tightMarshalString(info.getBrokerURL(), dataOut, bs);
+        tightMarshalObjectArray(wireFormat, info.getPeerBrokerInfos(), dataOut, bs);
+        tightMarshalString(info.getBrokerName(), dataOut, bs);
+        bs.writeBoolean(info.isSlaveBroker());
+        bs.writeBoolean(info.isMasterBroker());
+        bs.writeBoolean(info.isFaultTolerantConfiguration());
+        bs.writeBoolean(info.isDuplexConnection());
+        bs.writeBoolean(info.isNetworkConnection());
+        tightMarshalLong(wireFormat, info.getConnectionId(), dataOut, bs);
+        tightMarshalString(info.getBrokerUploadUrl(), dataOut, bs);
+        tightMarshalString(info.getNetworkProperties(), dataOut, bs);
+    }
+
     /**
      * Un-marshal an object instance from the data input stream
      *
@@ -175,6 +336,44 @@ public class BrokerInfoMarshaller extends BaseCommandMarshaller {
         info.setNetworkProperties(looseUnmarshalString(dataIn));
     }
 
+    /**
+     * Un-marshal an object instance from the OpenWire buffer reader
+     *
+     * @param o
+     *        the object to un-marshal
+     * @param dataIn
+     *        the buffer reader to build the object from
+     * @throws IOException
+     */
+    @Override
+    public void looseUnmarshal(OpenWireFormat wireFormat, Object o, OpenWireBufferReader dataIn) throws IOException {
+        super.looseUnmarshal(wireFormat, o, dataIn);
+
+        BrokerInfo info = (BrokerInfo) o;
+        info.setBrokerId((BrokerId) looseUnmarsalCachedObject(wireFormat, dataIn));
+        info.setBrokerURL(looseUnmarshalString(dataIn));
+
+        if (dataIn.readBoolean()) {
+            short size = dataIn.readShort();
+            BrokerInfo value[] = new BrokerInfo[size];
+            for (int i = 0; i < size; i++) {
+                value[i] = (BrokerInfo) looseUnmarsalNestedObject(wireFormat, dataIn);
+            }
+            info.setPeerBrokerInfos(value);
+        } else {
+            info.setPeerBrokerInfos(null);
+        }
+        info.setBrokerName(looseUnmarshalString(dataIn));
+        info.setSlaveBroker(dataIn.readBoolean());
+        info.setMasterBroker(dataIn.readBoolean());
+        info.setFaultTolerantConfiguration(dataIn.readBoolean());
+        info.setDuplexConnection(dataIn.readBoolean());
+        info.setNetworkConnection(dataIn.readBoolean());
+        info.setConnectionId(looseUnmarshalLong(wireFormat, dataIn));
+        info.setBrokerUploadUrl(looseUnmarshalString(dataIn));
+        info.setNetworkProperties(looseUnmarshalString(dataIn));
+    }
+
     /**
      * Write the booleans that this object uses to a BooleanStream
      */
@@ -196,4 +395,51 @@ public class BrokerInfoMarshaller extends BaseCommandMarshaller {
         looseMarshalString(info.getBrokerUploadUrl(), dataOut);
         looseMarshalString(info.getNetworkProperties(), dataOut);
     }
+
+    /**
+     * Write a object instance to the OpenWire buffer writer
+     *
+     * @param o
+     *        the instance to be marshaled
+     * @param dataOut
+     *        the buffer writer to write to
+     * @throws IOException
+     *         thrown if an error occurs
+     */
+    @Override
+    public void looseMarshal(OpenWireFormat wireFormat, Object o, OpenWireBufferWriter dataOut) throws IOException {
+        BrokerInfo info = (BrokerInfo) o;
+
+        super.looseMarshal(wireFormat, o, dataOut);
+        looseMarshalCachedObject(wireFormat, info.getBrokerId(), dataOut);
+        looseMarshalString(info.getBrokerURL(), dataOut);
+        looseMarshalObjectArray(wireFormat, info.getPeerBrokerInfos(), dataOut);
+        looseMarshalString(info.getBrokerName(), dataOut);
+        dataOut.writeBoolean(info.isSlaveBroker());
+        dataOut.writeBoolean(info.isMasterBroker());
+        dataOut.writeBoolean(info.isFaultTolerantConfiguration());
+        dataOut.writeBoolean(info.isDuplexConnection());
+        dataOut.writeBoolean(info.isNetworkConnection());
+        looseMarshalLong(wireFormat, info.getConnectionId(), dataOut);
+        looseMarshalString(info.getBrokerUploadUrl(), dataOut);
+        looseMarshalString(info.getNetworkProperties(), dataOut);
+    }
+
+    /**
+     * Compute the number of bytes the loose encoding of this object takes
+     */
+    @Override
+    public int looseMarshalSize(OpenWireFormat wireFormat, Object o) throws IOException {
+        BrokerInfo info = (BrokerInfo) o;
+
+        int rc = super.looseMarshalSize(wireFormat, o);
+        rc += looseMarshalCachedObjectSize(wireFormat, info.getBrokerId());
+        rc += looseMarshalStringSize(info.getBrokerURL());
+        rc += looseMarshalObjectArraySize(wireFormat, info.getPeerBrokerInfos());
+        rc += looseMarshalStringSize(info.getBrokerName());
+        rc += looseMarshalStringSize(info.getBrokerUploadUrl());
+        rc += looseMarshalStringSize(info.getNetworkProperties());
+
+        return rc + 13;
+    }
 }
@@ -17,6 +17,10 @@
 package io.openwire.codec.v10;
 
 import io.openwire.codec.BooleanStream;
+import io.openwire.codec.ByteArrayMarshaller;
+import io.openwire.codec.OpenWireBufferMarshaller;
+import io.openwire.codec.OpenWireBufferReader;
+import io.openwire.codec.OpenWireBufferWriter;
 import io.openwire.codec.OpenWireFormat;
 import io.openwire.commands.ConnectionControl;
 import io.openwire.commands.DataStructure;
@@ -25,7 +29,9 @@ import java.io.DataInput;
 import java.io.DataOutput;
 import java.io.IOException;
 
-public class ConnectionControlMarshaller extends BaseCommandMarshaller {
+import org.fusesource.hawtbuf.DataByteArrayOutputStream;
+
+public class ConnectionControlMarshaller extends BaseCommandMarshaller implements ByteArrayMarshaller, OpenWireBufferMarshaller {
 
     /**
      * Return the type of Data Structure we marshal
@@ -70,6 +76,64 @@ public class ConnectionControlMarshaller extends BaseCommandMarshaller {
         info.setToken(tightUnmarshalByteArray(dataIn, bs));
     }
 
+    /**
+     * Un-marshal an object instance from the OpenWire buffer reader
+     *
+     * @param o
+     *        the object to un-marshal
+     * @param dataIn
+     *        the buffer reader to build the object from
+     * @throws IOException
+     */
+    @Override
+    public void tightUnmarshal(OpenWireFormat wireFormat, Object o, OpenWireBufferReader dataIn, BooleanStream bs) throws IOException {
+        super.tightUnmarshal(wireFormat, o, dataIn, bs);
+
+        ConnectionControl info = (ConnectionControl) o;
+        info.setClose(bs.readBoolean());
+        info.setExit(bs.readBoolean());
+        info.setFaultTolerant(bs.readBoolean());
+        info.setResume(bs.readBoolean());
+        info.setSuspend(bs.readBoolean());
+        info.setConnectedBrokers(tightUnmarshalString(dataIn, bs));
+        info.setReconnectTo(tightUnmarshalString(dataIn, bs));
+        info.setRebalanceConnection(bs.readBoolean());
+        info.setToken(tightUnmarshalByteArray(dataIn, bs));
+    }
+
+    /**
+     * Un-marshal an object instance directly from the byte array backing the frame
+     *
+     * @param o
+     *        the object to un-marshal
+     * @param dataIn
+     *        the byte array to read from
+     * @param position
+     *        the position in the array to start reading at
+     * @return the position following the last byte read
+     * @throws IOException
+     */
+    @Override
+    public int tightUnmarshal(OpenWireFormat wireFormat, Object o, byte[] dataIn, int position, BooleanStream bs) throws IOException {
+        position = super.tightUnmarshal(wireFormat, o, dataIn, position, bs);
+
+        ConnectionControl info = (ConnectionControl) o;
+        info.setClose(bs.readBoolean());
+        info.setExit(bs.readBoolean());
+        info.setFaultTolerant(bs.readBoolean());
+        info.setResume(bs.readBoolean());
+        info.setSuspend(bs.readBoolean());
+        info.setConnectedBrokers(tightUnmarshalString(wireFormat, dataIn, position, bs));
+        position = wireFormat.getUnmarshalPosition();
+        info.setReconnectTo(tightUnmarshalString(wireFormat, dataIn, position, bs));
+        position = wireFormat.getUnmarshalPosition();
+        info.setRebalanceConnection(bs.readBoolean());
+        info.setToken(tightUnmarshalByteArray(wireFormat, dataIn, position, bs));
+        position = wireFormat.getUnmarshalPosition();
+
+        return position;
+    }
+
     /**
      * Write the booleans that this object uses to a BooleanStream
      */
@@ -117,6 +181,63 @@ public class ConnectionControlMarshaller extends BaseCommandMarshaller {
         tightMarshalByteArray2(info.getToken(), dataOut, bs);
     }
 
+    /**
+     * Write a object instance directly into the byte array backing the frame
+     *
+     * @param o
+     *        the instance to be marshaled
+     * @param dataOut
+     *        the byte array to write to
+     * @param position
+     *        the position in the array to start writing at
+     * @return the position following the last byte written
+     * @throws IOException
+     *         thrown if an error occurs
+     */
+    @Override
+    public int tightMarshal2(OpenWireFormat wireFormat, Object o, byte[] dataOut, int position, BooleanStream bs) throws IOException {
+        position = super.tightMarshal2(wireFormat, o, dataOut, position, bs);
+
+        ConnectionControl info = (ConnectionControl) o;
+        bs.readBoolean();
+        bs.readBoolean();
+        bs.readBoolean();
+        bs.readBoolean();
+        bs.readBoolean();
+        position = tightMarshalString2(info.getConnectedBrokers(), dataOut, position, bs);
+        position = tightMarshalString2(info.getReconnectTo(), dataOut, position, bs);
+        bs.readBoolean();
+        position = tightMarshalByteArray2(info.getToken(), dataOut, position, bs);
+
+        return position;
+    }
+
+    /**
+     * Write the booleans and the data of this object in a single pass
+     *
+     * @param o
+     *        the instance to be marshaled
+     * @param dataOut
+     *        the output stream
+     * @throws IOException
+     *         thrown if an error occurs
+     */
+    @Override
+    public void tightMarshal(OpenWireFormat wireFormat, Object o, DataByteArrayOutputStream dataOut, BooleanStream bs) throws IOException {
+        super.tightMarshal(wireFormat, o, dataOut, bs);
+
+        ConnectionControl info = (ConnectionControl) o;
+        bs.writeBoolean(info.isClose());
+        bs.writeBoolean(info.isExit());
+        bs.writeBoolean(info.isFaultTolerant());
+        bs.writeBoolean(info.isResume());
+        bs.writeBoolean(info.isSuspend());
+        tightMarshalString(info.getConnectedBrokers(), dataOut, bs);
+        tightMarshalString(info.getReconnectTo(), dataOut, bs);
+        bs.writeBoolean(info.isRebalanceConnection());
+        tightMarshalByteArray(info.getToken(), dataOut, bs);
+    }
+
     /**
      * Un-marshal an object instance from the data input stream
      *
@@ -142,6 +263,31 @@ public class ConnectionControlMarshaller extends BaseCommandMarshaller {
         info.setToken(looseUnmarshalByteArray(dataIn));
     }
 
+    /**
+     * Un-marshal an object instance from the OpenWire buffer reader
+     *
+     * @param o
+     *        the object to un-marshal
+     * @param dataIn
+     *        the buffer reader to build the object from
+     * @throws IOException
+     */
+    @Override
+    public void looseUnmarshal(OpenWireFormat wireFormat, Object o, OpenWireBufferReader dataIn) throws IOException {
+        super.looseUnmarshal(wireFormat, o, dataIn);
+
+        ConnectionControl info = (ConnectionControl) o;
+        info.setClose(dataIn.readBoolean());
+        info.setExit(dataIn.readBoolean());
+        info.setFaultTolerant(dataIn.readBoolean());
+        info.setResume(dataIn.readBoolean());
+        info.setSuspend(dataIn.readBoolean());
+        info.setConnectedBrokers(looseUnmarshalString(dataIn));
+        info.setReconnectTo(looseUnmarshalString(dataIn));
+        info.setRebalanceConnection(dataIn.readBoolean());
+        info.setToken(looseUnmarshalByteArray(dataIn));
+    }
+
     /**
      * Write the booleans that this object uses to a BooleanStream
      */
@@ -160,4 +306,45 @@ public class ConnectionControlMarshaller extends BaseCommandMarshaller {
         dataOut.writeBoolean(info.isRebalanceConnection());
         looseMarshalByteArray(wireFormat, info.getToken(), dataOut);
     }
+
+    /**
+     * Write a object instance to the OpenWire buffer writer
+     *
+     * @param o
+     *        the instance to be marshaled
+     * @param dataOut
+     *        the buffer writer to write to
+     * @throws IOException
+     *         thrown if an error occurs
+     */
+    @Override
+    public void looseMarshal(OpenWireFormat wireFormat, Object o, OpenWireBufferWriter dataOut) throws IOException {
+        ConnectionControl info = (ConnectionControl) o;
+
+        super.looseMarshal(wireFormat, o, dataOut);
+        dataOut.writeBoolean(info.isClose());
+        dataOut.writeBoolean(info.isExit());
+        dataOut.writeBoolean(info.isFaultTolerant());
+        dataOut.writeBoolean(info.isResume());
+        dataOut.writeBoolean(info.isSuspend());
+        looseMarshalString(info.getConnectedBrokers(), dataOut);
+        looseMarshalString(info.getReconnectTo(), dataOut);
+        dataOut.writeBoolean(info.isRebalanceConnection());
+        looseMarshalByteArray(wireFormat, info.getToken(), dataOut);
+    }
+
+    /**
+     * Compute the number of bytes the loose encoding of this object takes
+     */
+    @Override
+    public int looseMarshalSize(OpenWireFormat wireFormat, Object o) throws IOException {
+        ConnectionControl info = (ConnectionControl) o;
+
+        int rc = super.looseMarshalSize(wireFormat, o);
+        rc += looseMarshalStringSize(info.getConnectedBrokers());
+        rc += looseMarshalStringSize(info.getReconnectTo());
+        rc += looseMarshalByteArraySize(wireFormat, info.getToken());
+
+        return rc + 6;
+    }
 }
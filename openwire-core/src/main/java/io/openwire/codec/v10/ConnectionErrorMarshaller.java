@@ -17,6 +17,10 @@
 package io.openwire.codec.v10;
 
 import io.openwire.codec.BooleanStream;
+import io.openwire.codec.ByteArrayMarshaller;
+import io.openwire.codec.OpenWireBufferMarshaller;
+import io.openwire.codec.OpenWireBufferReader;
+import io.openwire.codec.OpenWireBufferWriter;
 import io.openwire.codec.OpenWireFormat;
 import io.openwire.commands.ConnectionError;
 import io.openwire.commands.ConnectionId;
@@ -26,7 +30,11 @@ import java.io.DataInput;
 import java.io.DataOutput;
 import java.io.IOException;
 
-public class ConnectionErrorMarshaller extends BaseCommandMarshaller {
+import org.fusesource.hawtbuf.DataByteArrayOutputStream;
+
+public class ConnectionErrorMarshaller extends BaseCommandMarshaller implements ByteArrayMarshaller, OpenWireBufferMarshaller {
+
+    private static final ConnectionIdMarshaller CONNECTION_ID_MARSHALLER = new ConnectionIdMarshaller();
 
     /**
      * Return the type of Data Structure we marshal
@@ -64,6 +72,49 @@ public class ConnectionErrorMarshaller extends BaseCommandMarshaller {
         info.setConnectionId((ConnectionId) tightUnmarsalNestedObject(wireFormat, dataIn, bs));
     }
 
+    /**
+     * Un-marshal an object instance from the OpenWire buffer reader
+     *
+     * @param o
+     *        the object to un-marshal
+     * @param dataIn
+     *        the buffer reader to build the object from
+     * @throws IOException
+     */
+    @Override
+    public void tightUnmarshal(OpenWireFormat wireFormat, Object o, OpenWireBufferReader dataIn, BooleanStream bs) throws IOException {
+        super.tightUnmarshal(wireFormat, o, dataIn, bs);
+
+        ConnectionError info = (ConnectionError) o;
+        info.setException(tightUnmarsalThrowable(wireFormat, dataIn, bs));
+        info.setConnectionId((ConnectionId) tightUnmarsalNestedObject(wireFormat, dataIn, bs));
+    }
+
+    /**
+     * Un-marshal an object instance directly from the byte array backing the frame
+     *
+     * @param o
+     *        the object to un-marshal
+     * @param dataIn
+     *        the byte array to read from
+     * @param position
+     *        the position in the array to start reading at
+     * @return the position following the last byte read
+     * @throws IOException
+     */
+    @Override
+    public int tightUnmarshal(OpenWireFormat wireFormat, Object o, byte[] dataIn, int position, BooleanStream bs) throws IOException {
+        position = super.tightUnmarshal(wireFormat, o, dataIn, position, bs);
+
+        ConnectionError info = (ConnectionError) o;
+        info.setException(tightUnmarsalThrowable(wireFormat, dataIn, position, bs));
+        position = wireFormat.getUnmarshalPosition();
+        info.setConnectionId((ConnectionId) tightUnmarsalNestedObject(wireFormat, CONNECTION_ID_MARSHALLER, dataIn, position, bs));
+        position = wireFormat.getUnmarshalPosition();
+
+        return position;
+    }
+
     /**
      * Write the booleans that this object uses to a BooleanStream
      */
@@ -97,6 +148,49 @@ public class ConnectionErrorMarshaller extends BaseCommandMarshaller {
         tightMarshalNestedObject2(wireFormat, info.getConnectionId(), dataOut, bs);
     }
 
+    /**
+     * Write a object instance directly into the byte array backing the frame
+     *
+     * @param o
+     *        the instance to be marshaled
+     * @param dataOut
+     *        the byte array to write to
+     * @param position
+     *        the position in the array to start writing at
+     * @return the position following the last byte written
+     * @throws IOException
+     *         thrown if an error occurs
+     */
+    @Override
+    public int tightMarshal2(OpenWireFormat wireFormat, Object o, byte[] dataOut, int position, BooleanStream bs) throws IOException {
+        position = super.tightMarshal2(wireFormat, o, dataOut, position, bs);
+
+        ConnectionError info = (ConnectionError) o;
+        position = tightMarshalThrowable2(wireFormat, info.getException(), dataOut, position, bs);
+        position = tightMarshalNestedObject2(wireFormat, info.getConnectionId(), CONNECTION_ID_MARSHALLER, dataOut, position, bs);
+
+        return position;
+    }
+
+    /**
+     * Write the booleans and the data of this object in a single pass
+     *
+     * @param o
+     *        the instance to be marshaled
+     * @param dataOut
+     *        the output stream
+     * @throws IOException
+     *         thrown if an error occurs
+     */
+    @Override
+    public void tightMarshal(OpenWireFormat wireFormat, Object o, DataByteArrayOutputStream dataOut, BooleanStream bs) throws IOException {
+        super.tightMarshal(wireFormat, o, dataOut, bs);
+
+        ConnectionError info = (ConnectionError) o;
+        tightMarshalThrowable(wireFormat, info.getException(), dataOut, bs);
+        tightMarshalNestedObject(wireFormat, info.getConnectionId(), dataOut, bs);
+    }
+
     /**
      * Un-marshal an object instance from the data input stream
      *
@@ -115,6 +209,24 @@ public class ConnectionErrorMarshaller extends BaseCommandMarshaller {
         info.setConnectionId((ConnectionId) looseUnmarsalNestedObject(wireFormat, dataIn));
     }
 
+    /**
+     * Un-marshal an object instance from the OpenWire buffer reader
+     *
+     * @param o
+     *        the object to un-marshal
+     * @param dataIn
+     *        the buffer reader to build the object from
+     * @throws IOException
+     */
+    @Override
+    public void looseUnmarshal(OpenWireFormat wireFormat, Object o, OpenWireBufferReader dataIn) throws IOException {
+        super.looseUnmarshal(wireFormat, o, dataIn);
+
+        ConnectionError info = (ConnectionError) o;
+        info.setException(looseUnmarsalThrowable(wireFormat, dataIn));
+        info.setConnectionId((ConnectionId) looseUnmarsalNestedObject(wireFormat, dataIn));
+    }
+
     /**
      * Write the booleans that this object uses to a BooleanStream
      */
@@ -126,4 +238,37 @@ public class ConnectionErrorMarshaller extends BaseCommandMarshaller {
         looseMarshalThrowable(wireFormat, info.getException(), dataOut);
         looseMarshalNestedObject(wireFormat, info.getConnectionId(), dataOut);
     }
+
+    /**
+     * Write a object instance to the OpenWire buffer writer
+     *
+     * @param o
+     *        the instance to be marshaled
+     * @param dataOut
+     *        the buffer writer to write to
+     * @throws IOException
+     *         thrown if an error occurs
+     */
+    @Override
+    public void looseMarshal(OpenWireFormat wireFormat, Object o, OpenWireBufferWriter dataOut) throws IOException {
+        ConnectionError info = (ConnectionError) o;
+
+        super.looseMarshal(wireFormat, o, dataOut);
+        looseMarshalThrowable(wireFormat, info.getException(), dataOut);
+        looseMarshalNestedObject(wireFormat, info.getConnectionId(), dataOut);
+    }
+
+    /**
+     * Compute the number of bytes the loose encoding of this object takes
+     */
+    @Override
+    public int looseMarshalSize(OpenWireFormat wireFormat, Object o) throws IOException {
+        ConnectionError info = (ConnectionError) o;
+
+        int rc = super.looseMarshalSize(wireFormat, o);
+        rc += looseMarshalThrowableSize(wireFormat, info.getException());
+        rc += looseMarshalNestedObjectSize(wireFormat, info.getConnectionId());
+
+        return rc + 0;
+    }
 }
@@ -16,7 +16,13 @@
  */
 package io.openwire.codec.v10;
 
+import io.openwire.codec.BigEndianBytes;
 import io.openwire.codec.BooleanStream;
+import io.openwire.codec.ByteArrayMarshaller;
+import io.openwire.codec.DeferredUnmarshal;
+import io.openwire.codec.OpenWireBufferMarshaller;
+import io.openwire.codec.OpenWireBufferReader;
+import io.openwire.codec.OpenWireBufferWriter;
 import io.openwire.codec.OpenWireFormat;
 import io.openwire.commands.BrokerId;
 import io.openwire.commands.ConsumerId;
@@ -28,9 +34,18 @@ import io.openwire.commands.TransactionId;
 
 import java.io.DataInput;
 import java.io.DataOutput;
+import java.io.EOFException;
 import java.io.IOException;
 
-public abstract class MessageMarshaller extends BaseCommandMarshaller {
+import org.fusesource.hawtbuf.Buffer;
+import org.fusesource.hawtbuf.DataByteArrayInputStream;
+import org.fusesource.hawtbuf.DataByteArrayOutputStream;
+
+public abstract class MessageMarshaller extends BaseCommandMarshaller implements ByteArrayMarshaller, OpenWireBufferMarshaller {
+
+    private static final ConsumerIdMarshaller CONSUMER_ID_MARSHALLER = new ConsumerIdMarshaller();
+    private static final MessageIdMarshaller MESSAGE_ID_MARSHALLER = new MessageIdMarshaller();
+    private static final ProducerIdMarshaller PRODUCER_ID_MARSHALLER = new ProducerIdMarshaller();
 
     /**
      * Un-marshal an object instance from the data input stream
@@ -64,37 +79,116 @@ public abstract class MessageMarshaller extends BaseCommandMarshaller {
         info.setReplyTo((OpenWireDestination) tightUnmarsalNestedObject(wireFormat, dataIn, bs));
         info.setTimestamp(tightUnmarshalLong(wireFormat, dataIn, bs));
         info.setType(tightUnmarshalString(dataIn, bs));
-        info.setContent(tightUnmarshalByteSequence(dataIn, bs));
-        info.setMarshalledProperties(tightUnmarshalByteSequence(dataIn, bs));
+        info.setContent(tightUnmarshalByteSequence(wireFormat, dataIn, bs));
+        info.setMarshalledProperties(tightUnmarshalByteSequence(wireFormat, dataIn, bs));
         info.setDataStructure(tightUnmarsalNestedObject(wireFormat, dataIn, bs));
         info.setTargetConsumerId((ConsumerId) tightUnmarsalCachedObject(wireFormat, dataIn, bs));
         info.setCompressed(bs.readBoolean());
         info.setRedeliveryCounter(dataIn.readInt());
 
-        if (bs.readBoolean()) {
-            short size = dataIn.readShort();
-            BrokerId value[] = new BrokerId[size];
-            for (int i = 0; i < size; i++) {
-                value[i] = (BrokerId) tightUnmarsalNestedObject(wireFormat, dataIn, bs);
-            }
-            info.setBrokerPath(value);
+        if (wireFormat.isLazyMessageUnmarshalEnabled() && dataIn instanceof DataByteArrayInputStream) {
+            tightUnmarshalDeferred(wireFormat, info, (DataByteArrayInputStream) dataIn, bs);
         } else {
-            info.setBrokerPath(null);
-        }
-        info.setArrival(tightUnmarshalLong(wireFormat, dataIn, bs));
-        info.setUserId(tightUnmarshalString(dataIn, bs));
-        info.setRecievedByDFBridge(bs.readBoolean());
-        info.setDroppable(bs.readBoolean());
+            if (bs.readBoolean()) {
+                short size = dataIn.readShort();
+                BrokerId value[] = new BrokerId[size];
+                for (int i = 0; i < size; i++) {
+                    value[i] = (BrokerId) tightUnmarsalNestedObject(wireFormat, dataIn, bs);
+                }
+                info.setBrokerPath(value);
+            } else {
+                info.setBrokerPath(null);
+            }
+            info.setArrival(tightUnmarshalLong(wireFormat, dataIn, bs));
+            info.setUserId(tightUnmarshalString(dataIn, bs));
+            info.setRecievedByDFBridge(bs.readBoolean());
+            info.setDroppable(bs.readBoolean());
 
-        if (bs.readBoolean()) {
-            short size = dataIn.readShort();
-            BrokerId value[] = new BrokerId[size];
-            for (int i = 0; i < size; i++) {
-                value[i] = (BrokerId) tightUnmarsalNestedObject(wireFormat, dataIn, bs);
+            if (bs.readBoolean()) {
+                short size = dataIn.readShort();
+                BrokerId value[] = new BrokerId[size];
+                for (int i = 0; i < size; i++) {
+                    value[i] = (BrokerId) tightUnmarsalNestedObject(wireFormat, dataIn, bs);
+                }
+                info.setCluster(value);
+            } else {
+                info.setCluster(null);
             }
-            info.setCluster(value);
+        }
+        info.setBrokerInTime(tightUnmarshalLong(wireFormat, dataIn, bs));
+        info.setBrokerOutTime(tightUnmarshalLong(wireFormat, dataIn, bs));
+        info.setJMSXGroupFirstForConsumer(bs.readBoolean());
+
+        info.afterUnmarshall(wireFormat);
+    }
+
+    /**
+     * Un-marshal an object instance from the OpenWire buffer reader
+     *
+     * @param o
+     *        the object to un-marshal
+     * @param dataIn
+     *        the buffer reader to build the object from
+     * @throws IOException
+     */
+    @Override
+    public void tightUnmarshal(OpenWireFormat wireFormat, Object o, OpenWireBufferReader dataIn, BooleanStream bs) throws IOException {
+        super.tightUnmarshal(wireFormat, o, dataIn, bs);
+
+        Message info = (Message) o;
+
+        info.beforeUnmarshall(wireFormat);
+
+        info.setProducerId((ProducerId) tightUnmarsalCachedObject(wireFormat, dataIn, bs));
+        info.setDestination((OpenWireDestination) tightUnmarsalCachedObject(wireFormat, dataIn, bs));
+        info.setTransactionId((TransactionId) tightUnmarsalCachedObject(wireFormat, dataIn, bs));
+        info.setOriginalDestination((OpenWireDestination) tightUnmarsalCachedObject(wireFormat, dataIn, bs));
+        info.setMessageId((MessageId) tightUnmarsalNestedObject(wireFormat, dataIn, bs));
+        info.setOriginalTransactionId((TransactionId) tightUnmarsalCachedObject(wireFormat, dataIn, bs));
+        info.setGroupID(tightUnmarshalString(dataIn, bs));
+        info.setGroupSequence(dataIn.readInt());
+        info.setCorrelationId(tightUnmarshalString(dataIn, bs));
+        info.setPersistent(bs.readBoolean());
+        info.setExpiration(tightUnmarshalLong(wireFormat, dataIn, bs));
+        info.setPriority(dataIn.readByte());
+        info.setReplyTo((OpenWireDestination) tightUnmarsalNestedObject(wireFormat, dataIn, bs));
+        info.setTimestamp(tightUnmarshalLong(wireFormat, dataIn, bs));
+        info.setType(tightUnmarshalString(dataIn, bs));
+        info.setContent(tightUnmarshalByteSequence(wireFormat, dataIn, bs));
+        info.setMarshalledProperties(tightUnmarshalByteSequence(wireFormat, dataIn, bs));
+        info.setDataStructure(tightUnmarsalNestedObject(wireFormat, dataIn, bs));
+        info.setTargetConsumerId((ConsumerId) tightUnmarsalCachedObject(wireFormat, dataIn, bs));
+        info.setCompressed(bs.readBoolean());
+        info.setRedeliveryCounter(dataIn.readInt());
+
+        if (wireFormat.isLazyMessageUnmarshalEnabled()) {
+            tightUnmarshalDeferred(wireFormat, info, dataIn, bs);
         } else {
-            info.setCluster(null);
+            if (bs.readBoolean()) {
+                short size = dataIn.readShort();
+                BrokerId value[] = new BrokerId[size];
+                for (int i = 0; i < size; i++) {
+                    value[i] = (BrokerId) tightUnmarsalNestedObject(wireFormat, dataIn, bs);
+                }
+                info.setBrokerPath(value);
+            } else {
+                info.setBrokerPath(null);
+            }
+            info.setArrival(tightUnmarshalLong(wireFormat, dataIn, bs));
+            info.setUserId(tightUnmarshalString(dataIn, bs));
+            info.setRecievedByDFBridge(bs.readBoolean());
+            info.setDroppable(bs.readBoolean());
+
+            if (bs.readBoolean()) {
+                short size = dataIn.readShort();
+                BrokerId value[] = new BrokerId[size];
+                for (int i = 0; i < size; i++) {
+                    value[i] = (BrokerId) tightUnmarsalNestedObject(wireFormat, dataIn, bs);
+                }
+                info.setCluster(value);
+            } else {
+                info.setCluster(null);
+            }
         }
         info.setBrokerInTime(tightUnmarshalLong(wireFormat, dataIn, bs));
         info.setBrokerOutTime(tightUnmarshalLong(wireFormat, dataIn, bs));
@@ -103,6 +197,112 @@ public abstract class MessageMarshaller extends BaseCommandMarshaller {
         info.afterUnmarshall(wireFormat);
     }
 
+    /**
+     * Un-marshal an object instance directly from the byte array backing the frame
+     *
+     * @param o
+     *        the object to un-marshal
+     * @param dataIn
+     *        the byte array to read from
+     * @param position
+     *        the position in the array to start reading at
+     * @return the position following the last byte read
+     * @throws IOException
+     */
+    @Override
+    public int tightUnmarshal(OpenWireFormat wireFormat, Object o, byte[] dataIn, int position, BooleanStream bs) throws IOException {
+        position = super.tightUnmarshal(wireFormat, o, dataIn, position, bs);
+
+        Message info = (Message) o;
+
+        info.beforeUnmarshall(wireFormat);
+
+        info.setProducerId((ProducerId) tightUnmarsalCachedObject(wireFormat, PRODUCER_ID_MARSHALLER, dataIn, position, bs));
+        position = wireFormat.getUnmarshalPosition();
+        info.setDestination((OpenWireDestination) tightUnmarsalCachedObject(wireFormat, dataIn, position, bs));
+        position = wireFormat.getUnmarshalPosition();
+        info.setTransactionId((TransactionId) tightUnmarsalCachedObject(wireFormat, dataIn, position, bs));
+        position = wireFormat.getUnmarshalPosition();
+        info.setOriginalDestination((OpenWireDestination) tightUnmarsalCachedObject(wireFormat, dataIn, position, bs));
+        position = wireFormat.getUnmarshalPosition();
+        info.setMessageId((MessageId) tightUnmarsalNestedObject(wireFormat, MESSAGE_ID_MARSHALLER, dataIn, position, bs));
+        position = wireFormat.getUnmarshalPosition();
+        info.setOriginalTransactionId((TransactionId) tightUnmarsalCachedObject(wireFormat, dataIn, position, bs));
+        position = wireFormat.getUnmarshalPosition();
+        info.setGroupID(tightUnmarshalString(wireFormat, dataIn, position, bs));
+        position = wireFormat.getUnmarshalPosition();
+        info.setGroupSequence(BigEndianBytes.getInt(dataIn, position));
+        position += 4;
+        info.setCorrelationId(tightUnmarshalString(wireFormat, dataIn, position, bs));
+        position = wireFormat.getUnmarshalPosition();
+        info.setPersistent(bs.readBoolean());
+        info.setExpiration(tightUnmarshalLong(wireFormat, dataIn, position, bs));
+        position = wireFormat.getUnmarshalPosition();
+        info.setPriority(dataIn[position++]);
+        info.setReplyTo((OpenWireDestination) tightUnmarsalNestedObject(wireFormat, dataIn, position, bs));
+        position = wireFormat.getUnmarshalPosition();
+        info.setTimestamp(tightUnmarshalLong(wireFormat, dataIn, position, bs));
+        position = wireFormat.getUnmarshalPosition();
+        info.setType(tightUnmarshalString(wireFormat, dataIn, position, bs));
+        position = wireFormat.getUnmarshalPosition();
+        info.setContent(tightUnmarshalByteSequence(wireFormat, dataIn, position, bs));
+        position = wireFormat.getUnmarshalPosition();
+        info.setMarshalledProperties(tightUnmarshalByteSequence(wireFormat, dataIn, position, bs));
+        position = wireFormat.getUnmarshalPosition();
+        info.setDataStructure(tightUnmarsalNestedObject(wireFormat, dataIn, position, bs));
+        position = wireFormat.getUnmarshalPosition();
+        info.setTargetConsumerId((ConsumerId) tightUnmarsalCachedObject(wireFormat, CONSUMER_ID_MARSHALLER, dataIn, position, bs));
+        position = wireFormat.getUnmarshalPosition();
+        info.setCompressed(bs.readBoolean());
+        info.setRedeliveryCounter(BigEndianBytes.getInt(dataIn, position));
+        position += 4;
+
+        if (wireFormat.isLazyMessageUnmarshalEnabled()) {
+            position = tightUnmarshalDeferred(wireFormat, info, dataIn, position, bs);
+        } else {
+            if (bs.readBoolean()) {
+                short size = BigEndianBytes.getShort(dataIn, position);
+                position += 2;
+                BrokerId value[] = new BrokerId[size];
+                for (int i = 0; i < size; i++) {
+                    value[i] = (BrokerId) tightUnmarsalNestedObject(wireFormat, dataIn, position, bs);
+                    position = wireFormat.getUnmarshalPosition();
+                }
+                info.setBrokerPath(value);
+            } else {
+                info.setBrokerPath(null);
+            }
+            info.setArrival(tightUnmarshalLong(wireFormat, dataIn, position, bs));
+            position = wireFormat.getUnmarshalPosition();
+            info.setUserId(tightUnmarshalString(wireFormat, dataIn, position, bs));
+            position = wireFormat.getUnmarshalPosition();
+            info.setRecievedByDFBridge(bs.readBoolean());
+            info.setDroppable(bs.readBoolean());
+
+            if (bs.readBoolean()) {
+                short size = BigEndianBytes.getShort(dataIn, position);
+                position += 2;
+                BrokerId value[] = new BrokerId[size];
+                for (int i = 0; i < size; i++) {
+                    value[i] = (BrokerId) tightUnmarsalNestedObject(wireFormat, dataIn, position, bs);
+                    position = wireFormat.getUnmarshalPosition();
+                }
+                info.setCluster(value);
+            } else {
+                info.setCluster(null);
+            }
+        }
+        info.setBrokerInTime(tightUnmarshalLong(wireFormat, dataIn, position, bs));
+        position = wireFormat.getUnmarshalPosition();
+        info.setBrokerOutTime(tightUnmarshalLong(wireFormat, dataIn, position, bs));
+        position = wireFormat.getUnmarshalPosition();
+        info.setJMSXGroupFirstForConsumer(bs.readBoolean());
+
+        info.afterUnmarshall(wireFormat);
+
+        return position;
+    }
+
     /**
      * Write the booleans that this object uses to a BooleanStream
      */
@@ -132,12 +332,22 @@ public abstract class MessageMarshaller extends BaseCommandMarshaller {
         rc += tightMarshalNestedObject1(wireFormat, info.getDataStructure(), bs);
         rc += tightMarshalCachedObject1(wireFormat, info.getTargetConsumerId(), bs);
         bs.writeBoolean(info.isCompressed());
-        rc += tightMarshalObjectArray1(wireFormat, info.getBrokerPath(), bs);
-        rc += tightMarshalLong1(wireFormat, info.getArrival(), bs);
-        rc += tightMarshalString1(info.getUserId(), bs);
-        bs.writeBoolean(info.isRecievedByDFBridge());
-        bs.writeBoolean(info.isDroppable());
-        rc += tightMarshalObjectArray1(wireFormat, info.getCluster(), bs);
+        DeferredFields deferred = deferredFields(info);
+        if (deferred != null) {
+            rc += deferred.tightMarshal1(DeferredFields.BROKER_PATH, bs);
+            rc += tightMarshalLong1(wireFormat, info.getArrival(), bs);
+            rc += deferred.tightMarshal1(DeferredFields.USER_ID, bs);
+            bs.writeBoolean(info.isRecievedByDFBridge());
+            bs.writeBoolean(info.isDroppable());
+            rc += deferred.tightMarshal1(DeferredFields.CLUSTER, bs);
+        } else {
+            rc += tightMarshalObjectArray1(wireFormat, info.getBrokerPath(), bs);
+            rc += tightMarshalLong1(wireFormat, info.getArrival(), bs);
+            rc += tightMarshalString1(info.getUserId(), bs);
+            bs.writeBoolean(info.isRecievedByDFBridge());
+            bs.writeBoolean(info.isDroppable());
+            rc += tightMarshalObjectArray1(wireFormat, info.getCluster(), bs);
+        }
         rc += tightMarshalLong1(wireFormat, info.getBrokerInTime(), bs);
         rc += tightMarshalLong1(wireFormat, info.getBrokerOutTime(), bs);
         bs.writeBoolean(info.isJMSXGroupFirstForConsumer());
@@ -181,12 +391,22 @@ public abstract class MessageMarshaller extends BaseCommandMarshaller {
         tightMarshalCachedObject2(wireFormat, info.getTargetConsumerId(), dataOut, bs);
         bs.readBoolean();
         dataOut.writeInt(info.getRedeliveryCounter());
-        tightMarshalObjectArray2(wireFormat, info.getBrokerPath(), dataOut, bs);
-        tightMarshalLong2(wireFormat, info.getArrival(), dataOut, bs);
-        tightMarshalString2(info.getUserId(), dataOut, bs);
-        bs.readBoolean();
-        bs.readBoolean();
-        tightMarshalObjectArray2(wireFormat, info.getCluster(), dataOut, bs);
+        DeferredFields deferred = deferredFields(info);
+        if (deferred != null) {
+            deferred.tightMarshal2(DeferredFields.BROKER_PATH, dataOut, bs);
+            tightMarshalLong2(wireFormat, info.getArrival(), dataOut, bs);
+            deferred.tightMarshal2(DeferredFields.USER_ID, dataOut, bs);
+            bs.readBoolean();
+            bs.readBoolean();
+            deferred.tightMarshal2(DeferredFields.CLUSTER, dataOut, bs);
+        } else {
+            tightMarshalObjectArray2(wireFormat, info.getBrokerPath(), dataOut, bs);
+            tightMarshalLong2(wireFormat, info.getArrival(), dataOut, bs);
+            tightMarshalString2(info.getUserId(), dataOut, bs);
+            bs.readBoolean();
+            bs.readBoolean();
+            tightMarshalObjectArray2(wireFormat, info.getCluster(), dataOut, bs);
+        }
         tightMarshalLong2(wireFormat, info.getBrokerInTime(), dataOut, bs);
         tightMarshalLong2(wireFormat, info.getBrokerOutTime(), dataOut, bs);
         bs.readBoolean();
@@ -194,6 +414,131 @@ public abstract class MessageMarshaller extends BaseCommandMarshaller {
         info.afterMarshall(wireFormat);
     }
 
+    /**
+     * Write a object instance directly into the byte array backing the frame
+     *
+     * @param o
+     *        the instance to be marshaled
+     * @param dataOut
+     *        the byte array to write to
+     * @param position
+     *        the position in the array to start writing at
+     * @return the position following the last byte written
+     * @throws IOException
+     *         thrown if an error occurs
+     */
+    @Override
+    public int tightMarshal2(OpenWireFormat wireFormat, Object o, byte[] dataOut, int position, BooleanStream bs) throws IOException {
+        position = super.tightMarshal2(wireFormat, o, dataOut, position, bs);
+
+        Message info = (Message) o;
+        position = tightMarshalCachedObject2(wireFormat, info.getProducerId(), PRODUCER_ID_MARSHALLER, dataOut, position, bs);
+        position = tightMarshalCachedObject2(wireFormat, info.getDestination(), dataOut, position, bs);
+        position = tightMarshalCachedObject2(wireFormat, info.getTransactionId(), dataOut, position, bs);
+        position = tightMarshalCachedObject2(wireFormat, info.getOriginalDestination(), dataOut, position, bs);
+        position = tightMarshalNestedObject2(wireFormat, info.getMessageId(), MESSAGE_ID_MARSHALLER, dataOut, position, bs);
+        position = tightMarshalCachedObject2(wireFormat, info.getOriginalTransactionId(), dataOut, position, bs);
+        position = tightMarshalString2(info.getGroupId(), dataOut, position, bs);
+        position = BigEndianBytes.putInt(dataOut, position, info.getGroupSequence());
+        position = tightMarshalString2(info.getCorrelationId(), dataOut, position, bs);
+        bs.readBoolean();
+        position = tightMarshalLong2(wireFormat, info.getExpiration(), dataOut, position, bs);
+        position = BigEndianBytes.putByte(dataOut, position, info.getPriority());
+        position = tightMarshalNestedObject2(wireFormat, info.getReplyTo(), dataOut, position, bs);
+        position = tightMarshalLong2(wireFormat, info.getTimestamp(), dataOut, position, bs);
+        position = tightMarshalString2(info.getType(), dataOut, position, bs);
+        position = tightMarshalByteSequence2(info.getContent(), dataOut, position, bs);
+        position = tightMarshalByteSequence2(info.getMarshalledProperties(), dataOut, position, bs);
+        position = tightMarshalNestedObject2(wireFormat, info.getDataStructure(), dataOut, position, bs);
+        position = tightMarshalCachedObject2(wireFormat, info.getTargetConsumerId(), CONSUMER_ID_MARSHALLER, dataOut, position, bs);
+        bs.readBoolean();
+        position = BigEndianBytes.putInt(dataOut, position, info.getRedeliveryCounter());
+        DeferredFields deferred = deferredFields(info);
+        if (deferred != null) {
+            position = deferred.tightMarshal2(DeferredFields.BROKER_PATH, dataOut, position, bs);
+            position = tightMarshalLong2(wireFormat, info.getArrival(), dataOut, position, bs);
+            position = deferred.tightMarshal2(DeferredFields.USER_ID, dataOut, position, bs);
+            bs.readBoolean();
+            bs.readBoolean();
+            position = deferred.tightMarshal2(DeferredFields.CLUSTER, dataOut, position, bs);
+        } else {
+            position = tightMarshalObjectArray2(wireFormat, info.getBrokerPath(), dataOut, position, bs);
+            position = tightMarshalLong2(wireFormat, info.getArrival(), dataOut, position, bs);
+            position = tightMarshalString2(info.getUserId(), dataOut, position, bs);
+            bs.readBoolean();
+            bs.readBoolean();
+            position = tightMarshalObjectArray2(wireFormat, info.getCluster(), dataOut, position, bs);
+        }
+        position = tightMarshalLong2(wireFormat, info.getBrokerInTime(), dataOut, position, bs);
+        position = tightMarshalLong2(wireFormat, info.getBrokerOutTime(), dataOut, position, bs);
+        bs.readBoolean();
+
+        info.afterMarshall(wireFormat);
+
+        return position;
+    }
+
+    /**
+     * Write the booleans and the data of this object in a single pass
+     *
+     * @param o
+     *        the instance to be marshaled
+     * @param dataOut
+     *        the output stream
+     * @throws IOException
+     *         thrown if an error occurs
+     */
+    @Override
+    public void tightMarshal(OpenWireFormat wireFormat, Object o, DataByteArrayOutputStream dataOut, BooleanStream bs) throws IOException {
+        Message info = (Message) o;
+
+        info.beforeMarshall(wireFormat);
+
+        super.tightMarshal(wireFormat, o, dataOut, bs);
+        tightMarshalCachedObject(wireFormat, info.getProducerId(), dataOut, bs);
+        tightMarshalCachedObject(wireFormat, info.getDestination(), dataOut, bs);
+        tightMarshalCachedObject(wireFormat, info.getTransactionId(), dataOut, bs);
+        tightMarshalCachedObject(wireFormat, info.getOriginalDestination(), dataOut, bs);
+        tightMarshalNestedObject(wireFormat, info.getMessageId(), dataOut, bs);
+        tightMarshalCachedObject(wireFormat, info.getOriginalTransactionId(), dataOut, bs);
+        tightMarshalString(info.getGroupId(), dataOut, bs);
+        dataOut.writeInt(info.getGroupSequence());
+        tightMarshalString(info.getCorrelationId(), dataOut, bs);
+        bs.writeBoolean(info.isPersistent());
+        tightMarshalLong(wireFormat, info.getExpiration(), dataOut, bs);
+        dataOut.writeByte(info.getPriority());
+        tightMarshalNestedObject(wireFormat, info.getReplyTo(), dataOut, bs);
+        tightMarshalLong(wireFormat, info.getTimestamp(), dataOut, bs);
+        tightMarshalString(info.getType(), dataOut, bs);
+        tightMarshalByteSequence(info.getContent(), dataOut, bs);
+        tightMarshalByteSequence(info.getMarshalledProperties(), dataOut, bs);
+        tightMarshalNestedObject(wireFormat, info.getDataStructure(), dataOut, bs);
+        tightMarshalCachedObject(wireFormat, info.getTargetConsumerId(), dataOut, bs);
+        bs.writeBoolean(info.isCompressed());
+        dataOut.writeInt(info.getRedeliveryCounter());
+        DeferredFields deferred = deferredFields(info);
+        if (deferred != null) {
+            deferred.tightMarshal(DeferredFields.BROKER_PATH, dataOut, bs);
+            tightMarshalLong(wireFormat, info.getArrival(), dataOut, bs);
+            deferred.tightMarshal(DeferredFields.USER_ID, dataOut, bs);
+            bs.writeBoolean(info.isRecievedByDFBridge());
+            bs.writeBoolean(info.isDroppable());
+            deferred.tightMarshal(DeferredFields.CLUSTER, dataOut, bs);
+        } else {
+            tightMarshalObjectArray(wireFormat, info.getBrokerPath(), dataOut, bs);
+            tightMarshalLong(wireFormat, info.getArrival(), dataOut, bs);
+            tightMarshalString(info.getUserId(), dataOut, bs);
+            bs.writeBoolean(info.isRecievedByDFBridge());
+            bs.writeBoolean(info.isDroppable());
+            tightMarshalObjectArray(wireFormat, info.getCluster(), dataOut, bs);
+        }
+        tightMarshalLong(wireFormat, info.getBrokerInTime(), dataOut, bs);
+        tightMarshalLong(wireFormat, info.getBrokerOutTime(), dataOut, bs);
+        bs.writeBoolean(info.isJMSXGroupFirstForConsumer());
+
+        info.afterMarshall(wireFormat);
+    }
+
     /**
      * Un-marshal an object instance from the data input stream
      *
@@ -226,8 +571,79 @@ public abstract class MessageMarshaller extends BaseCommandMarshaller {
         info.setReplyTo((OpenWireDestination) looseUnmarsalNestedObject(wireFormat, dataIn));
         info.setTimestamp(looseUnmarshalLong(wireFormat, dataIn));
         info.setType(looseUnmarshalString(dataIn));
-        info.setContent(looseUnmarshalByteSequence(dataIn));
-        info.setMarshalledProperties(looseUnmarshalByteSequence(dataIn));
+        info.setContent(looseUnmarshalByteSequence(wireFormat, dataIn));
+        info.setMarshalledProperties(looseUnmarshalByteSequence(wireFormat, dataIn));
+        info.setDataStructure(looseUnmarsalNestedObject(wireFormat, dataIn));
+        info.setTargetConsumerId((ConsumerId) looseUnmarsalCachedObject(wireFormat, dataIn));
+        info.setCompressed(dataIn.readBoolean());
+        info.setRedeliveryCounter(dataIn.readInt());
+
+        if (dataIn.readBoolean()) {
+            short size = dataIn.readShort();
+            BrokerId value[] = new BrokerId[size];
+            for (int i = 0; i < size; i++) {
+                value[i] = (BrokerId) looseUnmarsalNestedObject(wireFormat, dataIn);
+            }
+            info.setBrokerPath(value);
+        } else {
+            info.setBrokerPath(null);
+        }
+        info.setArrival(looseUnmarshalLong(wireFormat, dataIn));
+        info.setUserId(looseUnmarshalString(dataIn));
+        info.setRecievedByDFBridge(dataIn.readBoolean());
+        info.setDroppable(dataIn.readBoolean());
+
+        if (dataIn.readBoolean()) {
+            short size = dataIn.readShort();
+            BrokerId value[] = new BrokerId[size];
+            for (int i = 0; i < size; i++) {
+                value[i] = (BrokerId) looseUnmarsalNestedObject(wireFormat, dataIn);
+            }
+            info.setCluster(value);
+        } else {
+            info.setCluster(null);
+        }
+        info.setBrokerInTime(looseUnmarshalLong(wireFormat, dataIn));
+        info.setBrokerOutTime(looseUnmarshalLong(wireFormat, dataIn));
+        info.setJMSXGroupFirstForConsumer(dataIn.readBoolean());
+
+        info.afterUnmarshall(wireFormat);
+    }
+
+    /**
+     * Un-marshal an object instance from the OpenWire buffer reader
+     *
+     * @param o
+     *        the object to un-marshal
+     * @param dataIn
+     *        the buffer reader to build the object from
+     * @throws IOException
+     */
+    @Override
+    public void looseUnmarshal(OpenWireFormat wireFormat, Object o, OpenWireBufferReader dataIn) throws IOException {
+        super.looseUnmarshal(wireFormat, o, dataIn);
+
+        Message info = (Message) o;
+
+        info.beforeUnmarshall(wireFormat);
+
+        info.setProducerId((ProducerId) looseUnmarsalCachedObject(wireFormat, dataIn));
+        info.setDestination((OpenWireDestination) looseUnmarsalCachedObject(wireFormat, dataIn));
+        info.setTransactionId((TransactionId) looseUnmarsalCachedObject(wireFormat, dataIn));
+        info.setOriginalDestination((OpenWireDestination) looseUnmarsalCachedObject(wireFormat, dataIn));
+        info.setMessageId((MessageId) looseUnmarsalNestedObject(wireFormat, dataIn));
+        info.setOriginalTransactionId((TransactionId) looseUnmarsalCachedObject(wireFormat, dataIn));
+        info.setGroupID(looseUnmarshalString(dataIn));
+        info.setGroupSequence(dataIn.readInt());
+        info.setCorrelationId(looseUnmarshalString(dataIn));
+        info.setPersistent(dataIn.readBoolean());
+        info.setExpiration(looseUnmarshalLong(wireFormat, dataIn));
+        info.setPriority(dataIn.readByte());
+        info.setReplyTo((OpenWireDestination) looseUnmarsalNestedObject(wireFormat, dataIn));
+        info.setTimestamp(looseUnmarshalLong(wireFormat, dataIn));
+        info.setType(looseUnmarshalString(dataIn));
+        info.setContent(looseUnmarshalByteSequence(wireFormat, dataIn));
+        info.setMarshalledProperties(looseUnmarshalByteSequence(wireFormat, dataIn));
         info.setDataStructure(looseUnmarsalNestedObject(wireFormat, dataIn));
         info.setTargetConsumerId((ConsumerId) looseUnmarsalCachedObject(wireFormat, dataIn));
         info.setCompressed(dataIn.readBoolean());
@@ -272,7 +688,9 @@ public abstract class MessageMarshaller extends BaseCommandMarshaller {
     public void looseMarshal(OpenWireFormat wireFormat, Object o, DataOutput dataOut) throws IOException {
         Message info = (Message) o;
 
-        info.beforeMarshall(wireFormat);
+        if (!wireFormat.isLooseMarshalSized()) {
+            info.beforeMarshall(wireFormat);
+        }
 
         super.looseMarshal(wireFormat, o, dataOut);
         looseMarshalCachedObject(wireFormat, info.getProducerId(), dataOut);
@@ -306,4 +724,277 @@ public abstract class MessageMarshaller extends BaseCommandMarshaller {
         looseMarshalLong(wireFormat, info.getBrokerOutTime(), dataOut);
         dataOut.writeBoolean(info.isJMSXGroupFirstForConsumer());
     }
+
+    /**
+     * Write a object instance to the OpenWire buffer writer
+     *
+     * @param o
+     *        the instance to be marshaled
+     * @param dataOut
+     *        the buffer writer to write to
+     * @throws IOException
+     *         thrown if an error occurs
+     */
+    @Override
+    public void looseMarshal(OpenWireFormat wireFormat, Object o, OpenWireBufferWriter dataOut) throws IOException {
+        Message info = (Message) o;
+
+        if (!wireFormat.isLooseMarshalSized()) {
+            info.beforeMarshall(wireFormat);
+        }
+
+        super.looseMarshal(wireFormat, o, dataOut);
+        looseMarshalCachedObject(wireFormat, info.getProducerId(), dataOut);
+        looseMarshalCachedObject(wireFormat, info.getDestination(), dataOut);
+        looseMarshalCachedObject(wireFormat, info.getTransactionId(), dataOut);
+        looseMarshalCachedObject(wireFormat, info.getOriginalDestination(), dataOut);
+        looseMarshalNestedObject(wireFormat, info.getMessageId(), dataOut);
+        looseMarshalCachedObject(wireFormat, info.getOriginalTransactionId(), dataOut);
+        looseMarshalString(info.getGroupId(), dataOut);
+        dataOut.writeInt(info.getGroupSequence());
+        looseMarshalString(info.getCorrelationId(), dataOut);
+        dataOut.writeBoolean(info.isPersistent());
+        looseMarshalLong(wireFormat, info.getExpiration(), dataOut);
+        dataOut.writeByte(info.getPriority());
+        looseMarshalNestedObject(wireFormat, info.getReplyTo(), dataOut);
+        looseMarshalLong(wireFormat, info.getTimestamp(), dataOut);
+        looseMarshalString(info.getType(), dataOut);
+        looseMarshalByteSequence(wireFormat, info.getContent(), dataOut);
+        looseMarshalByteSequence(wireFormat, info.getMarshalledProperties(), dataOut);
+        looseMarshalNestedObject(wireFormat, info.getDataStructure(), dataOut);
+        looseMarshalCachedObject(wireFormat, info.getTargetConsumerId(), dataOut);
+        dataOut.writeBoolean(info.isCompressed());
+        dataOut.writeInt(info.getRedeliveryCounter());
+        looseMarshalObjectArray(wireFormat, info.getBrokerPath(), dataOut);
+        looseMarshalLong(wireFormat, info.getArrival(), dataOut);
+        looseMarshalString(info.getUserId(), dataOut);
+        dataOut.writeBoolean(info.isRecievedByDFBridge());
+        dataOut.writeBoolean(info.isDroppable());
+        looseMarshalObjectArray(wireFormat, info.getCluster(), dataOut);
+        looseMarshalLong(wireFormat, info.getBrokerInTime(), dataOut);
+        looseMarshalLong(wireFormat, info.getBrokerOutTime(), dataOut);
+        dataOut.writeBoolean(info.isJMSXGroupFirstForConsumer());
+    }
+
+    /**
+     * Compute the number of bytes the loose encoding of this object takes
+     */
+    @Override
+    public int looseMarshalSize(OpenWireFormat wireFormat, Object o) throws IOException {
+        Message info = (Message) o;
+
+        info.beforeMarshall(wireFormat);
+
+        int rc = super.looseMarshalSize(wireFormat, o);
+        rc += looseMarshalCachedObjectSize(wireFormat, info.getProducerId());
+        rc += looseMarshalCachedObjectSize(wireFormat, info.getDestination());
+        rc += looseMarshalCachedObjectSize(wireFormat, info.getTransactionId());
+        rc += looseMarshalCachedObjectSize(wireFormat, info.getOriginalDestination());
+        rc += looseMarshalNestedObjectSize(wireFormat, info.getMessageId());
+        rc += looseMarshalCachedObjectSize(wireFormat, info.getOriginalTransactionId());
+        rc += looseMarshalStringSize(info.getGroupId());
+        rc += looseMarshalStringSize(info.getCorrelationId());
+        rc += looseMarshalNestedObjectSize(wireFormat, info.getReplyTo());
+        rc += looseMarshalStringSize(info.getType());
+        rc += looseMarshalByteSequenceSize(wireFormat, info.getContent());
+        rc += looseMarshalByteSequenceSize(wireFormat, info.getMarshalledProperties());
+        rc += looseMarshalNestedObjectSize(wireFormat, info.getDataStructure());
+        rc += looseMarshalCachedObjectSize(wireFormat, info.getTargetConsumerId());
+        rc += looseMarshalObjectArraySize(wireFormat, info.getBrokerPath());
+        rc += looseMarshalStringSize(info.getUserId());
+        rc += looseMarshalObjectArraySize(wireFormat, info.getCluster());
+
+        return rc + 54;
+    }
+
+    /**
+     * Skips the broker path, user id and cluster which are not needed to route the message
+     * and leaves the message holding the region of the frame they are decoded from when
+     * first accessed.  The data structure is not deferred since its nested objects can
+     * update the unmarshal cache, which must happen in frame order.
+     */
+    private void tightUnmarshalDeferred(OpenWireFormat wireFormat, Message info, DataByteArrayInputStream dataIn, BooleanStream bs) throws IOException {
+        int start = dataIn.getPos();
+        int length = tightUnmarshalDeferred(wireFormat, info, dataIn.getRawData(), start, bs) - start;
+        if (dataIn.skipBytes(length) != length) {
+            throw new EOFException();
+        }
+    }
+
+    private void tightUnmarshalDeferred(OpenWireFormat wireFormat, Message info, OpenWireBufferReader dataIn, BooleanStream bs) throws IOException {
+        int start = dataIn.getPos();
+        int length = tightUnmarshalDeferred(wireFormat, info, dataIn.getRawData(), start, bs) - start;
+        if (dataIn.skipBytes(length) != length) {
+            throw new EOFException();
+        }
+    }
+
+    /**
+     * Nothing is deferred when the three fields are null, which is the case of most messages
+     * that have not crossed a network of brokers.
+     */
+    private int tightUnmarshalDeferred(OpenWireFormat wireFormat, Message info, byte[] dataIn, int position, BooleanStream bs) throws IOException {
+        int start = position;
+        int bitStart = bs.getBitPosition();
+
+        try {
+            position = tightSkipBrokerIds(wireFormat, dataIn, position, bs);
+            int brokerPathEnd = position;
+            int brokerPathBitEnd = bs.getBitPosition();
+            info.setArrival(tightUnmarshalLong(wireFormat, dataIn, position, bs));
+            int userIdStart = wireFormat.getUnmarshalPosition();
+            int userIdBitStart = bs.getBitPosition();
+            position = tightSkipString(wireFormat, dataIn, userIdStart, bs);
+            int userIdEnd = position;
+            int userIdBitEnd = bs.getBitPosition();
+            info.setRecievedByDFBridge(bs.readBoolean());
+            info.setDroppable(bs.readBoolean());
+            int clusterBitStart = bs.getBitPosition();
+            position = tightSkipBrokerIds(wireFormat, dataIn, position, bs);
+
+            if (brokerPathEnd == start && userIdEnd == userIdStart && position == userIdEnd) {
+                info.setBrokerPath(null);
+                info.setUserId(null);
+                info.setCluster(null);
+            } else {
+                BooleanStream bits = bs.remaining(bitStart);
+                int base = bits.getBitPosition() - bitStart;
+                int bitBounds[] = {
+                    bitStart + base, brokerPathBitEnd + base,
+                    userIdBitStart + base, userIdBitEnd + base,
+                    clusterBitStart + base, bs.getBitPosition() + base };
+                int byteBounds[] = {
+                    0, brokerPathEnd - start,
+                    userIdStart - start, userIdEnd - start,
+                    userIdEnd - start, position - start };
+                Buffer region = new Buffer(dataIn, start, position - start);
+                info.setDeferredUnmarshal(new DeferredFields(wireFormat, region, bits, bitBounds, byteBounds));
+            }
+        } catch (ArrayIndexOutOfBoundsException e) {
+            throw new EOFException();
+        }
+        return position;
+    }
+
+    private int tightSkipBrokerIds(OpenWireFormat wireFormat, byte[] dataIn, int position, BooleanStream bs) throws IOException {
+        if (bs.readBoolean()) {
+            short size = BigEndianBytes.getShort(dataIn, position);
+            position += 2;
+            for (int i = 0; i < size; i++) {
+                if (bs.readBoolean()) {
+                    if (dataIn[position++] != BrokerId.DATA_STRUCTURE_TYPE) {
+                        throw new IOException("Unexpected data type in broker id array: " + dataIn[position - 1]);
+                    }
+                    position = tightSkipString(wireFormat, dataIn, position, bs);
+                }
+            }
+        }
+        return position;
+    }
+
+    /**
+     * @return the deferred fields of the message when they are still undecoded and can be
+     *         copied back out of the frame they were read from, or null.
+     */
+    private DeferredFields deferredFields(Message info) {
+        DeferredUnmarshal deferred = info.getDeferredUnmarshal();
+        if (deferred instanceof DeferredFields) {
+            return (DeferredFields) deferred;
+        }
+        return null;
+    }
+
+    private BrokerId[] tightUnmarshalBrokerIds(DataInput dataIn, BooleanStream bs) throws IOException {
+        if (bs.readBoolean()) {
+            short size = dataIn.readShort();
+            BrokerId value[] = new BrokerId[size];
+            for (int i = 0; i < size; i++) {
+                if (bs.readBoolean()) {
+                    readBrokerIdType(dataIn);
+                    value[i] = new BrokerId(tightUnmarshalString(dataIn, bs));
+                }
+            }
+            return value;
+        } else {
+            return null;
+        }
+    }
+
+    private void readBrokerIdType(DataInput dataIn) throws IOException {
+        byte dataType = dataIn.readByte();
+        if (dataType != BrokerId.DATA_STRUCTURE_TYPE) {
+            throw new IOException("Unexpected data type in broker id array: " + dataType);
+        }
+    }
+
+    /**
+     * Decodes the deferred fields from the region of the frame that holds them, the bits
+     * that remained unread when the region was reached are replayed alongside it.  Each
+     * call reads its own copy of those bits and only applies the fields once all of them
+     * have been decoded.
+     *
+     * While the fields are still undecoded the marshaller copies their bytes and bits back
+     * out of the region rather than decoding them, the bounds of each field in both being
+     * kept as start and end pairs indexed by the field.
+     */
+    private final class DeferredFields implements DeferredUnmarshal {
+
+        private static final int BROKER_PATH = 0;
+        private static final int USER_ID = 2;
+        private static final int CLUSTER = 4;
+
+        private final OpenWireFormat wireFormat;
+        private final Buffer region;
+        private final BooleanStream bits;
+        private final int bitBounds[];
+        private final int byteBounds[];
+
+        public DeferredFields(OpenWireFormat wireFormat, Buffer region, BooleanStream bits, int bitBounds[], int byteBounds[]) {
+            this.wireFormat = wireFormat;
+            this.region = region;
+            this.bits = bits;
+            this.bitBounds = bitBounds;
+            this.byteBounds = byteBounds;
+        }
+
+        @Override
+        public void unmarshal(Object target) throws IOException {
+            Message info = (Message) target;
+            OpenWireBufferReader dataIn = new OpenWireBufferReader(region);
+            BooleanStream bs = bits.remaining();
+
+            BrokerId[] brokerPath = tightUnmarshalBrokerIds(dataIn, bs);
+            tightUnmarshalLong(wireFormat, dataIn, bs);
+            String userId = tightUnmarshalString(dataIn, bs);
+            bs.readBoolean();
+            bs.readBoolean();
+            BrokerId[] cluster = tightUnmarshalBrokerIds(dataIn, bs);
+
+            info.setBrokerPath(brokerPath);
+            info.setUserId(userId);
+            info.setCluster(cluster);
+        }
+
+        public int tightMarshal1(int field, BooleanStream bs) throws IOException {
+            bs.writeBits(bits, bitBounds[field], bitBounds[field + 1] - bitBounds[field]);
+            return byteBounds[field + 1] - byteBounds[field];
+        }
+
+        public void tightMarshal2(int field, DataOutput dataOut, BooleanStream bs) throws IOException {
+            bs.skipBits(bitBounds[field + 1] - bitBounds[field]);
+            dataOut.write(region.data, region.offset + byteBounds[field], byteBounds[field + 1] - byteBounds[field]);
+        }
+
+        public int tightMarshal2(int field, byte[] dataOut, int position, BooleanStream bs) throws IOException {
+            int length = byteBounds[field + 1] - byteBounds[field];
+            bs.skipBits(bitBounds[field + 1] - bitBounds[field]);
+            System.arraycopy(region.data, region.offset + byteBounds[field], dataOut, position, length);
+            return position + length;
+        }
+
+        public void tightMarshal(int field, DataByteArrayOutputStream dataOut, BooleanStream bs) throws IOException {
+            bs.writeBits(bits, bitBounds[field], bitBounds[field + 1] - bitBounds[field]);
+            dataOut.write(region.data, region.offset + byteBounds[field], byteBounds[field + 1] - byteBounds[field]);
+        }
+    }
 }
@@ -25,6 +25,8 @@ import java.io.DataInput;
 import java.io.DataOutput;
 import java.io.IOException;
 
+import org.fusesource.hawtbuf.DataByteArrayOutputStream;
+
 public abstract class BaseCommandMarshaller extends BaseDataStreamMarshaller {
 
     /**
@@ -77,6 +79,25 @@ public abstract class BaseCommandMarshaller extends BaseDataStreamMarshaller {
         bs.readBoolean();
     }
 
+    /**
+     * Write the booleans and the data of this object in a single pass
+     *
+     * @param o
+     *        the instance to be marshaled
+     * @param dataOut
+     *        the output stream
+     * @throws IOException
+     *         thrown if an error occurs
+     */
+    @Override
+    public void tightMarshal(OpenWireFormat wireFormat, Object o, DataByteArrayOutputStream dataOut, BooleanStream bs) throws IOException {
+        super.tightMarshal(wireFormat, o, dataOut, bs);
+
+        BaseCommand info = (BaseCommand) o;
+        dataOut.writeInt(info.getCommandId());
+        bs.writeBoolean(info.isResponseRequired());
+    }
+
     /**
      * Un-marshal an object instance from the data input stream
      *
@@ -106,4 +127,16 @@ public abstract class BaseCommandMarshaller extends BaseDataStreamMarshaller {
         dataOut.writeInt(info.getCommandId());
         dataOut.writeBoolean(info.isResponseRequired());
     }
+
+    /**
+     * Compute the number of bytes the loose encoding of this object takes
+     */
+    @Override
+    public int looseMarshalSize(OpenWireFormat wireFormat, Object o) throws IOException {
+        BaseCommand info = (BaseCommand) o;
+
+        int rc = super.looseMarshalSize(wireFormat, o);
+
+        return rc + 5;
+    }
 }
@@ -25,6 +25,8 @@ import java.io.DataInput;
 import java.io.DataOutput;
 import java.io.IOException;
 
+import org.fusesource.hawtbuf.DataByteArrayOutputStream;
+
 public class DataArrayResponseMarshaller extends ResponseMarshaller {
 
     /**
@@ -103,6 +105,24 @@ public class DataArrayResponseMarshaller extends ResponseMarshaller {
         tightMarshalObjectArray2(wireFormat, info.getData(), dataOut, bs);
     }
 
+    /**
+     * Write the booleans and the data of this object in a single pass
+     *
+     * @param o
+     *        the instance to be marshaled
+     * @param dataOut
+     *        the output stream
+     * @throws IOException
+     *         thrown if an error occurs
+     */
+    @Override
+    public void tightMarshal(OpenWireFormat wireFormat, Object o, DataByteArrayOutputStream dataOut, BooleanStream bs) throws IOException {
+        super.tightMarshal(wireFormat, o, dataOut, bs);
+
+        DataArrayResponse info = (DataArrayResponse) o;
+        tightMarshalObjectArray(wireFormat, info.getData(), dataOut, bs);
+    }
+
     /**
      * Un-marshal an object instance from the data input stream
      *
@@ -141,4 +161,18 @@ public class DataArrayResponseMarshaller extends ResponseMarshaller {
         super.looseMarshal(wireFormat, o, dataOut);
         looseMarshalObjectArray(wireFormat, info.getData(), dataOut);
     }
+
+    /**
+     * Compute the number of bytes the loose encoding of this object takes
+     */
+    @Override
+    public int looseMarshalSize(OpenWireFormat wireFormat, Object o) throws IOException {
+
+        DataArrayResponse info = (DataArrayResponse) o;
+
+        int rc = super.looseMarshalSize(wireFormat, o);
+        rc += looseMarshalObjectArraySize(wireFormat, info.getData());
+
+        return rc + 0;
+    }
 }
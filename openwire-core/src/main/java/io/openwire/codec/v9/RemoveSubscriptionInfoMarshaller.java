@@ -26,6 +26,8 @@ import java.io.DataInput;
 import java.io.DataOutput;
 import java.io.IOException;
 
+import org.fusesource.hawtbuf.DataByteArrayOutputStream;
+
 public class RemoveSubscriptionInfoMarshaller extends BaseCommandMarshaller {
 
     /**
@@ -101,6 +103,26 @@ public class RemoveSubscriptionInfoMarshaller extends BaseCommandMarshaller {
         tightMarshalString2(info.getClientId(), dataOut, bs);
     }
 
+    /**
+     * Write the booleans and the data of this object in a single pass
+     *
+     * @param o
+     *        the instance to be marshaled
+     * @param dataOut
+     *        the output stream
+     * @throws IOException
+     *         thrown if an error occurs
+     */
+    @Override
+    public void tightMarshal(OpenWireFormat wireFormat, Object o, DataByteArrayOutputStream dataOut, BooleanStream bs) throws IOException {
+        super.tightMarshal(wireFormat, o, dataOut, bs);
+
+        RemoveSubscriptionInfo info = (RemoveSubscriptionInfo) o;
+        tightMarshalCachedObject(wireFormat, info.getConnectionId(), dataOut, bs);
+        tightMarshalString(info.getSubcriptionName(), dataOut, bs);
+        tightMarshalString(info.getClientId(), dataOut, bs);
+    }
+
     /**
      * Un-marshal an object instance from the data input stream
      *
@@ -132,4 +154,19 @@ public class RemoveSubscriptionInfoMarshaller extends BaseCommandMarshaller {
         looseMarshalString(info.getSubcriptionName(), dataOut);
         looseMarshalString(info.getClientId(), dataOut);
     }
+
+    /**
+     * Compute the number of bytes the loose encoding of this object takes
+     */
+    @Override
+    public int looseMarshalSize(OpenWireFormat wireFormat, Object o) throws IOException {
+        RemoveSubscriptionInfo info = (RemoveSubscriptionInfo) o;
+
+        int rc = super.looseMarshalSize(wireFormat, o);
+        rc += looseMarshalCachedObjectSize(wireFormat, info.getConnectionId());
+        rc += looseMarshalStringSize(info.getSubcriptionName());
+        rc += looseMarshalStringSize(info.getClientId());
+
+        return rc + 0;
+    }
 }
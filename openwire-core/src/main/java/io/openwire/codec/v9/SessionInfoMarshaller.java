@@ -26,6 +26,8 @@ import java.io.DataInput;
 import java.io.DataOutput;
 import java.io.IOException;
 
+import org.fusesource.hawtbuf.DataByteArrayOutputStream;
+
 public class SessionInfoMarshaller extends BaseCommandMarshaller {
 
     /**
@@ -94,6 +96,24 @@ public class SessionInfoMarshaller extends BaseCommandMarshaller {
         tightMarshalCachedObject2(wireFormat, info.getSessionId(), dataOut, bs);
     }
 
+    /**
+     * Write the booleans and the data of this object in a single pass
+     *
+     * @param o
+     *        the instance to be marshaled
+     * @param dataOut
+     *        the output stream
+     * @throws IOException
+     *         thrown if an error occurs
+     */
+    @Override
+    public void tightMarshal(OpenWireFormat wireFormat, Object o, DataByteArrayOutputStream dataOut, BooleanStream bs) throws IOException {
+        super.tightMarshal(wireFormat, o, dataOut, bs);
+
+        SessionInfo info = (SessionInfo) o;
+        tightMarshalCachedObject(wireFormat, info.getSessionId(), dataOut, bs);
+    }
+
     /**
      * Un-marshal an object instance from the data input stream
      *
@@ -121,4 +141,17 @@ public class SessionInfoMarshaller extends BaseCommandMarshaller {
         super.looseMarshal(wireFormat, o, dataOut);
         looseMarshalCachedObject(wireFormat, info.getSessionId(), dataOut);
     }
+
+    /**
+     * Compute the number of bytes the loose encoding of this object takes
+     */
+    @Override
+    public int looseMarshalSize(OpenWireFormat wireFormat, Object o) throws IOException {
+        SessionInfo info = (SessionInfo) o;
+
+        int rc = super.looseMarshalSize(wireFormat, o);
+        rc += looseMarshalCachedObjectSize(wireFormat, info.getSessionId());
+
+        return rc + 0;
+    }
 }
@@ -27,6 +27,8 @@ import java.io.DataInput;
 import java.io.DataOutput;
 import java.io.IOException;
 
+import org.fusesource.hawtbuf.DataByteArrayOutputStream;
+
 public class TransactionInfoMarshaller extends BaseCommandMarshaller {
 
     /**
@@ -100,6 +102,26 @@ public class TransactionInfoMarshaller extends BaseCommandMarshaller {
         dataOut.writeByte(info.getType());
     }
 
+    /**
+     * Write the booleans and the data of this object in a single pass
+     *
+     * @param o
+     *        the instance to be marshaled
+     * @param dataOut
+     *        the output stream
+     * @throws IOException
+     *         thrown if an error occurs
+     */
+    @Override
+    public void tightMarshal(OpenWireFormat wireFormat, Object o, DataByteArrayOutputStream dataOut, BooleanStream bs) throws IOException {
+        super.tightMarshal(wireFormat, o, dataOut, bs);
+
+        TransactionInfo info = (TransactionInfo) o;
+        tightMarshalCachedObject(wireFormat, info.getConnectionId(), dataOut, bs);
+        tightMarshalCachedObject(wireFormat, info.getTransactionId(), dataOut, bs);
+        dataOut.writeByte(info.getType());
+    }
+
     /**
      * Un-marshal an object instance from the data input stream
      *
@@ -131,4 +153,18 @@ public class TransactionInfoMarshaller extends BaseCommandMarshaller {
         looseMarshalCachedObject(wireFormat, info.getTransactionId(), dataOut);
         dataOut.writeByte(info.getType());
     }
+
+    /**
+     * Compute the number of bytes the loose encoding of this object takes
+     */
+    @Override
+    public int looseMarshalSize(OpenWireFormat wireFormat, Object o) throws IOException {
+        TransactionInfo info = (TransactionInfo) o;
+
+        int rc = super.looseMarshalSize(wireFormat, o);
+        rc += looseMarshalCachedObjectSize(wireFormat, info.getConnectionId());
+        rc += looseMarshalCachedObjectSize(wireFormat, info.getTransactionId());
+
+        return rc + 1;
+    }
 }
@@ -17,6 +17,10 @@
 package io.openwire.commands;
 
 import static io.openwire.codec.OpenWireConstants.ADIVSORY_MESSAGE_TYPE;
+import io.openwire.codec.CodecEvents;
+import io.openwire.codec.CompressionCodec;
+import io.openwire.codec.CompressionCodecs;
+import io.openwire.codec.DeferredUnmarshal;
 import io.openwire.codec.OpenWireFormat;
 import io.openwire.utils.ExceptionSupport;
 import io.openwire.utils.OpenWireMarshallingSupport;
@@ -24,12 +28,9 @@ import io.openwire.utils.OpenWireMarshallingSupport;
 import java.io.DataInputStream;
 import java.io.DataOutputStream;
 import java.io.IOException;
-import java.io.OutputStream;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
-import java.util.zip.DeflaterOutputStream;
-import java.util.zip.InflaterInputStream;
 
 import javax.jms.JMSException;
 
@@ -89,6 +90,9 @@ public abstract class Message extends BaseCommand implements MarshallAware {
 
     private BrokerId[] brokerPath;
     private BrokerId[] cluster;
+    private transient volatile DeferredUnmarshal deferredUnmarshal;
+    private transient boolean completingDeferredUnmarshal;
+    private transient CompressionCodec compressionCodec;
 
     public abstract Message copy();
     public abstract void clearBody() throws JMSException;
@@ -101,6 +105,8 @@ public abstract class Message extends BaseCommand implements MarshallAware {
     }
 
     protected void copy(Message copy) {
+        completeDeferredUnmarshal();
+
         super.copy(copy);
         copy.producerId = producerId;
         copy.transactionId = transactionId;
@@ -134,6 +140,7 @@ public abstract class Message extends BaseCommand implements MarshallAware {
         copy.marshalledProperties = marshalledProperties;
         copy.dataStructure = dataStructure;
         copy.compressed = compressed;
+        copy.compressionCodec = compressionCodec;
         copy.recievedByDFBridge = recievedByDFBridge;
 
         copy.arrival = arrival;
@@ -212,6 +219,9 @@ public abstract class Message extends BaseCommand implements MarshallAware {
 
     @Override
     public void beforeMarshall(OpenWireFormat wireFormat) throws IOException {
+        // Only the stored form of the body is marshaled.
+        storeContent();
+
         // Need to marshal the properties.
         if (marshalledProperties == null && properties != null) {
             ByteArrayOutputStream baos = new ByteArrayOutputStream();
@@ -222,6 +232,61 @@ public abstract class Message extends BaseCommand implements MarshallAware {
         }
     }
 
+    /**
+     * Performs the work of {@link #beforeMarshall(OpenWireFormat)} ahead of time, storing
+     * the body, marshaling the properties and compressing the body with the codec of the
+     * given OpenWireFormat, so that marshaling the message later only has to frame bytes
+     * that are already prepared.  This can be done on any thread, but the message must not
+     * be modified or marshaled by another thread while it is being prepared.
+     *
+     * @param wireFormat
+     *        the OpenWireFormat of the connection the message will be sent on.
+     *
+     * @throws IOException if an error occurs while preparing the message.
+     */
+    public void prepareForMarshall(OpenWireFormat wireFormat) throws IOException {
+        CompressionCodec codec = wireFormat.getCompressionCodec();
+        if (!compressed) {
+            compressionCodec = codec;
+        }
+        beforeMarshall(wireFormat);
+
+        // A body compressed earlier with another codec is converted now rather than each
+        // time the message is marshaled.
+        if (compressed && content != null && !codec.getName().equals(getCompressionCodec().getName())) {
+            Buffer decompressed = decompress();
+            compressionCodec = codec;
+            setContent(decompressed);
+            compressContent();
+        }
+    }
+
+    /**
+     * Creates a copy of this message whose body is compressed with the given codec, which
+     * is marshaled in place of this message on a connection that agreed on that codec so that
+     * this message, which may be shared with other connections, is left unchanged.
+     *
+     * @param codec
+     *        the codec to compress the body of the copy with.
+     *
+     * @return the copy of this message.
+     *
+     * @throws IOException if an error occurs while converting the body.
+     */
+    public Message copy(CompressionCodec codec) throws IOException {
+        Buffer decompressed = decompress();
+        Message copy = copy();
+
+        // The copy is only marshaled, so it can share the properties as they are.
+        copy.properties = properties;
+        copy.marshalledProperties = marshalledProperties;
+
+        copy.compressionCodec = codec;
+        copy.setContent(decompressed);
+        copy.compressContent();
+        return copy;
+    }
+
     @Override
     public void afterMarshall(OpenWireFormat wireFormat) throws IOException {
     }
@@ -232,6 +297,7 @@ public abstract class Message extends BaseCommand implements MarshallAware {
 
     @Override
     public void afterUnmarshall(OpenWireFormat wireFormat) throws IOException {
+        compressionCodec = wireFormat.getCompressionCodec();
     }
 
     /**
@@ -482,6 +548,25 @@ public abstract class Message extends BaseCommand implements MarshallAware {
         this.compressed = compressed;
     }
 
+    /**
+     * @return the codec used to compress and decompress the message body, deflate unless set.
+     */
+    public CompressionCodec getCompressionCodec() {
+        return compressionCodec != null ? compressionCodec : CompressionCodecs.DEFLATE;
+    }
+
+    /**
+     * Sets the codec used to compress the message body, normally the one agreed for the
+     * connection the message is sent on.  A body compressed with a codec the connection has
+     * not agreed on is converted when the message is marshaled.
+     *
+     * @param compressionCodec
+     *        the codec to use, or null to use deflate.
+     */
+    public void setCompressionCodec(CompressionCodec compressionCodec) {
+        this.compressionCodec = compressionCodec;
+    }
+
     public boolean isRedelivered() {
         return redeliveryCounter > 0;
     }
@@ -515,10 +600,12 @@ public abstract class Message extends BaseCommand implements MarshallAware {
      * @openwire:property version=1 cache=true
      */
     public BrokerId[] getBrokerPath() {
+        completeDeferredUnmarshal();
         return brokerPath;
     }
 
     public void setBrokerPath(BrokerId[] brokerPath) {
+        completeDeferredUnmarshal();
         this.brokerPath = brokerPath;
     }
 
@@ -545,10 +632,12 @@ public abstract class Message extends BaseCommand implements MarshallAware {
      * @openwire:property version=1
      */
     public String getUserId() {
+        completeDeferredUnmarshal();
         return userId;
     }
 
     public void setUserId(String jmsxUserId) {
+        completeDeferredUnmarshal();
         this.userId = jmsxUserId;
     }
 
@@ -604,13 +693,74 @@ public abstract class Message extends BaseCommand implements MarshallAware {
      * @openwire:property version=3 cache=true
      */
     public BrokerId[] getCluster() {
+        completeDeferredUnmarshal();
         return cluster;
     }
 
     public void setCluster(BrokerId[] cluster) {
+        completeDeferredUnmarshal();
         this.cluster = cluster;
     }
 
+    /**
+     * Called by the marshaller when the fields of this message that are not needed to
+     * route it are to be decoded from the frame on first access.
+     *
+     * @param deferredUnmarshal
+     *        the decoder of the deferred fields, or null if all fields were decoded.
+     */
+    public void setDeferredUnmarshal(DeferredUnmarshal deferredUnmarshal) {
+        this.deferredUnmarshal = deferredUnmarshal;
+    }
+
+    /**
+     * Lets the marshaller write the deferred fields back out from the frame they came from
+     * without decoding them.
+     *
+     * @return the decoder of the deferred fields, or null if all fields were decoded.
+     */
+    public DeferredUnmarshal getDeferredUnmarshal() {
+        return deferredUnmarshal;
+    }
+
+    /**
+     * @return true if some fields of this message have yet to be decoded from its frame.
+     */
+    public boolean isUnmarshalDeferred() {
+        return deferredUnmarshal != null;
+    }
+
+    /**
+     * Decodes the deferred fields on first access.  Threads that race to read them wait for
+     * the one that decodes them, the fields are published by clearing the volatile reference
+     * to the decoder only once they have all been set, which the setters called by the
+     * decoder itself skip over.
+     */
+    private void completeDeferredUnmarshal() {
+        if (deferredUnmarshal == null) {
+            return;
+        }
+
+        synchronized (this) {
+            DeferredUnmarshal deferred = deferredUnmarshal;
+            if (deferred == null || completingDeferredUnmarshal) {
+                return;
+            }
+
+            completingDeferredUnmarshal = true;
+            try {
+                deferred.unmarshal(this);
+                deferredUnmarshal = null;
+            } catch (IOException e) {
+                IllegalStateException ise = new IllegalStateException("Could not decode the deferred message fields");
+                ise.initCause(e);
+                throw ise;
+            } finally {
+                completingDeferredUnmarshal = false;
+            }
+        }
+    }
+
     @Override
     public boolean isMessage() {
         return true;
@@ -660,7 +810,7 @@ public abstract class Message extends BaseCommand implements MarshallAware {
         if (!isCompressed()) {
             storeContent();
             if (!isCompressed() && getContent() != null) {
-                doCompress();
+                compressContent();
             }
         }
     }
@@ -676,39 +826,44 @@ public abstract class Message extends BaseCommand implements MarshallAware {
      */
     public Buffer decompress() throws IOException {
         if (isCompressed()) {
-            return doDecompress();
+            CodecEvents.CompressionEvent event = CodecEvents.beginDecompress();
+            if (event == null) {
+                return doDecompress();
+            }
+
+            Buffer decompressed = doDecompress();
+            event.commit(getDataStructureType(), decompressed.getLength(), content.getLength());
+            return decompressed;
         } else {
             return content;
         }
     }
 
-    protected Buffer doDecompress() throws IOException {
-        ByteArrayInputStream input = new ByteArrayInputStream(this.content.getData(), this.content.getOffset(), this.content.getLength());
-        InflaterInputStream inflater = new InflaterInputStream(input);
-
-        ByteArrayOutputStream output = new ByteArrayOutputStream();
-        try {
-            byte[] buffer = new byte[8*1024];
-            int read = 0;
-            while ((read = inflater.read(buffer)) != -1) {
-                output.write(buffer, 0, read);
-            }
-        } finally {
-            inflater.close();
-            output.close();
+    /**
+     * Compresses the current content with {@link #doCompress()}, emitting a compression
+     * event when one is enabled.
+     *
+     * @throws IOException if an error occurs during the compression process.
+     */
+    protected final void compressContent() throws IOException {
+        CodecEvents.CompressionEvent event = CodecEvents.beginCompress();
+        if (event == null) {
+            doCompress();
+            return;
         }
 
-        return output.toBuffer();
+        int size = content != null ? content.getLength() : 0;
+        doCompress();
+        event.commit(getDataStructureType(), size, content != null ? content.getLength() : 0);
+    }
+
+    protected Buffer doDecompress() throws IOException {
+        return getCompressionCodec().decompress(content, -1);
     }
 
     protected void doCompress() throws IOException {
         compressed = true;
-        Buffer bytes = getContent();
-        ByteArrayOutputStream bytesOut = new ByteArrayOutputStream();
-        OutputStream os = new DeflaterOutputStream(bytesOut);
-        os.write(bytes.data, bytes.offset, bytes.length);
-        os.close();
-        setContent(bytesOut.toBuffer());
+        setContent(getCompressionCodec().compress(getContent(), 0));
     }
 
     @Override
@@ -17,16 +17,12 @@
 package io.openwire.commands;
 
 import java.io.IOException;
-import java.util.Arrays;
-import java.util.zip.Deflater;
-import java.util.zip.Inflater;
 
 import javax.jms.JMSException;
 import javax.jms.MessageNotReadableException;
 
 import org.fusesource.hawtbuf.Buffer;
 import org.fusesource.hawtbuf.BufferEditor;
-import org.fusesource.hawtbuf.ByteArrayOutputStream;
 
 /**
  * Provides an abstraction layer around the standard OpenWireMessage object for
@@ -145,24 +141,10 @@ public class OpenWireBytesMessage extends OpenWireMessage {
     @Override
     protected Buffer doDecompress() throws IOException {
         Buffer compressed = getContent();
-        Inflater inflater = new Inflater();
-        ByteArrayOutputStream decompressed = new ByteArrayOutputStream();
-        try {
-            BufferEditor editor = BufferEditor.big(compressed);
-            int length = editor.readInt();
-            compressed.offset = 0;
-            byte[] data = Arrays.copyOfRange(compressed.getData(), 4, compressed.getLength());
-            inflater.setInput(data);
-            byte[] buffer = new byte[length];
-            int count = inflater.inflate(buffer);
-            decompressed.write(buffer, 0, count);
-            return decompressed.toBuffer();
-        } catch (Exception e) {
-            throw new IOException(e);
-        } finally {
-            inflater.end();
-            decompressed.close();
-        }
+        // The content can be a slice of a larger array so honor its offset.
+        int length = BufferEditor.big(new Buffer(compressed)).readInt();
+        Buffer data = new Buffer(compressed.getData(), compressed.getOffset() + 4, compressed.getLength() - 4);
+        return getCompressionCodec().decompress(data, length);
     }
 
     @Override
@@ -170,28 +152,10 @@ public class OpenWireBytesMessage extends OpenWireMessage {
         compressed = true;
         Buffer bytes = getContent();
         if (bytes != null) {
-            int length = bytes.getLength();
-            ByteArrayOutputStream compressed = new ByteArrayOutputStream();
-            compressed.write(new byte[4]);
-            Deflater deflater = new Deflater();
-            try {
-                deflater.setInput(bytes.data);
-                deflater.finish();
-                byte[] buffer = new byte[1024];
-                while (!deflater.finished()) {
-                    int count = deflater.deflate(buffer);
-                    compressed.write(buffer, 0, count);
-                }
-
-                bytes = compressed.toBuffer();
-                bytes.bigEndianEditor().writeInt(length);
-                bytes.offset = 0;
-                bytes.length += 4;
-                setContent(bytes);
-            } finally {
-                deflater.end();
-                compressed.close();
-            }
+            // The uncompressed length is written ahead of the compressed data.
+            Buffer result = getCompressionCodec().compress(bytes, 4);
+            BufferEditor.big(new Buffer(result)).writeInt(bytes.getLength());
+            setContent(result);
         }
     }
 }
@@ -16,22 +16,17 @@
  */
 package io.openwire.commands;
 
-import io.openwire.codec.OpenWireFormat;
 import io.openwire.utils.ExceptionSupport;
 import io.openwire.utils.OpenWireMarshallingSupport;
 
 import java.io.DataInputStream;
 import java.io.DataOutputStream;
 import java.io.IOException;
-import java.io.InputStream;
 import java.io.ObjectStreamException;
-import java.io.OutputStream;
 import java.util.Collections;
 import java.util.Enumeration;
 import java.util.HashMap;
 import java.util.Map;
-import java.util.zip.DeflaterOutputStream;
-import java.util.zip.InflaterInputStream;
 
 import javax.jms.JMSException;
 import javax.jms.MessageFormatException;
@@ -70,13 +65,6 @@ public class OpenWireMapMessage extends OpenWireMessage {
         super.copy(copy);
     }
 
-    // We only need to marshal the content if we are hitting the wire.
-    @Override
-    public void beforeMarshall(OpenWireFormat wireFormat) throws IOException {
-        super.beforeMarshall(wireFormat);
-        storeContent();
-    }
-
     @Override
     public void clearMarshalledState() throws JMSException {
         super.clearMarshalledState();
@@ -94,15 +82,11 @@ public class OpenWireMapMessage extends OpenWireMessage {
         try {
             if (getContent() == null && !map.isEmpty()) {
                 ByteArrayOutputStream bytesOut = new ByteArrayOutputStream();
-                OutputStream os = bytesOut;
-                if (isUseCompression()) {
-                    compressed = true;
-                    os = new DeflaterOutputStream(os);
-                }
-                DataOutputStream dataOut = new DataOutputStream(os);
+                DataOutputStream dataOut = new DataOutputStream(bytesOut);
                 OpenWireMarshallingSupport.marshalPrimitiveMap(map, dataOut);
                 dataOut.close();
                 setContent(bytesOut.toBuffer());
+                compressPayload();
             }
         } catch (IOException e) {
             throw new RuntimeException(e);
@@ -118,14 +102,10 @@ public class OpenWireMapMessage extends OpenWireMessage {
     private void loadContent() throws JMSException {
         try {
             if (getContent() != null && map.isEmpty()) {
-                Buffer content = getContent();
-                InputStream is = new ByteArrayInputStream(content);
-                if (isCompressed()) {
-                    is = new InflaterInputStream(is);
-                }
-                DataInputStream dataIn = new DataInputStream(is);
+                DataInputStream dataIn = new DataInputStream(new ByteArrayInputStream(getPayload()));
                 map = OpenWireMarshallingSupport.unmarshalPrimitiveMap(dataIn);
                 dataIn.close();
+                onPayloadDecoded();
             }
         } catch (IOException e) {
             throw ExceptionSupport.create(e);
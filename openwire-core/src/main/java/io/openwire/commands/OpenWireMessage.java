@@ -16,6 +16,7 @@
  */
 package io.openwire.commands;
 
+import io.openwire.codec.CompressionPolicy;
 import io.openwire.utils.ExceptionSupport;
 
 import java.io.IOException;
@@ -40,8 +41,19 @@ public class OpenWireMessage extends Message {
 
     public static final byte DATA_STRUCTURE_TYPE = CommandTypes.OPENWIRE_MESSAGE;
 
+    /**
+     * The largest decompressed payload that is kept for reuse by default.
+     */
+    public static final int DEFAULT_MAX_CACHED_PAYLOAD_SIZE = 1024 * 1024;
+
     protected transient boolean useCompression;
     protected transient boolean nestedMapAndListAllowed;
+    protected transient CompressionPolicy compressionPolicy;
+    protected transient int maxCachedPayloadSize = DEFAULT_MAX_CACHED_PAYLOAD_SIZE;
+    protected transient boolean releasePayloadOnDecode;
+
+    private transient Buffer cachedPayload;
+    private transient Buffer cachedPayloadSource;
 
     @Override
     public byte getDataStructureType() {
@@ -65,6 +77,9 @@ public class OpenWireMessage extends Message {
     protected void copy(OpenWireMessage copy) {
         copy.useCompression = useCompression;
         copy.nestedMapAndListAllowed = nestedMapAndListAllowed;
+        copy.compressionPolicy = compressionPolicy;
+        copy.maxCachedPayloadSize = maxCachedPayloadSize;
+        copy.releasePayloadOnDecode = releasePayloadOnDecode;
 
         super.copy(copy);
     }
@@ -131,7 +146,10 @@ public class OpenWireMessage extends Message {
      * Provides a fast way to read the message contents.
      *
      * This method, unlike the base class getContent method will perform any needed
-     * decompression on a message that was received with a compressed payload.
+     * decompression on a message that was received with a compressed payload.  The
+     * decompressed payload is kept so that reading the body again does not repeat the
+     * decompression, unless it is larger than the maximum cached payload size.  The
+     * returned Buffer must not be modified.
      *
      * @return a the message contents, uncompressed as needed.
      *
@@ -142,8 +160,19 @@ public class OpenWireMessage extends Message {
         if (data == null) {
             data = new Buffer(new byte[] {}, 0, 0);
         } else if (isCompressed()) {
+            if (cachedPayloadSource == data) {
+                return cachedPayload;
+            }
+
             try {
-                return decompress();
+                Buffer payload = decompress();
+                if (payload.getLength() <= maxCachedPayloadSize) {
+                    cachedPayload = payload;
+                    cachedPayloadSource = data;
+                } else {
+                    releaseCachedPayload();
+                }
+                return payload;
             } catch (IOException e) {
                 throw ExceptionSupport.create(e);
             }
@@ -152,6 +181,83 @@ public class OpenWireMessage extends Message {
         return data;
     }
 
+    @Override
+    public void setContent(Buffer content) {
+        releaseCachedPayload();
+        super.setContent(content);
+    }
+
+    @Override
+    public void setCompressed(boolean compressed) {
+        releaseCachedPayload();
+        super.setCompressed(compressed);
+    }
+
+    /**
+     * @return the number of bytes held by the decompressed payload kept by this message.
+     */
+    public int getCachedPayloadSize() {
+        return cachedPayload != null ? cachedPayload.getLength() : 0;
+    }
+
+    /**
+     * @return the largest decompressed payload that this message keeps for reuse.
+     */
+    public int getMaxCachedPayloadSize() {
+        return maxCachedPayloadSize;
+    }
+
+    /**
+     * Sets the largest decompressed payload that this message keeps so that reading a
+     * compressed body more than once decompresses it only once.
+     *
+     * @param maxCachedPayloadSize
+     *        the size limit in bytes, zero to never keep the decompressed payload.
+     */
+    public void setMaxCachedPayloadSize(int maxCachedPayloadSize) {
+        this.maxCachedPayloadSize = maxCachedPayloadSize;
+        if (getCachedPayloadSize() > maxCachedPayloadSize) {
+            releaseCachedPayload();
+        }
+    }
+
+    /**
+     * @return true if the decompressed payload is dropped once the body has been decoded.
+     */
+    public boolean isReleasePayloadOnDecode() {
+        return releasePayloadOnDecode;
+    }
+
+    /**
+     * Sets whether the decompressed payload is dropped as soon as the body has been decoded
+     * into its typed form, such as the Map of a map message, which then serves every
+     * further read.  This limits the heap used by messages that are held after being read.
+     *
+     * @param releasePayloadOnDecode
+     *        true to drop the decompressed payload after the body is decoded.
+     */
+    public void setReleasePayloadOnDecode(boolean releasePayloadOnDecode) {
+        this.releasePayloadOnDecode = releasePayloadOnDecode;
+    }
+
+    /**
+     * Drops the decompressed payload kept by this message, if any.
+     */
+    public void releaseCachedPayload() {
+        cachedPayload = null;
+        cachedPayloadSource = null;
+    }
+
+    /**
+     * Called by the subclasses once the payload has been decoded into the typed body that
+     * will serve every further read.
+     */
+    protected void onPayloadDecoded() {
+        if (releasePayloadOnDecode) {
+            releaseCachedPayload();
+        }
+    }
+
     /**
      * Set the contents of this message.
      *
@@ -183,9 +289,7 @@ public class OpenWireMessage extends Message {
     public void setPayload(Buffer buffer) throws JMSException {
         try {
             setContent(buffer);
-            if (isUseCompression()) {
-                doCompress();
-            }
+            compressPayload();
         } catch (IOException ioe) {
             throw ExceptionSupport.create(ioe);
         }
@@ -344,6 +448,53 @@ public class OpenWireMessage extends Message {
         return useCompression;
     }
 
+    /**
+     * Sets the policy that decides whether a payload is worth compressing when compression
+     * is enabled for this message.  With no policy every payload is compressed.
+     *
+     * @param compressionPolicy
+     *        the policy to consult, or null to always compress.
+     */
+    public void setCompressionPolicy(CompressionPolicy compressionPolicy) {
+        this.compressionPolicy = compressionPolicy;
+    }
+
+    /**
+     * @return the policy that decides whether a payload is worth compressing, or null.
+     */
+    public CompressionPolicy getCompressionPolicy() {
+        return compressionPolicy;
+    }
+
+    /**
+     * Compresses the current content if compression is enabled for this message and the
+     * compression policy, if any, considers it worthwhile.  When the policy rejects the
+     * compressed result the original content is kept and the message is not marked as
+     * compressed.
+     *
+     * @throws IOException if an error occurs during the compression process.
+     */
+    protected void compressPayload() throws IOException {
+        Buffer original = getContent();
+        if (!isUseCompression() || original == null) {
+            return;
+        }
+
+        CompressionPolicy policy = compressionPolicy;
+        if (policy == null) {
+            compressContent();
+            return;
+        }
+
+        if (policy.shouldCompress(this, original.getLength())) {
+            compressContent();
+            if (!policy.onCompressed(this, original.getLength(), getContent().getLength())) {
+                setContent(original);
+                compressed = false;
+            }
+        }
+    }
+
     @Override
     public Response visit(CommandVisitor visitor) throws Exception {
         return visitor.processMessage(this);
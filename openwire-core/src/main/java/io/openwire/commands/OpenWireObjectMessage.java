@@ -17,19 +17,14 @@
 
 package io.openwire.commands;
 
-import io.openwire.codec.OpenWireFormat;
 import io.openwire.utils.ExceptionSupport;
 import io.openwire.utils.ObjectMessageInputStream;
 
 import java.io.DataInputStream;
 import java.io.DataOutputStream;
 import java.io.IOException;
-import java.io.InputStream;
 import java.io.ObjectOutputStream;
-import java.io.OutputStream;
 import java.io.Serializable;
-import java.util.zip.DeflaterOutputStream;
-import java.util.zip.InflaterInputStream;
 
 import javax.jms.JMSException;
 
@@ -72,18 +67,14 @@ public class OpenWireObjectMessage extends OpenWireMessage {
         if (bodyAsBytes == null && object != null) {
             try {
                 ByteArrayOutputStream bytesOut = new ByteArrayOutputStream();
-                OutputStream os = bytesOut;
-                if (isUseCompression()) {
-                    compressed = true;
-                    os = new DeflaterOutputStream(os);
-                }
-                DataOutputStream dataOut = new DataOutputStream(os);
+                DataOutputStream dataOut = new DataOutputStream(bytesOut);
                 ObjectOutputStream objOut = new ObjectOutputStream(dataOut);
                 objOut.writeObject(object);
                 objOut.flush();
                 objOut.reset();
                 objOut.close();
                 setContent(bytesOut.toBuffer());
+                compressPayload();
             } catch (IOException ioe) {
                 throw new RuntimeException(ioe.getMessage(), ioe);
             }
@@ -147,15 +138,11 @@ public class OpenWireObjectMessage extends OpenWireMessage {
     public Serializable getObject() throws JMSException {
         if (object == null && getContent() != null) {
             try {
-                Buffer content = getContent();
-                InputStream is = new ByteArrayInputStream(content);
-                if (isCompressed()) {
-                    is = new InflaterInputStream(is);
-                }
-                DataInputStream dataIn = new DataInputStream(is);
+                DataInputStream dataIn = new DataInputStream(new ByteArrayInputStream(getPayload()));
                 ObjectMessageInputStream objIn = new ObjectMessageInputStream(dataIn);
                 try {
                     object = (Serializable)objIn.readObject();
+                    onPayloadDecoded();
                 } catch (ClassNotFoundException ce) {
                     throw ExceptionSupport.create("Failed to build body from content. Serializable class not available to broker. Reason: " + ce, ce);
                 } finally {
@@ -169,12 +156,6 @@ public class OpenWireObjectMessage extends OpenWireMessage {
         return this.object;
     }
 
-    @Override
-    public void beforeMarshall(OpenWireFormat wireFormat) throws IOException {
-        super.beforeMarshall(wireFormat);
-        storeContent();
-    }
-
     @Override
     public void clearMarshalledState() throws JMSException {
         super.clearMarshalledState();
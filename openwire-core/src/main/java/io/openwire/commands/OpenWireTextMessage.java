@@ -16,22 +16,17 @@
  */
 package io.openwire.commands;
 
-import io.openwire.codec.OpenWireFormat;
 import io.openwire.utils.ExceptionSupport;
 import io.openwire.utils.OpenWireMarshallingSupport;
 
-import java.io.DataInputStream;
-import java.io.DataOutputStream;
 import java.io.IOException;
-import java.io.InputStream;
-import java.io.OutputStream;
 
 import javax.jms.JMSException;
 import javax.jms.MessageNotWriteableException;
 
 import org.fusesource.hawtbuf.Buffer;
-import org.fusesource.hawtbuf.ByteArrayInputStream;
-import org.fusesource.hawtbuf.ByteArrayOutputStream;
+import org.fusesource.hawtbuf.DataByteArrayInputStream;
+import org.fusesource.hawtbuf.DataByteArrayOutputStream;
 
 /**
  * openwire:marshaller code="28"
@@ -80,33 +75,16 @@ public class OpenWireTextMessage extends OpenWireMessage {
     private String decodeContent() throws JMSException {
         String text = null;
         if (hasContent()) {
-            InputStream is = null;
             try {
-                is = new ByteArrayInputStream(getPayload());
-                DataInputStream dataIn = new DataInputStream(is);
-                text = OpenWireMarshallingSupport.readUTF8(dataIn);
-                dataIn.close();
+                // Read from the payload array directly so the text is decoded in place.
+                text = OpenWireMarshallingSupport.readUTF8(new DataByteArrayInputStream(getPayload()));
             } catch (IOException ioe) {
                 throw ExceptionSupport.create(ioe);
-            } finally {
-                if (is != null) {
-                    try {
-                        is.close();
-                    } catch (IOException e) {
-                        // ignore
-                    }
-                }
             }
         }
         return text;
     }
 
-    @Override
-    public void beforeMarshall(OpenWireFormat wireFormat) throws IOException {
-        super.beforeMarshall(wireFormat);
-        storeContent();
-    }
-
     @Override
     public void storeContentAndClear() {
         storeContent();
@@ -118,12 +96,11 @@ public class OpenWireTextMessage extends OpenWireMessage {
         try {
             Buffer content = getContent();
             if (content == null && text != null) {
-                ByteArrayOutputStream bytesOut = new ByteArrayOutputStream();
-                OutputStream os = bytesOut;
-                DataOutputStream dataOut = new DataOutputStream(os);
+                // Sized for ASCII text, which is then encoded straight into the array.
+                DataByteArrayOutputStream dataOut = new DataByteArrayOutputStream(text.length() + 4);
                 OpenWireMarshallingSupport.writeUTF8(dataOut, this.text);
                 dataOut.close();
-                setPayload(bytesOut.toBuffer());
+                setPayload(dataOut.toBuffer());
             }
         } catch (Exception e) {
             throw new RuntimeException(e);
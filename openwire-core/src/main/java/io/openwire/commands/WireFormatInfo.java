@@ -232,6 +232,24 @@ public class WireFormatInfo implements Command, MarshallAware {
         setProperty("TightEncodingEnabled", tightEncodingEnabled ? Boolean.TRUE : Boolean.FALSE);
     }
 
+    /**
+     * @return the comma separated names of the message body compression codecs supported by
+     *         the sender in order of preference, or null if only deflate is supported.
+     *
+     * @throws IOException
+     */
+    public String getCompressionCodecs() throws IOException {
+        Object o = getProperty("CompressionCodecs");
+        if (o == null) {
+            return null;
+        }
+        return o.toString();
+    }
+
+    public void setCompressionCodecs(String compressionCodecs) throws IOException {
+        setProperty("CompressionCodecs", compressionCodecs);
+    }
+
     public String getHost() throws IOException {
         UTF8Buffer buff = (UTF8Buffer) getProperty("Host");
         if (buff == null) {
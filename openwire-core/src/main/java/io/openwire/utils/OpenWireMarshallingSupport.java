@@ -18,6 +18,7 @@ package io.openwire.utils;
 
 import java.io.DataInput;
 import java.io.DataOutput;
+import java.io.EOFException;
 import java.io.IOException;
 import java.io.UTFDataFormatException;
 import java.util.ArrayList;
@@ -51,6 +52,8 @@ public final class OpenWireMarshallingSupport {
     public static final byte LIST_TYPE = 12;
     public static final byte BIG_STRING_TYPE = 13;
 
+    private static final int UTF8_CHUNK_SIZE = 8 * 1024;
+
     private OpenWireMarshallingSupport() {
     }
 
@@ -296,117 +299,182 @@ public final class OpenWireMarshallingSupport {
         }
     }
 
+    /**
+     * Writes the String as an int length prefix followed by its modified UTF-8 encoding, the
+     * same encoding DataOutput.writeUTF produces without its 64k limit.  The bytes are encoded
+     * straight into the array of a DataByteArrayOutputStream, for any other DataOutput they
+     * are written in chunks of at most 8k.
+     */
     public static void writeUTF8(DataOutput dataOut, String text) throws IOException {
-        if (text != null) {
-            int strlen = text.length();
-            int utflen = 0;
-            char[] charr = new char[strlen];
-            int c = 0;
-            int count = 0;
+        if (text == null) {
+            dataOut.writeInt(-1);
+            return;
+        }
 
-            text.getChars(0, strlen, charr, 0);
+        int strlen = text.length();
+        int utflen = encodedUTF8Length(text);
+
+        if (dataOut.getClass() == DataByteArrayOutputStream.class) {
+            DataByteArrayOutputStream out = (DataByteArrayOutputStream) dataOut;
+            out.writeInt(utflen);
+            int position = out.position();
+            out.skip(utflen);
+            encodeUTF8(text, 0, strlen, out.getData(), position);
+        } else if (utflen <= UTF8_CHUNK_SIZE) {
+            byte[] bytearr = new byte[utflen + 4];
+            bytearr[0] = (byte) ((utflen >>> 24) & 0xFF);
+            bytearr[1] = (byte) ((utflen >>> 16) & 0xFF);
+            bytearr[2] = (byte) ((utflen >>> 8) & 0xFF);
+            bytearr[3] = (byte) ((utflen >>> 0) & 0xFF);
+            encodeUTF8(text, 0, strlen, bytearr, 4);
+            dataOut.write(bytearr);
+        } else {
+            dataOut.writeInt(utflen);
 
-            for (int i = 0; i < strlen; i++) {
-                c = charr[i];
-                if ((c >= 0x0001) && (c <= 0x007F)) {
-                    utflen++;
-                } else if (c > 0x07FF) {
-                    utflen += 3;
-                } else {
-                    utflen += 2;
+            // Every char needs at most three bytes so each step fills the chunk without overflowing it.
+            byte[] chunk = new byte[UTF8_CHUNK_SIZE];
+            int count = 0;
+            int i = 0;
+            while (i < strlen) {
+                int next = Math.min(strlen, i + (chunk.length - count) / 3);
+                count = encodeUTF8(text, i, next, chunk, count);
+                i = next;
+                if (chunk.length - count < 3) {
+                    dataOut.write(chunk, 0, count);
+                    count = 0;
                 }
             }
-            // TODO diff: Sun code - removed
-            byte[] bytearr = new byte[utflen + 4]; // TODO diff: Sun code
-            bytearr[count++] = (byte) ((utflen >>> 24) & 0xFF); // TODO diff:
-            // Sun code
-            bytearr[count++] = (byte) ((utflen >>> 16) & 0xFF); // TODO diff:
-            // Sun code
-            bytearr[count++] = (byte) ((utflen >>> 8) & 0xFF);
-            bytearr[count++] = (byte) ((utflen >>> 0) & 0xFF);
-            for (int i = 0; i < strlen; i++) {
-                c = charr[i];
-                if ((c >= 0x0001) && (c <= 0x007F)) {
-                    bytearr[count++] = (byte) c;
-                } else if (c > 0x07FF) {
-                    bytearr[count++] = (byte) (0xE0 | ((c >> 12) & 0x0F));
-                    bytearr[count++] = (byte) (0x80 | ((c >> 6) & 0x3F));
-                    bytearr[count++] = (byte) (0x80 | ((c >> 0) & 0x3F));
-                } else {
-                    bytearr[count++] = (byte) (0xC0 | ((c >> 6) & 0x1F));
-                    bytearr[count++] = (byte) (0x80 | ((c >> 0) & 0x3F));
-                }
+            dataOut.write(chunk, 0, count);
+        }
+    }
+
+    /**
+     * Reads a String written by {@link #writeUTF8(DataOutput, String)}.  The bytes of a
+     * DataByteArrayInputStream are decoded in place, from any other DataInput they are read
+     * into a temporary array first.
+     */
+    public static String readUTF8(DataInput dataIn) throws IOException {
+        int utflen = dataIn.readInt();
+        if (utflen < 0) {
+            return null;
+        }
+
+        if (dataIn instanceof DataByteArrayInputStream) {
+            DataByteArrayInputStream in = (DataByteArrayInputStream) dataIn;
+            if (in.available() < utflen) {
+                throw new EOFException();
             }
-            dataOut.write(bytearr);
 
-        } else {
-            dataOut.writeInt(-1);
+            int position = in.getPos();
+            in.setPos(position + utflen);
+            return decodeUTF8(in.getRawData(), position, utflen);
         }
+
+        byte[] bytearr = new byte[utflen];
+        dataIn.readFully(bytearr, 0, utflen);
+        return decodeUTF8(bytearr, 0, utflen);
     }
 
-    public static String readUTF8(DataInput dataIn) throws IOException {
-        int utflen = dataIn.readInt(); // TODO diff: Sun code
-        if (utflen > -1) {
-            StringBuffer str = new StringBuffer(utflen);
-            byte bytearr[] = new byte[utflen];
-            int c;
-            int char2;
-            int char3;
-            int count = 0;
+    private static int encodedUTF8Length(String text) {
+        int strlen = text.length();
+        int utflen = strlen;
+        for (int i = 0; i < strlen; i++) {
+            int c = text.charAt(i);
+            if (c > 0x007F || c == 0) {
+                utflen += c > 0x07FF ? 2 : 1;
+            }
+        }
+        return utflen;
+    }
 
-            dataIn.readFully(bytearr, 0, utflen);
-
-            while (count < utflen) {
-                c = bytearr[count] & 0xff;
-                switch (c >> 4) {
-                    case 0:
-                    case 1:
-                    case 2:
-                    case 3:
-                    case 4:
-                    case 5:
-                    case 6:
-                    case 7:
-                        /* 0xxxxxxx */
-                        count++;
-                        str.append((char) c);
-                        break;
-                    case 12:
-                    case 13:
-                        /* 110x xxxx 10xx xxxx */
-                        count += 2;
-                        if (count > utflen) {
-                            throw new UTFDataFormatException();
-                        }
-                        char2 = bytearr[count - 1];
-                        if ((char2 & 0xC0) != 0x80) {
-                            throw new UTFDataFormatException();
-                        }
-                        str.append((char) (((c & 0x1F) << 6) | (char2 & 0x3F)));
-                        break;
-                    case 14:
-                        /* 1110 xxxx 10xx xxxx 10xx xxxx */
-                        count += 3;
-                        if (count > utflen) {
-                            throw new UTFDataFormatException();
-                        }
-                        char2 = bytearr[count - 2]; // TODO diff: Sun code
-                        char3 = bytearr[count - 1]; // TODO diff: Sun code
-                        if (((char2 & 0xC0) != 0x80) || ((char3 & 0xC0) != 0x80)) {
-                            throw new UTFDataFormatException();
-                        }
-                        str.append((char) (((c & 0x0F) << 12) | ((char2 & 0x3F) << 6) | ((char3 & 0x3F) << 0)));
-                        break;
-                    default:
-                        /* 10xx xxxx, 1111 xxxx */
-                        throw new UTFDataFormatException();
+    private static int encodeUTF8(String text, int start, int end, byte[] bytearr, int count) {
+        for (int i = start; i < end; i++) {
+            int c = text.charAt(i);
+            if ((c >= 0x0001) && (c <= 0x007F)) {
+                bytearr[count++] = (byte) c;
+            } else if (c > 0x07FF) {
+                bytearr[count++] = (byte) (0xE0 | ((c >> 12) & 0x0F));
+                bytearr[count++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+                bytearr[count++] = (byte) (0x80 | ((c >> 0) & 0x3F));
+            } else {
+                bytearr[count++] = (byte) (0xC0 | ((c >> 6) & 0x1F));
+                bytearr[count++] = (byte) (0x80 | ((c >> 0) & 0x3F));
+            }
+        }
+        return count;
+    }
+
+    private static String decodeUTF8(byte[] bytearr, int offset, int utflen) throws UTFDataFormatException {
+        // The number of chars produced may be less than utflen
+        char[] chararr = new char[utflen];
+        int chars = 0;
+        int count = offset;
+        int end = offset + utflen;
+
+        while (count < end) {
+            int c = bytearr[count];
+            if (c >= 0) {
+                // Runs of ASCII are copied eight bytes at a time once a check of all eight
+                // sign bits together shows that none of them starts a multi-byte sequence.
+                if (count + 8 <= end &&
+                    (bytearr[count + 1] | bytearr[count + 2] | bytearr[count + 3] | bytearr[count + 4] |
+                     bytearr[count + 5] | bytearr[count + 6] | bytearr[count + 7]) >= 0) {
+
+                    chararr[chars] = (char) c;
+                    chararr[chars + 1] = (char) bytearr[count + 1];
+                    chararr[chars + 2] = (char) bytearr[count + 2];
+                    chararr[chars + 3] = (char) bytearr[count + 3];
+                    chararr[chars + 4] = (char) bytearr[count + 4];
+                    chararr[chars + 5] = (char) bytearr[count + 5];
+                    chararr[chars + 6] = (char) bytearr[count + 6];
+                    chararr[chars + 7] = (char) bytearr[count + 7];
+                    chars += 8;
+                    count += 8;
+                } else {
+                    /* 0xxxxxxx */
+                    chararr[chars++] = (char) c;
+                    count++;
                 }
+                continue;
+            }
+
+            c &= 0xFF;
+            switch (c >> 4) {
+                case 12:
+                case 13: {
+                    /* 110x xxxx 10xx xxxx */
+                    if (count + 2 > end) {
+                        throw new UTFDataFormatException("Malformed input: partial character at end");
+                    }
+                    int char2 = bytearr[count + 1];
+                    if ((char2 & 0xC0) != 0x80) {
+                        throw new UTFDataFormatException("Malformed input around byte " + (count - offset));
+                    }
+                    chararr[chars++] = (char) (((c & 0x1F) << 6) | (char2 & 0x3F));
+                    count += 2;
+                    break;
+                }
+                case 14: {
+                    /* 1110 xxxx 10xx xxxx 10xx xxxx */
+                    if (count + 3 > end) {
+                        throw new UTFDataFormatException("Malformed input: partial character at end");
+                    }
+                    int char2 = bytearr[count + 1];
+                    int char3 = bytearr[count + 2];
+                    if (((char2 & 0xC0) != 0x80) || ((char3 & 0xC0) != 0x80)) {
+                        throw new UTFDataFormatException("Malformed input around byte " + (count - offset));
+                    }
+                    chararr[chars++] = (char) (((c & 0x0F) << 12) | ((char2 & 0x3F) << 6) | ((char3 & 0x3F) << 0));
+                    count += 3;
+                    break;
+                }
+                default:
+                    /* 10xx xxxx, 1111 xxxx */
+                    throw new UTFDataFormatException("Malformed input around byte " + (count - offset));
             }
-            // The number of chars produced may be less than utflen
-            return new String(str);
-        } else {
-            return null;
         }
+
+        return new String(chararr, 0, chars);
     }
 
     public static String propertiesToString(Properties props) throws IOException {
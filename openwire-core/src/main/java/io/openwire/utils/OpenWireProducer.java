@@ -16,8 +16,10 @@
  */
 package io.openwire.utils;
 
+import io.openwire.codec.CompressionPolicy;
 import io.openwire.commands.MessageId;
 import io.openwire.commands.OpenWireDestination;
+import io.openwire.commands.OpenWireMessage;
 import io.openwire.commands.ProducerId;
 import io.openwire.commands.ProducerInfo;
 import io.openwire.commands.RemoveInfo;
@@ -35,6 +37,8 @@ public class OpenWireProducer extends ProducerInfo {
 
     private final AtomicLong messageSequence = new AtomicLong(1);
 
+    private CompressionPolicy compressionPolicy;
+
     /**
      * Creates a new instance with the given parent Session Id and assigned Producer Id
      *
@@ -84,6 +88,38 @@ public class OpenWireProducer extends ProducerInfo {
         return new MessageId(producerId, messageSequence.getAndIncrement());
     }
 
+    /**
+     * @return the compression policy applied to the messages of this producer, or null.
+     */
+    public CompressionPolicy getCompressionPolicy() {
+        return compressionPolicy;
+    }
+
+    /**
+     * Sets the compression policy that decides whether the payloads of this producer's
+     * messages are worth compressing.
+     *
+     * @param compressionPolicy
+     *        the policy to apply, or null to compress every payload.
+     */
+    public void setCompressionPolicy(CompressionPolicy compressionPolicy) {
+        this.compressionPolicy = compressionPolicy;
+    }
+
+    /**
+     * Applies the compression policy of this producer to a message it is about to send,
+     * unless the message has been given a policy of its own.  This must be done before the
+     * message payload is set.
+     *
+     * @param message
+     *        the message to configure.
+     */
+    public void applyCompressionPolicy(OpenWireMessage message) {
+        if (message.getCompressionPolicy() == null) {
+            message.setCompressionPolicy(compressionPolicy);
+        }
+    }
+
     @Override
     public String toString() {
         return producerId.toString();
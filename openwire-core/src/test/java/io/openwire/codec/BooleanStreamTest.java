@@ -16,7 +16,9 @@
  */
 package io.openwire.codec;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 import io.openwire.codec.BooleanStream;
 import io.openwire.codec.OpenWireFormat;
@@ -86,6 +88,71 @@ public class BooleanStreamTest {
         });
     }
 
+    @Test
+    public void testBitsMatchIndividualBooleans() throws Exception {
+        for (int prefix = 0; prefix < 70; prefix++) {
+            BooleanStream expected = new BooleanStream();
+            BooleanStream actual = new BooleanStream();
+            for (int i = 0; i < prefix; i++) {
+                expected.writeBoolean((i % 3) == 0);
+                actual.writeBoolean((i % 3) == 0);
+            }
+
+            int value = 0x2D5;
+            for (int i = 0; i < 10; i++) {
+                expected.writeBoolean(((value >>> i) & 1) != 0);
+            }
+            actual.writeBits(value, 10);
+            expected.writeBoolean(true);
+            actual.writeBoolean(true);
+
+            assertArrayEquals("Prefix of " + prefix + " bits", marshal(expected), marshal(actual));
+
+            for (int i = 0; i < prefix; i++) {
+                actual.readBoolean();
+            }
+            assertEquals(value, actual.readBits(10));
+            assertTrue(actual.readBoolean());
+        }
+    }
+
+    @Test
+    public void testResetAllowsReuse() throws Exception {
+        BooleanStream bs = new BooleanStream();
+        for (int i = 0; i < 1000; i++) {
+            bs.writeBoolean(true);
+        }
+        marshal(bs);
+
+        bs.reset();
+        bs.writeBoolean(false);
+        bs.writeBits(2, 2);
+        assertEquals(2, bs.marshalledSize());
+        assertArrayEquals(new byte[] { 1, 4 }, marshal(bs));
+    }
+
+    @Test
+    public void testUnmarshalIntoReusedStream() throws Exception {
+        BooleanStream bs = new BooleanStream();
+        for (int count : new int[] { 700, 3, 130, 0, 64 }) {
+            BooleanStream source = new BooleanStream();
+            for (int i = 0; i < count; i++) {
+                source.writeBoolean((i & 2) != 0);
+            }
+
+            bs.unmarshal(new DataInputStream(new ByteArrayInputStream(marshal(source))));
+            for (int i = 0; i < count; i++) {
+                assertEquals((i & 2) != 0, bs.readBoolean());
+            }
+        }
+    }
+
+    private byte[] marshal(BooleanStream bs) throws IOException {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        bs.marshal(new DataOutputStream(buffer));
+        return buffer.toByteArray();
+    }
+
     protected void testBooleanStream(int numberOfBytes, BooleanValueSet valueSet) throws Exception {
         for (int i = 0; i < numberOfBytes; i++) {
             try {
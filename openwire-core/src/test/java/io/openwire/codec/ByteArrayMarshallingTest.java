@@ -0,0 +1,328 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.openwire.codec;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import io.openwire.commands.CommandTypes;
+import io.openwire.commands.DataStructure;
+import io.openwire.commands.OpenWireDestination;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.List;
+
+import org.fusesource.hawtbuf.Buffer;
+import org.fusesource.hawtbuf.DataByteArrayInputStream;
+import org.fusesource.hawtbuf.DataByteArrayOutputStream;
+import org.junit.Test;
+
+/**
+ * Test that the marshallers writing straight into the frame array produce the same frames
+ * as those writing through a DataOutput, and read back the same commands as those reading
+ * through a DataInput.
+ */
+public class ByteArrayMarshallingTest extends OpenWireFormatTestSupport {
+
+    @Test
+    public void testBigEndianBytesMatchDataOutput() throws Exception {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream expected = new DataOutputStream(bytes);
+        byte[] actual = new byte[32];
+        int position = 0;
+
+        long[] values = { 0, 1, -1, 0x7F, 0x80, 0xFFFF, 0x12345678, Long.MIN_VALUE, Long.MAX_VALUE };
+        for (long value : values) {
+            expected.writeBoolean(value != 0);
+            expected.writeByte((int) value);
+            expected.writeShort((int) value);
+            expected.writeChar((int) value);
+            expected.writeInt((int) value);
+            expected.writeLong(value);
+
+            position = 0;
+            position = BigEndianBytes.putBoolean(actual, position, value != 0);
+            position = BigEndianBytes.putByte(actual, position, (int) value);
+            position = BigEndianBytes.putShort(actual, position, (int) value);
+            position = BigEndianBytes.putChar(actual, position, (int) value);
+            position = BigEndianBytes.putInt(actual, position, (int) value);
+            position = BigEndianBytes.putLong(actual, position, value);
+
+            byte[] written = bytes.toByteArray();
+            assertEquals(written.length, position);
+            for (int i = 0; i < position; ++i) {
+                assertEquals("value " + value + " byte " + i, written[i], actual[i]);
+            }
+            bytes.reset();
+        }
+    }
+
+    @Test
+    public void testBigEndianBytesMatchDataInput() throws Exception {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream dataOut = new DataOutputStream(bytes);
+
+        long[] values = { 0, 1, -1, 0x7F, 0x80, 0xFFFF, 0x12345678, Long.MIN_VALUE, Long.MAX_VALUE };
+        for (long value : values) {
+            dataOut.writeShort((int) value);
+            dataOut.writeChar((int) value);
+            dataOut.writeInt((int) value);
+            dataOut.writeLong(value);
+        }
+
+        byte[] written = bytes.toByteArray();
+        DataInputStream expected = new DataInputStream(new ByteArrayInputStream(written));
+        int position = 0;
+        for (long value : values) {
+            assertEquals("value " + value, expected.readShort(), BigEndianBytes.getShort(written, position));
+            assertEquals("value " + value, expected.readChar(), BigEndianBytes.getChar(written, position + 2));
+            assertEquals("value " + value, expected.readInt(), BigEndianBytes.getInt(written, position + 4));
+            assertEquals("value " + value, expected.readLong(), BigEndianBytes.getLong(written, position + 8));
+            position += 16;
+        }
+        assertEquals(written.length, position);
+    }
+
+    @Test
+    public void testOnlyFullySupportedVersionsWriteToArrays() throws Exception {
+        assertTrue(supportsByteArrays(CommandTypes.PROTOCOL_VERSION));
+        assertFalse(supportsByteArrays(9));
+        assertFalse(supportsByteArrays(1));
+    }
+
+    @Test
+    public void testFramesMatchWithCache() throws Exception {
+        doTestFramesMatch(true, false);
+    }
+
+    @Test
+    public void testFramesMatchWithoutCache() throws Exception {
+        doTestFramesMatch(false, false);
+    }
+
+    @Test
+    public void testFramesMatchWithoutSizePrefix() throws Exception {
+        doTestFramesMatch(true, true);
+    }
+
+    @Test
+    public void testBatchFramesMatch() throws Exception {
+        OpenWireFormat expectedFormat = createOpenWireFormat(true, true);
+        OpenWireFormat wireFormat = createOpenWireFormat(true, true);
+
+        ByteBuffer expected = ByteBuffer.allocate(64 * 1024);
+        for (Object command : createCommands()) {
+            assertTrue(expectedFormat.marshal(command, expected) > 0);
+        }
+        expected.flip();
+
+        Buffer actual = wireFormat.marshalBatch(createCommands());
+        assertArrayEquals(toArray(expected), actual.toByteArray());
+    }
+
+    @Test
+    public void testFramesCanBeUnmarshaled() throws Exception {
+        OpenWireFormat writer = createOpenWireFormat(true, true);
+        OpenWireFormat reader = createOpenWireFormat(true, true);
+
+        for (DataStructure command : createCommands()) {
+            Object result = reader.unmarshal(writer.marshal(command));
+            assertEquals(command.getClass(), result.getClass());
+        }
+    }
+
+    @Test
+    public void testFramesReadFromArraysMatchDataInputWithCache() throws Exception {
+        doTestFramesReadFromArraysMatch(true, false);
+    }
+
+    @Test
+    public void testFramesReadFromArraysMatchDataInputWithoutCache() throws Exception {
+        doTestFramesReadFromArraysMatch(false, false);
+    }
+
+    @Test
+    public void testFramesReadFromArraysMatchDataInputWithoutSizePrefix() throws Exception {
+        doTestFramesReadFromArraysMatch(true, true);
+    }
+
+    @Test
+    public void testFrameReadFromArrayAtOffset() throws Exception {
+        OpenWireFormat writer = createOpenWireFormat(true, false);
+        OpenWireFormat reader = createOpenWireFormat(true, false);
+
+        byte[] frame = writer.marshal(createMessage(1)).toByteArray();
+        byte[] data = new byte[frame.length + 16];
+        System.arraycopy(frame, 0, data, 8, frame.length);
+
+        Object result = reader.unmarshal(new Buffer(data, 8, frame.length));
+        assertArrayEquals(frame, writer.marshal(result).toByteArray());
+    }
+
+    @Test
+    public void testTruncatedFrameIsRejected() throws Exception {
+        OpenWireFormat writer = createOpenWireFormat(true, false);
+        OpenWireFormat reader = createOpenWireFormat(true, false);
+
+        for (DataStructure command : createCommands()) {
+            byte[] frame = writer.marshal(command).toByteArray();
+
+            // The array is longer than the frame so reads past its end stay within the array.
+            byte[] data = new byte[frame.length * 2];
+            System.arraycopy(frame, 0, data, 0, frame.length);
+            Arrays.fill(data, frame.length - 1, data.length, (byte) 0x7F);
+            try {
+                reader.unmarshal(new Buffer(data, 0, frame.length - 1));
+                fail("Should not read a truncated " + command.getClass().getSimpleName());
+            } catch (EOFException expected) {
+            }
+        }
+    }
+
+    @Test
+    public void testDefaultObjectOfEveryTypeMatches() throws Exception {
+        DataStreamMarshaller[] marshallers = MarshallerRegistry.getMarshallers(CommandTypes.PROTOCOL_VERSION);
+        OpenWireFormat wireFormat = createOpenWireFormat(true, false);
+
+        for (DataStreamMarshaller marshaller : marshallers) {
+            if (marshaller == null) {
+                continue;
+            }
+
+            DataStructure object = marshaller.createObject();
+            BooleanStream bs = new BooleanStream();
+            int size = marshaller.tightMarshal1(wireFormat, object, bs);
+
+            DataByteArrayOutputStream expected = new DataByteArrayOutputStream();
+            marshaller.tightMarshal2(wireFormat, object, expected, copy(bs));
+
+            byte[] actual = new byte[size + 2];
+            int end = ((ByteArrayMarshaller) marshaller).tightMarshal2(wireFormat, object, actual, 2, bs);
+            assertEquals(object.getClass().getSimpleName(), size + 2, end);
+
+            byte[] body = new byte[size];
+            System.arraycopy(actual, 2, body, 0, size);
+            assertArrayEquals(object.getClass().getSimpleName(), expected.toBuffer().toByteArray(), body);
+        }
+    }
+
+    @Test
+    public void testDefaultObjectOfEveryTypeReadsBack() throws Exception {
+        DataStreamMarshaller[] marshallers = MarshallerRegistry.getMarshallers(CommandTypes.PROTOCOL_VERSION);
+        OpenWireFormat wireFormat = createOpenWireFormat(true, false);
+
+        for (DataStreamMarshaller marshaller : marshallers) {
+            if (marshaller == null) {
+                continue;
+            }
+
+            DataStructure object = marshaller.createObject();
+            BooleanStream bs = new BooleanStream();
+            int size = marshaller.tightMarshal1(wireFormat, object, bs);
+
+            byte[] data = new byte[size + 2];
+            ((ByteArrayMarshaller) marshaller).tightMarshal2(wireFormat, object, data, 2, copy(bs));
+
+            // A destination without a name is refused by either form of the marshallers.
+            if (object instanceof OpenWireDestination) {
+                continue;
+            }
+
+            DataStructure actual = marshaller.createObject();
+            int end = ((ByteArrayMarshaller) marshaller).tightUnmarshal(wireFormat, actual, data, 2, bs);
+            assertEquals(object.getClass().getSimpleName(), size + 2, end);
+        }
+    }
+
+    /**
+     * Reads the same frames through the byte array marshallers and through the DataInput form
+     * of the marshallers, the commands must marshal back to the same bytes.
+     */
+    private void doTestFramesReadFromArraysMatch(boolean cacheEnabled, boolean sizePrefixDisabled) throws Exception {
+        OpenWireFormat writer = createOpenWireFormat(true, cacheEnabled);
+        writer.setSizePrefixDisabled(sizePrefixDisabled);
+        OpenWireFormat arrayReader = createOpenWireFormat(true, cacheEnabled);
+        arrayReader.setSizePrefixDisabled(sizePrefixDisabled);
+        OpenWireFormat streamReader = createOpenWireFormat(true, cacheEnabled);
+        streamReader.setSizePrefixDisabled(sizePrefixDisabled);
+        OpenWireFormat expectedFormat = createOpenWireFormat(true, false);
+        OpenWireFormat actualFormat = createOpenWireFormat(true, false);
+
+        // The commands are marshaled twice so that the second pass reads cached values.
+        List<DataStructure> commands = createCommands();
+        commands.addAll(createCommands());
+        for (DataStructure command : commands) {
+            byte[] frame = writer.marshal(command).toByteArray();
+
+            Object expected = streamReader.unmarshal(new DataInputStream(new ByteArrayInputStream(frame)));
+            Object actual = arrayReader.unmarshal(new Buffer(frame));
+
+            assertEquals(expected.getClass(), actual.getClass());
+            assertArrayEquals(command.getClass().getSimpleName(),
+                expectedFormat.marshal(expected).toByteArray(), actualFormat.marshal(actual).toByteArray());
+        }
+    }
+
+    private void doTestFramesMatch(boolean cacheEnabled, boolean sizePrefixDisabled) throws Exception {
+        OpenWireFormat expectedFormat = createOpenWireFormat(true, cacheEnabled);
+        expectedFormat.setSizePrefixDisabled(sizePrefixDisabled);
+        OpenWireFormat wireFormat = createOpenWireFormat(true, cacheEnabled);
+        wireFormat.setSizePrefixDisabled(sizePrefixDisabled);
+
+        // Frames written to a ByteBuffer go through the DataOutput form of the marshallers.
+        for (DataStructure command : createCommands()) {
+            ByteBuffer expected = ByteBuffer.allocate(64 * 1024);
+            int size = expectedFormat.marshal(command, expected);
+            expected.flip();
+
+            Buffer actual = wireFormat.marshal(command);
+            assertEquals(size, actual.length);
+            assertArrayEquals(command.getClass().getSimpleName(), toArray(expected), actual.toByteArray());
+        }
+    }
+
+    private boolean supportsByteArrays(int version) {
+        for (DataStreamMarshaller marshaller : MarshallerRegistry.getMarshallers(version)) {
+            if (marshaller != null && !(marshaller instanceof ByteArrayMarshaller)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private BooleanStream copy(BooleanStream bs) throws Exception {
+        DataByteArrayOutputStream bits = new DataByteArrayOutputStream();
+        bs.marshal(bits);
+        BooleanStream result = new BooleanStream();
+        result.unmarshal(new DataByteArrayInputStream(bits.toBuffer()));
+        return result;
+    }
+
+    private byte[] toArray(ByteBuffer buffer) {
+        byte[] result = new byte[buffer.remaining()];
+        buffer.get(result);
+        return result;
+    }
+}
@@ -0,0 +1,220 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.openwire.codec;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import io.openwire.commands.CommandTypes;
+import io.openwire.commands.ConnectionId;
+import io.openwire.commands.ExceptionResponse;
+import io.openwire.commands.OpenWireTextMessage;
+import io.openwire.commands.SessionId;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import org.fusesource.hawtbuf.Buffer;
+import org.junit.Test;
+
+/**
+ * Test the per command type metrics recorded by an OpenWireFormat.
+ */
+public class CodecMetricsTest extends OpenWireFormatTestSupport {
+
+    @Test
+    public void testNothingRecordedByDefault() throws Exception {
+        OpenWireFormat wireFormat = new OpenWireFormat(CommandTypes.PROTOCOL_VERSION);
+        assertNull(wireFormat.getCodecMetrics());
+        wireFormat.unmarshal(wireFormat.marshal(createMessage(1)));
+    }
+
+    @Test
+    public void testEncodeAndDecodeAreCountedPerType() throws Exception {
+        CodecMetrics metrics = new CodecMetrics();
+        OpenWireFormat wireFormat = createOpenWireFormat(true, false);
+        wireFormat.setCodecMetrics(metrics);
+
+        Buffer message = wireFormat.marshal(createMessage(1));
+        Buffer second = wireFormat.marshal(createMessage(1));
+        Buffer error = wireFormat.marshal(new ExceptionResponse(new Exception("failed")));
+        wireFormat.marshal(null);
+        wireFormat.unmarshal(message);
+
+        CodecMetricsSnapshot snapshot = metrics.snapshot();
+        assertEquals(2, snapshot.getCommandTypes().size());
+
+        CommandTypeMetrics messages = snapshot.getCommandType(OpenWireTextMessage.DATA_STRUCTURE_TYPE);
+        assertEquals(2, messages.getEncodedFrames());
+        assertEquals(message.length + second.length, messages.getEncodedBytes());
+        assertEquals(message.length, messages.getLargestEncodedFrame());
+        assertEquals(1, messages.getDecodedFrames());
+        assertEquals(message.length, messages.getDecodedBytes());
+        assertEquals(2, messages.getEncodeLatency().getCount());
+        assertEquals(2, sum(messages.getEncodeLatency().getBuckets()));
+        assertEquals(1, sum(messages.getDecodeLatency().getBuckets()));
+        assertTrue(messages.getEncodeLatency().getPercentile(99) > 0);
+
+        CommandTypeMetrics errors = snapshot.getCommandType(ExceptionResponse.DATA_STRUCTURE_TYPE);
+        assertEquals(1, errors.getEncodedFrames());
+        assertEquals(error.length, errors.getEncodedBytes());
+        assertEquals(0, errors.getDecodedFrames());
+        assertEquals(0, errors.getDecodeLatency().getPercentile(50));
+
+        assertNull(snapshot.getCommandType(CommandTypes.MESSAGE_ACK));
+    }
+
+    @Test
+    public void testEveryEncodeAndDecodePathIsCounted() throws Exception {
+        doTestEveryEncodeAndDecodePathIsCounted(true);
+        doTestEveryEncodeAndDecodePathIsCounted(false);
+    }
+
+    @Test
+    public void testEncoderAndDecoderRecordIntoTheSameMetrics() throws Exception {
+        CodecMetrics metrics = new CodecMetrics();
+        OpenWireFormat wireFormat = createOpenWireFormat(true, false);
+        wireFormat.setCodecMetrics(metrics);
+
+        Buffer frame = wireFormat.createEncoder().encode(createMessage(1));
+        wireFormat.createDecoder().decode(frame);
+
+        CommandTypeMetrics messages = metrics.snapshot().getCommandType(OpenWireTextMessage.DATA_STRUCTURE_TYPE);
+        assertEquals(1, messages.getEncodedFrames());
+        assertEquals(1, messages.getDecodedFrames());
+    }
+
+    @Test
+    public void testMetricsSharedByManyFormats() throws Exception {
+        CodecMetrics metrics = new CodecMetrics();
+        OpenWireFormat first = createOpenWireFormat(true, false);
+        first.setCodecMetrics(metrics);
+        OpenWireFormat second = createOpenWireFormat(false, false);
+        second.setCodecMetrics(metrics);
+
+        int size = first.marshal(createMessage(1)).length + second.marshal(createMessage(1)).length;
+
+        CommandTypeMetrics messages = metrics.snapshot().getCommandType(OpenWireTextMessage.DATA_STRUCTURE_TYPE);
+        assertEquals(2, messages.getEncodedFrames());
+        assertEquals(size, messages.getEncodedBytes());
+    }
+
+    @Test
+    public void testByteBufferOverflowIsNotCounted() throws Exception {
+        CodecMetrics metrics = new CodecMetrics();
+        OpenWireFormat wireFormat = createOpenWireFormat(true, false);
+        wireFormat.setCodecMetrics(metrics);
+
+        assertTrue(wireFormat.marshal(createMessage(1), ByteBuffer.allocate(4)) < 0);
+        assertTrue(metrics.snapshot().getCommandTypes().isEmpty());
+    }
+
+    @Test
+    public void testRecordersOfFormatsThatStopRecordingAreDropped() throws Exception {
+        CodecMetrics metrics = new CodecMetrics();
+        OpenWireFormat other = createOpenWireFormat(true, false);
+        other.setCodecMetrics(metrics);
+
+        int size = 0;
+        for (int i = 0; i < 10; ++i) {
+            OpenWireFormat wireFormat = createOpenWireFormat(true, false);
+            wireFormat.setCodecMetrics(metrics);
+            size += wireFormat.marshal(createMessage(i)).length;
+            wireFormat.setCodecMetrics(i % 2 == 0 ? null : new CodecMetrics());
+        }
+        assertEquals(1, metrics.getRecorderCount());
+
+        size += other.marshal(createMessage(10)).length;
+        CommandTypeMetrics messages = metrics.snapshot().getCommandType(OpenWireTextMessage.DATA_STRUCTURE_TYPE);
+        assertEquals(11, messages.getEncodedFrames());
+        assertEquals(size, messages.getEncodedBytes());
+    }
+
+    @Test(timeout=60000)
+    public void testRecordersOfCollectedFormatsAreDropped() throws Exception {
+        CodecMetrics metrics = new CodecMetrics();
+
+        int size = 0;
+        for (int i = 0; i < 10; ++i) {
+            OpenWireFormat wireFormat = createOpenWireFormat(true, false);
+            wireFormat.setCodecMetrics(metrics);
+            size += wireFormat.marshal(createMessage(i)).length;
+        }
+
+        while (metrics.getRecorderCount() > 0) {
+            System.gc();
+            Thread.sleep(10);
+        }
+
+        CommandTypeMetrics messages = metrics.snapshot().getCommandType(OpenWireTextMessage.DATA_STRUCTURE_TYPE);
+        assertEquals(10, messages.getEncodedFrames());
+        assertEquals(size, messages.getEncodedBytes());
+    }
+
+    @Test
+    public void testLatencyBuckets() throws Exception {
+        assertEquals(0, CodecMetrics.latencyBucket(0));
+        assertEquals(1, CodecMetrics.latencyBucket(1));
+        assertEquals(2, CodecMetrics.latencyBucket(2));
+        assertEquals(2, CodecMetrics.latencyBucket(3));
+        assertEquals(11, CodecMetrics.latencyBucket(1024));
+        assertEquals(CodecMetrics.LATENCY_BUCKETS - 1, CodecMetrics.latencyBucket(Long.MAX_VALUE));
+
+        assertEquals(2048, LatencyHistogram.getBucketUpperBound(11));
+        assertEquals(Long.MAX_VALUE, LatencyHistogram.getBucketUpperBound(CodecMetrics.LATENCY_BUCKETS - 1));
+    }
+
+    private void doTestEveryEncodeAndDecodePathIsCounted(boolean tight) throws Exception {
+        CodecMetrics metrics = new CodecMetrics();
+        OpenWireFormat wireFormat = createOpenWireFormat(tight, false);
+        wireFormat.setCodecMetrics(metrics);
+        int size = createOpenWireFormat(tight, false).marshal(createSessionId()).length;
+
+        wireFormat.marshal(createSessionId());
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        wireFormat.marshal(createSessionId(), new DataOutputStream(bytes));
+
+        wireFormat.marshal(createSessionId(), ByteBuffer.allocate(1024));
+        wireFormat.marshalSegments(createSessionId());
+        wireFormat.marshalBatch(Arrays.asList(createSessionId(), null, createSessionId()));
+
+        wireFormat.unmarshal(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+
+        CommandTypeMetrics sessionIds = metrics.snapshot().getCommandType(CommandTypes.SESSION_ID);
+        assertEquals(6, sessionIds.getEncodedFrames());
+        assertEquals(6 * size, sessionIds.getEncodedBytes());
+        assertEquals(1, sessionIds.getDecodedFrames());
+        assertEquals(size, sessionIds.getDecodedBytes());
+    }
+
+    private long sum(long[] values) {
+        long total = 0;
+        for (long value : values) {
+            total += value;
+        }
+        return total;
+    }
+
+    private SessionId createSessionId() {
+        return new SessionId(new ConnectionId("connection"), 1);
+    }
+}
@@ -0,0 +1,328 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.openwire.codec;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import io.openwire.commands.CommandTypes;
+import io.openwire.commands.MessageDispatch;
+import io.openwire.commands.OpenWireBytesMessage;
+import io.openwire.commands.OpenWireMapMessage;
+import io.openwire.commands.WireFormatInfo;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.Random;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+import org.fusesource.hawtbuf.Buffer;
+import org.junit.Test;
+
+/**
+ * Test the message body compression codecs and their negotiation.
+ */
+public class CompressionCodecTest {
+
+    private static final String TEXT = "The quick red fox jumped over the lazy brown dog. ";
+
+    @Test
+    public void testDeflateRoundTrip() throws Exception {
+        CompressionCodec codec = CompressionCodecs.DEFLATE;
+        for (byte[] data : createPayloads()) {
+            Buffer compressed = codec.compress(new Buffer(data), 0);
+            assertArrayEquals(data, codec.decompress(compressed, data.length).toByteArray());
+            assertArrayEquals(data, codec.decompress(compressed, -1).toByteArray());
+        }
+    }
+
+    @Test
+    public void testDeflateIsCompatibleWithZipStreams() throws Exception {
+        CompressionCodec codec = new DeflateCompressionCodec(Deflater.BEST_SPEED);
+        for (byte[] data : createPayloads()) {
+            Buffer compressed = codec.compress(new Buffer(data), 0);
+            InflaterInputStream input = new InflaterInputStream(new ByteArrayInputStream(compressed.toByteArray()));
+            assertArrayEquals(data, readFully(input));
+
+            ByteArrayOutputStream bytesOut = new ByteArrayOutputStream();
+            OutputStream output = new DeflaterOutputStream(bytesOut);
+            output.write(data);
+            output.close();
+            assertArrayEquals(data, codec.decompress(new Buffer(bytesOut.toByteArray()), -1).toByteArray());
+        }
+    }
+
+    @Test
+    public void testReservedBytesAndSlicedInput() throws Exception {
+        CompressionCodec codec = CompressionCodecs.DEFLATE;
+        byte[] data = repeat(TEXT, 20).getBytes("UTF-8");
+
+        byte[] array = new byte[data.length + 20];
+        System.arraycopy(data, 0, array, 10, data.length);
+        Buffer compressed = codec.compress(new Buffer(array, 10, data.length), 4);
+        assertEquals(0, compressed.getOffset());
+
+        Buffer body = new Buffer(compressed.getData(), 4, compressed.getLength() - 4);
+        assertArrayEquals(data, codec.decompress(body, data.length).toByteArray());
+    }
+
+    @Test
+    public void testInvalidDataFails() throws Exception {
+        CompressionCodec codec = CompressionCodecs.DEFLATE;
+        try {
+            codec.decompress(new Buffer(new byte[] { 1, 2, 3, 4, 5, 6 }), -1);
+            fail("Should fail to decompress invalid data");
+        } catch (IOException e) {
+        }
+
+        Buffer compressed = codec.compress(new Buffer(repeat(TEXT, 20).getBytes("UTF-8")), 0);
+        try {
+            codec.decompress(new Buffer(compressed.getData(), 0, compressed.getLength() / 2), -1);
+            fail("Should fail to decompress truncated data");
+        } catch (IOException e) {
+        }
+
+        // The pooled instances must still work after a failure.
+        byte[] data = TEXT.getBytes("UTF-8");
+        assertArrayEquals(data, codec.decompress(codec.compress(new Buffer(data), 0), -1).toByteArray());
+    }
+
+    @Test
+    public void testNegotiateFallsBackToDeflate() throws Exception {
+        assertSame(CompressionCodecs.DEFLATE, CompressionCodecs.negotiate(null, null));
+        assertSame(CompressionCodecs.DEFLATE, CompressionCodecs.negotiate("deflate", null));
+        assertSame(CompressionCodecs.DEFLATE, CompressionCodecs.negotiate(null, "deflate"));
+        assertSame(CompressionCodecs.DEFLATE, CompressionCodecs.negotiate("unknown, deflate", "deflate,unknown"));
+        assertTrue(CompressionCodecs.getCodecNames().contains(DeflateCompressionCodec.NAME));
+    }
+
+    @Test
+    public void testNegotiationIsSymmetric() throws Exception {
+        CompressionCodecs.register(new ReversingCodec("first"));
+        CompressionCodecs.register(new ReversingCodec("second"));
+        try {
+            String[] advertised = { "first,second", "second,first", "second,deflate,first", "deflate,first", "first", "unknown,second" };
+            for (String local : advertised) {
+                for (String remote : advertised) {
+                    assertSame(local + " with " + remote,
+                        CompressionCodecs.negotiate(local, remote), CompressionCodecs.negotiate(remote, local));
+                }
+            }
+            assertEquals("first", CompressionCodecs.negotiate("first,second", "second,first").getName());
+            assertEquals("deflate", CompressionCodecs.negotiate("second,deflate,first", "deflate,second").getName());
+
+            OpenWireFormatFactory clientFactory = new OpenWireFormatFactory();
+            clientFactory.setCompressionCodecs("second,first");
+            OpenWireFormatFactory serverFactory = new OpenWireFormatFactory();
+            serverFactory.setCompressionCodecs("first,unknown,second");
+
+            OpenWireFormat client = clientFactory.createWireFormat();
+            client.renegotiateWireFormat(serverFactory.createWireFormat().getPreferedWireFormatInfo());
+            OpenWireFormat server = serverFactory.createWireFormat();
+            server.renegotiateWireFormat(clientFactory.createWireFormat().getPreferedWireFormatInfo());
+
+            assertEquals("first", client.getCompressionCodec().getName());
+            assertEquals("first", server.getCompressionCodec().getName());
+        } finally {
+            CompressionCodecs.unregister("first");
+            CompressionCodecs.unregister("second");
+        }
+    }
+
+    @Test
+    public void testRenegotiateWithPeerThatAdvertisesNothing() throws Exception {
+        OpenWireFormatFactory factory = new OpenWireFormatFactory();
+        factory.setCompressionCodecs("unknown,deflate");
+        OpenWireFormat wireFormat = factory.createWireFormat();
+        wireFormat.setCompressionCodec(new ReversingCodec());
+
+        WireFormatInfo info = new OpenWireFormatFactory().createWireFormat().getPreferedWireFormatInfo();
+        wireFormat.renegotiateWireFormat(info);
+
+        assertSame(CompressionCodecs.DEFLATE, wireFormat.getCompressionCodec());
+        assertEquals(null, info.getCompressionCodecs());
+    }
+
+    @Test
+    public void testBodyIsConvertedToTheCodecOfTheConnection() throws Exception {
+        byte[] data = repeat(TEXT, 20).getBytes("UTF-8");
+
+        OpenWireFormat sender = new OpenWireFormat(CommandTypes.PROTOCOL_VERSION);
+        sender.setCompressionCodec(new ReversingCodec());
+        OpenWireFormat receiver = new OpenWireFormat(CommandTypes.PROTOCOL_VERSION);
+        receiver.setCompressionCodec(new ReversingCodec());
+
+        // Compressed with deflate before the connection is known.
+        OpenWireBytesMessage message = new OpenWireBytesMessage();
+        message.setUseCompression(true);
+        message.setBodyBytes(data);
+
+        Buffer content = message.getContent();
+        OpenWireBytesMessage received = (OpenWireBytesMessage) receiver.unmarshal(sender.marshal(message));
+        assertEquals(ReversingCodec.NAME, received.getCompressionCodec().getName());
+        assertTrue(received.isCompressed());
+        assertArrayEquals(data, received.getBodyBytes());
+
+        // The message may be shared with other connections, so it is not converted itself.
+        assertSame(CompressionCodecs.DEFLATE, message.getCompressionCodec());
+        assertSame(content, message.getContent());
+
+        // Sent on to a peer that only understands deflate.
+        OpenWireFormat deflate = new OpenWireFormat(CommandTypes.PROTOCOL_VERSION);
+        received = (OpenWireBytesMessage) deflate.unmarshal(deflate.marshal(received));
+        assertSame(CompressionCodecs.DEFLATE, received.getCompressionCodec());
+        assertArrayEquals(data, received.getBodyBytes());
+    }
+
+    @Test
+    public void testDispatchedBodyIsConvertedOnEveryPath() throws Exception {
+        byte[] data = repeat(TEXT, 20).getBytes("UTF-8");
+
+        OpenWireBytesMessage message = new OpenWireBytesMessage();
+        message.setUseCompression(true);
+        message.setBodyBytes(data);
+        Buffer content = message.getContent();
+
+        MessageDispatch dispatch = new MessageDispatch();
+        dispatch.setMessage(message);
+
+        for (int i = 0; i < 3; ++i) {
+            OpenWireFormat wireFormat = new OpenWireFormat(CommandTypes.PROTOCOL_VERSION);
+            wireFormat.setCompressionCodec(new ReversingCodec());
+            wireFormat.setTightEncodingEnabled(i > 0);
+            wireFormat.setSinglePassTightEncodingEnabled(i > 1);
+
+            MessageDispatch received = (MessageDispatch) wireFormat.unmarshal(wireFormat.marshal(dispatch));
+            assertEquals(ReversingCodec.NAME, received.getMessage().getCompressionCodec().getName());
+            assertArrayEquals(data, ((OpenWireBytesMessage) received.getMessage()).getBodyBytes());
+
+            ByteBuffer target = ByteBuffer.allocate(4096);
+            wireFormat.marshal(dispatch, target);
+            target.flip();
+            received = (MessageDispatch) wireFormat.unmarshal(new Buffer(target.array(), 0, target.limit()));
+            assertArrayEquals(data, ((OpenWireBytesMessage) received.getMessage()).getBodyBytes());
+        }
+
+        assertSame(CompressionCodecs.DEFLATE, message.getCompressionCodec());
+        assertSame(content, message.getContent());
+    }
+
+    @Test
+    public void testPreparedBodyIsConvertedOnce() throws Exception {
+        byte[] data = repeat(TEXT, 20).getBytes("UTF-8");
+        OpenWireFormat wireFormat = new OpenWireFormat(CommandTypes.PROTOCOL_VERSION);
+        wireFormat.setCompressionCodec(new ReversingCodec());
+
+        OpenWireBytesMessage message = new OpenWireBytesMessage();
+        message.setUseCompression(true);
+        message.setBodyBytes(data);
+        message.prepareForMarshall(wireFormat);
+        assertEquals(ReversingCodec.NAME, message.getCompressionCodec().getName());
+
+        OpenWireBytesMessage received = (OpenWireBytesMessage) wireFormat.unmarshal(wireFormat.marshal(message));
+        assertArrayEquals(data, received.getBodyBytes());
+    }
+
+    @Test
+    public void testMapMessageIsCompressedWithTheCodecOfTheConnection() throws Exception {
+        OpenWireFormat wireFormat = new OpenWireFormat(CommandTypes.PROTOCOL_VERSION);
+        wireFormat.setCompressionCodec(new ReversingCodec());
+
+        OpenWireMapMessage message = new OpenWireMapMessage();
+        message.setUseCompression(true);
+        message.setObject("text", repeat(TEXT, 20));
+
+        OpenWireMapMessage received = (OpenWireMapMessage) wireFormat.unmarshal(wireFormat.marshal(message));
+        assertTrue(received.isCompressed());
+        assertEquals(repeat(TEXT, 20), received.getObject("text"));
+    }
+
+    private byte[][] createPayloads() throws Exception {
+        byte[] random = new byte[64 * 1024];
+        new Random(42).nextBytes(random);
+        return new byte[][] { new byte[0], new byte[] { 7 }, TEXT.getBytes("UTF-8"), repeat(TEXT, 2000).getBytes("UTF-8"), random };
+    }
+
+    private static String repeat(String text, int count) {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < count; ++i) {
+            builder.append(text);
+        }
+        return builder.toString();
+    }
+
+    private static byte[] readFully(InflaterInputStream input) throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        byte[] buffer = new byte[1024];
+        int count;
+        while ((count = input.read(buffer)) != -1) {
+            output.write(buffer, 0, count);
+        }
+        input.close();
+        return output.toByteArray();
+    }
+
+    /**
+     * A codec that only this test knows, it stores the bytes in reverse order.
+     */
+    private static class ReversingCodec implements CompressionCodec {
+
+        static final String NAME = "reverse";
+
+        private final String name;
+
+        ReversingCodec() {
+            this(NAME);
+        }
+
+        ReversingCodec(String name) {
+            this.name = name;
+        }
+
+        @Override
+        public String getName() {
+            return name;
+        }
+
+        @Override
+        public Buffer compress(Buffer data, int reserved) {
+            byte[] result = new byte[reserved + data.getLength()];
+            for (int i = 0; i < data.getLength(); ++i) {
+                result[result.length - 1 - i] = data.get(i);
+            }
+            return new Buffer(result);
+        }
+
+        @Override
+        public Buffer decompress(Buffer data, int size) {
+            byte[] result = data.toByteArray();
+            for (int i = 0; i < result.length / 2; ++i) {
+                byte b = result[i];
+                result[i] = result[result.length - 1 - i];
+                result[result.length - 1 - i] = b;
+            }
+            return new Buffer(result);
+        }
+    }
+}
@@ -0,0 +1,200 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.openwire.codec;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import io.openwire.commands.WireFormatInfo;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.fusesource.hawtbuf.Buffer;
+import org.junit.After;
+import org.junit.Test;
+
+/**
+ * Test the preset dictionaries for the deflate codec and how they are trained.
+ */
+public class CompressionDictionaryTest {
+
+    private final List<String> registered = new ArrayList<String>();
+
+    @After
+    public void tearDown() {
+        for (String name : registered) {
+            CompressionCodecs.unregister(name);
+        }
+    }
+
+    @Test
+    public void testDictionaryImprovesCompressionOfSmallBodies() throws Exception {
+        List<byte[]> samples = createSamples(new Random(1), 200);
+        CompressionDictionary dictionary = train(samples, "orders", 1);
+        assertTrue(dictionary.getSize() <= 4096);
+
+        DeflateCompressionCodec codec = new DeflateCompressionCodec(dictionary);
+        assertEquals("deflate:orders:1", codec.getName());
+
+        int plainSize = 0;
+        int dictionarySize = 0;
+        for (byte[] body : createSamples(new Random(2), 50)) {
+            Buffer compressed = codec.compress(new Buffer(body), 0);
+            assertArrayEquals(body, codec.decompress(compressed, body.length).toByteArray());
+            assertArrayEquals(body, codec.decompress(compressed, -1).toByteArray());
+
+            dictionarySize += compressed.getLength();
+            plainSize += CompressionCodecs.DEFLATE.compress(new Buffer(body), 0).getLength();
+        }
+
+        assertTrue("Expected " + dictionarySize + " to be much smaller than " + plainSize, dictionarySize * 2 < plainSize);
+    }
+
+    @Test
+    public void testDecompressWithoutTheDictionaryFails() throws Exception {
+        List<byte[]> samples = createSamples(new Random(1), 100);
+        DeflateCompressionCodec codec = new DeflateCompressionCodec(train(samples, "orders", 1));
+        DeflateCompressionCodec other = new DeflateCompressionCodec(new CompressionDictionary("orders", 2, "something else".getBytes("UTF-8")));
+
+        Buffer compressed = codec.compress(new Buffer(samples.get(0)), 0);
+        try {
+            CompressionCodecs.DEFLATE.decompress(compressed, -1);
+            fail("Should not decompress without the dictionary");
+        } catch (IOException e) {
+        }
+
+        try {
+            other.decompress(compressed, -1);
+            fail("Should not decompress with another dictionary");
+        } catch (IOException e) {
+        }
+
+        // Plain deflate data is still understood by a codec with a dictionary.
+        Buffer plain = CompressionCodecs.DEFLATE.compress(new Buffer(samples.get(0)), 0);
+        assertArrayEquals(samples.get(0), codec.decompress(plain, -1).toByteArray());
+    }
+
+    @Test
+    public void testNegotiateDictionary() throws Exception {
+        CompressionDictionary dictionary = train(createSamples(new Random(1), 100), "orders", 1);
+        registered.add("deflate:orders:1");
+        registered.add("deflate:orders:2");
+
+        OpenWireFormatFactory factory = new OpenWireFormatFactory();
+        factory.setCompressionDictionary(dictionary);
+        OpenWireFormat wireFormat = factory.createWireFormat();
+        assertEquals("deflate:orders:1", wireFormat.getPreferedWireFormatInfo().getCompressionCodecs());
+
+        // The codec is registered once and shared by every wire format the factory creates.
+        CompressionCodec codec = CompressionCodecs.getCodec("deflate:orders:1");
+        WireFormatInfo info = factory.createWireFormat().getPreferedWireFormatInfo();
+        wireFormat.renegotiateWireFormat(info);
+        assertSame(codec, wireFormat.getCompressionCodec());
+        assertSame(codec, CompressionCodecs.getCodec("deflate:orders:1"));
+
+        // A peer with a newer version of the dictionary falls back to deflate.
+        OpenWireFormatFactory newer = new OpenWireFormatFactory();
+        newer.setCompressionDictionary(new CompressionDictionary("orders", 2, dictionary.getData()));
+        newer.setCompressionCodecs("deflate");
+        assertEquals("deflate:orders:2,deflate", newer.createWireFormat().getPreferedWireFormatInfo().getCompressionCodecs());
+
+        wireFormat = factory.createWireFormat();
+        wireFormat.renegotiateWireFormat(newer.createWireFormat().getPreferedWireFormatInfo());
+        assertSame(CompressionCodecs.DEFLATE, wireFormat.getCompressionCodec());
+
+        // As does a peer without any dictionary.
+        wireFormat = factory.createWireFormat();
+        wireFormat.renegotiateWireFormat(new OpenWireFormatFactory().createWireFormat().getPreferedWireFormatInfo());
+        assertSame(CompressionCodecs.DEFLATE, wireFormat.getCompressionCodec());
+    }
+
+    @Test
+    public void testTrainerRequiresCommonContent() throws Exception {
+        CompressionDictionaryTrainer trainer = new CompressionDictionaryTrainer();
+        try {
+            trainer.train("empty", 1);
+            fail("Should not train without samples");
+        } catch (IllegalStateException e) {
+        }
+
+        Random random = new Random(3);
+        for (int i = 0; i < 10; ++i) {
+            byte[] sample = new byte[256];
+            random.nextBytes(sample);
+            trainer.addSample(sample);
+        }
+        try {
+            trainer.train("random", 1);
+            fail("Should not train from samples with nothing in common");
+        } catch (IllegalStateException e) {
+        }
+    }
+
+    @Test
+    public void testInvalidDictionaries() throws Exception {
+        byte[] data = "data".getBytes("UTF-8");
+        String[] names = { null, "", "a,b", "a:b", "a b" };
+        for (String name : names) {
+            try {
+                new CompressionDictionary(name, 1, data);
+                fail("Should reject the name: " + name);
+            } catch (IllegalArgumentException e) {
+            }
+        }
+
+        try {
+            new CompressionDictionary("big", 1, new byte[CompressionDictionary.MAX_SIZE + 1]);
+            fail("Should reject a dictionary larger than deflate can use");
+        } catch (IllegalArgumentException e) {
+        }
+
+        try {
+            CompressionCodecs.register(new DeflateCompressionCodec());
+            fail("Should not replace the deflate codec");
+        } catch (IllegalArgumentException e) {
+        }
+    }
+
+    private CompressionDictionary train(List<byte[]> samples, String name, int version) {
+        CompressionDictionaryTrainer trainer = new CompressionDictionaryTrainer();
+        for (byte[] sample : samples) {
+            trainer.addSample(sample);
+        }
+        return trainer.train(name, version);
+    }
+
+    private List<byte[]> createSamples(Random random, int count) throws Exception {
+        String[] symbols = { "IBM", "ORCL", "MSFT", "GOOG", "AMZN" };
+        List<byte[]> samples = new ArrayList<byte[]>();
+        for (int i = 0; i < count; ++i) {
+            String json = "{\"orderId\":" + random.nextInt(1000000) +
+                          ",\"customerReference\":\"CUST-" + random.nextInt(10000) + "\"" +
+                          ",\"instrument\":{\"symbol\":\"" + symbols[random.nextInt(symbols.length)] + "\",\"exchange\":\"NASDAQ\"}" +
+                          ",\"side\":\"" + (random.nextBoolean() ? "BUY" : "SELL") + "\"" +
+                          ",\"quantity\":" + random.nextInt(5000) +
+                          ",\"limitPrice\":" + random.nextInt(1000) + "." + random.nextInt(100) +
+                          ",\"timeInForce\":\"GOOD_TILL_CANCELLED\",\"status\":\"PENDING_NEW\"}";
+            samples.add(json.getBytes("UTF-8"));
+        }
+        return samples;
+    }
+}
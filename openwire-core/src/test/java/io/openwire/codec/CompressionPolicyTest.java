@@ -0,0 +1,193 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.openwire.codec;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import io.openwire.commands.CommandTypes;
+import io.openwire.commands.ConnectionId;
+import io.openwire.commands.OpenWireBytesMessage;
+import io.openwire.commands.OpenWireMapMessage;
+import io.openwire.commands.OpenWireMessage;
+import io.openwire.commands.OpenWireQueue;
+import io.openwire.commands.ProducerId;
+import io.openwire.commands.SessionId;
+import io.openwire.utils.OpenWireProducer;
+import io.openwire.utils.OpenWireSession;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Test the adaptive compression policy applied to message payloads.
+ */
+public class CompressionPolicyTest {
+
+    private final Random random = new Random(42);
+
+    @Test
+    public void testSmallPayloadIsNotCompressed() throws Exception {
+        CompressionPolicy policy = new CompressionPolicy();
+        byte[] payload = createCompressiblePayload(policy.getMinimumSize() - 1);
+
+        OpenWireBytesMessage message = createMessage(policy, "TEST");
+        message.setBodyBytes(payload);
+
+        assertFalse(message.isCompressed());
+        assertArrayEquals(payload, message.getContent().toByteArray());
+        assertEquals(-1, policy.getAverageSaving(message), 0);
+    }
+
+    @Test
+    public void testCompressiblePayloadIsCompressed() throws Exception {
+        CompressionPolicy policy = new CompressionPolicy();
+        byte[] payload = createCompressiblePayload(4096);
+
+        OpenWireBytesMessage message = createMessage(policy, "TEST");
+        message.setBodyBytes(payload);
+
+        assertTrue(message.isCompressed());
+        assertTrue(message.getContent().getLength() < payload.length);
+        assertArrayEquals(payload, message.getBodyBytes());
+        assertTrue(policy.getAverageSaving(message) > 0.5);
+    }
+
+    @Test
+    public void testIncompressiblePayloadIsSentUncompressed() throws Exception {
+        CompressionPolicy policy = new CompressionPolicy();
+        byte[] payload = createRandomPayload(4096);
+
+        OpenWireBytesMessage message = createMessage(policy, "TEST");
+        message.setBodyBytes(payload);
+
+        assertFalse(message.isCompressed());
+        assertArrayEquals(payload, message.getContent().toByteArray());
+
+        OpenWireFormat wireFormat = new OpenWireFormat(CommandTypes.PROTOCOL_VERSION);
+        OpenWireBytesMessage received = (OpenWireBytesMessage) wireFormat.unmarshal(wireFormat.marshal(message));
+        assertFalse(received.isCompressed());
+        assertArrayEquals(payload, received.getBodyBytes());
+    }
+
+    @Test
+    public void testCompressionStopsAndProbesWhenNothingIsSaved() throws Exception {
+        CompressionPolicy policy = new CompressionPolicy();
+        policy.setProbeInterval(10);
+
+        OpenWireBytesMessage message = createMessage(policy, "TEST");
+        message.setBodyBytes(createRandomPayload(4096));
+        assertTrue(policy.getAverageSaving(message) < policy.getMinimumSaving());
+
+        int attempts = 0;
+        for (int i = 0; i < 20; ++i) {
+            if (policy.shouldCompress(message, 4096)) {
+                attempts++;
+            }
+        }
+        assertEquals(2, attempts);
+
+        // Other destinations are sampled on their own.
+        assertTrue(policy.shouldCompress(createMessage(policy, "OTHER"), 4096));
+    }
+
+    @Test
+    public void testCompressionResumesWhenContentBecomesCompressible() throws Exception {
+        CompressionPolicy policy = new CompressionPolicy();
+        policy.setProbeInterval(1);
+
+        OpenWireBytesMessage message = createMessage(policy, "TEST");
+        message.setBodyBytes(createRandomPayload(4096));
+        assertFalse(message.isCompressed());
+
+        for (int i = 0; i < 10; ++i) {
+            message = createMessage(policy, "TEST");
+            message.setBodyBytes(createCompressiblePayload(4096));
+        }
+        assertTrue(message.isCompressed());
+    }
+
+    @Test
+    public void testSampleByContentType() throws Exception {
+        CompressionPolicy policy = new CompressionPolicy();
+        policy.setSampleBy(CompressionPolicy.SAMPLE_BY_CONTENT_TYPE);
+
+        OpenWireBytesMessage message = createMessage(policy, "TEST");
+        message.setBodyBytes(createRandomPayload(4096));
+
+        assertFalse(policy.shouldCompress(createMessage(policy, "OTHER"), 4096));
+
+        OpenWireMapMessage mapMessage = new OpenWireMapMessage();
+        mapMessage.setDestination(new OpenWireQueue("TEST"));
+        assertTrue(policy.shouldCompress(mapMessage, 4096));
+    }
+
+    @Test
+    public void testMapMessageHonorsPolicy() throws Exception {
+        CompressionPolicy policy = new CompressionPolicy();
+
+        OpenWireMapMessage message = new OpenWireMapMessage();
+        message.setUseCompression(true);
+        message.setCompressionPolicy(policy);
+        message.setObject("key", "value");
+        message.storeContent();
+
+        assertFalse(message.isCompressed());
+        assertEquals("value", message.getObject("key"));
+    }
+
+    @Test
+    public void testProducerAppliesItsPolicy() throws Exception {
+        OpenWireSession session = new OpenWireSession(new SessionId(new ConnectionId("test"), 1));
+        OpenWireProducer producer = new OpenWireProducer(session, new ProducerId(session.getSessionId(), 1));
+        CompressionPolicy policy = new CompressionPolicy();
+        producer.setCompressionPolicy(policy);
+
+        OpenWireMessage message = new OpenWireMessage();
+        producer.applyCompressionPolicy(message);
+        assertSame(policy, message.getCompressionPolicy());
+
+        CompressionPolicy own = new CompressionPolicy();
+        message.setCompressionPolicy(own);
+        producer.applyCompressionPolicy(message);
+        assertSame(own, message.getCompressionPolicy());
+    }
+
+    private OpenWireBytesMessage createMessage(CompressionPolicy policy, String destination) {
+        OpenWireBytesMessage message = new OpenWireBytesMessage();
+        message.setDestination(new OpenWireQueue(destination));
+        message.setUseCompression(true);
+        message.setCompressionPolicy(policy);
+        return message;
+    }
+
+    private byte[] createCompressiblePayload(int size) {
+        byte[] payload = new byte[size];
+        Arrays.fill(payload, (byte) 'a');
+        return payload;
+    }
+
+    private byte[] createRandomPayload(int size) {
+        byte[] payload = new byte[size];
+        random.nextBytes(payload);
+        return payload;
+    }
+}
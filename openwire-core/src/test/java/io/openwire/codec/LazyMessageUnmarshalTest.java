@@ -0,0 +1,272 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.openwire.codec;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import io.openwire.commands.BrokerId;
+import io.openwire.commands.ConsumerId;
+import io.openwire.commands.OpenWireQueue;
+import io.openwire.commands.OpenWireTextMessage;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.fusesource.hawtbuf.Buffer;
+import org.fusesource.hawtbuf.DataByteArrayInputStream;
+import org.junit.Test;
+
+/**
+ * Test unmarshaling of messages that defer decoding the fields not needed for routing.
+ */
+public class LazyMessageUnmarshalTest extends OpenWireFormatTestSupport {
+
+    @Test
+    public void testDeferredFieldsAreDecodedOnFirstAccess() throws Exception {
+        OpenWireFormat writer = createOpenWireFormat(true, true);
+        OpenWireFormat reader = createOpenWireFormat(true, true);
+        reader.setLazyMessageUnmarshalEnabled(true);
+
+        Buffer frame = writer.marshal(createMessage(1, "\u00e9ric"));
+        OpenWireTextMessage message = (OpenWireTextMessage) reader.unmarshal(frame);
+
+        assertTrue(message.isUnmarshalDeferred());
+        assertEquals(new OpenWireQueue("TEST.QUEUE"), message.getDestination());
+        assertEquals(4, message.getPriority());
+        assertEquals(1234, message.getArrival());
+        assertTrue(message.isDroppable());
+        assertEquals(new ConsumerId("connection:1:1"), message.getDataStructure());
+        assertSame(frame.getData(), message.getContent().getData());
+
+        assertArrayEquals(new BrokerId[] { new BrokerId("broker-1"), null, new BrokerId("broker-2") }, message.getBrokerPath());
+        assertFalse(message.isUnmarshalDeferred());
+        assertEquals("\u00e9ric", message.getUserId());
+        assertArrayEquals(new BrokerId[] { new BrokerId("broker-3") }, message.getCluster());
+        assertEquals("message-1", message.getText());
+    }
+
+    @Test
+    public void testSetterBeforeAccessIsNotOverwritten() throws Exception {
+        OpenWireFormat writer = createOpenWireFormat(true, true);
+        OpenWireFormat reader = createOpenWireFormat(true, true);
+        reader.setLazyMessageUnmarshalEnabled(true);
+
+        OpenWireTextMessage message = (OpenWireTextMessage) reader.unmarshal(writer.marshal(createMessage(1, "user")));
+        message.setUserId("other");
+
+        assertEquals("other", message.getUserId());
+        assertEquals(3, message.getBrokerPath().length);
+    }
+
+    @Test
+    public void testDeferredMessageMarshalsToSameFrame() throws Exception {
+        OpenWireFormat writer = createOpenWireFormat(true, true);
+        OpenWireFormat reader = createOpenWireFormat(true, true);
+        reader.setLazyMessageUnmarshalEnabled(true);
+        OpenWireFormat expectedWriter = createOpenWireFormat(true, true);
+        OpenWireFormat forwarder = createOpenWireFormat(true, true);
+
+        for (int i = 0; i < 3; ++i) {
+            Buffer expected = expectedWriter.marshal(createMessage(i, "user"));
+            OpenWireTextMessage message = (OpenWireTextMessage) reader.unmarshal(writer.marshal(createMessage(i, "user")));
+            assertTrue(message.isUnmarshalDeferred());
+            assertEquals(expected, forwarder.marshal(message));
+        }
+    }
+
+    @Test
+    public void testDeferredFieldsAreMarshaledWithoutDecoding() throws Exception {
+        OpenWireFormat writer = createOpenWireFormat(true, true);
+        OpenWireFormat reader = createOpenWireFormat(true, true);
+        reader.setLazyMessageUnmarshalEnabled(true);
+        OpenWireFormat expectedWriter = createOpenWireFormat(true, false);
+        OpenWireFormat forwarder = createOpenWireFormat(true, false);
+        OpenWireFormat singlePassForwarder = createOpenWireFormat(true, false);
+        singlePassForwarder.setSinglePassTightEncodingEnabled(true);
+
+        OpenWireTextMessage sent = createMessage(1, "\u00e9ric");
+        OpenWireTextMessage message = (OpenWireTextMessage) reader.unmarshal(writer.marshal(sent));
+        assertTrue(message.isUnmarshalDeferred());
+
+        // The fields that are not deferred still go out from the message.
+        sent.setArrival(5678);
+        message.setArrival(5678);
+        Buffer expected = expectedWriter.marshal(sent);
+
+        assertEquals(expected, forwarder.marshal(message));
+        assertEquals(expected, singlePassForwarder.marshal(message));
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        forwarder.marshal(message, new DataOutputStream(bytes));
+        assertEquals(expected, new Buffer(bytes.toByteArray()));
+        assertTrue(message.isUnmarshalDeferred());
+
+        assertEquals("\u00e9ric", message.getUserId());
+        assertEquals(expected, forwarder.marshal(message));
+    }
+
+    @Test
+    public void testDeferredWhenReadFromByteArrayStream() throws Exception {
+        OpenWireFormat writer = createOpenWireFormat(true, true);
+        OpenWireFormat reader = createOpenWireFormat(true, true);
+        reader.setLazyMessageUnmarshalEnabled(true);
+
+        Buffer frame = writer.marshal(createMessage(1, "user"));
+        OpenWireTextMessage message = (OpenWireTextMessage) reader.unmarshal(new DataByteArrayInputStream(frame));
+
+        assertTrue(message.isUnmarshalDeferred());
+        assertEquals(1234, message.getArrival());
+        assertEquals(createOpenWireFormat(true, true).marshal(createMessage(1, "user")), createOpenWireFormat(true, true).marshal(message));
+        assertEquals("user", message.getUserId());
+        assertArrayEquals(new BrokerId[] { new BrokerId("broker-3") }, message.getCluster());
+        assertEquals("message-1", message.getText());
+    }
+
+    @Test
+    public void testNothingDeferredWhenFieldsAreNull() throws Exception {
+        OpenWireFormat writer = createOpenWireFormat(true, true);
+        OpenWireFormat reader = createOpenWireFormat(true, true);
+        reader.setLazyMessageUnmarshalEnabled(true);
+
+        OpenWireTextMessage sent = createMessage(1, null);
+        sent.setBrokerPath(null);
+        sent.setCluster(null);
+        OpenWireTextMessage message = (OpenWireTextMessage) reader.unmarshal(writer.marshal(sent));
+
+        assertFalse(message.isUnmarshalDeferred());
+        assertEquals(1234, message.getArrival());
+        assertTrue(message.isDroppable());
+        assertNull(message.getBrokerPath());
+        assertNull(message.getUserId());
+        assertNull(message.getCluster());
+        assertEquals("message-1", message.getText());
+    }
+
+    @Test
+    public void testCopyDecodesDeferredFields() throws Exception {
+        OpenWireFormat writer = createOpenWireFormat(true, true);
+        OpenWireFormat reader = createOpenWireFormat(true, true);
+        reader.setLazyMessageUnmarshalEnabled(true);
+
+        OpenWireTextMessage message = (OpenWireTextMessage) reader.unmarshal(writer.marshal(createMessage(1, "user")));
+        OpenWireTextMessage copy = (OpenWireTextMessage) message.copy();
+
+        assertFalse(message.isUnmarshalDeferred());
+        assertFalse(copy.isUnmarshalDeferred());
+        assertEquals("user", copy.getUserId());
+        assertEquals(3, copy.getBrokerPath().length);
+    }
+
+    @Test
+    public void testNotDeferredWhenNotReadFromBuffer() throws Exception {
+        OpenWireFormat writer = createOpenWireFormat(true, true);
+        OpenWireFormat reader = createOpenWireFormat(true, true);
+        reader.setLazyMessageUnmarshalEnabled(true);
+
+        byte[] frame = writer.marshal(createMessage(1, null)).toByteArray();
+        OpenWireTextMessage message = (OpenWireTextMessage)
+            reader.unmarshal(new DataInputStream(new ByteArrayInputStream(frame)));
+
+        assertFalse(message.isUnmarshalDeferred());
+        assertNull(message.getUserId());
+    }
+
+    @Test(timeout=60000)
+    public void testConcurrentAccessToDeferredFields() throws Exception {
+        OpenWireFormat writer = createOpenWireFormat(true, true);
+        OpenWireFormat reader = createOpenWireFormat(true, true);
+        reader.setLazyMessageUnmarshalEnabled(true);
+        final int threads = 4;
+
+        // A long broker path keeps the first thread decoding while the others arrive.
+        OpenWireTextMessage sent = createMessage(1, "user");
+        BrokerId[] brokerPath = new BrokerId[1000];
+        for (int i = 0; i < brokerPath.length; ++i) {
+            brokerPath[i] = new BrokerId("broker-" + i);
+        }
+        sent.setBrokerPath(brokerPath);
+        Buffer frame = writer.marshal(sent);
+
+        for (int i = 0; i < 200; ++i) {
+            final OpenWireTextMessage message = (OpenWireTextMessage) reader.unmarshal(frame);
+            final CyclicBarrier start = new CyclicBarrier(threads);
+            final AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+
+            Thread[] readers = new Thread[threads];
+            for (int t = 0; t < threads; ++t) {
+                final int order = t;
+                readers[t] = new Thread(new Runnable() {
+
+                    @Override
+                    public void run() {
+                        try {
+                            start.await();
+                            // Each thread starts on a different field.
+                            for (int field = 0; field < 3; ++field) {
+                                switch ((order + field) % 3) {
+                                    case 0:
+                                        assertEquals(1000, message.getBrokerPath().length);
+                                        assertEquals(new BrokerId("broker-999"), message.getBrokerPath()[999]);
+                                        break;
+                                    case 1:
+                                        assertEquals("user", message.getUserId());
+                                        break;
+                                    default:
+                                        assertEquals(new BrokerId("broker-3"), message.getCluster()[0]);
+                                }
+                            }
+                        } catch (Throwable error) {
+                            failure.compareAndSet(null, error);
+                        }
+                    }
+                });
+                readers[t].start();
+            }
+
+            for (Thread thread : readers) {
+                thread.join();
+            }
+            if (failure.get() != null) {
+                throw new AssertionError(failure.get());
+            }
+            assertFalse(message.isUnmarshalDeferred());
+        }
+    }
+
+    private OpenWireTextMessage createMessage(int sequence, String userId) throws Exception {
+        OpenWireTextMessage message = createMessage(sequence);
+        message.setPriority((byte) 4);
+        message.setArrival(1234);
+        message.setDroppable(true);
+        message.setDataStructure(new ConsumerId("connection:1:1"));
+        message.setUserId(userId);
+        if (sequence == 1) {
+            message.setBrokerPath(new BrokerId[] { new BrokerId("broker-1"), null, new BrokerId("broker-2") });
+        } else {
+            message.setBrokerPath(new BrokerId[] { new BrokerId("broker-1") });
+        }
+        message.setCluster(new BrokerId[] { new BrokerId("broker-3") });
+        return message;
+    }
+}
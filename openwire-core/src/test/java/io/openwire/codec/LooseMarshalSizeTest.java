@@ -0,0 +1,161 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.openwire.codec;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import io.openwire.commands.BrokerId;
+import io.openwire.commands.ConnectionId;
+import io.openwire.commands.ExceptionResponse;
+import io.openwire.commands.LocalTransactionId;
+import io.openwire.commands.MessageDispatch;
+import io.openwire.commands.MessageId;
+import io.openwire.commands.OpenWireQueue;
+import io.openwire.commands.OpenWireTextMessage;
+import io.openwire.commands.ProducerId;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import org.fusesource.hawtbuf.Buffer;
+import org.junit.Test;
+
+/**
+ * Test that loose encoded frames written with a precomputed size match the buffered encoding.
+ */
+public class LooseMarshalSizeTest extends OpenWireFormatTestSupport {
+
+    @Test
+    public void testMessagesWithCache() throws Exception {
+        doTestFramesMatchBufferMarshal(createNegotiatedOpenWireFormat(false, true, 1024), createNegotiatedOpenWireFormat(false, true, 1024));
+    }
+
+    @Test
+    public void testMessagesWithoutCache() throws Exception {
+        doTestFramesMatchBufferMarshal(createNegotiatedOpenWireFormat(false, false, 1024), createNegotiatedOpenWireFormat(false, false, 1024));
+    }
+
+    @Test
+    public void testMessagesThatFillTheCache() throws Exception {
+        // A message references more cached values than such a small cache can hold.
+        doTestFramesMatchBufferMarshal(createNegotiatedOpenWireFormat(false, true, 4), createNegotiatedOpenWireFormat(false, true, 4));
+    }
+
+    @Test
+    public void testExceptionResponseWithStackTrace() throws Exception {
+        OpenWireFormat expectedFormat = createNegotiatedOpenWireFormat(false, true, 1024);
+        OpenWireFormat wireFormat = createNegotiatedOpenWireFormat(false, true, 1024);
+        expectedFormat.setStackTraceEnabled(true);
+        wireFormat.setStackTraceEnabled(true);
+
+        IOException cause = new IOException("cause \u00e9\u4e2d");
+        ExceptionResponse response = new ExceptionResponse(new IllegalStateException("failed", cause));
+        response.setCorrelationId(42);
+
+        assertFrameMatches(expectedFormat.marshal(response), wireFormat, response);
+    }
+
+    @Test
+    public void testCacheStatisticsRecordedWhenStreaming() throws Exception {
+        OpenWireFormat wireFormat = createNegotiatedOpenWireFormat(false, true, 1024);
+        for (int i = 0; i < 3; ++i) {
+            marshal(wireFormat, createCachedMessage(i));
+        }
+
+        MarshallCacheStatistics statistics = wireFormat.getMarshallCacheStatistics();
+        assertTrue(statistics.getHits() > 0);
+        assertTrue(statistics.getBytesSaved() > 0);
+    }
+
+    @Test
+    public void testMessageIsPreparedOncePerFrame() throws Exception {
+        OpenWireFormat wireFormat = createNegotiatedOpenWireFormat(false, true, 1024);
+
+        CountingMessage message = new CountingMessage();
+        message.setText("Hello World");
+        marshal(wireFormat, message);
+        assertEquals(1, message.prepared);
+
+        message = new CountingMessage();
+        message.setText("Hello World");
+        wireFormat.marshal(message, ByteBuffer.allocate(1024));
+        assertEquals(1, message.prepared);
+
+        message = new CountingMessage();
+        message.setText("Hello World");
+        MessageDispatch dispatch = new MessageDispatch();
+        dispatch.setMessage(message);
+        marshal(wireFormat, dispatch);
+        assertEquals(1, message.prepared);
+    }
+
+    private void doTestFramesMatchBufferMarshal(OpenWireFormat expectedFormat, OpenWireFormat wireFormat) throws Exception {
+        for (int i = 0; i < 5; ++i) {
+            Buffer expected = expectedFormat.marshal(createCachedMessage(i));
+            assertFrameMatches(expected, wireFormat, createCachedMessage(i));
+        }
+    }
+
+    private void assertFrameMatches(Buffer expected, OpenWireFormat wireFormat, Object command) throws Exception {
+        byte[] frame = marshal(wireFormat, command);
+        assertArrayEquals(expected.toByteArray(), frame);
+
+        DataInputStream input = new DataInputStream(new ByteArrayInputStream(frame));
+        assertEquals(frame.length - 4, input.readInt());
+    }
+
+    private byte[] marshal(OpenWireFormat wireFormat, Object command) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream output = new DataOutputStream(bytes);
+        wireFormat.marshal(command, output);
+        output.close();
+        return bytes.toByteArray();
+    }
+
+    private OpenWireTextMessage createCachedMessage(int sequence) throws Exception {
+        ConnectionId connectionId = new ConnectionId("connection");
+        ProducerId producerId = new ProducerId(connectionId.toString() + ":1:" + (sequence % 2));
+        OpenWireQueue destination = new OpenWireQueue("TEST.QUEUE." + (sequence % 3));
+
+        OpenWireTextMessage message = new OpenWireTextMessage();
+        message.setProducerId(producerId);
+        message.setMessageId(new MessageId(producerId, sequence));
+        message.setDestination(destination);
+        message.setOriginalDestination(destination);
+        message.setTransactionId(new LocalTransactionId(connectionId, sequence));
+        message.setBrokerPath(new BrokerId[] { new BrokerId("broker-1"), new BrokerId("broker-2") });
+        message.setProperty("sequence", Integer.valueOf(sequence));
+        message.setText("Hello World \u00e9\u4e2d " + sequence);
+        return message;
+    }
+
+    private static class CountingMessage extends OpenWireTextMessage {
+
+        int prepared;
+
+        @Override
+        public void beforeMarshall(OpenWireFormat wireFormat) throws IOException {
+            prepared++;
+            super.beforeMarshall(wireFormat);
+        }
+    }
+}
@@ -0,0 +1,144 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.openwire.codec;
+
+import static org.junit.Assert.assertEquals;
+import io.openwire.commands.DataStructure;
+import io.openwire.commands.ProducerId;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Test for the open addressing map used by the marshal cache.
+ */
+public class MarshallCacheMapTest {
+
+    @Test
+    public void testPutGetAndRemove() throws Exception {
+        MarshallCacheMap map = new MarshallCacheMap();
+        ProducerId producerId = new ProducerId("connection:1:1");
+
+        assertEquals(MarshallCacheMap.NOT_FOUND, map.get(producerId));
+        map.put(producerId, (short) 7);
+        assertEquals(7, map.get(producerId));
+        assertEquals(7, map.get(new ProducerId("connection:1:1")));
+        assertEquals(1, map.size());
+
+        map.put(producerId, (short) 9);
+        assertEquals(9, map.get(producerId));
+        assertEquals(1, map.size());
+
+        assertEquals(9, map.remove(new ProducerId("connection:1:1")));
+        assertEquals(MarshallCacheMap.NOT_FOUND, map.get(producerId));
+        assertEquals(MarshallCacheMap.NOT_FOUND, map.remove(producerId));
+        assertEquals(0, map.size());
+    }
+
+    @Test
+    public void testNullIsAValidKey() throws Exception {
+        MarshallCacheMap map = new MarshallCacheMap();
+
+        assertEquals(MarshallCacheMap.NOT_FOUND, map.get(null));
+        map.put(null, (short) 3);
+        assertEquals(3, map.get(null));
+        assertEquals(1, map.size());
+        assertEquals(3, map.remove(null));
+        assertEquals(0, map.size());
+    }
+
+    @Test
+    public void testCollidingKeysSurviveRemoval() throws Exception {
+        MarshallCacheMap map = new MarshallCacheMap();
+        List<Key> keys = new ArrayList<Key>();
+        for (int i = 0; i < 20; ++i) {
+            Key key = new Key(i, i % 3);
+            keys.add(key);
+            map.put(key, (short) i);
+        }
+
+        for (int i = 0; i < 20; i += 2) {
+            assertEquals(i, map.remove(new Key(i, i % 3)));
+        }
+        for (int i = 0; i < 20; ++i) {
+            short expected = (i % 2 == 0) ? MarshallCacheMap.NOT_FOUND : (short) i;
+            assertEquals(expected, map.get(keys.get(i)));
+        }
+        assertEquals(10, map.size());
+    }
+
+    @Test
+    public void testMatchesHashMapUnderRandomOperations() throws Exception {
+        MarshallCacheMap map = new MarshallCacheMap();
+        Map<Key, Short> expected = new HashMap<Key, Short>();
+        Random random = new Random(42);
+
+        for (int i = 0; i < 100000; ++i) {
+            int value = random.nextInt(2000);
+            Key key = new Key(value, value % 50);
+            if (random.nextInt(3) == 0) {
+                Short removed = expected.remove(key);
+                assertEquals(removed != null ? removed.shortValue() : MarshallCacheMap.NOT_FOUND, map.remove(key));
+            } else {
+                short index = (short) random.nextInt(Short.MAX_VALUE);
+                expected.put(key, index);
+                map.put(key, index);
+            }
+            assertEquals(expected.size(), map.size());
+        }
+
+        for (Map.Entry<Key, Short> entry : expected.entrySet()) {
+            assertEquals(entry.getValue().shortValue(), map.get(entry.getKey()));
+        }
+    }
+
+    private static final class Key implements DataStructure {
+
+        private final int value;
+        private final int hash;
+
+        public Key(int value, int hash) {
+            this.value = value;
+            this.hash = hash;
+        }
+
+        @Override
+        public byte getDataStructureType() {
+            return 0;
+        }
+
+        @Override
+        public boolean isMarshallAware() {
+            return false;
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Key && ((Key) o).value == value;
+        }
+    }
+}
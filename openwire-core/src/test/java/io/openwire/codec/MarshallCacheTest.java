@@ -0,0 +1,184 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.openwire.codec;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import io.openwire.commands.ConnectionId;
+import io.openwire.commands.MessageId;
+import io.openwire.commands.OpenWireQueue;
+import io.openwire.commands.OpenWireTextMessage;
+import io.openwire.commands.ProducerId;
+
+import org.junit.Test;
+
+/**
+ * Test the eviction policies and statistics of the marshal side value cache.
+ */
+public class MarshallCacheTest extends OpenWireFormatTestSupport {
+
+    private final ProducerId a = new ProducerId("connection:1:1");
+    private final ProducerId b = new ProducerId("connection:1:2");
+    private final ProducerId c = new ProducerId("connection:1:3");
+    private final ProducerId d = new ProducerId("connection:1:4");
+
+    @Test
+    public void testFifoEvictsInInsertionOrder() throws Exception {
+        MarshallCache cache = createFullCache(MarshallCache.FIFO);
+        cache.lookup(a);
+
+        cache.evict(2);
+
+        assertEquals(-1, cache.find(a));
+        assertEquals(-1, cache.find(b));
+        assertTrue(cache.find(c) >= 0);
+        assertTrue(cache.find(d) >= 0);
+    }
+
+    @Test
+    public void testClockSparesEntriesHitSinceLastPass() throws Exception {
+        MarshallCache cache = createFullCache(MarshallCache.CLOCK);
+        cache.lookup(a);
+
+        cache.evict(1);
+
+        assertTrue(cache.find(a) >= 0);
+        assertEquals(-1, cache.find(b));
+    }
+
+    @Test
+    public void testFrequencyRetainsHotEntries() throws Exception {
+        MarshallCache cache = createFullCache(MarshallCache.FREQUENCY);
+        cache.lookup(a);
+        cache.lookup(a);
+        cache.lookup(a);
+        cache.lookup(b);
+
+        cache.evict(2);
+
+        assertTrue(cache.find(a) >= 0);
+        assertTrue(cache.find(b) >= 0);
+        assertEquals(-1, cache.find(c));
+        assertEquals(-1, cache.find(d));
+    }
+
+    @Test
+    public void testEvictedIndexesAreReused() throws Exception {
+        MarshallCache cache = createFullCache(MarshallCache.CLOCK);
+        ProducerId e = new ProducerId("connection:1:5");
+        assertEquals(-1, cache.add(e));
+
+        cache.lookup(a);
+        short evicted = cache.find(b);
+        cache.evict(1);
+
+        assertEquals(evicted, cache.add(e));
+        assertEquals(4, cache.size());
+    }
+
+    @Test
+    public void testRollbackDiscardsAdditions() throws Exception {
+        MarshallCache cache = new MarshallCache(4, MarshallCache.FIFO);
+        cache.add(a);
+
+        int mark = cache.mark();
+        short index = cache.add(b);
+        cache.add(c);
+        cache.rollback(mark);
+
+        assertEquals(1, cache.size());
+        assertEquals(-1, cache.find(b));
+        assertEquals(-1, cache.find(c));
+        assertEquals(index, cache.add(d));
+    }
+
+    @Test
+    public void testStatistics() throws Exception {
+        MarshallCache cache = new MarshallCache(4, MarshallCache.FIFO);
+        cache.lookup(a);
+        cache.setEncodedSize(cache.add(a), 30);
+        cache.lookup(a);
+        cache.lookup(a);
+        cache.lookup(b);
+        cache.add(b);
+        cache.evict(4);
+
+        MarshallCacheStatistics statistics = cache.getStatistics();
+        assertEquals(2, statistics.getHits());
+        assertEquals(2, statistics.getMisses());
+        assertEquals(2, statistics.getEvictions());
+        assertEquals(60, statistics.getBytesSaved());
+        assertEquals(0, statistics.getSize());
+        assertEquals(4, statistics.getCapacity());
+        assertEquals(0.5, statistics.getHitRatio(), 0.0);
+    }
+
+    @Test
+    public void testPeerDecodesWithEveryPolicy() throws Exception {
+        doTestPeerDecodes(OpenWireFormat.CACHE_EVICTION_FIFO);
+        doTestPeerDecodes(OpenWireFormat.CACHE_EVICTION_CLOCK);
+        doTestPeerDecodes(OpenWireFormat.CACHE_EVICTION_FREQUENCY);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testUnknownPolicyIsRejected() throws Exception {
+        new OpenWireFormat().setCacheEvictionPolicy("random");
+    }
+
+    private void doTestPeerDecodes(String policy) throws Exception {
+        OpenWireFormat writer = createNegotiatedOpenWireFormat(true, true, 150);
+        writer.setCacheEvictionPolicy(policy);
+        OpenWireFormat reader = createNegotiatedOpenWireFormat(true, true, 150);
+        reader.setCacheEvictionPolicy(policy);
+
+        for (int i = 0; i < 2000; ++i) {
+            // A few hot producers among many that are seen only once.
+            int producer = (i % 3 == 0) ? i % 7 : 100 + i;
+            OpenWireTextMessage message = createMessage(producer, i);
+
+            OpenWireTextMessage received = (OpenWireTextMessage) reader.unmarshal(writer.marshal(message));
+            assertEquals(message.getProducerId(), received.getProducerId());
+            assertEquals(message.getDestination(), received.getDestination());
+            assertEquals(message.getMessageId(), received.getMessageId());
+        }
+
+        MarshallCacheStatistics statistics = writer.getMarshallCacheStatistics();
+        assertTrue(statistics.getHits() > 0);
+        assertTrue(statistics.getEvictions() > 0);
+        assertTrue(statistics.getBytesSaved() > 0);
+        assertEquals(150, statistics.getCapacity());
+    }
+
+    private OpenWireTextMessage createMessage(int producer, int sequence) throws Exception {
+        ProducerId producerId = new ProducerId(new ConnectionId("connection").toString() + ":1:" + producer);
+        OpenWireTextMessage message = new OpenWireTextMessage();
+        message.setProducerId(producerId);
+        message.setMessageId(new MessageId(producerId, sequence));
+        message.setDestination(new OpenWireQueue("TEST.QUEUE." + producer));
+        message.setText("Hello World");
+        return message;
+    }
+
+    private MarshallCache createFullCache(int policy) {
+        MarshallCache cache = new MarshallCache(4, policy);
+        cache.add(a);
+        cache.add(b);
+        cache.add(c);
+        cache.add(d);
+        return cache;
+    }
+}
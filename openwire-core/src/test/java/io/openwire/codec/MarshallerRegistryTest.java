@@ -0,0 +1,95 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.openwire.codec;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import io.openwire.codec.v10.MarshallerFactory;
+import io.openwire.commands.CommandTypes;
+import io.openwire.commands.ConnectionId;
+import io.openwire.commands.SessionId;
+import io.openwire.commands.WireFormatInfo;
+
+import org.fusesource.hawtbuf.Buffer;
+import org.junit.Test;
+
+/**
+ * Test for the registry that shares the marshaller tables between OpenWireFormat instances.
+ */
+public class MarshallerRegistryTest {
+
+    @Test
+    public void testTableIsResolvedOnce() throws Exception {
+        DataStreamMarshaller[] first = MarshallerRegistry.getMarshallers(CommandTypes.PROTOCOL_VERSION);
+        assertSame(first, MarshallerRegistry.getMarshallers(CommandTypes.PROTOCOL_VERSION));
+    }
+
+    @Test
+    public void testTableIsAPrivateCopy() throws Exception {
+        DataStreamMarshaller[] factoryTable = MarshallerFactory.createMarshallerMap(null);
+        DataStreamMarshaller[] table = MarshallerRegistry.getMarshallers(10);
+        assertNotSame(factoryTable, table);
+        assertEquals(factoryTable.length, table.length);
+        for (int i = 0; i < table.length; ++i) {
+            assertSame(factoryTable[i], table[i]);
+        }
+    }
+
+    @Test
+    public void testEachCoreVersionHasMarshallers() throws Exception {
+        int[] versions = new int[] { 1, 9, 10 };
+        for (int i = 0; i < versions.length; ++i) {
+            DataStreamMarshaller[] table = MarshallerRegistry.getMarshallers(versions[i]);
+            DataStreamMarshaller dsm = table[CommandTypes.SESSION_ID];
+            assertEquals(CommandTypes.SESSION_ID, dsm.getDataStructureType());
+        }
+    }
+
+    @Test(expected=IllegalArgumentException.class)
+    public void testUnknownVersion() throws Exception {
+        MarshallerRegistry.getMarshallers(200);
+    }
+
+    @Test(expected=IllegalArgumentException.class)
+    public void testNegativeVersion() throws Exception {
+        new OpenWireFormat(-1);
+    }
+
+    @Test
+    public void testRenegotiatedFormatsStillMarshal() throws Exception {
+        OpenWireFormat client = createOpenWireFormat(CommandTypes.PROTOCOL_VERSION);
+        OpenWireFormat server = createOpenWireFormat(9);
+
+        WireFormatInfo info = new WireFormatInfo();
+        info.setVersion(9);
+        client.renegotiateWireFormat(info);
+        assertEquals(9, client.getVersion());
+
+        SessionId sessionId = new SessionId(new ConnectionId("connection"), 1);
+        Buffer sequence = client.marshal(sessionId);
+        assertEquals(sessionId, server.unmarshal(sequence));
+    }
+
+    private OpenWireFormat createOpenWireFormat(int version) {
+        OpenWireFormat wf = new OpenWireFormat(version);
+        WireFormatInfo info = new WireFormatInfo();
+        info.setVersion(version);
+        wf.setPreferedWireFormatInfo(info);
+        return wf;
+    }
+}
@@ -0,0 +1,165 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.openwire.codec;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import io.openwire.commands.CommandTypes;
+import io.openwire.commands.OpenWireMapMessage;
+import io.openwire.commands.OpenWireTextMessage;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.fusesource.hawtbuf.Buffer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Test that messages prepared ahead of time are only framed when marshaled.
+ */
+public class MessagePreparerTest {
+
+    private static final String TEXT = "The quick red fox jumped over the lazy brown dog. ";
+
+    private ExecutorService executor;
+    private CountingCodec codec;
+    private OpenWireFormat wireFormat;
+
+    @Before
+    public void setUp() {
+        executor = MessagePreparer.createExecutor(2, 4);
+        codec = new CountingCodec();
+        wireFormat = new OpenWireFormat(CommandTypes.PROTOCOL_VERSION);
+        wireFormat.setCompressionCodec(codec);
+    }
+
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void testPreparedMessageIsNotCompressedAgain() throws Exception {
+        MessagePreparer preparer = new MessagePreparer(wireFormat, executor);
+
+        List<Future<OpenWireTextMessage>> prepared = new ArrayList<Future<OpenWireTextMessage>>();
+        for (int i = 0; i < 20; ++i) {
+            OpenWireTextMessage message = new OpenWireTextMessage();
+            message.setUseCompression(true);
+            message.setText(i + ": " + repeat(TEXT, 20));
+            message.setProperty("index", i);
+            prepared.add(preparer.prepare(message));
+        }
+
+        for (int i = 0; i < prepared.size(); ++i) {
+            OpenWireTextMessage message = prepared.get(i).get();
+            assertTrue(message.isCompressed());
+            assertSame(codec, message.getCompressionCodec());
+            assertNotNull(message.getMarshalledProperties());
+        }
+        assertEquals(20, codec.compressed.get());
+
+        OpenWireFormat receiver = new OpenWireFormat(CommandTypes.PROTOCOL_VERSION);
+        receiver.setCompressionCodec(codec);
+        for (int i = 0; i < prepared.size(); ++i) {
+            OpenWireTextMessage message = (OpenWireTextMessage) receiver.unmarshal(wireFormat.marshal(prepared.get(i).get()));
+            assertEquals(i + ": " + repeat(TEXT, 20), message.getText());
+            assertEquals(i, message.getProperty("index"));
+        }
+        assertEquals(20, codec.compressed.get());
+    }
+
+    @Test
+    public void testPreparedMessageCanBeChanged() throws Exception {
+        MessagePreparer preparer = new MessagePreparer(wireFormat, executor);
+
+        OpenWireMapMessage message = new OpenWireMapMessage();
+        message.setUseCompression(true);
+        message.setObject("text", repeat(TEXT, 20));
+        preparer.prepare(message).get();
+        assertTrue(message.isCompressed());
+
+        message.clearBody();
+        message.setObject("text", TEXT);
+        message.setProperty("changed", true);
+
+        OpenWireMapMessage received = (OpenWireMapMessage) wireFormat.unmarshal(wireFormat.marshal(message));
+        assertEquals(TEXT, received.getObject("text"));
+        assertEquals(Boolean.TRUE, received.getProperty("changed"));
+    }
+
+    @Test
+    public void testSaturatedPoolPreparesOnCaller() throws Exception {
+        ExecutorService single = MessagePreparer.createExecutor(1, 1);
+        try {
+            MessagePreparer preparer = new MessagePreparer(wireFormat, single);
+            List<Future<OpenWireTextMessage>> prepared = new ArrayList<Future<OpenWireTextMessage>>();
+            for (int i = 0; i < 50; ++i) {
+                OpenWireTextMessage message = new OpenWireTextMessage();
+                message.setUseCompression(true);
+                message.setText(repeat(TEXT, 20));
+                prepared.add(preparer.prepare(message));
+            }
+
+            for (Future<OpenWireTextMessage> future : prepared) {
+                assertTrue(future.get().isCompressed());
+            }
+        } finally {
+            single.shutdownNow();
+        }
+    }
+
+    private static String repeat(String text, int count) {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < count; ++i) {
+            builder.append(text);
+        }
+        return builder.toString();
+    }
+
+    /**
+     * Deflate under another name that counts the bodies it compresses.
+     */
+    private static class CountingCodec implements CompressionCodec {
+
+        final AtomicInteger compressed = new AtomicInteger();
+
+        @Override
+        public String getName() {
+            return "counting";
+        }
+
+        @Override
+        public Buffer compress(Buffer data, int reserved) throws IOException {
+            compressed.incrementAndGet();
+            return CompressionCodecs.DEFLATE.compress(data, reserved);
+        }
+
+        @Override
+        public Buffer decompress(Buffer data, int size) throws IOException {
+            return CompressionCodecs.DEFLATE.decompress(data, size);
+        }
+    }
+}
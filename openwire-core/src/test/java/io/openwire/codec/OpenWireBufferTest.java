@@ -0,0 +1,195 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.openwire.codec;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+import io.openwire.commands.DataStructure;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+
+import org.fusesource.hawtbuf.Buffer;
+import org.junit.Test;
+
+/**
+ * Test the final OpenWire buffer reader and writer and the marshallers that use them.
+ */
+public class OpenWireBufferTest extends OpenWireFormatTestSupport {
+
+    private static final String TEXT = "name = '\u00e9\u4e2d\ud83d\ude00\u0000'";
+
+    @Test
+    public void testWriterMatchesDataOutput() throws Exception {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream expected = new DataOutputStream(bytes);
+        writePrimitives(expected);
+
+        // Start small so the writer has to grow along the way.
+        OpenWireBufferWriter writer = new OpenWireBufferWriter(4);
+        writePrimitives(writer);
+
+        assertEquals(bytes.size(), writer.position());
+        assertArrayEquals(bytes.toByteArray(), writer.toBuffer().toByteArray());
+    }
+
+    @Test
+    public void testReaderMatchesDataInput() throws Exception {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        writePrimitives(new DataOutputStream(bytes));
+
+        DataInputStream expected = new DataInputStream(new ByteArrayInputStream(bytes.toByteArray()));
+        OpenWireBufferReader reader = new OpenWireBufferReader(new Buffer(bytes.toByteArray()));
+
+        assertEquals(expected.readBoolean(), reader.readBoolean());
+        assertEquals(expected.readByte(), reader.readByte());
+        assertEquals(expected.readUnsignedByte(), reader.readUnsignedByte());
+        assertEquals(expected.readShort(), reader.readShort());
+        assertEquals(expected.readUnsignedShort(), reader.readUnsignedShort());
+        assertEquals(expected.readChar(), reader.readChar());
+        assertEquals(expected.readInt(), reader.readInt());
+        assertEquals(expected.readLong(), reader.readLong());
+        assertEquals(expected.readFloat(), reader.readFloat(), 0.0f);
+        assertEquals(expected.readDouble(), reader.readDouble(), 0.0);
+        assertEquals(expected.readUTF(), reader.readUTF());
+        assertEquals(TEXT, reader.readUTF());
+        assertEquals(0, reader.available());
+    }
+
+    @Test
+    public void testReaderStopsAtEndOfFrame() throws Exception {
+        byte[] data = new byte[] { 9, 0, 0, 0, 1, 2, 3, 9 };
+        OpenWireBufferReader reader = new OpenWireBufferReader(new Buffer(data, 1, 6));
+
+        assertEquals(1, reader.readInt());
+        assertEquals(2, reader.available());
+        try {
+            reader.readInt();
+            fail("Should not read past the end of the frame");
+        } catch (EOFException expected) {
+        }
+
+        // A failed read consumes nothing.
+        assertEquals(2, reader.available());
+        Buffer slice = reader.readBuffer(2);
+        assertSame(data, slice.getData());
+        assertEquals(5, slice.getOffset());
+        assertEquals(0, reader.skipBytes(1));
+    }
+
+    @Test
+    public void testBackfillInt() throws Exception {
+        OpenWireBufferWriter writer = new OpenWireBufferWriter();
+        writer.writeInt(0);
+        writer.writeUTF(TEXT);
+        writer.backfillInt(0, writer.position() - 4);
+
+        OpenWireBufferReader reader = new OpenWireBufferReader(writer.toBuffer());
+        assertEquals(reader.available() - 4, reader.readInt());
+        assertEquals(TEXT, reader.readUTF());
+    }
+
+    @Test
+    public void testRestartDoesNotOverwriteEarlierBuffer() throws Exception {
+        OpenWireBufferWriter writer = new OpenWireBufferWriter();
+        writer.writeInt(42);
+        Buffer first = writer.toBuffer();
+
+        writer.restart();
+        writer.writeInt(7);
+
+        assertEquals(42, new OpenWireBufferReader(first).readInt());
+    }
+
+    @Test
+    public void testLooseFramesMatchWithCache() throws Exception {
+        doTestFramesMatch(false, true);
+    }
+
+    @Test
+    public void testLooseFramesMatchWithoutCache() throws Exception {
+        doTestFramesMatch(false, false);
+    }
+
+    @Test
+    public void testTightFramesMatchWithCache() throws Exception {
+        doTestFramesMatch(true, true);
+    }
+
+    @Test
+    public void testTightFramesMatchWithoutCache() throws Exception {
+        doTestFramesMatch(true, false);
+    }
+
+    @Test
+    public void testTruncatedFrameFailsWithEOF() throws Exception {
+        OpenWireFormat wireFormat = createOpenWireFormat(true, false);
+        Buffer frame = wireFormat.marshal(createCommands().get(0));
+
+        try {
+            createOpenWireFormat(true, false).unmarshal(new Buffer(frame.getData(), frame.getOffset(), frame.getLength() - 3));
+            fail("Should not read past the end of the frame");
+        } catch (EOFException expected) {
+        }
+    }
+
+    private void doTestFramesMatch(boolean tight, boolean cacheEnabled) throws Exception {
+        OpenWireFormat expectedFormat = createOpenWireFormat(tight, cacheEnabled);
+        OpenWireFormat wireFormat = createOpenWireFormat(tight, cacheEnabled);
+        OpenWireFormat bufferReader = createOpenWireFormat(tight, cacheEnabled);
+        OpenWireFormat streamReader = createOpenWireFormat(tight, cacheEnabled);
+
+        for (DataStructure command : createCommands()) {
+            // Frames written to a DataOutput go through the DataOutput form of the marshallers.
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            expectedFormat.marshal(command, new DataOutputStream(bytes));
+
+            Buffer actual = wireFormat.marshal(command);
+            String name = command.getClass().getSimpleName();
+            assertArrayEquals(name, bytes.toByteArray(), actual.toByteArray());
+
+            Object fromBuffer = bufferReader.unmarshal(actual);
+            Object fromStream = streamReader.unmarshal(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+            assertEquals(name, command.getClass(), fromBuffer.getClass());
+            assertArrayEquals(name, wireFormat.marshal(fromStream).toByteArray(), expectedFormat.marshal(fromBuffer).toByteArray());
+        }
+
+        assertNull(bufferReader.unmarshal(wireFormat.marshal(null)));
+    }
+
+    private void writePrimitives(DataOutput out) throws Exception {
+        out.writeBoolean(true);
+        out.writeByte(-2);
+        out.writeByte(200);
+        out.writeShort(-3);
+        out.writeShort(60000);
+        out.writeChar('\u4e2d');
+        out.writeInt(0x12345678);
+        out.writeLong(Long.MIN_VALUE + 1);
+        out.writeFloat(1.5f);
+        out.writeDouble(-2.25);
+        out.writeUTF("plain");
+        out.writeUTF(TEXT);
+    }
+}
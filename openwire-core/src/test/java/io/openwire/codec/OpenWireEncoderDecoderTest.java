@@ -0,0 +1,259 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.openwire.codec;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import io.openwire.commands.CommandTypes;
+import io.openwire.commands.OpenWireTextMessage;
+import io.openwire.commands.WireFormatInfo;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.fusesource.hawtbuf.Buffer;
+import org.junit.Test;
+
+/**
+ * Test the independent encoder and decoder halves of an OpenWireFormat.
+ */
+public class OpenWireEncoderDecoderTest extends OpenWireFormatTestSupport {
+
+    @Test
+    public void testEncoderMatchesWireFormat() throws Exception {
+        OpenWireFormat expectedFormat = createOpenWireFormat(true, true);
+        OpenWireEncoder encoder = createOpenWireFormat(true, true).createEncoder();
+
+        for (int i = 0; i < 3; ++i) {
+            Buffer expected = expectedFormat.marshal(createMessage(i));
+            assertArrayEquals(expected.toByteArray(), encoder.encode(createMessage(i)).toByteArray());
+        }
+    }
+
+    @Test
+    public void testDecoderReadsWireFormatOutput() throws Exception {
+        OpenWireFormat wireFormat = createOpenWireFormat(true, true);
+        OpenWireDecoder decoder = createOpenWireFormat(true, true).createDecoder();
+
+        for (int i = 0; i < 3; ++i) {
+            OpenWireTextMessage message = (OpenWireTextMessage) decoder.decode(wireFormat.marshal(createMessage(i)));
+            assertEquals("message-" + i, message.getText());
+        }
+        assertNull(decoder.decode(wireFormat.marshal(null)));
+    }
+
+    @Test
+    public void testConfigurationChangesArePickedUp() throws Exception {
+        OpenWireFormat wireFormat = createOpenWireFormat(false, true);
+        OpenWireEncoder encoder = wireFormat.createEncoder();
+        OpenWireDecoder decoder = wireFormat.createDecoder();
+
+        wireFormat.setTightEncodingEnabled(true);
+        wireFormat.setMaxFrameSize(1024);
+
+        Buffer expected = createOpenWireFormat(true, true).marshal(createMessage(1));
+        assertArrayEquals(expected.toByteArray(), encoder.encode(createMessage(1)).toByteArray());
+        assertEquals(1024, decoder.getMaxFrameSize());
+    }
+
+    @Test
+    public void testSettingChangesKeepTheValueCache() throws Exception {
+        OpenWireFormat sender = createOpenWireFormat(true, true);
+        OpenWireFormat receiver = createOpenWireFormat(true, true);
+        OpenWireEncoder encoder = sender.createEncoder();
+        OpenWireDecoder decoder = receiver.createDecoder();
+
+        OpenWireTextMessage message = (OpenWireTextMessage) decoder.decode(encoder.encode(createMessage(1)));
+        assertEquals("TEST.QUEUE", message.getDestination().getPhysicalName());
+
+        // The following frames refer to the producer id and destination cached by the first,
+        // a setting changed on one side alone must not discard the entries of either cache.
+        receiver.setMaxFrameSize(1024 * 1024);
+        receiver.setCodecMetrics(new CodecMetrics());
+        message = (OpenWireTextMessage) decoder.decode(encoder.encode(createMessage(2)));
+        assertNotNull(message.getProducerId());
+        assertEquals("TEST.QUEUE", message.getDestination().getPhysicalName());
+        assertEquals(1024 * 1024, decoder.getMaxFrameSize());
+
+        sender.setStackTraceEnabled(false);
+        sender.setCodecMetrics(new CodecMetrics());
+        message = (OpenWireTextMessage) decoder.decode(encoder.encode(createMessage(3)));
+        assertNotNull(message.getProducerId());
+        assertEquals("TEST.QUEUE", message.getDestination().getPhysicalName());
+    }
+
+    @Test
+    public void testRenegotiationIsPickedUp() throws Exception {
+        OpenWireFormat wireFormat = createOpenWireFormat(true, true);
+        WireFormatInfo preferred = new WireFormatInfo();
+        preferred.setVersion(CommandTypes.PROTOCOL_VERSION);
+        preferred.setCacheEnabled(true);
+        preferred.setTightEncodingEnabled(true);
+        preferred.setMaxFrameSize(OpenWireFormat.DEFAULT_MAX_FRAME_SIZE);
+        wireFormat.setPreferedWireFormatInfo(preferred);
+
+        OpenWireEncoder encoder = wireFormat.createEncoder();
+        OpenWireDecoder decoder = wireFormat.createDecoder();
+
+        WireFormatInfo remote = new WireFormatInfo();
+        remote.setVersion(CommandTypes.PROTOCOL_VERSION);
+        remote.setCacheEnabled(false);
+        remote.setTightEncodingEnabled(false);
+        remote.setMaxFrameSize(OpenWireFormat.DEFAULT_MAX_FRAME_SIZE);
+        wireFormat.renegotiateWireFormat(remote);
+
+        OpenWireFormat expectedFormat = createOpenWireFormat(false, true);
+        expectedFormat.setCacheEnabled(false);
+        Buffer encoded = encoder.encode(createMessage(1));
+        assertArrayEquals(expectedFormat.marshal(createMessage(1)).toByteArray(), encoded.toByteArray());
+
+        OpenWireTextMessage message = (OpenWireTextMessage) decoder.decode(encoded);
+        assertEquals("message-1", message.getText());
+    }
+
+    @Test
+    public void testRenegotiationChangesGenerationOnce() throws Exception {
+        OpenWireFormat wireFormat = createOpenWireFormat(true, true);
+        WireFormatInfo preferred = new WireFormatInfo();
+        preferred.setVersion(CommandTypes.PROTOCOL_VERSION);
+        preferred.setCacheEnabled(true);
+        preferred.setTightEncodingEnabled(true);
+        preferred.setMaxFrameSize(OpenWireFormat.DEFAULT_MAX_FRAME_SIZE);
+        wireFormat.setPreferedWireFormatInfo(preferred);
+
+        WireFormatInfo remote = new WireFormatInfo();
+        remote.setVersion(CommandTypes.PROTOCOL_VERSION - 1);
+        remote.setCacheEnabled(true);
+        remote.setTightEncodingEnabled(true);
+        remote.setMaxFrameSize(1024 * 1024);
+
+        // A half that saw an intermediate generation would not resync to the final settings.
+        int generation = wireFormat.getConfigurationGeneration();
+        wireFormat.renegotiateWireFormat(remote);
+
+        assertEquals(generation + 1, wireFormat.getConfigurationGeneration());
+        assertEquals(CommandTypes.PROTOCOL_VERSION - 1, wireFormat.getVersion());
+        assertEquals(1024 * 1024, wireFormat.getMaxFrameSize());
+    }
+
+    @Test(timeout=60000)
+    public void testUnmarshalFromStreamsConcurrently() throws Exception {
+        final int count = 2000;
+        final int threads = 4;
+        final OpenWireFormat wireFormat = createOpenWireFormat(true, false);
+        final CountDownLatch done = new CountDownLatch(threads);
+        final AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+
+        final byte[][] frames = new byte[count][];
+        OpenWireFormat peerFormat = createOpenWireFormat(true, false);
+        for (int i = 0; i < count; ++i) {
+            frames[i] = peerFormat.marshal(createMessage(i)).toByteArray();
+        }
+
+        // unmarshal(DataInput) does not take the lock of the wire format.
+        for (int t = 0; t < threads; ++t) {
+            new Thread(new Runnable() {
+
+                @Override
+                public void run() {
+                    try {
+                        for (int i = 0; i < count; ++i) {
+                            DataInputStream in = new DataInputStream(new ByteArrayInputStream(frames[i]));
+                            OpenWireTextMessage message = (OpenWireTextMessage) wireFormat.unmarshal(in);
+                            assertEquals("message-" + i, message.getText());
+                        }
+                    } catch (Throwable error) {
+                        failure.compareAndSet(null, error);
+                    } finally {
+                        done.countDown();
+                    }
+                }
+            }).start();
+        }
+
+        assertTrue(done.await(30, TimeUnit.SECONDS));
+        if (failure.get() != null) {
+            throw new AssertionError(failure.get());
+        }
+    }
+
+    @Test(timeout=60000)
+    public void testEncodeAndDecodeConcurrently() throws Exception {
+        final int count = 2000;
+        final OpenWireFormat wireFormat = createOpenWireFormat(true, true);
+        final OpenWireFormat peerFormat = createOpenWireFormat(true, true);
+        final OpenWireDecoder decoder = wireFormat.createDecoder();
+        final OpenWireEncoder encoder = wireFormat.createEncoder();
+        final OpenWireDecoder peerDecoder = peerFormat.createDecoder();
+        final CountDownLatch done = new CountDownLatch(2);
+        final AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+
+        final Buffer[] inbound = new Buffer[count];
+        OpenWireEncoder peerEncoder = peerFormat.createEncoder();
+        for (int i = 0; i < count; ++i) {
+            inbound[i] = peerEncoder.encode(createMessage(i));
+        }
+
+        Thread reader = new Thread(new Runnable() {
+
+            @Override
+            public void run() {
+                try {
+                    for (int i = 0; i < count; ++i) {
+                        OpenWireTextMessage message = (OpenWireTextMessage) decoder.decode(inbound[i]);
+                        assertEquals("message-" + i, message.getText());
+                    }
+                } catch (Throwable error) {
+                    failure.compareAndSet(null, error);
+                } finally {
+                    done.countDown();
+                }
+            }
+        });
+
+        Thread writer = new Thread(new Runnable() {
+
+            @Override
+            public void run() {
+                try {
+                    for (int i = 0; i < count; ++i) {
+                        OpenWireTextMessage message = (OpenWireTextMessage) peerDecoder.decode(encoder.encode(createMessage(i)));
+                        assertEquals("message-" + i, message.getText());
+                    }
+                } catch (Throwable error) {
+                    failure.compareAndSet(null, error);
+                } finally {
+                    done.countDown();
+                }
+            }
+        });
+
+        reader.start();
+        writer.start();
+
+        assertTrue(done.await(30, TimeUnit.SECONDS));
+        if (failure.get() != null) {
+            throw new AssertionError(failure.get());
+        }
+    }
+}
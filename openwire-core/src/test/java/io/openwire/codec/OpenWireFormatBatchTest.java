@@ -0,0 +1,165 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.openwire.codec;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+import io.openwire.commands.DataStructure;
+import io.openwire.commands.OpenWireTextMessage;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.fusesource.hawtbuf.Buffer;
+import org.fusesource.hawtbuf.DataByteArrayOutputStream;
+import org.junit.Test;
+
+/**
+ * Test marshaling of batches of commands into a single Buffer.
+ */
+public class OpenWireFormatBatchTest extends OpenWireFormatTestSupport {
+
+    @Test
+    public void testBatchMatchesSingleMarshalLoose() throws Exception {
+        doTestBatchMatchesSingleMarshal(false, false, false);
+        doTestBatchMatchesSingleMarshal(false, false, true);
+    }
+
+    @Test
+    public void testBatchMatchesSingleMarshalTight() throws Exception {
+        doTestBatchMatchesSingleMarshal(true, false, false);
+        doTestBatchMatchesSingleMarshal(true, false, true);
+    }
+
+    @Test
+    public void testBatchMatchesSingleMarshalSinglePass() throws Exception {
+        doTestBatchMatchesSingleMarshal(true, true, false);
+        doTestBatchMatchesSingleMarshal(true, true, true);
+    }
+
+    @Test
+    public void testBatchCanBeDecoded() throws Exception {
+        OpenWireFormat wireFormat = createOpenWireFormat(true, true);
+        wireFormat.setSinglePassTightEncodingEnabled(true);
+        List<Object> commands = createBatch();
+        Buffer batch = wireFormat.marshalBatch(commands);
+
+        final List<Object> decoded = new ArrayList<Object>();
+        OpenWireFrameDecoder decoder = new OpenWireFrameDecoder(createOpenWireFormat(true, true), new OpenWireFrameDecoder.Listener() {
+
+            @Override
+            public void onCommand(Object command) throws IOException {
+                decoded.add(command);
+            }
+        });
+        decoder.decode(ByteBuffer.wrap(batch.getData(), batch.getOffset(), batch.getLength()));
+
+        assertEquals(commands.size(), decoded.size());
+        for (int i = 0; i < commands.size(); ++i) {
+            if (commands.get(i) == null) {
+                assertNull(decoded.get(i));
+            } else {
+                assertEquals(commands.get(i).getClass(), decoded.get(i).getClass());
+            }
+        }
+        assertEquals("message-0", ((OpenWireTextMessage) decoded.get(3)).getText());
+    }
+
+    @Test
+    public void testEncoderBatch() throws Exception {
+        OpenWireFormat expectedFormat = createOpenWireFormat(true, true);
+        OpenWireEncoder encoder = createOpenWireFormat(true, true).createEncoder();
+
+        Buffer expected = marshalEach(expectedFormat, createBatch());
+        assertEquals(expected, encoder.encodeBatch(createBatch()));
+    }
+
+    @Test
+    public void testFailedBatchDoesNotLeaveCacheEntries() throws Exception {
+        doTestFailedBatchDoesNotLeaveCacheEntries(false, false);
+        doTestFailedBatchDoesNotLeaveCacheEntries(true, false);
+        doTestFailedBatchDoesNotLeaveCacheEntries(true, true);
+    }
+
+    private void doTestFailedBatchDoesNotLeaveCacheEntries(boolean tight, boolean singlePass) throws Exception {
+        OpenWireFormat wireFormat = createOpenWireFormat(tight, true);
+        wireFormat.setSinglePassTightEncodingEnabled(singlePass);
+        OpenWireFormat receiver = createOpenWireFormat(tight, true);
+        receiver.setSinglePassTightEncodingEnabled(singlePass);
+
+        List<Object> commands = new ArrayList<Object>();
+        commands.add(createMessage(1));
+        commands.add(new DataStructure() {
+
+            @Override
+            public byte getDataStructureType() {
+                return (byte) 255;
+            }
+
+            @Override
+            public boolean isMarshallAware() {
+                return false;
+            }
+        });
+
+        try {
+            wireFormat.marshalBatch(commands);
+            fail("Should have failed on the unknown data type");
+        } catch (IOException expected) {
+        }
+
+        // The failed batch never reached the receiver, so nothing it cached may be referenced.
+        OpenWireTextMessage message = createMessage(2);
+        OpenWireTextMessage decoded = (OpenWireTextMessage) receiver.unmarshal(wireFormat.marshal(message));
+        assertEquals(message.getProducerId(), decoded.getProducerId());
+        assertEquals(message.getDestination(), decoded.getDestination());
+    }
+
+    private void doTestBatchMatchesSingleMarshal(boolean tight, boolean singlePass, boolean sizePrefixDisabled) throws Exception {
+        OpenWireFormat expectedFormat = createOpenWireFormat(tight, true);
+        expectedFormat.setSinglePassTightEncodingEnabled(singlePass);
+        expectedFormat.setSizePrefixDisabled(sizePrefixDisabled);
+        OpenWireFormat wireFormat = createOpenWireFormat(tight, true);
+        wireFormat.setSinglePassTightEncodingEnabled(singlePass);
+        wireFormat.setSizePrefixDisabled(sizePrefixDisabled);
+
+        // The second round checks that value cache hits are written the same way.
+        for (int i = 0; i < 2; ++i) {
+            Buffer expected = marshalEach(expectedFormat, createBatch());
+            Buffer batch = wireFormat.marshalBatch(createBatch().iterator());
+            assertArrayEquals(expected.toByteArray(), batch.toByteArray());
+        }
+    }
+
+    private Buffer marshalEach(OpenWireFormat wireFormat, List<Object> commands) throws Exception {
+        DataByteArrayOutputStream out = new DataByteArrayOutputStream();
+        for (Object command : commands) {
+            wireFormat.marshal(command, out);
+        }
+        return out.toBuffer();
+    }
+
+    private List<Object> createBatch() throws Exception {
+        List<Object> commands = new ArrayList<Object>(createCommands());
+        commands.add(2, null);
+        return commands;
+    }
+}
@@ -0,0 +1,131 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.openwire.codec;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import io.openwire.commands.CommandTypes;
+import io.openwire.commands.OpenWireTextMessage;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+import org.fusesource.hawtbuf.Buffer;
+import org.junit.Test;
+
+/**
+ * Test marshaling of commands directly into heap and direct ByteBuffers.
+ */
+public class OpenWireFormatByteBufferTest extends OpenWireFormatTestSupport {
+
+    @Test
+    public void testMarshalToHeapBufferTight() throws Exception {
+        doTestMarshalMatchesBufferMarshal(true, false);
+    }
+
+    @Test
+    public void testMarshalToHeapBufferLoose() throws Exception {
+        doTestMarshalMatchesBufferMarshal(false, false);
+    }
+
+    @Test
+    public void testMarshalToDirectBufferTight() throws Exception {
+        doTestMarshalMatchesBufferMarshal(true, true);
+    }
+
+    @Test
+    public void testMarshalToDirectBufferLoose() throws Exception {
+        doTestMarshalMatchesBufferMarshal(false, true);
+    }
+
+    @Test
+    public void testMarshalNullCommand() throws Exception {
+        OpenWireFormat wireFormat = createOpenWireFormat(true, true);
+        ByteBuffer target = ByteBuffer.allocate(16);
+        assertEquals(5, wireFormat.marshal(null, target));
+        target.flip();
+        assertEquals(1, target.getInt());
+        assertEquals(CommandTypes.NULL, target.get());
+    }
+
+    @Test
+    public void testOverflowReportsRequiredSizeTight() throws Exception {
+        doTestOverflowReportsRequiredSize(true);
+    }
+
+    @Test
+    public void testOverflowReportsRequiredSizeLoose() throws Exception {
+        doTestOverflowReportsRequiredSize(false);
+    }
+
+    @Test
+    public void testByteOrderOfTargetIsPreserved() throws Exception {
+        OpenWireFormat wireFormat = createOpenWireFormat(true, true);
+        ByteBuffer target = ByteBuffer.allocate(1024).order(ByteOrder.LITTLE_ENDIAN);
+        int size = wireFormat.marshal(createMessage(1), target);
+        assertEquals(ByteOrder.LITTLE_ENDIAN, target.order());
+
+        target.flip();
+        assertEquals(size, target.remaining());
+        OpenWireTextMessage message = (OpenWireTextMessage)
+            createOpenWireFormat(true, true).unmarshal(new Buffer(toArray(target)));
+        assertEquals("message-1", message.getText());
+    }
+
+    private void doTestMarshalMatchesBufferMarshal(boolean tight, boolean direct) throws Exception {
+        OpenWireFormat expectedFormat = createOpenWireFormat(tight, true);
+        OpenWireFormat wireFormat = createOpenWireFormat(tight, true);
+
+        for (int i = 0; i < 3; ++i) {
+            Buffer expected = expectedFormat.marshal(createMessage(1));
+
+            ByteBuffer target = direct ? ByteBuffer.allocateDirect(1024) : ByteBuffer.allocate(1024);
+            int size = wireFormat.marshal(createMessage(1), target);
+            assertEquals(expected.length, size);
+            assertEquals(size, target.position());
+
+            target.flip();
+            assertArrayEquals(expected.toByteArray(), toArray(target));
+        }
+    }
+
+    private void doTestOverflowReportsRequiredSize(boolean tight) throws Exception {
+        OpenWireFormat expectedFormat = createOpenWireFormat(tight, true);
+        OpenWireFormat wireFormat = createOpenWireFormat(tight, true);
+
+        Buffer expected = expectedFormat.marshal(createMessage(1));
+
+        ByteBuffer small = ByteBuffer.allocate(10);
+        int result = wireFormat.marshal(createMessage(1), small);
+        assertTrue(result < 0);
+        assertEquals(expected.length, -result);
+        assertEquals(0, small.position());
+
+        // The retry must not reference cache entries from the abandoned attempt.
+        ByteBuffer target = ByteBuffer.allocate(-result);
+        assertEquals(-result, wireFormat.marshal(createMessage(1), target));
+        target.flip();
+        assertArrayEquals(expected.toByteArray(), toArray(target));
+    }
+
+    private byte[] toArray(ByteBuffer buffer) {
+        byte[] result = new byte[buffer.remaining()];
+        buffer.get(result);
+        return result;
+    }
+}
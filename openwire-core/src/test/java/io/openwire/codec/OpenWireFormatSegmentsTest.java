@@ -0,0 +1,125 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.openwire.codec;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import io.openwire.commands.CommandTypes;
+import io.openwire.commands.ConnectionId;
+import io.openwire.commands.MessageId;
+import io.openwire.commands.OpenWireBytesMessage;
+import io.openwire.commands.OpenWireQueue;
+import io.openwire.commands.ProducerId;
+
+import java.nio.ByteBuffer;
+
+import org.fusesource.hawtbuf.Buffer;
+import org.fusesource.hawtbuf.DataByteArrayOutputStream;
+import org.junit.Test;
+
+/**
+ * Test marshaling of commands into segments for gathering writes.
+ */
+public class OpenWireFormatSegmentsTest {
+
+    @Test
+    public void testLargeContentIsNotCopiedTight() throws Exception {
+        doTestLargeContentIsNotCopied(true);
+    }
+
+    @Test
+    public void testLargeContentIsNotCopiedLoose() throws Exception {
+        doTestLargeContentIsNotCopied(false);
+    }
+
+    @Test
+    public void testSmallCommandIsOneSegment() throws Exception {
+        OpenWireFormat expectedFormat = createOpenWireFormat(true);
+        OpenWireFormat wireFormat = createOpenWireFormat(true);
+
+        ByteBuffer[] segments = wireFormat.marshalSegments(createMessage(100));
+        assertEquals(1, segments.length);
+        assertArrayEquals(expectedFormat.marshal(createMessage(100)).toByteArray(), concat(segments));
+    }
+
+    @Test
+    public void testNullCommand() throws Exception {
+        ByteBuffer[] segments = createOpenWireFormat(true).marshalSegments(null);
+        assertArrayEquals(new byte[] { 0, 0, 0, 1, CommandTypes.NULL }, concat(segments));
+    }
+
+    @Test
+    public void testEncoderSegments() throws Exception {
+        OpenWireFormat expectedFormat = createOpenWireFormat(true);
+        OpenWireEncoder encoder = createOpenWireFormat(true).createEncoder();
+
+        for (int i = 0; i < 3; ++i) {
+            Buffer expected = expectedFormat.marshal(createMessage(64 * 1024));
+            assertArrayEquals(expected.toByteArray(), concat(encoder.encodeSegments(createMessage(64 * 1024))));
+        }
+    }
+
+    private void doTestLargeContentIsNotCopied(boolean tight) throws Exception {
+        OpenWireFormat expectedFormat = createOpenWireFormat(tight);
+        OpenWireFormat wireFormat = createOpenWireFormat(tight);
+
+        for (int i = 0; i < 2; ++i) {
+            OpenWireBytesMessage message = createMessage(1024 * 1024);
+            Buffer content = message.getContent();
+
+            ByteBuffer[] segments = wireFormat.marshalSegments(message);
+            assertEquals(3, segments.length);
+            assertSame(content.getData(), segments[1].array());
+            assertEquals(content.getLength(), segments[1].remaining());
+
+            Buffer expected = expectedFormat.marshal(createMessage(1024 * 1024));
+            assertArrayEquals(expected.toByteArray(), concat(segments));
+        }
+    }
+
+    private byte[] concat(ByteBuffer[] segments) throws Exception {
+        DataByteArrayOutputStream out = new DataByteArrayOutputStream();
+        for (ByteBuffer segment : segments) {
+            out.write(segment.array(), segment.arrayOffset() + segment.position(), segment.remaining());
+        }
+        return out.toBuffer().toByteArray();
+    }
+
+    private OpenWireBytesMessage createMessage(int size) throws Exception {
+        ProducerId producerId = new ProducerId(new ConnectionId("connection").toString() + ":1:1");
+        OpenWireBytesMessage message = new OpenWireBytesMessage();
+        message.setProducerId(producerId);
+        message.setMessageId(new MessageId(producerId, 1));
+        message.setDestination(new OpenWireQueue("TEST.QUEUE"));
+        message.setProperty("property", "value");
+
+        byte[] payload = new byte[size];
+        for (int i = 0; i < size; ++i) {
+            payload[i] = (byte) i;
+        }
+        message.setBodyBytes(payload);
+        return message;
+    }
+
+    private OpenWireFormat createOpenWireFormat(boolean tight) {
+        OpenWireFormat wf = new OpenWireFormat(CommandTypes.PROTOCOL_VERSION);
+        wf.setCacheEnabled(true);
+        wf.setTightEncodingEnabled(tight);
+        return wf;
+    }
+}
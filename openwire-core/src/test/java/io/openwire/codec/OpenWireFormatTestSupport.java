@@ -0,0 +1,175 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.openwire.codec;
+
+import io.openwire.commands.BrokerId;
+import io.openwire.commands.CommandTypes;
+import io.openwire.commands.ConnectionId;
+import io.openwire.commands.ConnectionInfo;
+import io.openwire.commands.ConsumerId;
+import io.openwire.commands.ConsumerInfo;
+import io.openwire.commands.DataStructure;
+import io.openwire.commands.ExceptionResponse;
+import io.openwire.commands.LocalTransactionId;
+import io.openwire.commands.MessageAck;
+import io.openwire.commands.MessageDispatch;
+import io.openwire.commands.MessageId;
+import io.openwire.commands.OpenWireQueue;
+import io.openwire.commands.OpenWireTextMessage;
+import io.openwire.commands.OpenWireTopic;
+import io.openwire.commands.ProducerId;
+import io.openwire.commands.SessionId;
+import io.openwire.commands.TransactionInfo;
+import io.openwire.commands.WireFormatInfo;
+import io.openwire.commands.XATransactionId;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Base class for the codec tests that creates the wire formats and the commands they marshal.
+ */
+public abstract class OpenWireFormatTestSupport {
+
+    protected OpenWireFormat createOpenWireFormat(boolean tight, boolean cacheEnabled) {
+        OpenWireFormat wf = new OpenWireFormat(CommandTypes.PROTOCOL_VERSION);
+        wf.setTightEncodingEnabled(tight);
+        wf.setCacheEnabled(cacheEnabled);
+        wf.setStackTraceEnabled(true);
+        return wf;
+    }
+
+    /**
+     * Creates a wire format that has negotiated its settings with a peer that prefers the same ones.
+     */
+    protected OpenWireFormat createNegotiatedOpenWireFormat(boolean tight, boolean cacheEnabled, int cacheSize) throws Exception {
+        OpenWireFormat wf = new OpenWireFormat(CommandTypes.PROTOCOL_VERSION);
+
+        WireFormatInfo info = new WireFormatInfo();
+        info.setVersion(CommandTypes.PROTOCOL_VERSION);
+        info.setCacheEnabled(cacheEnabled);
+        info.setCacheSize(cacheSize);
+        info.setTightEncodingEnabled(tight);
+        info.setMaxFrameSize(OpenWireFormat.DEFAULT_MAX_FRAME_SIZE);
+        wf.setPreferedWireFormatInfo(info);
+        wf.renegotiateWireFormat(info);
+        return wf;
+    }
+
+    protected OpenWireTextMessage createMessage(int sequence) throws Exception {
+        ProducerId producerId = new ProducerId(new ConnectionId("connection").toString() + ":1:1");
+        OpenWireTextMessage message = new OpenWireTextMessage();
+        message.setProducerId(producerId);
+        message.setMessageId(new MessageId(producerId, sequence));
+        message.setDestination(new OpenWireQueue("TEST.QUEUE"));
+        message.setText("message-" + sequence);
+        return message;
+    }
+
+    /**
+     * Creates one of each of the commands a connection commonly sends, filled in with nested
+     * values, non ASCII strings and enough booleans to overflow the single pass header reserve.
+     */
+    protected List<DataStructure> createCommands() throws Exception {
+        List<DataStructure> commands = new ArrayList<DataStructure>();
+
+        ConnectionId connectionId = new ConnectionId("connection");
+        SessionId sessionId = new SessionId(connectionId, 1);
+        ProducerId producerId = new ProducerId(sessionId, 1);
+        ConsumerId consumerId = new ConsumerId(sessionId, 1);
+
+        ConnectionInfo connectionInfo = new ConnectionInfo(connectionId);
+        connectionInfo.setClientId("client");
+        connectionInfo.setUserName("user");
+        connectionInfo.setBrokerPath(new BrokerId[] { new BrokerId("broker-1"), new BrokerId("broker-2") });
+        commands.add(connectionInfo);
+
+        ConsumerInfo consumerInfo = new ConsumerInfo(consumerId);
+        consumerInfo.setDestination(new OpenWireTopic("TEST.TOPIC"));
+        consumerInfo.setSelector("name = '\u00e9\u4e2d\ud83d\ude00'");
+        consumerInfo.setPrefetchSize(1000);
+        consumerInfo.setNetworkConsumerPath(new ConsumerId[] { consumerId, new ConsumerId(sessionId, 2) });
+        commands.add(consumerInfo);
+
+        for (int i = 0; i < 3; ++i) {
+            OpenWireTextMessage message = new OpenWireTextMessage();
+            message.setProducerId(producerId);
+            message.setMessageId(new MessageId(producerId, i));
+            message.setDestination(new OpenWireQueue("TEST.QUEUE"));
+            message.setOriginalDestination(new OpenWireQueue("TEST.QUEUE"));
+            message.setTransactionId(new LocalTransactionId(connectionId, i));
+            message.setTargetConsumerId(consumerId);
+            message.setCorrelationId("correlation-\u00e9\u4e2d");
+            message.setTimestamp(1400000000000L + i);
+            message.setExpiration(Long.MAX_VALUE - i);
+            message.setPriority((byte) 4);
+            message.setPersistent(i % 2 == 0);
+            message.setProperty("index", Integer.valueOf(i));
+            message.setText("message-" + i);
+            commands.add(message);
+
+            MessageDispatch dispatch = new MessageDispatch();
+            dispatch.setConsumerId(consumerId);
+            dispatch.setDestination(message.getDestination());
+            dispatch.setMessage(message.copy());
+            dispatch.setRedeliveryCounter(i);
+            commands.add(dispatch);
+        }
+
+        // Enough nested values that the booleans overflow the single pass header reserve.
+        BrokerId[] brokerPath = new BrokerId[300];
+        for (int i = 0; i < brokerPath.length; ++i) {
+            brokerPath[i] = new BrokerId("broker-" + i);
+        }
+        OpenWireTextMessage routed = new OpenWireTextMessage();
+        routed.setProducerId(producerId);
+        routed.setMessageId(new MessageId(producerId, 100));
+        routed.setDestination(new OpenWireQueue("TEST.QUEUE"));
+        routed.setBrokerPath(brokerPath);
+        commands.add(routed);
+
+        MessageAck ack = new MessageAck();
+        ack.setConsumerId(consumerId);
+        ack.setDestination(new OpenWireQueue("TEST.QUEUE"));
+        ack.setFirstMessageId(new MessageId(producerId, 1));
+        ack.setLastMessageId(new MessageId(producerId, 2));
+        ack.setMessageCount(2);
+        commands.add(ack);
+
+        XATransactionId xid = new XATransactionId();
+        xid.setFormatId(1);
+        xid.setGlobalTransactionId(new byte[] { 1, 2, 3 });
+        xid.setBranchQualifier(new byte[] { 4, 5 });
+        commands.add(new TransactionInfo(connectionId, xid, TransactionInfo.PREPARE));
+
+        IllegalStateException cause = new IllegalStateException("cause");
+        cause.setStackTrace(new StackTraceElement[] { new StackTraceElement("Cause", "fail", "Cause.java", 42) });
+        IOException error = new IOException("failed \u00e9", cause);
+        error.setStackTrace(new StackTraceElement[] {
+            new StackTraceElement("Error", "fail", "Error.java", 7), new StackTraceElement("Error", "run", null, -1) });
+        commands.add(new ExceptionResponse(error));
+
+        WireFormatInfo info = new WireFormatInfo();
+        info.setVersion(CommandTypes.PROTOCOL_VERSION);
+        info.setCacheEnabled(true);
+        info.setTightEncodingEnabled(true);
+        commands.add(info);
+
+        return commands;
+    }
+}
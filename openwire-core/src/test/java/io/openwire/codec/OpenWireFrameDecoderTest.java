@@ -0,0 +1,179 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.openwire.codec;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import io.openwire.commands.CommandTypes;
+import io.openwire.commands.ConnectionId;
+import io.openwire.commands.OpenWireTextMessage;
+import io.openwire.commands.SessionId;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.fusesource.hawtbuf.DataByteArrayOutputStream;
+import org.junit.Test;
+
+/**
+ * Test for the non-blocking OpenWireFrameDecoder
+ */
+public class OpenWireFrameDecoderTest {
+
+    private final List<Object> decoded = new ArrayList<Object>();
+
+    private final OpenWireFrameDecoder.Listener listener = new OpenWireFrameDecoder.Listener() {
+
+        @Override
+        public void onCommand(Object command) throws IOException {
+            decoded.add(command);
+        }
+    };
+
+    @Test
+    public void testDecodeWholeStreamInOneChunk() throws Exception {
+        doTestDecodeInChunksOf(Integer.MAX_VALUE, false);
+        doTestDecodeInChunksOf(Integer.MAX_VALUE, true);
+    }
+
+    @Test
+    public void testDecodeOneByteAtATime() throws Exception {
+        doTestDecodeInChunksOf(1, false);
+        doTestDecodeInChunksOf(1, true);
+    }
+
+    @Test
+    public void testDecodeChunksThatSplitTheSizePrefix() throws Exception {
+        for (int chunkSize = 2; chunkSize < 11; ++chunkSize) {
+            doTestDecodeInChunksOf(chunkSize, false);
+            doTestDecodeInChunksOf(chunkSize, true);
+        }
+    }
+
+    @Test
+    public void testDecodeFromDirectBuffer() throws Exception {
+        OpenWireFormat wireFormat = createOpenWireFormat(true);
+        byte[] stream = marshal(createOpenWireFormat(true));
+
+        ByteBuffer direct = ByteBuffer.allocateDirect(stream.length);
+        direct.put(stream);
+        direct.flip();
+
+        OpenWireFrameDecoder decoder = new OpenWireFrameDecoder(wireFormat, listener);
+        decoder.decode(direct);
+
+        assertFalse(direct.hasRemaining());
+        assertDecodedCommands();
+    }
+
+    @Test
+    public void testPartialFrameIsRetained() throws Exception {
+        OpenWireFormat wireFormat = createOpenWireFormat(true);
+        byte[] stream = marshal(createOpenWireFormat(true));
+
+        OpenWireFrameDecoder decoder = new OpenWireFrameDecoder(wireFormat, listener);
+        decoder.decode(ByteBuffer.wrap(stream, 0, 6));
+
+        assertTrue(decoded.isEmpty());
+        assertTrue(decoder.isFrameInProgress());
+
+        decoder.reset();
+        assertFalse(decoder.isFrameInProgress());
+    }
+
+    @Test
+    public void testFrameLargerThanMaxFrameSize() throws Exception {
+        OpenWireFormat wireFormat = createOpenWireFormat(true);
+        wireFormat.setMaxFrameSize(10);
+        byte[] stream = marshal(createOpenWireFormat(true));
+
+        OpenWireFrameDecoder decoder = new OpenWireFrameDecoder(wireFormat, listener);
+        try {
+            decoder.decode(ByteBuffer.wrap(stream));
+            fail("Should fail because of the large frame size");
+        } catch (IOException ioe) {
+        }
+    }
+
+    @Test(expected=IOException.class)
+    public void testDecodeFailsWhenSizePrefixDisabled() throws Exception {
+        OpenWireFormat wireFormat = createOpenWireFormat(true);
+        wireFormat.setSizePrefixDisabled(true);
+
+        OpenWireFrameDecoder decoder = new OpenWireFrameDecoder(wireFormat, listener);
+        decoder.decode(ByteBuffer.wrap(new byte[] { 0, 0, 0, 1 }));
+    }
+
+    private void doTestDecodeInChunksOf(int chunkSize, boolean tightEncoding) throws Exception {
+        decoded.clear();
+
+        OpenWireFormat wireFormat = createOpenWireFormat(tightEncoding);
+        byte[] stream = marshal(createOpenWireFormat(tightEncoding));
+
+        OpenWireFrameDecoder decoder = new OpenWireFrameDecoder(wireFormat, listener);
+        for (int offset = 0; offset < stream.length; offset += chunkSize) {
+            int length = Math.min(chunkSize, stream.length - offset);
+            ByteBuffer chunk = ByteBuffer.wrap(stream, offset, length);
+            decoder.decode(chunk);
+            assertFalse(chunk.hasRemaining());
+        }
+
+        assertFalse(decoder.isFrameInProgress());
+        assertDecodedCommands();
+    }
+
+    private byte[] marshal(OpenWireFormat wireFormat) throws Exception {
+        DataByteArrayOutputStream output = new DataByteArrayOutputStream();
+
+        for (int i = 0; i < 3; ++i) {
+            SessionId sessionId = new SessionId(new ConnectionId("connection-" + i), i);
+            wireFormat.marshal(sessionId, output);
+
+            OpenWireTextMessage message = new OpenWireTextMessage();
+            message.setText("message-" + i);
+            wireFormat.marshal(message, output);
+        }
+        wireFormat.marshal(null, output);
+
+        return output.toBuffer().toByteArray();
+    }
+
+    private void assertDecodedCommands() throws Exception {
+        assertEquals(7, decoded.size());
+        for (int i = 0; i < 3; ++i) {
+            SessionId sessionId = (SessionId) decoded.get(i * 2);
+            assertEquals("connection-" + i, sessionId.getConnectionId());
+            assertEquals(i, sessionId.getValue());
+
+            OpenWireTextMessage message = (OpenWireTextMessage) decoded.get((i * 2) + 1);
+            assertEquals("message-" + i, message.getText());
+        }
+        assertNull(decoded.get(6));
+    }
+
+    private OpenWireFormat createOpenWireFormat(boolean tightEncoding) {
+        OpenWireFormat wf = new OpenWireFormat(CommandTypes.PROTOCOL_VERSION);
+        wf.setCacheEnabled(true);
+        wf.setTightEncodingEnabled(tightEncoding);
+        return wf;
+    }
+}
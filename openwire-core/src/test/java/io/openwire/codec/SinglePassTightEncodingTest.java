@@ -0,0 +1,111 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.openwire.codec;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import io.openwire.commands.CommandTypes;
+import io.openwire.commands.DataStructure;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+
+import org.fusesource.hawtbuf.Buffer;
+import org.fusesource.hawtbuf.DataByteArrayOutputStream;
+import org.junit.Test;
+
+/**
+ * Test that the single pass tight encoding produces the same frames as the two pass encoding.
+ */
+public class SinglePassTightEncodingTest extends OpenWireFormatTestSupport {
+
+    @Test
+    public void testFramesMatchTwoPassEncoding() throws Exception {
+        doTestFramesMatch(CommandTypes.PROTOCOL_VERSION, true, false);
+        doTestFramesMatch(CommandTypes.PROTOCOL_VERSION, false, false);
+        doTestFramesMatch(CommandTypes.PROTOCOL_VERSION, true, true);
+        doTestFramesMatch(9, true, false);
+        doTestFramesMatch(1, true, false);
+    }
+
+    @Test
+    public void testFramesMatchWhenWrittenToDataOutput() throws Exception {
+        OpenWireFormat twoPass = createOpenWireFormat(true, true);
+        OpenWireFormat singlePass = createOpenWireFormat(true, true);
+        singlePass.setSinglePassTightEncodingEnabled(true);
+
+        DataByteArrayOutputStream expected = new DataByteArrayOutputStream();
+        DataByteArrayOutputStream actual = new DataByteArrayOutputStream();
+
+        for (DataStructure command : createCommands()) {
+            twoPass.marshal(command, expected);
+        }
+        for (DataStructure command : createCommands()) {
+            singlePass.marshal(command, actual);
+        }
+
+        assertArrayEquals(expected.toBuffer().toByteArray(), actual.toBuffer().toByteArray());
+    }
+
+    @Test
+    public void testFramesMatchWhenWrittenToByteBuffer() throws Exception {
+        OpenWireFormat twoPass = createOpenWireFormat(true, true);
+        OpenWireFormat singlePass = createOpenWireFormat(true, true);
+        singlePass.setSinglePassTightEncodingEnabled(true);
+
+        List<DataStructure> expectedCommands = createCommands();
+        List<DataStructure> actualCommands = createCommands();
+        for (int i = 0; i < expectedCommands.size(); ++i) {
+            Buffer expected = twoPass.marshal(expectedCommands.get(i));
+            ByteBuffer target = ByteBuffer.allocate(expected.length);
+            assertEquals(expected.length, singlePass.marshal(actualCommands.get(i), target));
+            assertArrayEquals(expected.toByteArray(), target.array());
+        }
+    }
+
+    @Test
+    public void testSinglePassFramesCanBeUnmarshaled() throws Exception {
+        OpenWireFormat singlePass = createOpenWireFormat(true, true);
+        singlePass.setSinglePassTightEncodingEnabled(true);
+        OpenWireFormat reader = createOpenWireFormat(true, true);
+
+        for (DataStructure command : createCommands()) {
+            Object result = reader.unmarshal(singlePass.marshal(command));
+            assertEquals(command.getClass(), result.getClass());
+        }
+    }
+
+    private void doTestFramesMatch(int version, boolean cacheEnabled, boolean sizePrefixDisabled) throws Exception {
+        OpenWireFormat twoPass = createOpenWireFormat(true, cacheEnabled);
+        twoPass.setVersion(version);
+        twoPass.setSizePrefixDisabled(sizePrefixDisabled);
+
+        OpenWireFormat singlePass = createOpenWireFormat(true, cacheEnabled);
+        singlePass.setSinglePassTightEncodingEnabled(true);
+        singlePass.setVersion(version);
+        singlePass.setSizePrefixDisabled(sizePrefixDisabled);
+
+        List<DataStructure> expectedCommands = createCommands();
+        List<DataStructure> actualCommands = createCommands();
+        for (int i = 0; i < expectedCommands.size(); ++i) {
+            Buffer expected = twoPass.marshal(expectedCommands.get(i));
+            Buffer actual = singlePass.marshal(actualCommands.get(i));
+            assertArrayEquals("Frame " + i + " differs for version " + version,
+                expected.toByteArray(), actual.toByteArray());
+        }
+    }
+}
@@ -0,0 +1,126 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.openwire.codec;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import io.openwire.commands.CommandTypes;
+import io.openwire.commands.ConnectionId;
+import io.openwire.commands.MessageId;
+import io.openwire.commands.OpenWireBytesMessage;
+import io.openwire.commands.OpenWireQueue;
+import io.openwire.commands.ProducerId;
+
+import org.fusesource.hawtbuf.Buffer;
+import org.junit.Test;
+
+/**
+ * Test unmarshaling of message content and properties as slices of the frame.
+ */
+public class ZeroCopyUnmarshalTest {
+
+    private final byte[] payload = createPayload(4096);
+
+    @Test
+    public void testContentIsSliceOfFrameTight() throws Exception {
+        doTestContentIsSliceOfFrame(true);
+    }
+
+    @Test
+    public void testContentIsSliceOfFrameLoose() throws Exception {
+        doTestContentIsSliceOfFrame(false);
+    }
+
+    @Test
+    public void testContentIsCopiedWhenDisabled() throws Exception {
+        OpenWireFormat writer = createOpenWireFormat(true, false);
+        OpenWireFormat reader = createOpenWireFormat(true, false);
+
+        Buffer frame = writer.marshal(createMessage(false));
+        OpenWireBytesMessage message = (OpenWireBytesMessage) reader.unmarshal(frame);
+
+        assertNotSame(frame.getData(), message.getContent().getData());
+        assertArrayEquals(payload, message.getBodyBytes());
+    }
+
+    @Test
+    public void testCompressedContentSliceCanBeDecompressed() throws Exception {
+        OpenWireFormat writer = createOpenWireFormat(true, false);
+        OpenWireFormat reader = createOpenWireFormat(true, true);
+
+        Buffer frame = writer.marshal(createMessage(true));
+        OpenWireBytesMessage message = (OpenWireBytesMessage) reader.unmarshal(frame);
+
+        assertTrue(message.isCompressed());
+        assertSame(frame.getData(), message.getContent().getData());
+        assertTrue(message.getContent().getOffset() > 0);
+        assertArrayEquals(payload, message.getBodyBytes());
+
+        // Content that is a slice must also survive being compressed again.
+        OpenWireBytesMessage copy = message.copy();
+        copy.setUseCompression(true);
+        copy.setBodyBytes(message.getContent());
+        assertEquals(message.getContent().getLength(), copy.getBodyLength());
+    }
+
+    private void doTestContentIsSliceOfFrame(boolean tight) throws Exception {
+        OpenWireFormat writer = createOpenWireFormat(tight, false);
+        OpenWireFormat reader = createOpenWireFormat(tight, true);
+
+        Buffer frame = writer.marshal(createMessage(false));
+        OpenWireBytesMessage message = (OpenWireBytesMessage) reader.unmarshal(frame);
+
+        Buffer content = message.getContent();
+        assertSame(frame.getData(), content.getData());
+        assertTrue(content.getOffset() > 0);
+        assertArrayEquals(payload, message.getBodyBytes());
+
+        assertSame(frame.getData(), message.getMarshalledProperties().getData());
+        assertEquals("value", message.getProperty("property"));
+    }
+
+    private OpenWireBytesMessage createMessage(boolean compressed) throws Exception {
+        ProducerId producerId = new ProducerId(new ConnectionId("connection").toString() + ":1:1");
+        OpenWireBytesMessage message = new OpenWireBytesMessage();
+        message.setProducerId(producerId);
+        message.setMessageId(new MessageId(producerId, 1));
+        message.setDestination(new OpenWireQueue("TEST.QUEUE"));
+        message.setProperty("property", "value");
+        message.setUseCompression(compressed);
+        message.setBodyBytes(payload);
+        return message;
+    }
+
+    private byte[] createPayload(int size) {
+        byte[] data = new byte[size];
+        for (int i = 0; i < size; ++i) {
+            data[i] = (byte) (i % 7);
+        }
+        return data;
+    }
+
+    private OpenWireFormat createOpenWireFormat(boolean tight, boolean zeroCopy) {
+        OpenWireFormat wf = new OpenWireFormat(CommandTypes.PROTOCOL_VERSION);
+        wf.setCacheEnabled(true);
+        wf.setTightEncodingEnabled(tight);
+        wf.setZeroCopyUnmarshalEnabled(zeroCopy);
+        return wf;
+    }
+}
@@ -19,7 +19,9 @@ package io.openwire.commands;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 import io.openwire.codec.OpenWireFormat;
@@ -443,6 +445,64 @@ public class OpenWireMessageTest {
         assertNull(message.getContent());
     }
 
+    @Test
+    public void testDecompressedPayloadIsReused() throws Exception {
+        OpenWireMessage message = createCompressedMessage(1000);
+        assertEquals(0, message.getCachedPayloadSize());
+
+        Buffer payload = message.getPayload();
+        assertEquals(1000, payload.getLength());
+        assertEquals(1000, message.getCachedPayloadSize());
+        assertSame(payload, message.getPayload());
+
+        message.setPayload(new byte[1000]);
+        assertEquals(0, message.getCachedPayloadSize());
+        assertNotSame(payload, message.getPayload());
+
+        message.clearBody();
+        assertEquals(0, message.getCachedPayloadSize());
+        assertEquals(0, message.getPayload().getLength());
+    }
+
+    @Test
+    public void testDecompressedPayloadSizeIsBounded() throws Exception {
+        OpenWireMessage message = createCompressedMessage(1000);
+        message.setMaxCachedPayloadSize(999);
+        assertNotSame(message.getPayload(), message.getPayload());
+        assertEquals(0, message.getCachedPayloadSize());
+
+        message.setMaxCachedPayloadSize(1000);
+        assertSame(message.getPayload(), message.getPayload());
+        message.setMaxCachedPayloadSize(0);
+        assertEquals(0, message.getCachedPayloadSize());
+    }
+
+    @Test
+    public void testDecompressedPayloadReleasedOnDecode() throws Exception {
+        OpenWireMapMessage message = new OpenWireMapMessage();
+        message.setUseCompression(true);
+        message.setObject("text", new String(new char[1000]).replace('\0', 'a'));
+        message.storeContent();
+        assertTrue(message.isCompressed());
+
+        OpenWireMapMessage received = (OpenWireMapMessage) message.copy();
+        received.setReleasePayloadOnDecode(true);
+        assertEquals(1000, ((String) received.getObject("text")).length());
+        assertEquals(0, received.getCachedPayloadSize());
+
+        received = (OpenWireMapMessage) message.copy();
+        assertEquals(1000, ((String) received.getObject("text")).length());
+        assertTrue(received.getCachedPayloadSize() > 0);
+    }
+
+    private OpenWireMessage createCompressedMessage(int size) throws Exception {
+        OpenWireMessage message = new OpenWireMessage();
+        message.setUseCompression(true);
+        message.setPayload(new byte[size]);
+        assertTrue(message.isCompressed());
+        return message;
+    }
+
     @Test
     public void testIsExpired() {
         OpenWireMessage msg = new OpenWireMessage();
@@ -16,11 +16,21 @@
  */
 package io.openwire.utils;
 
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
 import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.UTFDataFormatException;
+import java.util.Random;
 
+import org.fusesource.hawtbuf.ByteArrayInputStream;
+import org.fusesource.hawtbuf.ByteArrayOutputStream;
 import org.fusesource.hawtbuf.DataByteArrayInputStream;
 import org.fusesource.hawtbuf.DataByteArrayOutputStream;
 import org.junit.Test;
@@ -39,4 +49,120 @@ public class OpenWireMarshallingSupportTest {
         result = (Boolean) OpenWireMarshallingSupport.unmarshalPrimitive(dataIn);
         assertTrue(result);
     }
+
+    @Test
+    public void testUTF8MatchesModifiedUTF8() throws Exception {
+        for (String text : createStrings()) {
+            ByteArrayOutputStream expected = new ByteArrayOutputStream();
+            DataOutputStream expectedOut = new DataOutputStream(expected);
+            expectedOut.writeUTF(text);
+            expectedOut.close();
+            byte[] expectedBytes = expected.toBuffer().toByteArray();
+
+            byte[] direct = writeDirect(text);
+            byte[] streamed = writeStreamed(text);
+            assertArrayEquals(direct, streamed);
+            assertEquals(expectedBytes.length + 2, direct.length);
+            for (int i = 2; i < expectedBytes.length; ++i) {
+                assertEquals(expectedBytes[i], direct[i + 2]);
+            }
+
+            assertEquals(text, OpenWireMarshallingSupport.readUTF8(new DataByteArrayInputStream(direct)));
+            assertEquals(text, OpenWireMarshallingSupport.readUTF8(new DataInputStream(new ByteArrayInputStream(direct))));
+        }
+    }
+
+    @Test
+    public void testLargeUTF8() throws Exception {
+        Random random = new Random(42);
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < 100000; ++i) {
+            int kind = random.nextInt(10);
+            if (kind < 7) {
+                builder.append((char) (' ' + random.nextInt(95)));
+            } else if (kind < 9) {
+                builder.append((char) (0x80 + random.nextInt(0x780)));
+            } else {
+                builder.append((char) (0x800 + random.nextInt(0xF7FF)));
+            }
+        }
+        String text = builder.toString();
+
+        byte[] direct = writeDirect(text);
+        assertArrayEquals(direct, writeStreamed(text));
+        assertEquals(text, OpenWireMarshallingSupport.readUTF8(new DataByteArrayInputStream(direct)));
+        assertEquals(text, OpenWireMarshallingSupport.readUTF8(new DataInputStream(new ByteArrayInputStream(direct))));
+    }
+
+    @Test
+    public void testNullUTF8() throws Exception {
+        byte[] data = writeDirect(null);
+        assertArrayEquals(data, writeStreamed(null));
+        assertNull(OpenWireMarshallingSupport.readUTF8(new DataByteArrayInputStream(data)));
+    }
+
+    @Test
+    public void testReadUTF8FollowedByOtherData() throws Exception {
+        DataByteArrayOutputStream dataOut = new DataByteArrayOutputStream(4);
+        OpenWireMarshallingSupport.writeUTF8(dataOut, "first");
+        OpenWireMarshallingSupport.writeUTF8(dataOut, "second \u00e9\u4e2d");
+        dataOut.writeInt(42);
+
+        DataByteArrayInputStream dataIn = new DataByteArrayInputStream(dataOut.toBuffer());
+        assertEquals("first", OpenWireMarshallingSupport.readUTF8(dataIn));
+        assertEquals("second \u00e9\u4e2d", OpenWireMarshallingSupport.readUTF8(dataIn));
+        assertEquals(42, dataIn.readInt());
+    }
+
+    @Test
+    public void testMalformedUTF8() throws Exception {
+        byte[][] invalid = {
+            { 0, 0, 0, 1, (byte) 0x80 },
+            { 0, 0, 0, 1, (byte) 0xF0 },
+            { 0, 0, 0, 2, (byte) 0xC3, 0x41 },
+            { 0, 0, 0, 1, (byte) 0xC3 },
+            { 0, 0, 0, 2, (byte) 0xE4, (byte) 0xB8 },
+            { 0, 0, 0, 9, 'a', 'b', 'c', 'd', 'e', 'f', 'g', 'h', (byte) 0xFF } };
+
+        for (byte[] data : invalid) {
+            try {
+                OpenWireMarshallingSupport.readUTF8(new DataByteArrayInputStream(data));
+                fail("Should not decode invalid data");
+            } catch (UTFDataFormatException e) {
+            }
+            try {
+                OpenWireMarshallingSupport.readUTF8(new DataInputStream(new ByteArrayInputStream(data)));
+                fail("Should not decode invalid data");
+            } catch (UTFDataFormatException e) {
+            }
+        }
+
+        try {
+            OpenWireMarshallingSupport.readUTF8(new DataByteArrayInputStream(new byte[] { 0, 0, 0, 5, 'a' }));
+            fail("Should not decode truncated data");
+        } catch (EOFException e) {
+        }
+    }
+
+    private String[] createStrings() {
+        return new String[] {
+            "", "a", "abcdefg", "abcdefgh", "abcdefghi", "Hello World, a plain ASCII string.",
+            "\u0000", "abcdefg\u0000abcdefgh", "caf\u00e9 cr\u00e8me br\u00fbl\u00e9e",
+            "\u4e2d\u6587\u5b57\u7b26", "emoji \ud83d\ude00 pair", "\u007f\u0080\u07ff\u0800\uffff",
+            "12345678\u00e912345678\u4e2d12345678" };
+    }
+
+    private byte[] writeDirect(String text) throws Exception {
+        DataByteArrayOutputStream dataOut = new DataByteArrayOutputStream(4);
+        OpenWireMarshallingSupport.writeUTF8(dataOut, text);
+        return dataOut.toBuffer().toByteArray();
+    }
+
+    private byte[] writeStreamed(String text) throws Exception {
+        ByteArrayOutputStream bytesOut = new ByteArrayOutputStream();
+        DataOutputStream dataOut = new DataOutputStream(bytesOut);
+        OpenWireMarshallingSupport.writeUTF8(dataOut, text);
+        dataOut.close();
+        return bytesOut.toBuffer().toByteArray();
+    }
 }
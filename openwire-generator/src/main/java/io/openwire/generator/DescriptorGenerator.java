@@ -0,0 +1,186 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.openwire.generator;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.codehaus.jam.JAnnotation;
+import org.codehaus.jam.JAnnotationValue;
+import org.codehaus.jam.JClass;
+import org.codehaus.jam.JProperty;
+
+/**
+ * Generates the marshaller descriptor file of an OpenWire version, the data driven
+ * marshallers of the legacy codec read these in place of one generated class per type.
+ */
+public class DescriptorGenerator extends MultiSourceGenerator {
+
+    private final Map<String, String> entries = new TreeMap<String, String>();
+
+    public DescriptorGenerator() {
+        this.targetDir = "src/main/resources";
+        this.filePostFix = ".descriptor";
+    }
+
+    @Override
+    public Object run() {
+        if (destDir == null) {
+            destDir = new File(getTargetDir() + "/" + codecPackageRoot.replace('.', '/') + "/descriptor");
+        }
+        entries.clear();
+        Object answer = super.run();
+        processDescriptorFile();
+        return answer;
+    }
+
+    @Override
+    protected void processClass(JClass jclass) {
+        simpleName = jclass.getSimpleName();
+        superclass = jclass.getSuperclass();
+        baseClass = getBaseClassName(jclass);
+
+        System.out.println(getClass().getName() + " processing class: " + simpleName);
+
+        StringWriter entry = new StringWriter();
+        PrintWriter out = new PrintWriter(entry);
+        try {
+            generateFile(out);
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        }
+        out.flush();
+
+        entries.put(simpleName, entry.toString());
+    }
+
+    @Override
+    protected void generateFile(PrintWriter out) throws Exception {
+        StringBuilder header = new StringBuilder("marshaller ").append(simpleName);
+        if (isAbstractClass()) {
+            header.append(" abstract");
+        }
+        if (baseClass != null) {
+            header.append(" extends ").append(baseClass);
+        }
+        if (isMarshallerAware()) {
+            header.append(" marshallAware");
+        }
+        out.println(header);
+
+        for (JProperty property : getProperties()) {
+            out.println("    " + getPropertyKind(property) + " " + property.getGetter().getSimpleName() + " " + property.getSetter().getSimpleName());
+        }
+    }
+
+    @Override
+    protected String getBaseClassName(JClass jclass) {
+        JClass superclass = jclass.getSuperclass();
+        if (superclass != null) {
+            String superName = superclass.getSimpleName();
+            if (!superName.equals("Object") && !superName.equals("JNDIBaseStorable") && !superName.equals("DataStructureSupport")) {
+                return superName;
+            }
+        }
+        return null;
+    }
+
+    @Override
+    protected void initialiseManuallyMaintainedClasses() {
+    }
+
+    protected String getPropertyKind(JProperty property) {
+        JAnnotation annotation = property.getAnnotation("openwire:property");
+        JAnnotationValue size = annotation.getValue("size");
+        JClass propertyType = property.getType();
+        String type = propertyType.getSimpleName();
+
+        if (type.equals("boolean") || type.equals("byte") || type.equals("char") ||
+            type.equals("short") || type.equals("int") || type.equals("long")) {
+            return type;
+        } else if (type.equals("String")) {
+            return "string";
+        } else if (type.equals("byte[]")) {
+            return size != null ? "bytes[" + size.asInt() + "]" : "bytes";
+        } else if (type.equals("ByteSequence")) {
+            return "sequence";
+        } else if (propertyType.isArrayType()) {
+            if (size != null) {
+                throw new IllegalArgumentException("Fixed size arrays cannot be described: " + simpleName + "." + property.getSimpleName());
+            }
+            return "array";
+        } else if (isThrowable(propertyType)) {
+            return "throwable";
+        } else {
+            return isCachedProperty(property) ? "cached" : "nested";
+        }
+    }
+
+    protected void processDescriptorFile() {
+        destFile = new File(destDir, "openwire-v" + getOpenwireVersion() + filePostFix);
+
+        PrintWriter out = null;
+        try {
+            out = new PrintWriter(new FileWriter(destFile));
+            generateDescriptorFile(out);
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        } finally {
+            if (out != null) {
+                out.close();
+            }
+        }
+    }
+
+    protected void generateDescriptorFile(PrintWriter out) {
+        generateLicence(out);
+        out.println("#");
+        out.println("# OpenWire version " + getOpenwireVersion() + " marshaller descriptors.");
+        out.println("#");
+        out.println("# NOTE!: This file is auto generated - do not modify!");
+        out.println("#");
+        out.println("package " + getCommandsPackage());
+
+        for (String entry : entries.values()) {
+            out.println("");
+            out.print(entry);
+        }
+    }
+
+    private void generateLicence(PrintWriter out) {
+        out.println("## ---------------------------------------------------------------------------");
+        out.println("## Licensed to the Apache Software Foundation (ASF) under one or more");
+        out.println("## contributor license agreements.  See the NOTICE file distributed with");
+        out.println("## this work for additional information regarding copyright ownership.");
+        out.println("## The ASF licenses this file to You under the Apache License, Version 2.0");
+        out.println("## (the \"License\"); you may not use this file except in compliance with");
+        out.println("## the License.  You may obtain a copy of the License at");
+        out.println("##");
+        out.println("## http://www.apache.org/licenses/LICENSE-2.0");
+        out.println("##");
+        out.println("## Unless required by applicable law or agreed to in writing, software");
+        out.println("## distributed under the License is distributed on an \"AS IS\" BASIS,");
+        out.println("## WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.");
+        out.println("## See the License for the specific language governing permissions and");
+        out.println("## limitations under the License.");
+        out.println("## ---------------------------------------------------------------------------");
+    }
+}
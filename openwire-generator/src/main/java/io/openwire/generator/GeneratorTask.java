@@ -37,6 +37,10 @@ public class GeneratorTask extends Task {
     protected File targetDir = new File("./src/main/java");
     protected boolean generateMarshalers = true;
     protected boolean generateTests = false;
+    protected boolean generateDescriptors = false;
+    protected boolean byteArrayMarshalers = false;
+    protected boolean bufferMarshalers = false;
+    protected File descriptorTargetDir = new File("./src/main/resources");
     protected String commandsPackage;
     protected String codecPackageRoot;
 
@@ -114,6 +118,21 @@ public class GeneratorTask extends Task {
                 }
             }
 
+            if (generateDescriptors) {
+                PropertyAccessorsGenerator accessors = new PropertyAccessorsGenerator();
+                if (!isRangedGenerate()) {
+                    runDescriptorGenerateScript(jam, fromVersion, accessors);
+                    if (toVersion != fromVersion) {
+                        runDescriptorGenerateScript(jam, toVersion, accessors);
+                    }
+                } else {
+                    for (int i = fromVersion; i <= toVersion; ++i) {
+                        runDescriptorGenerateScript(jam, i, accessors);
+                    }
+                }
+                accessors.processAccessorsFile();
+            }
+
         } catch (Exception e) {
             throw new BuildException(e);
         }
@@ -124,6 +143,8 @@ public class GeneratorTask extends Task {
         System.out.println(" Generating Marshallers for OpenWire version: " + version);
         System.out.println("======================================================");
         MarshallingGenerator script = new MarshallingGenerator();
+        script.setByteArrayMarshalling(byteArrayMarshalers);
+        script.setBufferMarshalling(bufferMarshalers);
         runScript(script, jam, version);
     }
 
@@ -135,6 +156,29 @@ public class GeneratorTask extends Task {
         runScript(script, jam, version);
     }
 
+    /**
+     * Writes the descriptors of a version and collects the properties they describe into
+     * the accessors shared by all the versions, which are written once all are described.
+     */
+    protected void runDescriptorGenerateScript(JamService jam, int version, PropertyAccessorsGenerator accessors) throws Exception {
+        System.out.println("======================================================");
+        System.out.println(" Generating Descriptors for OpenWire version: " + version);
+        System.out.println("======================================================");
+        DescriptorGenerator script = new DescriptorGenerator();
+        script.setJam(jam);
+        script.setTargetDir(descriptorTargetDir.getCanonicalPath());
+        script.setOpenwireVersion(version);
+        if (commandsPackage != null) {
+            script.setCommandsPackage(commandsPackage);
+        }
+        if (codecPackageRoot != null) {
+            script.setCodecPackageRoot(codecPackageRoot);
+        }
+        script.run();
+
+        runScript(accessors, jam, version);
+    }
+
     protected void runScript(MultiSourceGenerator script, JamService jam, int version) throws Exception {
         script.setJam(jam);
         script.setTargetDir(targetDir.getCanonicalPath());
@@ -196,6 +240,46 @@ public class GeneratorTask extends Task {
         this.generateTests = generateTests;
     }
 
+    public boolean isByteArrayMarshalers() {
+        return byteArrayMarshalers;
+    }
+
+    /**
+     * When set the generated marshallers also run the second tight marshal pass and the tight
+     * unmarshal straight against the byte array backing the frame.
+     */
+    public void setByteArrayMarshalers(boolean byteArrayMarshalers) {
+        this.byteArrayMarshalers = byteArrayMarshalers;
+    }
+
+    public boolean isBufferMarshalers() {
+        return bufferMarshalers;
+    }
+
+    /**
+     * When set the generated marshallers also implement OpenWireBufferMarshaller, reading and
+     * writing through the final OpenWireBufferReader and OpenWireBufferWriter.
+     */
+    public void setBufferMarshalers(boolean bufferMarshalers) {
+        this.bufferMarshalers = bufferMarshalers;
+    }
+
+    public boolean isGenerateDescriptors() {
+        return generateDescriptors;
+    }
+
+    public void setGenerateDescriptors(boolean generateDescriptors) {
+        this.generateDescriptors = generateDescriptors;
+    }
+
+    public File getDescriptorTargetDir() {
+        return descriptorTargetDir;
+    }
+
+    public void setDescriptorTargetDir(File descriptorTargetDir) {
+        this.descriptorTargetDir = descriptorTargetDir;
+    }
+
     public boolean isRangedGenerate() {
         return this.rangedGenerate;
     }
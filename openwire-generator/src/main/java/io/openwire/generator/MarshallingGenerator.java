@@ -24,6 +24,8 @@ import java.util.Collections;
 import java.util.Comparator;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
 
 import org.codehaus.jam.JAnnotation;
 import org.codehaus.jam.JAnnotationValue;
@@ -40,6 +42,8 @@ public class MarshallingGenerator extends MultiSourceGenerator {
     protected File factoryFile;
     protected String factoryFileName = "MarshallerFactory";
     protected String indent = "    ";
+    protected boolean byteArrayMarshalling;
+    protected boolean bufferMarshalling;
 
     private final String packagePrefixPath = codecPackageRoot.replace('.', '/');
 
@@ -71,6 +75,8 @@ public class MarshallingGenerator extends MultiSourceGenerator {
         out.println("import " + getCodecPackageRoot() + ".*;");
         out.println("import " + getCommandsPackage() + ".*;");
         out.println("");
+        out.println("import org.fusesource.hawtbuf.DataByteArrayOutputStream;");
+        out.println("");
 
         for (JPackage pkg : getJclass().getImportedPackages()) {
             for (JClass clazz : pkg.getClasses()) {
@@ -85,9 +91,30 @@ public class MarshallingGenerator extends MultiSourceGenerator {
         out.println(" * NOTE!: This file is auto generated - do not modify!");
         out.println(" *");
         out.println(" */");
-        out.println("public " + getAbstractClassText() + "class " + getClassName() + " extends " + getBaseClass() + " {");
+        List<String> implemented = new ArrayList<String>();
+        if (byteArrayMarshalling) {
+            implemented.add("ByteArrayMarshaller");
+        }
+        if (bufferMarshalling) {
+            implemented.add("OpenWireBufferMarshaller");
+        }
+        String interfaces = "";
+        for (String name : implemented) {
+            interfaces += (interfaces.length() == 0 ? " implements " : ", ") + name;
+        }
+        out.println("public " + getAbstractClassText() + "class " + getClassName() + " extends " + getBaseClass() + interfaces + " {");
         out.println("");
 
+        if (byteArrayMarshalling) {
+            Set<String> inlined = getInlinedMarshallers();
+            for (String name : inlined) {
+                out.println("    private static final " + name + "Marshaller " + getMarshallerConstant(name) + " = new " + name + "Marshaller();");
+            }
+            if (!inlined.isEmpty()) {
+                out.println("");
+            }
+        }
+
         if (!isAbstractClass()) {
 
             out.println("    /**");
@@ -107,38 +134,14 @@ public class MarshallingGenerator extends MultiSourceGenerator {
             out.println("");
         }
 
-        out.println("    /**");
-        out.println("     * Un-marshal an object instance from the data input stream");
-        out.println("     *");
-        out.println("     * @param o the object to un-marshal");
-        out.println("     * @param dataIn the data input stream to build the object from");
-        out.println("     * @throws IOException");
-        out.println("     */");
-        out.println("    public void tightUnmarshal(OpenWireFormat wireFormat, Object o, DataInput dataIn, BooleanStream bs) throws IOException {");
-        out.println("        super.tightUnmarshal(wireFormat, o, dataIn, bs);");
-
-        if (!getProperties().isEmpty()) {
-            out.println("");
-            out.println("        " + getJclass().getSimpleName() + " info = (" + getJclass().getSimpleName() + ")o;");
-        }
-
-        if (isMarshallerAware()) {
-            out.println("");
-            out.println("        info.beforeUnmarshall(wireFormat);");
-            out.println("        ");
+        generateTightUnmarshal(out, "DataInput", "data input stream");
+        if (bufferMarshalling) {
+            generateTightUnmarshal(out, "OpenWireBufferReader", "buffer reader");
         }
-
-        generateTightUnmarshalBody(out);
-
-        if (isMarshallerAware()) {
-            out.println("");
-            out.println("        info.afterUnmarshall(wireFormat);");
+        if (byteArrayMarshalling) {
+            generateTightUnmarshalByteArray(out);
         }
 
-        out.println("");
-        out.println("    }");
-        out.println("");
-        out.println("");
         out.println("    /**");
         out.println("     * Write the booleans that this object uses to a BooleanStream");
         out.println("     */");
@@ -185,16 +188,45 @@ public class MarshallingGenerator extends MultiSourceGenerator {
 
         out.println("");
         out.println("    }");
+
+        if (byteArrayMarshalling) {
+            out.println("");
+            out.println("    /**");
+            out.println("     * Write a object instance directly into the byte array backing the frame");
+            out.println("     *");
+            out.println("     * @param o the instance to be marshaled");
+            out.println("     * @param dataOut the byte array to write to");
+            out.println("     * @param position the position in the array to start writing at");
+            out.println("     * @return the position following the last byte written");
+            out.println("     * @throws IOException thrown if an error occurs");
+            out.println("     */");
+            out.println("    public int tightMarshal2(OpenWireFormat wireFormat, Object o, byte[] dataOut, int position, BooleanStream bs) throws IOException {");
+            out.println("        position = super.tightMarshal2(wireFormat, o, dataOut, position, bs);");
+            if (!getProperties().isEmpty()) {
+                out.println("");
+                out.println("        " + getJclass().getSimpleName() + " info = (" + getJclass().getSimpleName() + ")o;");
+            }
+
+            generateTightMarshal2ByteArrayBody(out);
+
+            if (isMarshallerAware()) {
+                out.println("");
+                out.println("        info.afterMarshall(wireFormat);");
+            }
+
+            out.println("");
+            out.println("        return position;");
+            out.println("    }");
+        }
         out.println("");
         out.println("    /**");
-        out.println("     * Un-marshal an object instance from the data input stream");
+        out.println("     * Write the booleans and the data of this object in a single pass");
         out.println("     *");
-        out.println("     * @param o the object to un-marshal");
-        out.println("     * @param dataIn the data input stream to build the object from");
-        out.println("     * @throws IOException");
+        out.println("     * @param o the instance to be marshaled");
+        out.println("     * @param dataOut the output stream");
+        out.println("     * @throws IOException thrown if an error occurs");
         out.println("     */");
-        out.println("    public void looseUnmarshal(OpenWireFormat wireFormat, Object o, DataInput dataIn) throws IOException {");
-        out.println("        super.looseUnmarshal(wireFormat, o, dataIn);");
+        out.println("    public void tightMarshal(OpenWireFormat wireFormat, Object o, DataByteArrayOutputStream dataOut, BooleanStream bs) throws IOException {");
 
         if (!getProperties().isEmpty()) {
             out.println("");
@@ -203,25 +235,35 @@ public class MarshallingGenerator extends MultiSourceGenerator {
 
         if (isMarshallerAware()) {
             out.println("");
-            out.println("        info.beforeUnmarshall(wireFormat);");
-            out.println("        ");
+            out.println("        info.beforeMarshall(wireFormat);");
         }
 
-        generateLooseUnmarshalBody(out);
+        out.println("");
+        out.println("        super.tightMarshal(wireFormat, o, dataOut, bs);");
+
+        generateTightMarshalBody(out);
 
         if (isMarshallerAware()) {
             out.println("");
-            out.println("        info.afterUnmarshall(wireFormat);");
+            out.println("        info.afterMarshall(wireFormat);");
         }
 
         out.println("");
         out.println("    }");
         out.println("");
-        out.println("");
+        generateLooseUnmarshal(out, "DataInput", "data input stream");
+        if (bufferMarshalling) {
+            generateLooseUnmarshal(out, "OpenWireBufferReader", "buffer reader");
+        }
+
+        generateLooseMarshal(out, "DataOutput");
+        if (bufferMarshalling) {
+            generateLooseMarshal(out, "OpenWireBufferWriter");
+        }
         out.println("    /**");
-        out.println("     * Write the booleans that this object uses to a BooleanStream");
+        out.println("     * Compute the number of bytes the loose encoding of this object takes");
         out.println("     */");
-        out.println("    public void looseMarshal(OpenWireFormat wireFormat, Object o, DataOutput dataOut) throws IOException {");
+        out.println("    public int looseMarshalSize(OpenWireFormat wireFormat, Object o) throws IOException {");
 
         if (!getProperties().isEmpty()) {
             out.println("");
@@ -234,11 +276,11 @@ public class MarshallingGenerator extends MultiSourceGenerator {
         }
 
         out.println("");
-        out.println("        super.looseMarshal(wireFormat, o, dataOut);");
-
-        generateLooseMarshalBody(out);
+        out.println("        int rc = super.looseMarshalSize(wireFormat, o);");
+        int looseBaseSize = generateLooseMarshalSizeBody(out);
 
         out.println("");
+        out.println("        return rc + " + looseBaseSize + ";");
         out.println("    }");
         out.println("}");
     }
@@ -361,6 +403,142 @@ public class MarshallingGenerator extends MultiSourceGenerator {
     protected void initialiseManuallyMaintainedClasses() {
     }
 
+    protected void generateTightUnmarshal(PrintWriter out, String input, String source) {
+        out.println("    /**");
+        out.println("     * Un-marshal an object instance from the " + source);
+        out.println("     *");
+        out.println("     * @param o the object to un-marshal");
+        out.println("     * @param dataIn the " + source + " to build the object from");
+        out.println("     * @throws IOException");
+        out.println("     */");
+        out.println("    public void tightUnmarshal(OpenWireFormat wireFormat, Object o, " + input + " dataIn, BooleanStream bs) throws IOException {");
+        out.println("        super.tightUnmarshal(wireFormat, o, dataIn, bs);");
+
+        if (!getProperties().isEmpty()) {
+            out.println("");
+            out.println("        " + getJclass().getSimpleName() + " info = (" + getJclass().getSimpleName() + ")o;");
+        }
+
+        if (isMarshallerAware()) {
+            out.println("");
+            out.println("        info.beforeUnmarshall(wireFormat);");
+            out.println("        ");
+        }
+
+        generateTightUnmarshalBody(out);
+
+        if (isMarshallerAware()) {
+            out.println("");
+            out.println("        info.afterUnmarshall(wireFormat);");
+        }
+
+        out.println("");
+        out.println("    }");
+        out.println("");
+        out.println("");
+    }
+
+    protected void generateTightUnmarshalByteArray(PrintWriter out) {
+        out.println("    /**");
+        out.println("     * Un-marshal an object instance directly from the byte array backing the frame");
+        out.println("     *");
+        out.println("     * @param o the object to un-marshal");
+        out.println("     * @param dataIn the byte array to read from");
+        out.println("     * @param position the position in the array to start reading at");
+        out.println("     * @return the position following the last byte read");
+        out.println("     * @throws IOException");
+        out.println("     */");
+        out.println("    public int tightUnmarshal(OpenWireFormat wireFormat, Object o, byte[] dataIn, int position, BooleanStream bs) throws IOException {");
+        out.println("        position = super.tightUnmarshal(wireFormat, o, dataIn, position, bs);");
+
+        if (!getProperties().isEmpty()) {
+            out.println("");
+            out.println("        " + getJclass().getSimpleName() + " info = (" + getJclass().getSimpleName() + ")o;");
+        }
+
+        if (isMarshallerAware()) {
+            out.println("");
+            out.println("        info.beforeUnmarshall(wireFormat);");
+            out.println("        ");
+        }
+
+        generateTightUnmarshalByteArrayBody(out);
+
+        if (isMarshallerAware()) {
+            out.println("");
+            out.println("        info.afterUnmarshall(wireFormat);");
+        }
+
+        out.println("");
+        out.println("        return position;");
+        out.println("    }");
+        out.println("");
+        out.println("");
+    }
+
+    protected void generateLooseUnmarshal(PrintWriter out, String input, String source) {
+        out.println("    /**");
+        out.println("     * Un-marshal an object instance from the " + source);
+        out.println("     *");
+        out.println("     * @param o the object to un-marshal");
+        out.println("     * @param dataIn the " + source + " to build the object from");
+        out.println("     * @throws IOException");
+        out.println("     */");
+        out.println("    public void looseUnmarshal(OpenWireFormat wireFormat, Object o, " + input + " dataIn) throws IOException {");
+        out.println("        super.looseUnmarshal(wireFormat, o, dataIn);");
+
+        if (!getProperties().isEmpty()) {
+            out.println("");
+            out.println("        " + getJclass().getSimpleName() + " info = (" + getJclass().getSimpleName() + ")o;");
+        }
+
+        if (isMarshallerAware()) {
+            out.println("");
+            out.println("        info.beforeUnmarshall(wireFormat);");
+            out.println("        ");
+        }
+
+        generateLooseUnmarshalBody(out);
+
+        if (isMarshallerAware()) {
+            out.println("");
+            out.println("        info.afterUnmarshall(wireFormat);");
+        }
+
+        out.println("");
+        out.println("    }");
+        out.println("");
+        out.println("");
+    }
+
+    protected void generateLooseMarshal(PrintWriter out, String output) {
+        out.println("    /**");
+        out.println("     * Write the booleans that this object uses to a BooleanStream");
+        out.println("     */");
+        out.println("    public void looseMarshal(OpenWireFormat wireFormat, Object o, " + output + " dataOut) throws IOException {");
+
+        if (!getProperties().isEmpty()) {
+            out.println("");
+            out.println("        " + getJclass().getSimpleName() + " info = (" + getJclass().getSimpleName() + ")o;");
+        }
+
+        if (isMarshallerAware()) {
+            out.println("");
+            out.println("        if (!wireFormat.isLooseMarshalSized()) {");
+            out.println("            info.beforeMarshall(wireFormat);");
+            out.println("        }");
+        }
+
+        out.println("");
+        out.println("        super.looseMarshal(wireFormat, o, dataOut);");
+
+        generateLooseMarshalBody(out);
+
+        out.println("");
+        out.println("    }");
+        out.println("");
+    }
+
     protected void generateTightUnmarshalBody(PrintWriter out) {
         for (JProperty property : getProperties()) {
             JAnnotation annotation = property.getAnnotation("openwire:property");
@@ -401,7 +579,7 @@ public class MarshallingGenerator extends MultiSourceGenerator {
                 out.println("        info." + setter + "(tightUnmarshalByteArray(dataIn, bs));");
             }
         } else if (type.equals("ByteSequence")) {
-            out.println("        info." + setter + "(tightUnmarshalByteSequence(dataIn, bs));");
+            out.println("        info." + setter + "(tightUnmarshalByteSequence(wireFormat, dataIn, bs));");
         } else if (isThrowable(property.getType())) {
             out.println("        info." + setter + "((" + property.getType().getQualifiedName() + ") tightUnmarsalThrowable(wireFormat, dataIn, bs));");
         } else if (isCachedProperty(property)) {
@@ -439,6 +617,95 @@ public class MarshallingGenerator extends MultiSourceGenerator {
         }
     }
 
+    /**
+     * Fixed size values are read in place, the helpers that read the others leave the position
+     * that follows them in the OpenWireFormat.
+     */
+    protected void generateTightUnmarshalByteArrayBody(PrintWriter out) {
+        for (JProperty property : getProperties()) {
+            JAnnotation annotation = property.getAnnotation("openwire:property");
+            JAnnotationValue size = annotation.getValue("size");
+            JClass propertyType = property.getType();
+            String propertyTypeName = propertyType.getSimpleName();
+
+            if (propertyType.isArrayType() && !propertyTypeName.equals("byte[]")) {
+                generateTightUnmarshalByteArrayBodyForArrayProperty(out, property, size);
+            } else {
+                generateTightUnmarshalByteArrayBodyForProperty(out, property, size);
+            }
+        }
+    }
+
+    protected void generateTightUnmarshalByteArrayBodyForProperty(PrintWriter out, JProperty property, JAnnotationValue size) {
+        String setter = property.getSetter().getSimpleName();
+        String type = property.getType().getSimpleName();
+
+        if (type.equals("boolean")) {
+            out.println("        info." + setter + "(bs.readBoolean());");
+            return;
+        } else if (type.equals("byte")) {
+            out.println("        info." + setter + "(dataIn[position++]);");
+            return;
+        } else if (type.equals("char")) {
+            out.println("        info." + setter + "(BigEndianBytes.getChar(dataIn, position));");
+            out.println("        position += 2;");
+            return;
+        } else if (type.equals("short")) {
+            out.println("        info." + setter + "(BigEndianBytes.getShort(dataIn, position));");
+            out.println("        position += 2;");
+            return;
+        } else if (type.equals("int")) {
+            out.println("        info." + setter + "(BigEndianBytes.getInt(dataIn, position));");
+            out.println("        position += 4;");
+            return;
+        }
+
+        if (type.equals("long")) {
+            out.println("        info." + setter + "(tightUnmarshalLong(wireFormat, dataIn, position, bs));");
+        } else if (type.equals("String")) {
+            out.println("        info." + setter + "(tightUnmarshalString(wireFormat, dataIn, position, bs));");
+        } else if (type.equals("byte[]")) {
+            if (size != null) {
+                out.println("        info." + setter + "(tightUnmarshalConstByteArray(wireFormat, dataIn, position, bs, " + size.asInt() + "));");
+            } else {
+                out.println("        info." + setter + "(tightUnmarshalByteArray(wireFormat, dataIn, position, bs));");
+            }
+        } else if (type.equals("ByteSequence")) {
+            out.println("        info." + setter + "(tightUnmarshalByteSequence(wireFormat, dataIn, position, bs));");
+        } else if (isThrowable(property.getType())) {
+            out.println("        info." + setter + "((" + property.getType().getQualifiedName() + ") tightUnmarsalThrowable(wireFormat, dataIn, position, bs));");
+        } else {
+            String method = isCachedProperty(property) ? "tightUnmarsalCachedObject" : "tightUnmarsalNestedObject";
+            String marshaller = isInlinedProperty(property) ? getMarshallerConstant(type) + ", " : "";
+            out.println("        info." + setter + "((" + property.getType().getQualifiedName() + ") " + method + "(wireFormat, " + marshaller + "dataIn, position, bs));");
+        }
+        out.println("        position = wireFormat.getUnmarshalPosition();");
+    }
+
+    protected void generateTightUnmarshalByteArrayBodyForArrayProperty(PrintWriter out, JProperty property, JAnnotationValue size) {
+        JClass propertyType = property.getType();
+        String arrayType = propertyType.getArrayComponentType().getQualifiedName();
+        String setter = property.getSetter().getSimpleName();
+        out.println();
+        if (size != null) {
+            throw new IllegalArgumentException("Fixed size arrays are not supported when unmarshaling from byte arrays: " + setter);
+        } else {
+            out.println("        if (bs.readBoolean()) {");
+            out.println("            short size = BigEndianBytes.getShort(dataIn, position);");
+            out.println("            position += 2;");
+            out.println("            " + arrayType + " value[] = new " + arrayType + "[size];");
+            out.println("            for( int i=0; i < size; i++ ) {");
+            out.println("                value[i] = (" + arrayType + ") tightUnmarsalNestedObject(wireFormat, dataIn, position, bs);");
+            out.println("                position = wireFormat.getUnmarshalPosition();");
+            out.println("            }");
+            out.println("            info." + setter + "(value);");
+            out.println("        }");
+            out.println("        else {");
+            out.println("            info." + setter + "(null);");
+            out.println("        }");
+        }
+    }
+
     protected int generateTightMarshal1Body(PrintWriter out) {
         int baseSize = 0;
         for (JProperty property : getProperties()) {
@@ -537,6 +804,137 @@ public class MarshallingGenerator extends MultiSourceGenerator {
         }
     }
 
+    protected void generateTightMarshal2ByteArrayBody(PrintWriter out) {
+        for (JProperty property : getProperties()) {
+            JAnnotation annotation = property.getAnnotation("openwire:property");
+            JAnnotationValue size = annotation.getValue("size");
+            JClass propertyType = property.getType();
+            String type = propertyType.getSimpleName();
+            String getter = "info." + property.getGetter().getSimpleName() + "()";
+
+            if (type.equals("boolean")) {
+                out.println("        bs.readBoolean();");
+            } else if (type.equals("byte")) {
+                out.println("        position = BigEndianBytes.putByte(dataOut, position, " + getter + ");");
+            } else if (type.equals("char")) {
+                out.println("        position = BigEndianBytes.putChar(dataOut, position, " + getter + ");");
+            } else if (type.equals("short")) {
+                out.println("        position = BigEndianBytes.putShort(dataOut, position, " + getter + ");");
+            } else if (type.equals("int")) {
+                out.println("        position = BigEndianBytes.putInt(dataOut, position, " + getter + ");");
+            } else if (type.equals("long")) {
+                out.println("        position = tightMarshalLong2(wireFormat, " + getter + ", dataOut, position, bs);");
+            } else if (type.equals("String")) {
+                out.println("        position = tightMarshalString2(" + getter + ", dataOut, position, bs);");
+            } else if (type.equals("byte[]")) {
+                if (size != null) {
+                    out.println("        position = tightMarshalConstByteArray2(" + getter + ", dataOut, position, bs, " + size.asInt() + ");");
+                } else {
+                    out.println("        position = tightMarshalByteArray2(" + getter + ", dataOut, position, bs);");
+                }
+            } else if (type.equals("ByteSequence")) {
+                out.println("        position = tightMarshalByteSequence2(" + getter + ", dataOut, position, bs);");
+            } else if (propertyType.isArrayType()) {
+                if (size != null) {
+                    throw new IllegalArgumentException("Fixed size arrays are not supported when marshaling to byte arrays: " + getter);
+                } else {
+                    out.println("        position = tightMarshalObjectArray2(wireFormat, " + getter + ", dataOut, position, bs);");
+                }
+            } else if (isThrowable(propertyType)) {
+                out.println("        position = tightMarshalThrowable2(wireFormat, " + getter + ", dataOut, position, bs);");
+            } else {
+                String method = isCachedProperty(property) ? "tightMarshalCachedObject2" : "tightMarshalNestedObject2";
+                String marshaller = isInlinedProperty(property) ? getMarshallerConstant(type) + ", " : "";
+                out.println("        position = " + method + "(wireFormat, (DataStructure)" + getter + ", " + marshaller + "dataOut, position, bs);");
+            }
+        }
+    }
+
+    /**
+     * Nested id values of a concrete type are written by calling their marshaller directly
+     * instead of going through the marshaller table of the OpenWireFormat.
+     */
+    protected boolean isInlinedProperty(JProperty property) {
+        JClass propertyType = property.getType();
+        if (propertyType.isPrimitiveType() || propertyType.isArrayType() || isThrowable(propertyType)) {
+            return false;
+        }
+
+        JAnnotation annotation = propertyType.getAnnotation("openwire:marshaller");
+        return annotation != null && includeInThisVersion(annotation) &&
+               !isAbstract(propertyType) && propertyType.getSimpleName().endsWith("Id");
+    }
+
+    protected Set<String> getInlinedMarshallers() {
+        Set<String> answer = new TreeSet<String>();
+        for (JProperty property : getProperties()) {
+            if (isInlinedProperty(property)) {
+                answer.add(property.getType().getSimpleName());
+            }
+        }
+        return answer;
+    }
+
+    protected String getMarshallerConstant(String simpleName) {
+        StringBuilder answer = new StringBuilder();
+        for (int i = 0; i < simpleName.length(); i++) {
+            char c = simpleName.charAt(i);
+            if (i > 0 && Character.isUpperCase(c)) {
+                answer.append('_');
+            }
+            answer.append(Character.toUpperCase(c));
+        }
+        return answer.append("_MARSHALLER").toString();
+    }
+
+    protected void generateTightMarshalBody(PrintWriter out) {
+        for (JProperty property : getProperties()) {
+            JAnnotation annotation = property.getAnnotation("openwire:property");
+            JAnnotationValue size = annotation.getValue("size");
+            JClass propertyType = property.getType();
+            String type = propertyType.getSimpleName();
+            String getter = "info." + property.getGetter().getSimpleName() + "()";
+
+            if (type.equals("boolean")) {
+                out.println("        bs.writeBoolean(" + getter + ");");
+            } else if (type.equals("byte")) {
+                out.println("        dataOut.writeByte(" + getter + ");");
+            } else if (type.equals("char")) {
+                out.println("        dataOut.writeChar(" + getter + ");");
+            } else if (type.equals("short")) {
+                out.println("        dataOut.writeShort(" + getter + ");");
+            } else if (type.equals("int")) {
+                out.println("        dataOut.writeInt(" + getter + ");");
+            } else if (type.equals("long")) {
+                out.println("        tightMarshalLong(wireFormat, " + getter + ", dataOut, bs);");
+            } else if (type.equals("String")) {
+                out.println("        tightMarshalString(" + getter + ", dataOut, bs);");
+            } else if (type.equals("byte[]")) {
+                if (size != null) {
+                    out.println("        tightMarshalConstByteArray(" + getter + ", dataOut, bs, " + size.asInt() + ");");
+                } else {
+                    out.println("        tightMarshalByteArray(" + getter + ", dataOut, bs);");
+                }
+            } else if (type.equals("ByteSequence")) {
+                out.println("        tightMarshalByteSequence(" + getter + ", dataOut, bs);");
+            } else if (propertyType.isArrayType()) {
+                if (size != null) {
+                    out.println("        tightMarshalObjectArrayConstSize(wireFormat, " + getter + ", dataOut, bs, " + size.asInt() + ");");
+                } else {
+                    out.println("        tightMarshalObjectArray(wireFormat, " + getter + ", dataOut, bs);");
+                }
+            } else if (isThrowable(propertyType)) {
+                out.println("        tightMarshalThrowable(wireFormat, " + getter + ", dataOut, bs);");
+            } else {
+                if (isCachedProperty(property)) {
+                    out.println("        tightMarshalCachedObject(wireFormat, (DataStructure)" + getter + ", dataOut, bs);");
+                } else {
+                    out.println("        tightMarshalNestedObject(wireFormat, (DataStructure)" + getter + ", dataOut, bs);");
+                }
+            }
+        }
+    }
+
     protected void generateLooseMarshalBody(PrintWriter out) {
         for (JProperty property : getProperties()) {
             JAnnotation annotation = property.getAnnotation("openwire:property");
@@ -585,6 +983,56 @@ public class MarshallingGenerator extends MultiSourceGenerator {
         }
     }
 
+    protected int generateLooseMarshalSizeBody(PrintWriter out) {
+        int baseSize = 0;
+        for (JProperty property : getProperties()) {
+            JAnnotation annotation = property.getAnnotation("openwire:property");
+            JAnnotationValue size = annotation.getValue("size");
+            JClass propertyType = property.getType();
+            String type = propertyType.getSimpleName();
+            String getter = "info." + property.getGetter().getSimpleName() + "()";
+
+            if (type.equals("boolean")) {
+                baseSize += 1;
+            } else if (type.equals("byte")) {
+                baseSize += 1;
+            } else if (type.equals("char")) {
+                baseSize += 2;
+            } else if (type.equals("short")) {
+                baseSize += 2;
+            } else if (type.equals("int")) {
+                baseSize += 4;
+            } else if (type.equals("long")) {
+                baseSize += 8;
+            } else if (type.equals("String")) {
+                out.println("        rc += looseMarshalStringSize(" + getter + ");");
+            } else if (type.equals("byte[]")) {
+                if (size != null) {
+                    baseSize += size.asInt();
+                } else {
+                    out.println("        rc += looseMarshalByteArraySize(wireFormat, " + getter + ");");
+                }
+            } else if (type.equals("ByteSequence")) {
+                out.println("        rc += looseMarshalByteSequenceSize(wireFormat, " + getter + ");");
+            } else if (propertyType.isArrayType()) {
+                if (size != null) {
+                    out.println("        rc += looseMarshalObjectArrayConstSizeSize(wireFormat, " + getter + ", " + size.asInt() + ");");
+                } else {
+                    out.println("        rc += looseMarshalObjectArraySize(wireFormat, " + getter + ");");
+                }
+            } else if (isThrowable(propertyType)) {
+                out.println("        rc += looseMarshalThrowableSize(wireFormat, " + getter + ");");
+            } else {
+                if (isCachedProperty(property)) {
+                    out.println("        rc += looseMarshalCachedObjectSize(wireFormat, (DataStructure)" + getter + ");");
+                } else {
+                    out.println("        rc += looseMarshalNestedObjectSize(wireFormat, (DataStructure)" + getter + ");");
+                }
+            }
+        }
+        return baseSize;
+    }
+
     protected void generateLooseUnmarshalBody(PrintWriter out) {
         for (JProperty property : getProperties()) {
             JAnnotation annotation = property.getAnnotation("openwire:property");
@@ -625,7 +1073,7 @@ public class MarshallingGenerator extends MultiSourceGenerator {
                 out.println("        info." + setter + "(looseUnmarshalByteArray(dataIn));");
             }
         } else if (type.equals("ByteSequence")) {
-            out.println("        info." + setter + "(looseUnmarshalByteSequence(dataIn));");
+            out.println("        info." + setter + "(looseUnmarshalByteSequence(wireFormat, dataIn));");
         } else if (isThrowable(property.getType())) {
             out.println("        info." + setter + "((" + property.getType().getQualifiedName() + ") looseUnmarsalThrowable(wireFormat, dataIn));");
         } else if (isCachedProperty(property)) {
@@ -678,6 +1126,22 @@ public class MarshallingGenerator extends MultiSourceGenerator {
         return "false";
     }
 
+    public boolean isByteArrayMarshalling() {
+        return byteArrayMarshalling;
+    }
+
+    public void setByteArrayMarshalling(boolean byteArrayMarshalling) {
+        this.byteArrayMarshalling = byteArrayMarshalling;
+    }
+
+    public boolean isBufferMarshalling() {
+        return bufferMarshalling;
+    }
+
+    public void setBufferMarshalling(boolean bufferMarshalling) {
+        this.bufferMarshalling = bufferMarshalling;
+    }
+
     public List<JClass> getConcreteClasses() {
         return concreteClasses;
     }
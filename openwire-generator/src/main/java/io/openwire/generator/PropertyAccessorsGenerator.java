@@ -0,0 +1,231 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.openwire.generator;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+import org.codehaus.jam.JClass;
+import org.codehaus.jam.JProperty;
+
+/**
+ * Generates the typed accessors that the descriptor driven marshallers of the legacy codec
+ * use to read and write the command properties without reflection.  It is run once per
+ * version described and collects the properties of all of them, the accessors are then
+ * written to a single class by {@link #processAccessorsFile()}.
+ */
+public class PropertyAccessorsGenerator extends MultiSourceGenerator {
+
+    private static final String[] VALUE_TYPES = { "boolean", "byte", "char", "short", "int", "long", "Object" };
+
+    private final Map<String, Map<String, String[]>> types = new TreeMap<String, Map<String, String[]>>();
+    private final Set<String> imports = new TreeSet<String>();
+
+    @Override
+    public Object run() {
+        if (destDir == null) {
+            destDir = new File(getTargetDir() + "/" + codecPackageRoot.replace('.', '/') + "/descriptor");
+        }
+        return super.run();
+    }
+
+    @Override
+    protected void processClass(JClass jclass) {
+        simpleName = jclass.getSimpleName();
+
+        System.out.println(getClass().getName() + " processing class: " + simpleName);
+
+        Map<String, String[]> properties = types.get(simpleName);
+        if (properties == null) {
+            properties = new LinkedHashMap<String, String[]>();
+            types.put(simpleName, properties);
+            imports.add(jclass.getQualifiedName());
+        }
+
+        for (JProperty property : getProperties()) {
+            String getter = property.getGetter().getSimpleName();
+            if (!properties.containsKey(getter)) {
+                JClass type = property.getType();
+                String valueType = type.isPrimitiveType() ? type.getSimpleName() : "Object";
+                properties.put(getter, new String[] { valueType, getter, property.getSetter().getSimpleName(), type.getSimpleName() });
+
+                JClass imported = type.isArrayType() ? type.getArrayComponentType() : type;
+                if (!imported.isPrimitiveType() && !imported.getContainingPackage().getQualifiedName().equals("java.lang")) {
+                    imports.add(imported.getQualifiedName());
+                }
+            }
+        }
+    }
+
+    @Override
+    protected void generateFile(PrintWriter out) throws Exception {
+        generateLicence(out);
+        out.println("package " + getCodecPackageRoot() + ".descriptor;");
+        out.println("");
+        for (String name : imports) {
+            out.println("import " + name + ";");
+        }
+        out.println("");
+        out.println("import java.util.HashMap;");
+        out.println("import java.util.Map;");
+        out.println("");
+        out.println("/**");
+        out.println(" * Typed accessors of the marshaled properties of the OpenWire commands.  The descriptor");
+        out.println(" * driven marshallers look a property up once by the type that declares it and its getter,");
+        out.println(" * then read and write it through the switch of its value type with direct calls, so that");
+        out.println(" * no value is boxed and no reflective call is made per field.");
+        out.println(" *");
+        out.println(" * NOTE!: This file is auto generated - do not modify!");
+        out.println(" *");
+        out.println(" */");
+        out.println("final class PropertyAccessors {");
+        out.println("");
+
+        List<String[]> properties = new ArrayList<String[]>();
+        List<String> owners = new ArrayList<String>();
+        for (Map.Entry<String, Map<String, String[]>> entry : types.entrySet()) {
+            for (String[] property : entry.getValue().values()) {
+                properties.add(property);
+                owners.add(entry.getKey());
+            }
+        }
+
+        out.println("    private static final String[] PROPERTIES = {");
+        for (int i = 0; i < properties.size(); i++) {
+            out.println("        \"" + owners.get(i) + "." + properties.get(i)[1] + "\"" + (i + 1 < properties.size() ? "," : ""));
+        }
+        out.println("    };");
+        out.println("");
+        out.println("    private static final Map<String, Integer> INDEX = new HashMap<String, Integer>();");
+        out.println("    static {");
+        out.println("        for (int i = 0; i < PROPERTIES.length; i++) {");
+        out.println("            INDEX.put(PROPERTIES[i], Integer.valueOf(i));");
+        out.println("        }");
+        out.println("    }");
+        out.println("");
+        out.println("    private PropertyAccessors() {");
+        out.println("    }");
+        out.println("");
+        out.println("    /**");
+        out.println("     * @return the index of the property of the given type, or -1 if it has no accessors.");
+        out.println("     */");
+        out.println("    public static int indexOf(String type, String getter) {");
+        out.println("        Integer index = INDEX.get(type + \".\" + getter);");
+        out.println("        return index != null ? index.intValue() : -1;");
+        out.println("    }");
+        out.println("");
+        out.println("    /**");
+        out.println("     * @return the declaring type and getter of the property at the given index.");
+        out.println("     */");
+        out.println("    public static String getName(int property) {");
+        out.println("        return PROPERTIES[property];");
+        out.println("    }");
+        out.println("");
+
+        for (String valueType : VALUE_TYPES) {
+            String name = capitalize(valueType);
+
+            out.println("    public static " + valueType + " get" + name + "(Object target, int property) {");
+            out.println("        switch (property) {");
+            for (int i = 0; i < properties.size(); i++) {
+                String[] property = properties.get(i);
+                if (property[0].equals(valueType)) {
+                    out.println("        case " + i + ":");
+                    out.println("            return ((" + owners.get(i) + ") target)." + property[1] + "();");
+                }
+            }
+            out.println("        default:");
+            out.println("            throw notA(\"" + valueType + "\", property);");
+            out.println("        }");
+            out.println("    }");
+            out.println("");
+
+            out.println("    public static void set" + name + "(Object target, int property, " + valueType + " value) {");
+            out.println("        switch (property) {");
+            for (int i = 0; i < properties.size(); i++) {
+                String[] property = properties.get(i);
+                if (property[0].equals(valueType)) {
+                    String value = valueType.equals("Object") && !property[3].equals("Object") ? "(" + property[3] + ") value" : "value";
+                    out.println("        case " + i + ":");
+                    out.println("            ((" + owners.get(i) + ") target)." + property[2] + "(" + value + ");");
+                    out.println("            break;");
+                }
+            }
+            out.println("        default:");
+            out.println("            throw notA(\"" + valueType + "\", property);");
+            out.println("        }");
+            out.println("    }");
+            out.println("");
+        }
+
+        out.println("    private static IllegalArgumentException notA(String type, int property) {");
+        out.println("        return new IllegalArgumentException(PROPERTIES[property] + \" is not a \" + type + \" property\");");
+        out.println("    }");
+        out.println("}");
+    }
+
+    @Override
+    protected void initialiseManuallyMaintainedClasses() {
+    }
+
+    /**
+     * Writes the accessors of all the properties collected by the runs so far.
+     */
+    public void processAccessorsFile() {
+        destFile = new File(destDir, "PropertyAccessors" + filePostFix);
+
+        PrintWriter out = null;
+        try {
+            out = new PrintWriter(new FileWriter(destFile));
+            generateFile(out);
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        } finally {
+            if (out != null) {
+                out.close();
+            }
+        }
+    }
+
+    private void generateLicence(PrintWriter out) {
+        out.println("/**");
+        out.println(" *");
+        out.println(" * Licensed to the Apache Software Foundation (ASF) under one or more");
+        out.println(" * contributor license agreements.  See the NOTICE file distributed with");
+        out.println(" * this work for additional information regarding copyright ownership.");
+        out.println(" * The ASF licenses this file to You under the Apache License, Version 2.0");
+        out.println(" * (the \"License\"); you may not use this file except in compliance with");
+        out.println(" * the License.  You may obtain a copy of the License at");
+        out.println(" *");
+        out.println(" * http://www.apache.org/licenses/LICENSE-2.0");
+        out.println(" *");
+        out.println(" * Unless required by applicable law or agreed to in writing, software");
+        out.println(" * distributed under the License is distributed on an \"AS IS\" BASIS,");
+        out.println(" * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.");
+        out.println(" * See the License for the specific language governing permissions and");
+        out.println(" * limitations under the License.");
+        out.println(" */");
+    }
+}
@@ -0,0 +1,204 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.openwire.codec;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import io.openwire.codec.descriptor.DescriptorMarshaller;
+import io.openwire.commands.BrokerId;
+import io.openwire.commands.BrokerInfo;
+import io.openwire.commands.ConnectionId;
+import io.openwire.commands.ConsumerId;
+import io.openwire.commands.DataArrayResponse;
+import io.openwire.commands.DataStructure;
+import io.openwire.commands.ExceptionResponse;
+import io.openwire.commands.LocalTransactionId;
+import io.openwire.commands.MessageAck;
+import io.openwire.commands.MessageId;
+import io.openwire.commands.OpenWireBlobMessage;
+import io.openwire.commands.OpenWireQueue;
+import io.openwire.commands.OpenWireTextMessage;
+import io.openwire.commands.OpenWireTopic;
+import io.openwire.commands.ProducerId;
+import io.openwire.commands.TransactionInfo;
+import io.openwire.commands.WireFormatInfo;
+import io.openwire.commands.XATransactionId;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.fusesource.hawtbuf.Buffer;
+import org.junit.Test;
+
+/**
+ * Test that the descriptor driven marshallers of the legacy versions produce the same frames
+ * as the generated marshallers.
+ */
+public class DescriptorMarshallingTest {
+
+    private static final int FIRST_LEGACY_VERSION = 2;
+    private static final int LAST_LEGACY_VERSION = 8;
+
+    @Test
+    public void testEveryGeneratedTypeIsDescribed() throws Exception {
+        for (int version = FIRST_LEGACY_VERSION; version <= LAST_LEGACY_VERSION; ++version) {
+            DataStreamMarshaller[] generated = MarshallerRegistry.getMarshallers(version, false);
+            DataStreamMarshaller[] described = MarshallerRegistry.getMarshallers(version, true);
+
+            for (int type = 0; type < generated.length; ++type) {
+                if (generated[type] == null) {
+                    assertNull("v" + version + " type " + type, described[type]);
+                } else {
+                    assertNotNull("v" + version + " type " + type, described[type]);
+                    assertTrue(described[type] instanceof DescriptorMarshaller);
+                    assertEquals(generated[type].getDataStructureType(), described[type].getDataStructureType());
+                    assertEquals(generated[type].createObject().getClass(), described[type].createObject().getClass());
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testTightFramesMatch() throws Exception {
+        doTestFramesMatch(true, false);
+    }
+
+    @Test
+    public void testSinglePassTightFramesMatch() throws Exception {
+        doTestFramesMatch(true, true);
+    }
+
+    @Test
+    public void testLooseFramesMatch() throws Exception {
+        doTestFramesMatch(false, false);
+    }
+
+    @Test
+    public void testCoreVersionsKeepGeneratedMarshallers() throws Exception {
+        OpenWireFormat wireFormat = new OpenWireFormat(10);
+        wireFormat.setDescriptorMarshallingEnabled(true);
+        assertTrue(MarshallerRegistry.getMarshallers(10, true) == MarshallerRegistry.getMarshallers(10, false));
+    }
+
+    private void doTestFramesMatch(boolean tight, boolean singlePass) throws Exception {
+        for (int version = FIRST_LEGACY_VERSION; version <= LAST_LEGACY_VERSION; ++version) {
+            OpenWireFormat generated = createOpenWireFormat(version, tight, singlePass, false);
+            OpenWireFormat described = createOpenWireFormat(version, tight, singlePass, true);
+            OpenWireFormat reader = createOpenWireFormat(version, tight, singlePass, true);
+            OpenWireFormat writer = createOpenWireFormat(version, tight, singlePass, false);
+            DataStreamMarshaller[] marshallers = MarshallerRegistry.getMarshallers(version, false);
+
+            for (DataStructure command : createCommands()) {
+                if (marshallers[command.getDataStructureType() & 0xFF] == null) {
+                    continue;
+                }
+
+                String message = "v" + version + " " + command.getClass().getSimpleName();
+
+                Buffer expected = generated.marshal(command);
+                Buffer actual = described.marshal(command);
+                assertArrayEquals(message, expected.toByteArray(), actual.toByteArray());
+
+                // What the descriptors read back must marshal to the same frame again.
+                Object copy = reader.unmarshal(actual);
+                assertEquals(message, command.getClass(), copy.getClass());
+                assertArrayEquals(message, expected.toByteArray(), writer.marshal(copy).toByteArray());
+            }
+        }
+    }
+
+    private List<DataStructure> createCommands() throws Exception {
+        List<DataStructure> commands = new ArrayList<DataStructure>();
+
+        ConnectionId connectionId = new ConnectionId("connection");
+        ProducerId producerId = new ProducerId(connectionId.toString() + ":1:1");
+
+        WireFormatInfo wireFormatInfo = new WireFormatInfo();
+        wireFormatInfo.setVersion(5);
+        wireFormatInfo.setCacheSize(512);
+        commands.add(wireFormatInfo);
+
+        for (int i = 0; i < 3; ++i) {
+            OpenWireTextMessage message = new OpenWireTextMessage();
+            message.setProducerId(producerId);
+            message.setMessageId(new MessageId(producerId, i));
+            message.setDestination(new OpenWireQueue("TEST.QUEUE"));
+            message.setTransactionId(new LocalTransactionId(connectionId, i));
+            message.setBrokerPath(new BrokerId[] { new BrokerId("broker-1"), new BrokerId("broker-2") });
+            message.setProperty("sequence", Integer.valueOf(i));
+            message.setTimestamp(System.currentTimeMillis());
+            message.setText("Hello World " + i);
+            commands.add(message);
+        }
+
+        OpenWireBlobMessage blobMessage = new OpenWireBlobMessage();
+        blobMessage.setProducerId(producerId);
+        blobMessage.setMessageId(new MessageId(producerId, 10));
+        blobMessage.setDestination(new OpenWireTopic("TEST.TOPIC"));
+        blobMessage.setRemoteBlobUrl("http://localhost/blob");
+        blobMessage.setMimeType("text/plain");
+        blobMessage.setDeletedByBroker(true);
+        commands.add(blobMessage);
+
+        MessageAck ack = new MessageAck();
+        ack.setConsumerId(new ConsumerId(connectionId.toString() + ":1:1"));
+        ack.setDestination(new OpenWireQueue("TEST.QUEUE"));
+        ack.setFirstMessageId(new MessageId(producerId, 1));
+        ack.setLastMessageId(new MessageId(producerId, 2));
+        ack.setMessageCount(2);
+        ack.setAckType(MessageAck.STANDARD_ACK_TYPE);
+        ack.setPoisonCause(new IllegalStateException("poison"));
+        commands.add(ack);
+
+        XATransactionId xid = new XATransactionId();
+        xid.setFormatId(1);
+        xid.setGlobalTransactionId(new byte[] { 1, 2, 3 });
+        xid.setBranchQualifier(new byte[] { 4, 5 });
+        commands.add(new TransactionInfo(connectionId, xid, TransactionInfo.BEGIN));
+
+        BrokerInfo peer = new BrokerInfo();
+        peer.setBrokerId(new BrokerId("peer"));
+        peer.setBrokerName("peer");
+        BrokerInfo brokerInfo = new BrokerInfo();
+        brokerInfo.setBrokerId(new BrokerId("broker"));
+        brokerInfo.setBrokerURL("tcp://localhost:61616");
+        brokerInfo.setPeerBrokerInfos(new BrokerInfo[] { peer });
+        brokerInfo.setConnectionId(1234567890123L);
+        commands.add(brokerInfo);
+
+        commands.add(new DataArrayResponse(new DataStructure[] { new BrokerId("data"), connectionId }));
+
+        ExceptionResponse exceptionResponse = new ExceptionResponse(new IllegalArgumentException("failed", new Exception("cause")));
+        exceptionResponse.setCorrelationId(7);
+        commands.add(exceptionResponse);
+
+        return commands;
+    }
+
+    private OpenWireFormat createOpenWireFormat(int version, boolean tight, boolean singlePass, boolean descriptors) {
+        OpenWireFormat wf = new OpenWireFormat(version);
+        wf.setDescriptorMarshallingEnabled(descriptors);
+        wf.setCacheEnabled(true);
+        wf.setStackTraceEnabled(true);
+        wf.setTightEncodingEnabled(tight);
+        wf.setSinglePassTightEncodingEnabled(singlePass);
+        return wf;
+    }
+}
@@ -0,0 +1,59 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.openwire.jfr;
+
+import io.openwire.codec.CodecEvents;
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Label;
+import jdk.jfr.StackTrace;
+
+/**
+ * Base of the events recorded when a message body is compressed or decompressed.
+ */
+@Category({ "OpenWire", "Compression" })
+@Enabled(false)
+@StackTrace(false)
+abstract class CompressionEvent extends jdk.jfr.Event implements CodecEvents.CompressionEvent {
+
+    @Label("Message Type")
+    @Description("The data structure type of the message")
+    byte type;
+
+    @Label("Size")
+    @Description("The size of the uncompressed message body")
+    @DataAmount
+    int size;
+
+    @Label("Compressed Size")
+    @Description("The size of the compressed message body")
+    @DataAmount
+    int compressedSize;
+
+    @Override
+    public void commit(byte type, int size, int compressedSize) {
+        end();
+        if (shouldCommit()) {
+            this.type = type;
+            this.size = size;
+            this.compressedSize = compressedSize;
+            commit();
+        }
+    }
+}
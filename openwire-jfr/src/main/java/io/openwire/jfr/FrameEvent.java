@@ -0,0 +1,58 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.openwire.jfr;
+
+import io.openwire.codec.CodecEvents;
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Label;
+import jdk.jfr.StackTrace;
+
+/**
+ * Base of the events recorded for the encode or decode of one OpenWire frame.
+ */
+@Category({ "OpenWire", "Codec" })
+@Enabled(false)
+@StackTrace(false)
+abstract class FrameEvent extends jdk.jfr.Event implements CodecEvents.FrameEvent {
+
+    @Label("Version")
+    @Description("The OpenWire protocol version of the frame")
+    int version;
+
+    @Label("Command Type")
+    @Description("The data structure type of the command")
+    byte type;
+
+    @Label("Size")
+    @Description("The size of the frame including any size prefix, zero if unknown")
+    @DataAmount
+    int size;
+
+    @Override
+    public void commit(int version, byte type, int size) {
+        end();
+        if (shouldCommit()) {
+            this.version = version;
+            this.type = type;
+            this.size = size;
+            commit();
+        }
+    }
+}
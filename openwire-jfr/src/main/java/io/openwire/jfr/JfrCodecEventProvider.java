@@ -0,0 +1,79 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.openwire.jfr;
+
+import io.openwire.codec.CodecEvents;
+import jdk.jfr.EventType;
+
+/**
+ * Provides the codec events as Java Flight Recorder events.
+ *
+ * The events are disabled by default, enable them in the settings of a recording by name,
+ * for instance io.openwire.Encode, to have them recorded.  While an event is disabled the
+ * begin method returns null without allocating an event, so the codec does no further work.
+ */
+public final class JfrCodecEventProvider implements CodecEvents.Provider {
+
+    private static final EventType ENCODE = EventType.getEventType(EncodeEvent.class);
+    private static final EventType DECODE = EventType.getEventType(DecodeEvent.class);
+    private static final EventType COMPRESS = EventType.getEventType(CompressEvent.class);
+    private static final EventType DECOMPRESS = EventType.getEventType(DecompressEvent.class);
+
+    @Override
+    public CodecEvents.FrameEvent beginEncode() {
+        if (!ENCODE.isEnabled()) {
+            return null;
+        }
+
+        EncodeEvent event = new EncodeEvent();
+        event.begin();
+        return event;
+    }
+
+    @Override
+    public CodecEvents.FrameEvent beginDecode() {
+        if (!DECODE.isEnabled()) {
+            return null;
+        }
+
+        DecodeEvent event = new DecodeEvent();
+        event.begin();
+        return event;
+    }
+
+    @Override
+    public CodecEvents.CompressionEvent beginCompress() {
+        if (!COMPRESS.isEnabled()) {
+            return null;
+        }
+
+        CompressEvent event = new CompressEvent();
+        event.begin();
+        return event;
+    }
+
+    @Override
+    public CodecEvents.CompressionEvent beginDecompress() {
+        if (!DECOMPRESS.isEnabled()) {
+            return null;
+        }
+
+        DecompressEvent event = new DecompressEvent();
+        event.begin();
+        return event;
+    }
+}
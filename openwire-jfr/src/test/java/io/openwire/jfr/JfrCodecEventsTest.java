@@ -0,0 +1,135 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.openwire.jfr;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import io.openwire.codec.CodecEvents;
+import io.openwire.codec.OpenWireFormat;
+import io.openwire.commands.CommandTypes;
+import io.openwire.commands.OpenWireBytesMessage;
+import io.openwire.commands.OpenWireTextMessage;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+import org.fusesource.hawtbuf.Buffer;
+import org.junit.Test;
+
+/**
+ * Test the Java Flight Recorder events emitted by the codec.
+ */
+public class JfrCodecEventsTest {
+
+    @Test
+    public void testProviderIsDiscovered() throws Exception {
+        assertTrue(CodecEvents.isProviderPresent());
+    }
+
+    @Test
+    public void testNoEventsWhenDisabled() throws Exception {
+        JfrCodecEventProvider provider = new JfrCodecEventProvider();
+        assertEquals(null, provider.beginEncode());
+        assertEquals(null, provider.beginDecompress());
+    }
+
+    @Test
+    public void testFrameEventsAreRecorded() throws Exception {
+        OpenWireFormat wireFormat = new OpenWireFormat(CommandTypes.PROTOCOL_VERSION);
+        OpenWireTextMessage message = new OpenWireTextMessage();
+        message.setText("Hello World");
+
+        List<RecordedEvent> events;
+        Recording recording = new Recording();
+        try {
+            recording.enable("io.openwire.Encode");
+            recording.enable("io.openwire.Decode");
+            recording.start();
+
+            Buffer frame = wireFormat.marshal(message);
+            wireFormat.unmarshal(frame);
+
+            recording.stop();
+            events = readEvents(recording);
+        } finally {
+            recording.close();
+        }
+
+        assertEquals(2, events.size());
+        for (RecordedEvent event : events) {
+            assertEquals(CommandTypes.PROTOCOL_VERSION, event.getInt("version"));
+            assertEquals(OpenWireTextMessage.DATA_STRUCTURE_TYPE, event.getByte("type"));
+            assertTrue(event.getInt("size") > 0);
+        }
+        assertEquals("io.openwire.Encode", events.get(0).getEventType().getName());
+        assertEquals("io.openwire.Decode", events.get(1).getEventType().getName());
+    }
+
+    @Test
+    public void testCompressionEventsAreRecorded() throws Exception {
+        byte[] payload = new byte[4096];
+
+        List<RecordedEvent> events;
+        Recording recording = new Recording();
+        try {
+            recording.enable("io.openwire.Compress");
+            recording.enable("io.openwire.Decompress");
+            recording.start();
+
+            OpenWireBytesMessage message = new OpenWireBytesMessage();
+            message.setUseCompression(true);
+            message.setPayload(payload);
+            assertEquals(payload.length, message.getPayload().getLength());
+
+            recording.stop();
+            events = readEvents(recording);
+        } finally {
+            recording.close();
+        }
+
+        assertEquals(2, events.size());
+        for (RecordedEvent event : events) {
+            assertEquals(OpenWireBytesMessage.DATA_STRUCTURE_TYPE, event.getByte("type"));
+            assertEquals(payload.length, event.getInt("size"));
+            assertTrue(event.getInt("compressedSize") < payload.length);
+        }
+        assertEquals("io.openwire.Compress", events.get(0).getEventType().getName());
+        assertEquals("io.openwire.Decompress", events.get(1).getEventType().getName());
+    }
+
+    private List<RecordedEvent> readEvents(Recording recording) throws Exception {
+        Path file = Files.createTempFile("openwire", ".jfr");
+        try {
+            recording.dump(file);
+            List<RecordedEvent> events = new ArrayList<>();
+            for (RecordedEvent event : RecordingFile.readAllEvents(file)) {
+                if (event.getEventType().getName().startsWith("io.openwire.")) {
+                    events.add(event);
+                }
+            }
+            return events;
+        } finally {
+            Files.delete(file);
+        }
+    }
+}
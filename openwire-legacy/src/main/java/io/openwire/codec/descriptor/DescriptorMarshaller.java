@@ -0,0 +1,505 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.openwire.codec.descriptor;
+
+import io.openwire.codec.BaseDataStreamMarshaller;
+import io.openwire.codec.BooleanStream;
+import io.openwire.codec.OpenWireFormat;
+import io.openwire.commands.DataStructure;
+import io.openwire.commands.MarshallAware;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.lang.reflect.Array;
+
+import org.fusesource.hawtbuf.Buffer;
+import org.fusesource.hawtbuf.DataByteArrayOutputStream;
+
+/**
+ * Marshals one type of OpenWire command by interpreting its field descriptors.
+ *
+ * The fields are those of the command and of all the types it extends, in the order the
+ * generated marshallers write them.  A marshal aware command has its hooks called at the
+ * same points as in the generated code: beforeMarshall ahead of all the fields, and the
+ * other hooks around the fields declared by the marshal aware type itself.
+ */
+public final class DescriptorMarshaller extends BaseDataStreamMarshaller {
+
+    private final byte type;
+    private final Class<? extends DataStructure> commandClass;
+    private final FieldDescriptor[] fields;
+    private final int awareStart;
+    private final int awareEnd;
+
+    DescriptorMarshaller(byte type, Class<? extends DataStructure> commandClass, FieldDescriptor[] fields, int awareStart, int awareEnd) {
+        this.type = type;
+        this.commandClass = commandClass;
+        this.fields = fields;
+        this.awareStart = awareStart;
+        this.awareEnd = awareEnd;
+    }
+
+    @Override
+    public byte getDataStructureType() {
+        return type;
+    }
+
+    @Override
+    public DataStructure createObject() {
+        try {
+            return commandClass.newInstance();
+        } catch (Exception e) {
+            IllegalStateException error = new IllegalStateException("Could not create a new " + commandClass.getName());
+            error.initCause(e);
+            throw error;
+        }
+    }
+
+    /**
+     * @return the number of marshaled fields of the command type.
+     */
+    public int getFieldCount() {
+        return fields.length;
+    }
+
+    @Override
+    public int tightMarshal1(OpenWireFormat wireFormat, Object o, BooleanStream bs) throws IOException {
+        beforeMarshall(wireFormat, o);
+
+        int rc = 0;
+        for (int i = 0; i < fields.length; i++) {
+            FieldDescriptor field = fields[i];
+            switch (field.getKind()) {
+            case FieldDescriptor.BOOLEAN:
+                bs.writeBoolean(field.getBoolean(o));
+                break;
+            case FieldDescriptor.BYTE:
+                rc += 1;
+                break;
+            case FieldDescriptor.CHAR:
+            case FieldDescriptor.SHORT:
+                rc += 2;
+                break;
+            case FieldDescriptor.INT:
+                rc += 4;
+                break;
+            case FieldDescriptor.LONG:
+                rc += tightMarshalLong1(wireFormat, field.getLong(o), bs);
+                break;
+            case FieldDescriptor.STRING:
+                rc += tightMarshalString1((String) field.get(o), bs);
+                break;
+            case FieldDescriptor.BYTE_ARRAY:
+                rc += tightMarshalByteArray1((byte[]) field.get(o), bs);
+                break;
+            case FieldDescriptor.CONST_BYTE_ARRAY:
+                rc += tightMarshalConstByteArray1((byte[]) field.get(o), bs, field.getSize());
+                break;
+            case FieldDescriptor.BYTE_SEQUENCE:
+                rc += tightMarshalByteSequence1((Buffer) field.get(o), bs);
+                break;
+            case FieldDescriptor.OBJECT_ARRAY:
+                rc += tightMarshalObjectArray1(wireFormat, (DataStructure[]) field.get(o), bs);
+                break;
+            case FieldDescriptor.THROWABLE:
+                rc += tightMarshalThrowable1(wireFormat, (Throwable) field.get(o), bs);
+                break;
+            case FieldDescriptor.CACHED_OBJECT:
+                rc += tightMarshalCachedObject1(wireFormat, (DataStructure) field.get(o), bs);
+                break;
+            default:
+                rc += tightMarshalNestedObject1(wireFormat, (DataStructure) field.get(o), bs);
+            }
+        }
+
+        return rc;
+    }
+
+    @Override
+    public void tightMarshal2(OpenWireFormat wireFormat, Object o, DataOutput dataOut, BooleanStream bs) throws IOException {
+        for (int i = 0; i < fields.length; i++) {
+            if (i == awareEnd) {
+                ((MarshallAware) o).afterMarshall(wireFormat);
+            }
+
+            FieldDescriptor field = fields[i];
+            switch (field.getKind()) {
+            case FieldDescriptor.BOOLEAN:
+                bs.readBoolean();
+                break;
+            case FieldDescriptor.BYTE:
+                dataOut.writeByte(field.getByte(o));
+                break;
+            case FieldDescriptor.CHAR:
+                dataOut.writeChar(field.getChar(o));
+                break;
+            case FieldDescriptor.SHORT:
+                dataOut.writeShort(field.getShort(o));
+                break;
+            case FieldDescriptor.INT:
+                dataOut.writeInt(field.getInt(o));
+                break;
+            case FieldDescriptor.LONG:
+                tightMarshalLong2(wireFormat, field.getLong(o), dataOut, bs);
+                break;
+            case FieldDescriptor.STRING:
+                tightMarshalString2((String) field.get(o), dataOut, bs);
+                break;
+            case FieldDescriptor.BYTE_ARRAY:
+                tightMarshalByteArray2((byte[]) field.get(o), dataOut, bs);
+                break;
+            case FieldDescriptor.CONST_BYTE_ARRAY:
+                tightMarshalConstByteArray2((byte[]) field.get(o), dataOut, bs, field.getSize());
+                break;
+            case FieldDescriptor.BYTE_SEQUENCE:
+                tightMarshalByteSequence2((Buffer) field.get(o), dataOut, bs);
+                break;
+            case FieldDescriptor.OBJECT_ARRAY:
+                tightMarshalObjectArray2(wireFormat, (DataStructure[]) field.get(o), dataOut, bs);
+                break;
+            case FieldDescriptor.THROWABLE:
+                tightMarshalThrowable2(wireFormat, (Throwable) field.get(o), dataOut, bs);
+                break;
+            case FieldDescriptor.CACHED_OBJECT:
+                tightMarshalCachedObject2(wireFormat, (DataStructure) field.get(o), dataOut, bs);
+                break;
+            default:
+                tightMarshalNestedObject2(wireFormat, (DataStructure) field.get(o), dataOut, bs);
+            }
+        }
+
+        if (awareEnd == fields.length) {
+            ((MarshallAware) o).afterMarshall(wireFormat);
+        }
+    }
+
+    @Override
+    public void tightMarshal(OpenWireFormat wireFormat, Object o, DataByteArrayOutputStream dataOut, BooleanStream bs) throws IOException {
+        beforeMarshall(wireFormat, o);
+
+        for (int i = 0; i < fields.length; i++) {
+            if (i == awareEnd) {
+                ((MarshallAware) o).afterMarshall(wireFormat);
+            }
+
+            FieldDescriptor field = fields[i];
+            switch (field.getKind()) {
+            case FieldDescriptor.BOOLEAN:
+                bs.writeBoolean(field.getBoolean(o));
+                break;
+            case FieldDescriptor.BYTE:
+                dataOut.writeByte(field.getByte(o));
+                break;
+            case FieldDescriptor.CHAR:
+                dataOut.writeChar(field.getChar(o));
+                break;
+            case FieldDescriptor.SHORT:
+                dataOut.writeShort(field.getShort(o));
+                break;
+            case FieldDescriptor.INT:
+                dataOut.writeInt(field.getInt(o));
+                break;
+            case FieldDescriptor.LONG:
+                tightMarshalLong(wireFormat, field.getLong(o), dataOut, bs);
+                break;
+            case FieldDescriptor.STRING:
+                tightMarshalString((String) field.get(o), dataOut, bs);
+                break;
+            case FieldDescriptor.BYTE_ARRAY:
+                tightMarshalByteArray((byte[]) field.get(o), dataOut, bs);
+                break;
+            case FieldDescriptor.CONST_BYTE_ARRAY:
+                tightMarshalConstByteArray((byte[]) field.get(o), dataOut, bs, field.getSize());
+                break;
+            case FieldDescriptor.BYTE_SEQUENCE:
+                tightMarshalByteSequence((Buffer) field.get(o), dataOut, bs);
+                break;
+            case FieldDescriptor.OBJECT_ARRAY:
+                tightMarshalObjectArray(wireFormat, (DataStructure[]) field.get(o), dataOut, bs);
+                break;
+            case FieldDescriptor.THROWABLE:
+                tightMarshalThrowable(wireFormat, (Throwable) field.get(o), dataOut, bs);
+                break;
+            case FieldDescriptor.CACHED_OBJECT:
+                tightMarshalCachedObject(wireFormat, (DataStructure) field.get(o), dataOut, bs);
+                break;
+            default:
+                tightMarshalNestedObject(wireFormat, (DataStructure) field.get(o), dataOut, bs);
+            }
+        }
+
+        if (awareEnd == fields.length) {
+            ((MarshallAware) o).afterMarshall(wireFormat);
+        }
+    }
+
+    @Override
+    public void tightUnmarshal(OpenWireFormat wireFormat, Object o, DataInput dataIn, BooleanStream bs) throws IOException {
+        for (int i = 0; i < fields.length; i++) {
+            unmarshallHooks(wireFormat, o, i);
+
+            FieldDescriptor field = fields[i];
+            switch (field.getKind()) {
+            case FieldDescriptor.BOOLEAN:
+                field.setBoolean(o, bs.readBoolean());
+                break;
+            case FieldDescriptor.BYTE:
+                field.setByte(o, dataIn.readByte());
+                break;
+            case FieldDescriptor.CHAR:
+                field.setChar(o, dataIn.readChar());
+                break;
+            case FieldDescriptor.SHORT:
+                field.setShort(o, dataIn.readShort());
+                break;
+            case FieldDescriptor.INT:
+                field.setInt(o, dataIn.readInt());
+                break;
+            case FieldDescriptor.LONG:
+                field.setLong(o, tightUnmarshalLong(wireFormat, dataIn, bs));
+                break;
+            case FieldDescriptor.STRING:
+                field.set(o, tightUnmarshalString(dataIn, bs));
+                break;
+            case FieldDescriptor.BYTE_ARRAY:
+                field.set(o, tightUnmarshalByteArray(dataIn, bs));
+                break;
+            case FieldDescriptor.CONST_BYTE_ARRAY:
+                field.set(o, tightUnmarshalConstByteArray(dataIn, bs, field.getSize()));
+                break;
+            case FieldDescriptor.BYTE_SEQUENCE:
+                field.set(o, tightUnmarshalByteSequence(wireFormat, dataIn, bs));
+                break;
+            case FieldDescriptor.OBJECT_ARRAY:
+                if (bs.readBoolean()) {
+                    short size = dataIn.readShort();
+                    Object[] array = (Object[]) Array.newInstance(field.getElementType(), size);
+                    for (int j = 0; j < size; j++) {
+                        array[j] = tightUnmarsalNestedObject(wireFormat, dataIn, bs);
+                    }
+                    field.set(o, array);
+                } else {
+                    field.set(o, null);
+                }
+                break;
+            case FieldDescriptor.THROWABLE:
+                field.set(o, tightUnmarsalThrowable(wireFormat, dataIn, bs));
+                break;
+            case FieldDescriptor.CACHED_OBJECT:
+                field.set(o, tightUnmarsalCachedObject(wireFormat, dataIn, bs));
+                break;
+            default:
+                field.set(o, tightUnmarsalNestedObject(wireFormat, dataIn, bs));
+            }
+        }
+
+        unmarshallHooks(wireFormat, o, fields.length);
+    }
+
+    @Override
+    public void looseMarshal(OpenWireFormat wireFormat, Object o, DataOutput dataOut) throws IOException {
+        if (!wireFormat.isLooseMarshalSized()) {
+            beforeMarshall(wireFormat, o);
+        }
+
+        for (int i = 0; i < fields.length; i++) {
+            FieldDescriptor field = fields[i];
+            switch (field.getKind()) {
+            case FieldDescriptor.BOOLEAN:
+                dataOut.writeBoolean(field.getBoolean(o));
+                break;
+            case FieldDescriptor.BYTE:
+                dataOut.writeByte(field.getByte(o));
+                break;
+            case FieldDescriptor.CHAR:
+                dataOut.writeChar(field.getChar(o));
+                break;
+            case FieldDescriptor.SHORT:
+                dataOut.writeShort(field.getShort(o));
+                break;
+            case FieldDescriptor.INT:
+                dataOut.writeInt(field.getInt(o));
+                break;
+            case FieldDescriptor.LONG:
+                looseMarshalLong(wireFormat, field.getLong(o), dataOut);
+                break;
+            case FieldDescriptor.STRING:
+                looseMarshalString((String) field.get(o), dataOut);
+                break;
+            case FieldDescriptor.BYTE_ARRAY:
+                looseMarshalByteArray(wireFormat, (byte[]) field.get(o), dataOut);
+                break;
+            case FieldDescriptor.CONST_BYTE_ARRAY:
+                looseMarshalConstByteArray(wireFormat, (byte[]) field.get(o), dataOut, field.getSize());
+                break;
+            case FieldDescriptor.BYTE_SEQUENCE:
+                looseMarshalByteSequence(wireFormat, (Buffer) field.get(o), dataOut);
+                break;
+            case FieldDescriptor.OBJECT_ARRAY:
+                looseMarshalObjectArray(wireFormat, (DataStructure[]) field.get(o), dataOut);
+                break;
+            case FieldDescriptor.THROWABLE:
+                looseMarshalThrowable(wireFormat, (Throwable) field.get(o), dataOut);
+                break;
+            case FieldDescriptor.CACHED_OBJECT:
+                looseMarshalCachedObject(wireFormat, (DataStructure) field.get(o), dataOut);
+                break;
+            default:
+                looseMarshalNestedObject(wireFormat, (DataStructure) field.get(o), dataOut);
+            }
+        }
+    }
+
+    @Override
+    public int looseMarshalSize(OpenWireFormat wireFormat, Object o) throws IOException {
+        beforeMarshall(wireFormat, o);
+
+        int rc = 0;
+        for (int i = 0; i < fields.length; i++) {
+            FieldDescriptor field = fields[i];
+            switch (field.getKind()) {
+            case FieldDescriptor.BOOLEAN:
+            case FieldDescriptor.BYTE:
+                rc += 1;
+                break;
+            case FieldDescriptor.CHAR:
+            case FieldDescriptor.SHORT:
+                rc += 2;
+                break;
+            case FieldDescriptor.INT:
+                rc += 4;
+                break;
+            case FieldDescriptor.LONG:
+                rc += 8;
+                break;
+            case FieldDescriptor.STRING:
+                rc += looseMarshalStringSize((String) field.get(o));
+                break;
+            case FieldDescriptor.BYTE_ARRAY:
+                rc += looseMarshalByteArraySize(wireFormat, (byte[]) field.get(o));
+                break;
+            case FieldDescriptor.CONST_BYTE_ARRAY:
+                rc += field.getSize();
+                break;
+            case FieldDescriptor.BYTE_SEQUENCE:
+                rc += looseMarshalByteSequenceSize(wireFormat, (Buffer) field.get(o));
+                break;
+            case FieldDescriptor.OBJECT_ARRAY:
+                rc += looseMarshalObjectArraySize(wireFormat, (DataStructure[]) field.get(o));
+                break;
+            case FieldDescriptor.THROWABLE:
+                rc += looseMarshalThrowableSize(wireFormat, (Throwable) field.get(o));
+                break;
+            case FieldDescriptor.CACHED_OBJECT:
+                rc += looseMarshalCachedObjectSize(wireFormat, (DataStructure) field.get(o));
+                break;
+            default:
+                rc += looseMarshalNestedObjectSize(wireFormat, (DataStructure) field.get(o));
+            }
+        }
+
+        return rc;
+    }
+
+    @Override
+    public void looseUnmarshal(OpenWireFormat wireFormat, Object o, DataInput dataIn) throws IOException {
+        for (int i = 0; i < fields.length; i++) {
+            unmarshallHooks(wireFormat, o, i);
+
+            FieldDescriptor field = fields[i];
+            switch (field.getKind()) {
+            case FieldDescriptor.BOOLEAN:
+                field.setBoolean(o, dataIn.readBoolean());
+                break;
+            case FieldDescriptor.BYTE:
+                field.setByte(o, dataIn.readByte());
+                break;
+            case FieldDescriptor.CHAR:
+                field.setChar(o, dataIn.readChar());
+                break;
+            case FieldDescriptor.SHORT:
+                field.setShort(o, dataIn.readShort());
+                break;
+            case FieldDescriptor.INT:
+                field.setInt(o, dataIn.readInt());
+                break;
+            case FieldDescriptor.LONG:
+                field.setLong(o, looseUnmarshalLong(wireFormat, dataIn));
+                break;
+            case FieldDescriptor.STRING:
+                field.set(o, looseUnmarshalString(dataIn));
+                break;
+            case FieldDescriptor.BYTE_ARRAY:
+                field.set(o, looseUnmarshalByteArray(dataIn));
+                break;
+            case FieldDescriptor.CONST_BYTE_ARRAY:
+                field.set(o, looseUnmarshalConstByteArray(dataIn, field.getSize()));
+                break;
+            case FieldDescriptor.BYTE_SEQUENCE:
+                field.set(o, looseUnmarshalByteSequence(wireFormat, dataIn));
+                break;
+            case FieldDescriptor.OBJECT_ARRAY:
+                if (dataIn.readBoolean()) {
+                    short size = dataIn.readShort();
+                    Object[] array = (Object[]) Array.newInstance(field.getElementType(), size);
+                    for (int j = 0; j < size; j++) {
+                        array[j] = looseUnmarsalNestedObject(wireFormat, dataIn);
+                    }
+                    field.set(o, array);
+                } else {
+                    field.set(o, null);
+                }
+                break;
+            case FieldDescriptor.THROWABLE:
+                field.set(o, looseUnmarsalThrowable(wireFormat, dataIn));
+                break;
+            case FieldDescriptor.CACHED_OBJECT:
+                field.set(o, looseUnmarsalCachedObject(wireFormat, dataIn));
+                break;
+            default:
+                field.set(o, looseUnmarsalNestedObject(wireFormat, dataIn));
+            }
+        }
+
+        unmarshallHooks(wireFormat, o, fields.length);
+    }
+
+    private void beforeMarshall(OpenWireFormat wireFormat, Object o) throws IOException {
+        if (awareStart >= 0) {
+            ((MarshallAware) o).beforeMarshall(wireFormat);
+        }
+    }
+
+    /**
+     * Calls the unmarshal hooks of a marshal aware command that are due before the field
+     * at the given index is read.
+     */
+    private void unmarshallHooks(OpenWireFormat wireFormat, Object o, int index) throws IOException {
+        if (index == awareStart) {
+            ((MarshallAware) o).beforeUnmarshall(wireFormat);
+        }
+        if (index == awareEnd) {
+            ((MarshallAware) o).afterUnmarshall(wireFormat);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "DescriptorMarshaller{type=" + type + ", class=" + commandClass.getName() + ", fields=" + fields.length + "}";
+    }
+}
@@ -0,0 +1,65 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.openwire.codec.descriptor;
+
+import io.openwire.codec.DataStreamMarshaller;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Creates the descriptor driven marshallers of the legacy OpenWire versions.
+ *
+ * Instead of a generated marshaller class per command type and version, the marshallers
+ * of a version are all instances of {@link DescriptorMarshaller} built from the compact
+ * descriptors the openwire-generator writes for that version.  All the old versions thus
+ * share the same few code paths.
+ */
+public final class DescriptorMarshallerFactory {
+
+    private DescriptorMarshallerFactory() {
+    }
+
+    /**
+     * Creates a Map of command type -> Marshallers for the given version.
+     *
+     * @param version
+     *        the OpenWire protocol version.
+     *
+     * @return the marshallers indexed by data structure type.
+     *
+     * @throws IllegalArgumentException if there are no valid descriptors for the version.
+     */
+    public static DataStreamMarshaller[] createMarshallerMap(int version) {
+        String resource = "openwire-v" + version + ".descriptor";
+        InputStream in = DescriptorMarshallerFactory.class.getResourceAsStream(resource);
+        if (in == null) {
+            throw new IllegalArgumentException("Invalid version: " + version + ", could not find " + resource);
+        }
+
+        try {
+            return new DescriptorReader(DescriptorMarshallerFactory.class.getClassLoader()).read(in);
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Invalid version: " + version + ", " + resource + " is not valid: " + e.getMessage(), e);
+        } finally {
+            try {
+                in.close();
+            } catch (IOException e) {
+            }
+        }
+    }
+}
@@ -0,0 +1,285 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.openwire.codec.descriptor;
+
+import io.openwire.codec.DataStreamMarshaller;
+import io.openwire.commands.DataStructure;
+import io.openwire.commands.MarshallAware;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reads the marshaller descriptors of one OpenWire version.
+ *
+ * The descriptors are a line based text format written by the openwire-generator.  Each
+ * marshaled type starts with a line of the form
+ *
+ * <pre>
+ * marshaller &lt;Type&gt; [abstract] [extends &lt;SuperType&gt;] [marshallAware]
+ * </pre>
+ *
+ * followed by one indented line per property it declares, in marshaling order, of the form
+ * <code>&lt;kind&gt; &lt;getter&gt; &lt;setter&gt;</code>.  The kind is one of boolean, byte,
+ * char, short, int, long, string, bytes, bytes[N], sequence, array, throwable, cached or
+ * nested.  A <code>package</code> line names the package of the command types, blank lines
+ * and lines starting with # are ignored.
+ */
+final class DescriptorReader {
+
+    private static final class Entry {
+        private final String name;
+        private final int line;
+        private String superType;
+        private boolean isAbstract;
+        private boolean marshallAware;
+        private final List<String[]> properties = new ArrayList<String[]>();
+
+        private Entry(String name, int line) {
+            this.name = name;
+            this.line = line;
+        }
+    }
+
+    private final ClassLoader classLoader;
+    private final Map<String, Entry> entries = new LinkedHashMap<String, Entry>();
+    private String commandsPackage = "io.openwire.commands";
+
+    public DescriptorReader(ClassLoader classLoader) {
+        this.classLoader = classLoader;
+    }
+
+    /**
+     * Reads the descriptors and creates a marshaller for every type that is not abstract.
+     *
+     * @return the marshallers indexed by data structure type.
+     *
+     * @throws IOException if the descriptors are invalid or do not match the command classes.
+     */
+    public DataStreamMarshaller[] read(InputStream in) throws IOException {
+        parse(new BufferedReader(new InputStreamReader(in, "UTF-8")));
+
+        DataStreamMarshaller[] marshallers = new DataStreamMarshaller[256];
+        for (Entry entry : entries.values()) {
+            if (!entry.isAbstract) {
+                DescriptorMarshaller marshaller = createMarshaller(entry);
+                marshallers[marshaller.getDataStructureType() & 0xFF] = marshaller;
+            }
+        }
+        return marshallers;
+    }
+
+    private void parse(BufferedReader reader) throws IOException {
+        Entry current = null;
+        int lineNumber = 0;
+        String line;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            String trimmed = line.trim();
+            if (trimmed.length() == 0 || trimmed.startsWith("#")) {
+                continue;
+            }
+
+            String[] tokens = trimmed.split("\\s+");
+            if (!Character.isWhitespace(line.charAt(0))) {
+                if (tokens[0].equals("package") && tokens.length == 2) {
+                    commandsPackage = tokens[1];
+                } else if (tokens[0].equals("marshaller") && tokens.length >= 2) {
+                    current = parseEntry(tokens, lineNumber);
+                } else {
+                    throw invalid(lineNumber, trimmed);
+                }
+            } else if (current != null && tokens.length == 3) {
+                current.properties.add(tokens);
+            } else {
+                throw invalid(lineNumber, trimmed);
+            }
+        }
+    }
+
+    private Entry parseEntry(String[] tokens, int lineNumber) throws IOException {
+        Entry entry = new Entry(tokens[1], lineNumber);
+        for (int i = 2; i < tokens.length; i++) {
+            if (tokens[i].equals("abstract")) {
+                entry.isAbstract = true;
+            } else if (tokens[i].equals("marshallAware")) {
+                entry.marshallAware = true;
+            } else if (tokens[i].equals("extends") && i + 1 < tokens.length) {
+                entry.superType = tokens[++i];
+            } else {
+                throw invalid(lineNumber, tokens[i]);
+            }
+        }
+
+        if (entries.put(entry.name, entry) != null) {
+            throw new IOException("Duplicate marshaller descriptor for " + entry.name + " at line " + lineNumber);
+        }
+        return entry;
+    }
+
+    private DescriptorMarshaller createMarshaller(Entry entry) throws IOException {
+        Class<? extends DataStructure> commandClass = loadCommandClass(entry);
+
+        // Walk up to the root type, its fields are marshaled first.
+        List<Entry> hierarchy = new ArrayList<Entry>();
+        for (Entry e = entry; e != null; e = superEntry(e)) {
+            if (hierarchy.contains(e)) {
+                throw new IOException("Circular marshaller descriptor hierarchy for " + entry.name);
+            }
+            hierarchy.add(0, e);
+        }
+
+        List<FieldDescriptor> fields = new ArrayList<FieldDescriptor>();
+        int awareStart = -1;
+        int awareEnd = -1;
+        for (Entry e : hierarchy) {
+            if (e.marshallAware) {
+                if (!MarshallAware.class.isAssignableFrom(commandClass)) {
+                    throw new IOException(commandClass.getName() + " is described as marshal aware but does not implement MarshallAware");
+                }
+                awareStart = fields.size();
+            }
+            for (String[] property : e.properties) {
+                fields.add(createField(commandClass, property, e));
+            }
+            if (e.marshallAware) {
+                awareEnd = fields.size();
+            }
+        }
+
+        DataStructure prototype;
+        try {
+            prototype = commandClass.newInstance();
+        } catch (Exception e) {
+            throw error("Could not create a new " + commandClass.getName(), e);
+        }
+
+        return new DescriptorMarshaller(prototype.getDataStructureType(), commandClass,
+            fields.toArray(new FieldDescriptor[fields.size()]), awareStart, awareEnd);
+    }
+
+    private Entry superEntry(Entry entry) throws IOException {
+        if (entry.superType == null) {
+            return null;
+        }
+
+        Entry answer = entries.get(entry.superType);
+        if (answer == null) {
+            throw new IOException("Unknown super type " + entry.superType + " of " + entry.name + " at line " + entry.line);
+        }
+        return answer;
+    }
+
+    private Class<? extends DataStructure> loadCommandClass(Entry entry) throws IOException {
+        String className = commandsPackage + "." + entry.name;
+        Class<?> type;
+        try {
+            type = Class.forName(className, false, classLoader);
+        } catch (ClassNotFoundException e) {
+            throw error("Could not load " + className, e);
+        }
+
+        if (!DataStructure.class.isAssignableFrom(type)) {
+            throw new IOException(className + " is not a DataStructure");
+        }
+        return type.asSubclass(DataStructure.class);
+    }
+
+    private FieldDescriptor createField(Class<?> commandClass, String[] property, Entry entry) throws IOException {
+        String kindName = property[0];
+        int size = 0;
+        int kind;
+
+        if (kindName.startsWith("bytes[") && kindName.endsWith("]")) {
+            kind = FieldDescriptor.CONST_BYTE_ARRAY;
+            try {
+                size = Integer.parseInt(kindName.substring(6, kindName.length() - 1));
+            } catch (NumberFormatException e) {
+                throw error("Invalid size in " + kindName + " of " + entry.name, e);
+            }
+        } else {
+            kind = parseKind(kindName, entry);
+        }
+
+        Method getter;
+        try {
+            getter = commandClass.getMethod(property[1]);
+        } catch (NoSuchMethodException e) {
+            throw error("No getter " + property[1] + " on " + commandClass.getName(), e);
+        }
+
+        if (kind == FieldDescriptor.OBJECT_ARRAY && !getter.getReturnType().isArray()) {
+            throw new IOException(property[1] + " of " + commandClass.getName() + " does not return an array");
+        }
+
+        int index = PropertyAccessors.indexOf(entry.name, property[1]);
+        if (index < 0) {
+            throw new IOException("No accessors for " + entry.name + "." + property[1]);
+        }
+
+        return new FieldDescriptor(kind, size, index, getter.getReturnType().getComponentType());
+    }
+
+    private int parseKind(String kind, Entry entry) throws IOException {
+        if (kind.equals("boolean")) {
+            return FieldDescriptor.BOOLEAN;
+        } else if (kind.equals("byte")) {
+            return FieldDescriptor.BYTE;
+        } else if (kind.equals("char")) {
+            return FieldDescriptor.CHAR;
+        } else if (kind.equals("short")) {
+            return FieldDescriptor.SHORT;
+        } else if (kind.equals("int")) {
+            return FieldDescriptor.INT;
+        } else if (kind.equals("long")) {
+            return FieldDescriptor.LONG;
+        } else if (kind.equals("string")) {
+            return FieldDescriptor.STRING;
+        } else if (kind.equals("bytes")) {
+            return FieldDescriptor.BYTE_ARRAY;
+        } else if (kind.equals("sequence")) {
+            return FieldDescriptor.BYTE_SEQUENCE;
+        } else if (kind.equals("array")) {
+            return FieldDescriptor.OBJECT_ARRAY;
+        } else if (kind.equals("throwable")) {
+            return FieldDescriptor.THROWABLE;
+        } else if (kind.equals("cached")) {
+            return FieldDescriptor.CACHED_OBJECT;
+        } else if (kind.equals("nested")) {
+            return FieldDescriptor.NESTED_OBJECT;
+        }
+
+        throw new IOException("Unknown property kind " + kind + " of " + entry.name);
+    }
+
+    private static IOException invalid(int lineNumber, String text) {
+        return new IOException("Invalid marshaller descriptor at line " + lineNumber + ": " + text);
+    }
+
+    private static IOException error(String message, Throwable cause) {
+        IOException error = new IOException(message);
+        error.initCause(cause);
+        return error;
+    }
+}
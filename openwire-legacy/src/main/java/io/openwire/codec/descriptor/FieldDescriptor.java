@@ -0,0 +1,141 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.openwire.codec.descriptor;
+
+/**
+ * Describes one marshaled property of an OpenWire command, the kind of encoding used for
+ * it and the accessors used to read it from and store it in the command.
+ *
+ * The property is resolved once to its index in the {@link PropertyAccessors}, each value
+ * type then has its own typed accessors so the marshallers never box a primitive value.
+ */
+final class FieldDescriptor {
+
+    public static final int BOOLEAN = 0;
+    public static final int BYTE = 1;
+    public static final int CHAR = 2;
+    public static final int SHORT = 3;
+    public static final int INT = 4;
+    public static final int LONG = 5;
+    public static final int STRING = 6;
+    public static final int BYTE_ARRAY = 7;
+    public static final int CONST_BYTE_ARRAY = 8;
+    public static final int BYTE_SEQUENCE = 9;
+    public static final int OBJECT_ARRAY = 10;
+    public static final int THROWABLE = 11;
+    public static final int CACHED_OBJECT = 12;
+    public static final int NESTED_OBJECT = 13;
+
+    private final int kind;
+    private final int size;
+    private final int property;
+    private final Class<?> elementType;
+
+    public FieldDescriptor(int kind, int size, int property, Class<?> elementType) {
+        this.kind = kind;
+        this.size = size;
+        this.property = property;
+        this.elementType = elementType;
+    }
+
+    /**
+     * @return the encoding of the property, one of the constants of this class.
+     */
+    public int getKind() {
+        return kind;
+    }
+
+    /**
+     * @return the fixed size of a constant size byte array.
+     */
+    public int getSize() {
+        return size;
+    }
+
+    /**
+     * @return the element type of an object array property.
+     */
+    public Class<?> getElementType() {
+        return elementType;
+    }
+
+    public String getName() {
+        return PropertyAccessors.getName(property);
+    }
+
+    public boolean getBoolean(Object target) {
+        return PropertyAccessors.getBoolean(target, property);
+    }
+
+    public void setBoolean(Object target, boolean value) {
+        PropertyAccessors.setBoolean(target, property, value);
+    }
+
+    public byte getByte(Object target) {
+        return PropertyAccessors.getByte(target, property);
+    }
+
+    public void setByte(Object target, byte value) {
+        PropertyAccessors.setByte(target, property, value);
+    }
+
+    public char getChar(Object target) {
+        return PropertyAccessors.getChar(target, property);
+    }
+
+    public void setChar(Object target, char value) {
+        PropertyAccessors.setChar(target, property, value);
+    }
+
+    public short getShort(Object target) {
+        return PropertyAccessors.getShort(target, property);
+    }
+
+    public void setShort(Object target, short value) {
+        PropertyAccessors.setShort(target, property, value);
+    }
+
+    public int getInt(Object target) {
+        return PropertyAccessors.getInt(target, property);
+    }
+
+    public void setInt(Object target, int value) {
+        PropertyAccessors.setInt(target, property, value);
+    }
+
+    public long getLong(Object target) {
+        return PropertyAccessors.getLong(target, property);
+    }
+
+    public void setLong(Object target, long value) {
+        PropertyAccessors.setLong(target, property, value);
+    }
+
+    /**
+     * Reads a property that is not of a primitive type.
+     */
+    public Object get(Object target) {
+        return PropertyAccessors.getObject(target, property);
+    }
+
+    /**
+     * Stores a property that is not of a primitive type.
+     */
+    public void set(Object target, Object value) {
+        PropertyAccessors.setObject(target, property, value);
+    }
+}
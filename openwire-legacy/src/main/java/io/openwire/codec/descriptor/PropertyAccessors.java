@@ -0,0 +1,1340 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.openwire.codec.descriptor;
+
+import io.openwire.commands.BaseCommand;
+import io.openwire.commands.BrokerId;
+import io.openwire.commands.BrokerInfo;
+import io.openwire.commands.ConnectionControl;
+import io.openwire.commands.ConnectionError;
+import io.openwire.commands.ConnectionId;
+import io.openwire.commands.ConnectionInfo;
+import io.openwire.commands.ConsumerControl;
+import io.openwire.commands.ConsumerId;
+import io.openwire.commands.ConsumerInfo;
+import io.openwire.commands.ControlCommand;
+import io.openwire.commands.DataArrayResponse;
+import io.openwire.commands.DataResponse;
+import io.openwire.commands.DataStructure;
+import io.openwire.commands.DestinationInfo;
+import io.openwire.commands.DiscoveryEvent;
+import io.openwire.commands.ExceptionResponse;
+import io.openwire.commands.IntegerResponse;
+import io.openwire.commands.JournalQueueAck;
+import io.openwire.commands.JournalTopicAck;
+import io.openwire.commands.JournalTrace;
+import io.openwire.commands.JournalTransaction;
+import io.openwire.commands.LocalTransactionId;
+import io.openwire.commands.Message;
+import io.openwire.commands.MessageAck;
+import io.openwire.commands.MessageDispatch;
+import io.openwire.commands.MessageDispatchNotification;
+import io.openwire.commands.MessageId;
+import io.openwire.commands.MessagePull;
+import io.openwire.commands.NetworkBridgeFilter;
+import io.openwire.commands.OpenWireBlobMessage;
+import io.openwire.commands.OpenWireDestination;
+import io.openwire.commands.PartialCommand;
+import io.openwire.commands.ProducerAck;
+import io.openwire.commands.ProducerId;
+import io.openwire.commands.ProducerInfo;
+import io.openwire.commands.RemoveInfo;
+import io.openwire.commands.RemoveSubscriptionInfo;
+import io.openwire.commands.ReplayCommand;
+import io.openwire.commands.Response;
+import io.openwire.commands.SessionId;
+import io.openwire.commands.SessionInfo;
+import io.openwire.commands.SubscriptionInfo;
+import io.openwire.commands.TransactionId;
+import io.openwire.commands.TransactionInfo;
+import io.openwire.commands.WireFormatInfo;
+import io.openwire.commands.XATransactionId;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.fusesource.hawtbuf.Buffer;
+
+/**
+ * Typed accessors of the marshaled properties of the OpenWire commands.  The descriptor
+ * driven marshallers look a property up once by the type that declares it and its getter,
+ * then read and write it through the switch of its value type with direct calls, so that
+ * no value is boxed and no reflective call is made per field.
+ *
+ * NOTE!: This file is auto generated - do not modify!
+ *
+ */
+final class PropertyAccessors {
+
+    private static final String[] PROPERTIES = {
+        "BaseCommand.getCommandId",
+        "BaseCommand.isResponseRequired",
+        "BrokerId.getValue",
+        "BrokerInfo.getBrokerId",
+        "BrokerInfo.getBrokerURL",
+        "BrokerInfo.getPeerBrokerInfos",
+        "BrokerInfo.getBrokerName",
+        "BrokerInfo.isSlaveBroker",
+        "BrokerInfo.isMasterBroker",
+        "BrokerInfo.isFaultTolerantConfiguration",
+        "BrokerInfo.isDuplexConnection",
+        "BrokerInfo.isNetworkConnection",
+        "BrokerInfo.getConnectionId",
+        "BrokerInfo.getBrokerUploadUrl",
+        "BrokerInfo.getNetworkProperties",
+        "ConnectionControl.isClose",
+        "ConnectionControl.isExit",
+        "ConnectionControl.isFaultTolerant",
+        "ConnectionControl.isResume",
+        "ConnectionControl.isSuspend",
+        "ConnectionControl.getConnectedBrokers",
+        "ConnectionControl.getReconnectTo",
+        "ConnectionControl.isRebalanceConnection",
+        "ConnectionControl.getToken",
+        "ConnectionError.getException",
+        "ConnectionError.getConnectionId",
+        "ConnectionId.getValue",
+        "ConnectionInfo.getConnectionId",
+        "ConnectionInfo.getClientId",
+        "ConnectionInfo.getPassword",
+        "ConnectionInfo.getUserName",
+        "ConnectionInfo.getBrokerPath",
+        "ConnectionInfo.isBrokerMasterConnector",
+        "ConnectionInfo.isManageable",
+        "ConnectionInfo.isClientMaster",
+        "ConnectionInfo.isFaultTolerant",
+        "ConnectionInfo.isFailoverReconnect",
+        "ConnectionInfo.getClientIp",
+        "ConsumerControl.getDestination",
+        "ConsumerControl.isClose",
+        "ConsumerControl.getConsumerId",
+        "ConsumerControl.getPrefetch",
+        "ConsumerControl.isFlush",
+        "ConsumerControl.isStart",
+        "ConsumerControl.isStop",
+        "ConsumerId.getConnectionId",
+        "ConsumerId.getSessionId",
+        "ConsumerId.getValue",
+        "ConsumerInfo.getConsumerId",
+        "ConsumerInfo.isBrowser",
+        "ConsumerInfo.getDestination",
+        "ConsumerInfo.getPrefetchSize",
+        "ConsumerInfo.getMaximumPendingMessageLimit",
+        "ConsumerInfo.isDispatchAsync",
+        "ConsumerInfo.getSelector",
+        "ConsumerInfo.getSubscriptionName",
+        "ConsumerInfo.isNoLocal",
+        "ConsumerInfo.isExclusive",
+        "ConsumerInfo.isRetroactive",
+        "ConsumerInfo.getPriority",
+        "ConsumerInfo.getBrokerPath",
+        "ConsumerInfo.getAdditionalPredicate",
+        "ConsumerInfo.isNetworkSubscription",
+        "ConsumerInfo.isOptimizedAcknowledge",
+        "ConsumerInfo.isNoRangeAcks",
+        "ConsumerInfo.getNetworkConsumerPath",
+        "ControlCommand.getCommand",
+        "DataArrayResponse.getData",
+        "DataResponse.getData",
+        "DestinationInfo.getConnectionId",
+        "DestinationInfo.getDestination",
+        "DestinationInfo.getOperationType",
+        "DestinationInfo.getTimeout",
+        "DestinationInfo.getBrokerPath",
+        "DiscoveryEvent.getServiceName",
+        "DiscoveryEvent.getBrokerName",
+        "ExceptionResponse.getException",
+        "IntegerResponse.getResult",
+        "JournalQueueAck.getDestination",
+        "JournalQueueAck.getMessageAck",
+        "JournalTopicAck.getDestination",
+        "JournalTopicAck.getMessageId",
+        "JournalTopicAck.getMessageSequenceId",
+        "JournalTopicAck.getSubscritionName",
+        "JournalTopicAck.getClientId",
+        "JournalTopicAck.getTransactionId",
+        "JournalTrace.getMessage",
+        "JournalTransaction.getTransactionId",
+        "JournalTransaction.getType",
+        "JournalTransaction.getWasPrepared",
+        "LocalTransactionId.getValue",
+        "LocalTransactionId.getConnectionId",
+        "Message.getProducerId",
+        "Message.getDestination",
+        "Message.getTransactionId",
+        "Message.getOriginalDestination",
+        "Message.getMessageId",
+        "Message.getOriginalTransactionId",
+        "Message.getGroupId",
+        "Message.getGroupSequence",
+        "Message.getCorrelationId",
+        "Message.isPersistent",
+        "Message.getExpiration",
+        "Message.getPriority",
+        "Message.getReplyTo",
+        "Message.getTimestamp",
+        "Message.getType",
+        "Message.getContent",
+        "Message.getMarshalledProperties",
+        "Message.getDataStructure",
+        "Message.getTargetConsumerId",
+        "Message.isCompressed",
+        "Message.getRedeliveryCounter",
+        "Message.getBrokerPath",
+        "Message.getArrival",
+        "Message.getUserId",
+        "Message.isRecievedByDFBridge",
+        "Message.isDroppable",
+        "Message.getCluster",
+        "Message.getBrokerInTime",
+        "Message.getBrokerOutTime",
+        "MessageAck.getDestination",
+        "MessageAck.getTransactionId",
+        "MessageAck.getConsumerId",
+        "MessageAck.getAckType",
+        "MessageAck.getFirstMessageId",
+        "MessageAck.getLastMessageId",
+        "MessageAck.getMessageCount",
+        "MessageAck.getPoisonCause",
+        "MessageDispatch.getConsumerId",
+        "MessageDispatch.getDestination",
+        "MessageDispatch.getMessage",
+        "MessageDispatch.getRedeliveryCounter",
+        "MessageDispatchNotification.getConsumerId",
+        "MessageDispatchNotification.getDestination",
+        "MessageDispatchNotification.getDeliverySequenceId",
+        "MessageDispatchNotification.getMessageId",
+        "MessageId.getProducerId",
+        "MessageId.getProducerSequenceId",
+        "MessageId.getBrokerSequenceId",
+        "MessagePull.getConsumerId",
+        "MessagePull.getDestination",
+        "MessagePull.getTimeout",
+        "MessagePull.getCorrelationId",
+        "MessagePull.getMessageId",
+        "NetworkBridgeFilter.getNetworkTTL",
+        "NetworkBridgeFilter.getNetworkBrokerId",
+        "OpenWireBlobMessage.getRemoteBlobUrl",
+        "OpenWireBlobMessage.getMimeType",
+        "OpenWireBlobMessage.isDeletedByBroker",
+        "OpenWireDestination.getPhysicalName",
+        "PartialCommand.getCommandId",
+        "PartialCommand.getData",
+        "ProducerAck.getProducerId",
+        "ProducerAck.getSize",
+        "ProducerId.getConnectionId",
+        "ProducerId.getValue",
+        "ProducerId.getSessionId",
+        "ProducerInfo.getProducerId",
+        "ProducerInfo.getDestination",
+        "ProducerInfo.getBrokerPath",
+        "ProducerInfo.isDispatchAsync",
+        "ProducerInfo.getWindowSize",
+        "RemoveInfo.getObjectId",
+        "RemoveInfo.getLastDeliveredSequenceId",
+        "RemoveSubscriptionInfo.getConnectionId",
+        "RemoveSubscriptionInfo.getSubcriptionName",
+        "RemoveSubscriptionInfo.getClientId",
+        "ReplayCommand.getFirstNakNumber",
+        "ReplayCommand.getLastNakNumber",
+        "Response.getCorrelationId",
+        "SessionId.getConnectionId",
+        "SessionId.getValue",
+        "SessionInfo.getSessionId",
+        "SubscriptionInfo.getClientId",
+        "SubscriptionInfo.getDestination",
+        "SubscriptionInfo.getSelector",
+        "SubscriptionInfo.getSubcriptionName",
+        "SubscriptionInfo.getSubscribedDestination",
+        "TransactionInfo.getConnectionId",
+        "TransactionInfo.getTransactionId",
+        "TransactionInfo.getType",
+        "WireFormatInfo.getMagic",
+        "WireFormatInfo.getVersion",
+        "WireFormatInfo.getMarshalledProperties",
+        "XATransactionId.getFormatId",
+        "XATransactionId.getGlobalTransactionId",
+        "XATransactionId.getBranchQualifier"
+    };
+
+    private static final Map<String, Integer> INDEX = new HashMap<String, Integer>();
+    static {
+        for (int i = 0; i < PROPERTIES.length; i++) {
+            INDEX.put(PROPERTIES[i], Integer.valueOf(i));
+        }
+    }
+
+    private PropertyAccessors() {
+    }
+
+    /**
+     * @return the index of the property of the given type, or -1 if it has no accessors.
+     */
+    public static int indexOf(String type, String getter) {
+        Integer index = INDEX.get(type + "." + getter);
+        return index != null ? index.intValue() : -1;
+    }
+
+    /**
+     * @return the declaring type and getter of the property at the given index.
+     */
+    public static String getName(int property) {
+        return PROPERTIES[property];
+    }
+
+    public static boolean getBoolean(Object target, int property) {
+        switch (property) {
+        case 1:
+            return ((BaseCommand) target).isResponseRequired();
+        case 7:
+            return ((BrokerInfo) target).isSlaveBroker();
+        case 8:
+            return ((BrokerInfo) target).isMasterBroker();
+        case 9:
+            return ((BrokerInfo) target).isFaultTolerantConfiguration();
+        case 10:
+            return ((BrokerInfo) target).isDuplexConnection();
+        case 11:
+            return ((BrokerInfo) target).isNetworkConnection();
+        case 15:
+            return ((ConnectionControl) target).isClose();
+        case 16:
+            return ((ConnectionControl) target).isExit();
+        case 17:
+            return ((ConnectionControl) target).isFaultTolerant();
+        case 18:
+            return ((ConnectionControl) target).isResume();
+        case 19:
+            return ((ConnectionControl) target).isSuspend();
+        case 22:
+            return ((ConnectionControl) target).isRebalanceConnection();
+        case 32:
+            return ((ConnectionInfo) target).isBrokerMasterConnector();
+        case 33:
+            return ((ConnectionInfo) target).isManageable();
+        case 34:
+            return ((ConnectionInfo) target).isClientMaster();
+        case 35:
+            return ((ConnectionInfo) target).isFaultTolerant();
+        case 36:
+            return ((ConnectionInfo) target).isFailoverReconnect();
+        case 39:
+            return ((ConsumerControl) target).isClose();
+        case 42:
+            return ((ConsumerControl) target).isFlush();
+        case 43:
+            return ((ConsumerControl) target).isStart();
+        case 44:
+            return ((ConsumerControl) target).isStop();
+        case 49:
+            return ((ConsumerInfo) target).isBrowser();
+        case 53:
+            return ((ConsumerInfo) target).isDispatchAsync();
+        case 56:
+            return ((ConsumerInfo) target).isNoLocal();
+        case 57:
+            return ((ConsumerInfo) target).isExclusive();
+        case 58:
+            return ((ConsumerInfo) target).isRetroactive();
+        case 62:
+            return ((ConsumerInfo) target).isNetworkSubscription();
+        case 63:
+            return ((ConsumerInfo) target).isOptimizedAcknowledge();
+        case 64:
+            return ((ConsumerInfo) target).isNoRangeAcks();
+        case 89:
+            return ((JournalTransaction) target).getWasPrepared();
+        case 101:
+            return ((Message) target).isPersistent();
+        case 111:
+            return ((Message) target).isCompressed();
+        case 116:
+            return ((Message) target).isRecievedByDFBridge();
+        case 117:
+            return ((Message) target).isDroppable();
+        case 149:
+            return ((OpenWireBlobMessage) target).isDeletedByBroker();
+        case 161:
+            return ((ProducerInfo) target).isDispatchAsync();
+        default:
+            throw notA("boolean", property);
+        }
+    }
+
+    public static void setBoolean(Object target, int property, boolean value) {
+        switch (property) {
+        case 1:
+            ((BaseCommand) target).setResponseRequired(value);
+            break;
+        case 7:
+            ((BrokerInfo) target).setSlaveBroker(value);
+            break;
+        case 8:
+            ((BrokerInfo) target).setMasterBroker(value);
+            break;
+        case 9:
+            ((BrokerInfo) target).setFaultTolerantConfiguration(value);
+            break;
+        case 10:
+            ((BrokerInfo) target).setDuplexConnection(value);
+            break;
+        case 11:
+            ((BrokerInfo) target).setNetworkConnection(value);
+            break;
+        case 15:
+            ((ConnectionControl) target).setClose(value);
+            break;
+        case 16:
+            ((ConnectionControl) target).setExit(value);
+            break;
+        case 17:
+            ((ConnectionControl) target).setFaultTolerant(value);
+            break;
+        case 18:
+            ((ConnectionControl) target).setResume(value);
+            break;
+        case 19:
+            ((ConnectionControl) target).setSuspend(value);
+            break;
+        case 22:
+            ((ConnectionControl) target).setRebalanceConnection(value);
+            break;
+        case 32:
+            ((ConnectionInfo) target).setBrokerMasterConnector(value);
+            break;
+        case 33:
+            ((ConnectionInfo) target).setManageable(value);
+            break;
+        case 34:
+            ((ConnectionInfo) target).setClientMaster(value);
+            break;
+        case 35:
+            ((ConnectionInfo) target).setFaultTolerant(value);
+            break;
+        case 36:
+            ((ConnectionInfo) target).setFailoverReconnect(value);
+            break;
+        case 39:
+            ((ConsumerControl) target).setClose(value);
+            break;
+        case 42:
+            ((ConsumerControl) target).setFlush(value);
+            break;
+        case 43:
+            ((ConsumerControl) target).setStart(value);
+            break;
+        case 44:
+            ((ConsumerControl) target).setStop(value);
+            break;
+        case 49:
+            ((ConsumerInfo) target).setBrowser(value);
+            break;
+        case 53:
+            ((ConsumerInfo) target).setDispatchAsync(value);
+            break;
+        case 56:
+            ((ConsumerInfo) target).setNoLocal(value);
+            break;
+        case 57:
+            ((ConsumerInfo) target).setExclusive(value);
+            break;
+        case 58:
+            ((ConsumerInfo) target).setRetroactive(value);
+            break;
+        case 62:
+            ((ConsumerInfo) target).setNetworkSubscription(value);
+            break;
+        case 63:
+            ((ConsumerInfo) target).setOptimizedAcknowledge(value);
+            break;
+        case 64:
+            ((ConsumerInfo) target).setNoRangeAcks(value);
+            break;
+        case 89:
+            ((JournalTransaction) target).setWasPrepared(value);
+            break;
+        case 101:
+            ((Message) target).setPersistent(value);
+            break;
+        case 111:
+            ((Message) target).setCompressed(value);
+            break;
+        case 116:
+            ((Message) target).setRecievedByDFBridge(value);
+            break;
+        case 117:
+            ((Message) target).setDroppable(value);
+            break;
+        case 149:
+            ((OpenWireBlobMessage) target).setDeletedByBroker(value);
+            break;
+        case 161:
+            ((ProducerInfo) target).setDispatchAsync(value);
+            break;
+        default:
+            throw notA("boolean", property);
+        }
+    }
+
+    public static byte getByte(Object target, int property) {
+        switch (property) {
+        case 59:
+            return ((ConsumerInfo) target).getPriority();
+        case 71:
+            return ((DestinationInfo) target).getOperationType();
+        case 88:
+            return ((JournalTransaction) target).getType();
+        case 103:
+            return ((Message) target).getPriority();
+        case 124:
+            return ((MessageAck) target).getAckType();
+        case 181:
+            return ((TransactionInfo) target).getType();
+        default:
+            throw notA("byte", property);
+        }
+    }
+
+    public static void setByte(Object target, int property, byte value) {
+        switch (property) {
+        case 59:
+            ((ConsumerInfo) target).setPriority(value);
+            break;
+        case 71:
+            ((DestinationInfo) target).setOperationType(value);
+            break;
+        case 88:
+            ((JournalTransaction) target).setType(value);
+            break;
+        case 103:
+            ((Message) target).setPriority(value);
+            break;
+        case 124:
+            ((MessageAck) target).setAckType(value);
+            break;
+        case 181:
+            ((TransactionInfo) target).setType(value);
+            break;
+        default:
+            throw notA("byte", property);
+        }
+    }
+
+    public static char getChar(Object target, int property) {
+        switch (property) {
+        default:
+            throw notA("char", property);
+        }
+    }
+
+    public static void setChar(Object target, int property, char value) {
+        switch (property) {
+        default:
+            throw notA("char", property);
+        }
+    }
+
+    public static short getShort(Object target, int property) {
+        switch (property) {
+        default:
+            throw notA("short", property);
+        }
+    }
+
+    public static void setShort(Object target, int property, short value) {
+        switch (property) {
+        default:
+            throw notA("short", property);
+        }
+    }
+
+    public static int getInt(Object target, int property) {
+        switch (property) {
+        case 0:
+            return ((BaseCommand) target).getCommandId();
+        case 41:
+            return ((ConsumerControl) target).getPrefetch();
+        case 51:
+            return ((ConsumerInfo) target).getPrefetchSize();
+        case 52:
+            return ((ConsumerInfo) target).getMaximumPendingMessageLimit();
+        case 77:
+            return ((IntegerResponse) target).getResult();
+        case 99:
+            return ((Message) target).getGroupSequence();
+        case 112:
+            return ((Message) target).getRedeliveryCounter();
+        case 127:
+            return ((MessageAck) target).getMessageCount();
+        case 132:
+            return ((MessageDispatch) target).getRedeliveryCounter();
+        case 145:
+            return ((NetworkBridgeFilter) target).getNetworkTTL();
+        case 151:
+            return ((PartialCommand) target).getCommandId();
+        case 154:
+            return ((ProducerAck) target).getSize();
+        case 162:
+            return ((ProducerInfo) target).getWindowSize();
+        case 168:
+            return ((ReplayCommand) target).getFirstNakNumber();
+        case 169:
+            return ((ReplayCommand) target).getLastNakNumber();
+        case 170:
+            return ((Response) target).getCorrelationId();
+        case 183:
+            return ((WireFormatInfo) target).getVersion();
+        case 185:
+            return ((XATransactionId) target).getFormatId();
+        default:
+            throw notA("int", property);
+        }
+    }
+
+    public static void setInt(Object target, int property, int value) {
+        switch (property) {
+        case 0:
+            ((BaseCommand) target).setCommandId(value);
+            break;
+        case 41:
+            ((ConsumerControl) target).setPrefetch(value);
+            break;
+        case 51:
+            ((ConsumerInfo) target).setPrefetchSize(value);
+            break;
+        case 52:
+            ((ConsumerInfo) target).setMaximumPendingMessageLimit(value);
+            break;
+        case 77:
+            ((IntegerResponse) target).setResult(value);
+            break;
+        case 99:
+            ((Message) target).setGroupSequence(value);
+            break;
+        case 112:
+            ((Message) target).setRedeliveryCounter(value);
+            break;
+        case 127:
+            ((MessageAck) target).setMessageCount(value);
+            break;
+        case 132:
+            ((MessageDispatch) target).setRedeliveryCounter(value);
+            break;
+        case 145:
+            ((NetworkBridgeFilter) target).setNetworkTTL(value);
+            break;
+        case 151:
+            ((PartialCommand) target).setCommandId(value);
+            break;
+        case 154:
+            ((ProducerAck) target).setSize(value);
+            break;
+        case 162:
+            ((ProducerInfo) target).setWindowSize(value);
+            break;
+        case 168:
+            ((ReplayCommand) target).setFirstNakNumber(value);
+            break;
+        case 169:
+            ((ReplayCommand) target).setLastNakNumber(value);
+            break;
+        case 170:
+            ((Response) target).setCorrelationId(value);
+            break;
+        case 183:
+            ((WireFormatInfo) target).setVersion(value);
+            break;
+        case 185:
+            ((XATransactionId) target).setFormatId(value);
+            break;
+        default:
+            throw notA("int", property);
+        }
+    }
+
+    public static long getLong(Object target, int property) {
+        switch (property) {
+        case 12:
+            return ((BrokerInfo) target).getConnectionId();
+        case 46:
+            return ((ConsumerId) target).getSessionId();
+        case 47:
+            return ((ConsumerId) target).getValue();
+        case 72:
+            return ((DestinationInfo) target).getTimeout();
+        case 82:
+            return ((JournalTopicAck) target).getMessageSequenceId();
+        case 90:
+            return ((LocalTransactionId) target).getValue();
+        case 102:
+            return ((Message) target).getExpiration();
+        case 105:
+            return ((Message) target).getTimestamp();
+        case 114:
+            return ((Message) target).getArrival();
+        case 119:
+            return ((Message) target).getBrokerInTime();
+        case 120:
+            return ((Message) target).getBrokerOutTime();
+        case 135:
+            return ((MessageDispatchNotification) target).getDeliverySequenceId();
+        case 138:
+            return ((MessageId) target).getProducerSequenceId();
+        case 139:
+            return ((MessageId) target).getBrokerSequenceId();
+        case 142:
+            return ((MessagePull) target).getTimeout();
+        case 156:
+            return ((ProducerId) target).getValue();
+        case 157:
+            return ((ProducerId) target).getSessionId();
+        case 164:
+            return ((RemoveInfo) target).getLastDeliveredSequenceId();
+        case 172:
+            return ((SessionId) target).getValue();
+        default:
+            throw notA("long", property);
+        }
+    }
+
+    public static void setLong(Object target, int property, long value) {
+        switch (property) {
+        case 12:
+            ((BrokerInfo) target).setConnectionId(value);
+            break;
+        case 46:
+            ((ConsumerId) target).setSessionId(value);
+            break;
+        case 47:
+            ((ConsumerId) target).setValue(value);
+            break;
+        case 72:
+            ((DestinationInfo) target).setTimeout(value);
+            break;
+        case 82:
+            ((JournalTopicAck) target).setMessageSequenceId(value);
+            break;
+        case 90:
+            ((LocalTransactionId) target).setValue(value);
+            break;
+        case 102:
+            ((Message) target).setExpiration(value);
+            break;
+        case 105:
+            ((Message) target).setTimestamp(value);
+            break;
+        case 114:
+            ((Message) target).setArrival(value);
+            break;
+        case 119:
+            ((Message) target).setBrokerInTime(value);
+            break;
+        case 120:
+            ((Message) target).setBrokerOutTime(value);
+            break;
+        case 135:
+            ((MessageDispatchNotification) target).setDeliverySequenceId(value);
+            break;
+        case 138:
+            ((MessageId) target).setProducerSequenceId(value);
+            break;
+        case 139:
+            ((MessageId) target).setBrokerSequenceId(value);
+            break;
+        case 142:
+            ((MessagePull) target).setTimeout(value);
+            break;
+        case 156:
+            ((ProducerId) target).setValue(value);
+            break;
+        case 157:
+            ((ProducerId) target).setSessionId(value);
+            break;
+        case 164:
+            ((RemoveInfo) target).setLastDeliveredSequenceId(value);
+            break;
+        case 172:
+            ((SessionId) target).setValue(value);
+            break;
+        default:
+            throw notA("long", property);
+        }
+    }
+
+    public static Object getObject(Object target, int property) {
+        switch (property) {
+        case 2:
+            return ((BrokerId) target).getValue();
+        case 3:
+            return ((BrokerInfo) target).getBrokerId();
+        case 4:
+            return ((BrokerInfo) target).getBrokerURL();
+        case 5:
+            return ((BrokerInfo) target).getPeerBrokerInfos();
+        case 6:
+            return ((BrokerInfo) target).getBrokerName();
+        case 13:
+            return ((BrokerInfo) target).getBrokerUploadUrl();
+        case 14:
+            return ((BrokerInfo) target).getNetworkProperties();
+        case 20:
+            return ((ConnectionControl) target).getConnectedBrokers();
+        case 21:
+            return ((ConnectionControl) target).getReconnectTo();
+        case 23:
+            return ((ConnectionControl) target).getToken();
+        case 24:
+            return ((ConnectionError) target).getException();
+        case 25:
+            return ((ConnectionError) target).getConnectionId();
+        case 26:
+            return ((ConnectionId) target).getValue();
+        case 27:
+            return ((ConnectionInfo) target).getConnectionId();
+        case 28:
+            return ((ConnectionInfo) target).getClientId();
+        case 29:
+            return ((ConnectionInfo) target).getPassword();
+        case 30:
+            return ((ConnectionInfo) target).getUserName();
+        case 31:
+            return ((ConnectionInfo) target).getBrokerPath();
+        case 37:
+            return ((ConnectionInfo) target).getClientIp();
+        case 38:
+            return ((ConsumerControl) target).getDestination();
+        case 40:
+            return ((ConsumerControl) target).getConsumerId();
+        case 45:
+            return ((ConsumerId) target).getConnectionId();
+        case 48:
+            return ((ConsumerInfo) target).getConsumerId();
+        case 50:
+            return ((ConsumerInfo) target).getDestination();
+        case 54:
+            return ((ConsumerInfo) target).getSelector();
+        case 55:
+            return ((ConsumerInfo) target).getSubscriptionName();
+        case 60:
+            return ((ConsumerInfo) target).getBrokerPath();
+        case 61:
+            return ((ConsumerInfo) target).getAdditionalPredicate();
+        case 65:
+            return ((ConsumerInfo) target).getNetworkConsumerPath();
+        case 66:
+            return ((ControlCommand) target).getCommand();
+        case 67:
+            return ((DataArrayResponse) target).getData();
+        case 68:
+            return ((DataResponse) target).getData();
+        case 69:
+            return ((DestinationInfo) target).getConnectionId();
+        case 70:
+            return ((DestinationInfo) target).getDestination();
+        case 73:
+            return ((DestinationInfo) target).getBrokerPath();
+        case 74:
+            return ((DiscoveryEvent) target).getServiceName();
+        case 75:
+            return ((DiscoveryEvent) target).getBrokerName();
+        case 76:
+            return ((ExceptionResponse) target).getException();
+        case 78:
+            return ((JournalQueueAck) target).getDestination();
+        case 79:
+            return ((JournalQueueAck) target).getMessageAck();
+        case 80:
+            return ((JournalTopicAck) target).getDestination();
+        case 81:
+            return ((JournalTopicAck) target).getMessageId();
+        case 83:
+            return ((JournalTopicAck) target).getSubscritionName();
+        case 84:
+            return ((JournalTopicAck) target).getClientId();
+        case 85:
+            return ((JournalTopicAck) target).getTransactionId();
+        case 86:
+            return ((JournalTrace) target).getMessage();
+        case 87:
+            return ((JournalTransaction) target).getTransactionId();
+        case 91:
+            return ((LocalTransactionId) target).getConnectionId();
+        case 92:
+            return ((Message) target).getProducerId();
+        case 93:
+            return ((Message) target).getDestination();
+        case 94:
+            return ((Message) target).getTransactionId();
+        case 95:
+            return ((Message) target).getOriginalDestination();
+        case 96:
+            return ((Message) target).getMessageId();
+        case 97:
+            return ((Message) target).getOriginalTransactionId();
+        case 98:
+            return ((Message) target).getGroupId();
+        case 100:
+            return ((Message) target).getCorrelationId();
+        case 104:
+            return ((Message) target).getReplyTo();
+        case 106:
+            return ((Message) target).getType();
+        case 107:
+            return ((Message) target).getContent();
+        case 108:
+            return ((Message) target).getMarshalledProperties();
+        case 109:
+            return ((Message) target).getDataStructure();
+        case 110:
+            return ((Message) target).getTargetConsumerId();
+        case 113:
+            return ((Message) target).getBrokerPath();
+        case 115:
+            return ((Message) target).getUserId();
+        case 118:
+            return ((Message) target).getCluster();
+        case 121:
+            return ((MessageAck) target).getDestination();
+        case 122:
+            return ((MessageAck) target).getTransactionId();
+        case 123:
+            return ((MessageAck) target).getConsumerId();
+        case 125:
+            return ((MessageAck) target).getFirstMessageId();
+        case 126:
+            return ((MessageAck) target).getLastMessageId();
+        case 128:
+            return ((MessageAck) target).getPoisonCause();
+        case 129:
+            return ((MessageDispatch) target).getConsumerId();
+        case 130:
+            return ((MessageDispatch) target).getDestination();
+        case 131:
+            return ((MessageDispatch) target).getMessage();
+        case 133:
+            return ((MessageDispatchNotification) target).getConsumerId();
+        case 134:
+            return ((MessageDispatchNotification) target).getDestination();
+        case 136:
+            return ((MessageDispatchNotification) target).getMessageId();
+        case 137:
+            return ((MessageId) target).getProducerId();
+        case 140:
+            return ((MessagePull) target).getConsumerId();
+        case 141:
+            return ((MessagePull) target).getDestination();
+        case 143:
+            return ((MessagePull) target).getCorrelationId();
+        case 144:
+            return ((MessagePull) target).getMessageId();
+        case 146:
+            return ((NetworkBridgeFilter) target).getNetworkBrokerId();
+        case 147:
+            return ((OpenWireBlobMessage) target).getRemoteBlobUrl();
+        case 148:
+            return ((OpenWireBlobMessage) target).getMimeType();
+        case 150:
+            return ((OpenWireDestination) target).getPhysicalName();
+        case 152:
+            return ((PartialCommand) target).getData();
+        case 153:
+            return ((ProducerAck) target).getProducerId();
+        case 155:
+            return ((ProducerId) target).getConnectionId();
+        case 158:
+            return ((ProducerInfo) target).getProducerId();
+        case 159:
+            return ((ProducerInfo) target).getDestination();
+        case 160:
+            return ((ProducerInfo) target).getBrokerPath();
+        case 163:
+            return ((RemoveInfo) target).getObjectId();
+        case 165:
+            return ((RemoveSubscriptionInfo) target).getConnectionId();
+        case 166:
+            return ((RemoveSubscriptionInfo) target).getSubcriptionName();
+        case 167:
+            return ((RemoveSubscriptionInfo) target).getClientId();
+        case 171:
+            return ((SessionId) target).getConnectionId();
+        case 173:
+            return ((SessionInfo) target).getSessionId();
+        case 174:
+            return ((SubscriptionInfo) target).getClientId();
+        case 175:
+            return ((SubscriptionInfo) target).getDestination();
+        case 176:
+            return ((SubscriptionInfo) target).getSelector();
+        case 177:
+            return ((SubscriptionInfo) target).getSubcriptionName();
+        case 178:
+            return ((SubscriptionInfo) target).getSubscribedDestination();
+        case 179:
+            return ((TransactionInfo) target).getConnectionId();
+        case 180:
+            return ((TransactionInfo) target).getTransactionId();
+        case 182:
+            return ((WireFormatInfo) target).getMagic();
+        case 184:
+            return ((WireFormatInfo) target).getMarshalledProperties();
+        case 186:
+            return ((XATransactionId) target).getGlobalTransactionId();
+        case 187:
+            return ((XATransactionId) target).getBranchQualifier();
+        default:
+            throw notA("Object", property);
+        }
+    }
+
+    public static void setObject(Object target, int property, Object value) {
+        switch (property) {
+        case 2:
+            ((BrokerId) target).setValue((String) value);
+            break;
+        case 3:
+            ((BrokerInfo) target).setBrokerId((BrokerId) value);
+            break;
+        case 4:
+            ((BrokerInfo) target).setBrokerURL((String) value);
+            break;
+        case 5:
+            ((BrokerInfo) target).setPeerBrokerInfos((BrokerInfo[]) value);
+            break;
+        case 6:
+            ((BrokerInfo) target).setBrokerName((String) value);
+            break;
+        case 13:
+            ((BrokerInfo) target).setBrokerUploadUrl((String) value);
+            break;
+        case 14:
+            ((BrokerInfo) target).setNetworkProperties((String) value);
+            break;
+        case 20:
+            ((ConnectionControl) target).setConnectedBrokers((String) value);
+            break;
+        case 21:
+            ((ConnectionControl) target).setReconnectTo((String) value);
+            break;
+        case 23:
+            ((ConnectionControl) target).setToken((byte[]) value);
+            break;
+        case 24:
+            ((ConnectionError) target).setException((Throwable) value);
+            break;
+        case 25:
+            ((ConnectionError) target).setConnectionId((ConnectionId) value);
+            break;
+        case 26:
+            ((ConnectionId) target).setValue((String) value);
+            break;
+        case 27:
+            ((ConnectionInfo) target).setConnectionId((ConnectionId) value);
+            break;
+        case 28:
+            ((ConnectionInfo) target).setClientId((String) value);
+            break;
+        case 29:
+            ((ConnectionInfo) target).setPassword((String) value);
+            break;
+        case 30:
+            ((ConnectionInfo) target).setUserName((String) value);
+            break;
+        case 31:
+            ((ConnectionInfo) target).setBrokerPath((BrokerId[]) value);
+            break;
+        case 37:
+            ((ConnectionInfo) target).setClientIp((String) value);
+            break;
+        case 38:
+            ((ConsumerControl) target).setDestination((OpenWireDestination) value);
+            break;
+        case 40:
+            ((ConsumerControl) target).setConsumerId((ConsumerId) value);
+            break;
+        case 45:
+            ((ConsumerId) target).setConnectionId((String) value);
+            break;
+        case 48:
+            ((ConsumerInfo) target).setConsumerId((ConsumerId) value);
+            break;
+        case 50:
+            ((ConsumerInfo) target).setDestination((OpenWireDestination) value);
+            break;
+        case 54:
+            ((ConsumerInfo) target).setSelector((String) value);
+            break;
+        case 55:
+            ((ConsumerInfo) target).setSubscriptionName((String) value);
+            break;
+        case 60:
+            ((ConsumerInfo) target).setBrokerPath((BrokerId[]) value);
+            break;
+        case 61:
+            ((ConsumerInfo) target).setAdditionalPredicate(value);
+            break;
+        case 65:
+            ((ConsumerInfo) target).setNetworkConsumerPath((ConsumerId[]) value);
+            break;
+        case 66:
+            ((ControlCommand) target).setCommand((String) value);
+            break;
+        case 67:
+            ((DataArrayResponse) target).setData((DataStructure[]) value);
+            break;
+        case 68:
+            ((DataResponse) target).setData((DataStructure) value);
+            break;
+        case 69:
+            ((DestinationInfo) target).setConnectionId((ConnectionId) value);
+            break;
+        case 70:
+            ((DestinationInfo) target).setDestination((OpenWireDestination) value);
+            break;
+        case 73:
+            ((DestinationInfo) target).setBrokerPath((BrokerId[]) value);
+            break;
+        case 74:
+            ((DiscoveryEvent) target).setServiceName((String) value);
+            break;
+        case 75:
+            ((DiscoveryEvent) target).setBrokerName((String) value);
+            break;
+        case 76:
+            ((ExceptionResponse) target).setException((Throwable) value);
+            break;
+        case 78:
+            ((JournalQueueAck) target).setDestination((OpenWireDestination) value);
+            break;
+        case 79:
+            ((JournalQueueAck) target).setMessageAck((MessageAck) value);
+            break;
+        case 80:
+            ((JournalTopicAck) target).setDestination((OpenWireDestination) value);
+            break;
+        case 81:
+            ((JournalTopicAck) target).setMessageId((MessageId) value);
+            break;
+        case 83:
+            ((JournalTopicAck) target).setSubscritionName((String) value);
+            break;
+        case 84:
+            ((JournalTopicAck) target).setClientId((String) value);
+            break;
+        case 85:
+            ((JournalTopicAck) target).setTransactionId((TransactionId) value);
+            break;
+        case 86:
+            ((JournalTrace) target).setMessage((String) value);
+            break;
+        case 87:
+            ((JournalTransaction) target).setTransactionId((TransactionId) value);
+            break;
+        case 91:
+            ((LocalTransactionId) target).setConnectionId((ConnectionId) value);
+            break;
+        case 92:
+            ((Message) target).setProducerId((ProducerId) value);
+            break;
+        case 93:
+            ((Message) target).setDestination((OpenWireDestination) value);
+            break;
+        case 94:
+            ((Message) target).setTransactionId((TransactionId) value);
+            break;
+        case 95:
+            ((Message) target).setOriginalDestination((OpenWireDestination) value);
+            break;
+        case 96:
+            ((Message) target).setMessageId((MessageId) value);
+            break;
+        case 97:
+            ((Message) target).setOriginalTransactionId((TransactionId) value);
+            break;
+        case 98:
+            ((Message) target).setGroupID((String) value);
+            break;
+        case 100:
+            ((Message) target).setCorrelationId((String) value);
+            break;
+        case 104:
+            ((Message) target).setReplyTo((OpenWireDestination) value);
+            break;
+        case 106:
+            ((Message) target).setType((String) value);
+            break;
+        case 107:
+            ((Message) target).setContent((Buffer) value);
+            break;
+        case 108:
+            ((Message) target).setMarshalledProperties((Buffer) value);
+            break;
+        case 109:
+            ((Message) target).setDataStructure((DataStructure) value);
+            break;
+        case 110:
+            ((Message) target).setTargetConsumerId((ConsumerId) value);
+            break;
+        case 113:
+            ((Message) target).setBrokerPath((BrokerId[]) value);
+            break;
+        case 115:
+            ((Message) target).setUserId((String) value);
+            break;
+        case 118:
+            ((Message) target).setCluster((BrokerId[]) value);
+            break;
+        case 121:
+            ((MessageAck) target).setDestination((OpenWireDestination) value);
+            break;
+        case 122:
+            ((MessageAck) target).setTransactionId((TransactionId) value);
+            break;
+        case 123:
+            ((MessageAck) target).setConsumerId((ConsumerId) value);
+            break;
+        case 125:
+            ((MessageAck) target).setFirstMessageId((MessageId) value);
+            break;
+        case 126:
+            ((MessageAck) target).setLastMessageId((MessageId) value);
+            break;
+        case 128:
+            ((MessageAck) target).setPoisonCause((Throwable) value);
+            break;
+        case 129:
+            ((MessageDispatch) target).setConsumerId((ConsumerId) value);
+            break;
+        case 130:
+            ((MessageDispatch) target).setDestination((OpenWireDestination) value);
+            break;
+        case 131:
+            ((MessageDispatch) target).setMessage((Message) value);
+            break;
+        case 133:
+            ((MessageDispatchNotification) target).setConsumerId((ConsumerId) value);
+            break;
+        case 134:
+            ((MessageDispatchNotification) target).setDestination((OpenWireDestination) value);
+            break;
+        case 136:
+            ((MessageDispatchNotification) target).setMessageId((MessageId) value);
+            break;
+        case 137:
+            ((MessageId) target).setProducerId((ProducerId) value);
+            break;
+        case 140:
+            ((MessagePull) target).setConsumerId((ConsumerId) value);
+            break;
+        case 141:
+            ((MessagePull) target).setDestination((OpenWireDestination) value);
+            break;
+        case 143:
+            ((MessagePull) target).setCorrelationId((String) value);
+            break;
+        case 144:
+            ((MessagePull) target).setMessageId((MessageId) value);
+            break;
+        case 146:
+            ((NetworkBridgeFilter) target).setNetworkBrokerId((BrokerId) value);
+            break;
+        case 147:
+            ((OpenWireBlobMessage) target).setRemoteBlobUrl((String) value);
+            break;
+        case 148:
+            ((OpenWireBlobMessage) target).setMimeType((String) value);
+            break;
+        case 150:
+            ((OpenWireDestination) target).setPhysicalName((String) value);
+            break;
+        case 152:
+            ((PartialCommand) target).setData((byte[]) value);
+            break;
+        case 153:
+            ((ProducerAck) target).setProducerId((ProducerId) value);
+            break;
+        case 155:
+            ((ProducerId) target).setConnectionId((String) value);
+            break;
+        case 158:
+            ((ProducerInfo) target).setProducerId((ProducerId) value);
+            break;
+        case 159:
+            ((ProducerInfo) target).setDestination((OpenWireDestination) value);
+            break;
+        case 160:
+            ((ProducerInfo) target).setBrokerPath((BrokerId[]) value);
+            break;
+        case 163:
+            ((RemoveInfo) target).setObjectId((DataStructure) value);
+            break;
+        case 165:
+            ((RemoveSubscriptionInfo) target).setConnectionId((ConnectionId) value);
+            break;
+        case 166:
+            ((RemoveSubscriptionInfo) target).setSubcriptionName((String) value);
+            break;
+        case 167:
+            ((RemoveSubscriptionInfo) target).setClientId((String) value);
+            break;
+        case 171:
+            ((SessionId) target).setConnectionId((String) value);
+            break;
+        case 173:
+            ((SessionInfo) target).setSessionId((SessionId) value);
+            break;
+        case 174:
+            ((SubscriptionInfo) target).setClientId((String) value);
+            break;
+        case 175:
+            ((SubscriptionInfo) target).setDestination((OpenWireDestination) value);
+            break;
+        case 176:
+            ((SubscriptionInfo) target).setSelector((String) value);
+            break;
+        case 177:
+            ((SubscriptionInfo) target).setSubcriptionName((String) value);
+            break;
+        case 178:
+            ((SubscriptionInfo) target).setSubscribedDestination((OpenWireDestination) value);
+            break;
+        case 179:
+            ((TransactionInfo) target).setConnectionId((ConnectionId) value);
+            break;
+        case 180:
+            ((TransactionInfo) target).setTransactionId((TransactionId) value);
+            break;
+        case 182:
+            ((WireFormatInfo) target).setMagic((byte[]) value);
+            break;
+        case 184:
+            ((WireFormatInfo) target).setMarshalledProperties((Buffer) value);
+            break;
+        case 186:
+            ((XATransactionId) target).setGlobalTransactionId((byte[]) value);
+            break;
+        case 187:
+            ((XATransactionId) target).setBranchQualifier((byte[]) value);
+            break;
+        default:
+            throw notA("Object", property);
+        }
+    }
+
+    private static IllegalArgumentException notA(String type, int property) {
+        return new IllegalArgumentException(PROPERTIES[property] + " is not a " + type + " property");
+    }
+}
@@ -27,6 +27,8 @@ import java.io.DataInput;
 import java.io.DataOutput;
 import java.io.IOException;
 
+import org.fusesource.hawtbuf.DataByteArrayOutputStream;
+
 public class MessageIdMarshaller extends BaseDataStreamMarshaller {
 
     /**
@@ -101,6 +103,26 @@ public class MessageIdMarshaller extends BaseDataStreamMarshaller {
         tightMarshalLong2(wireFormat, info.getBrokerSequenceId(), dataOut, bs);
     }
 
+    /**
+     * Write the booleans and the data of this object in a single pass
+     *
+     * @param o
+     *        the instance to be marshaled
+     * @param dataOut
+     *        the output stream
+     * @throws IOException
+     *         thrown if an error occurs
+     */
+    @Override
+    public void tightMarshal(OpenWireFormat wireFormat, Object o, DataByteArrayOutputStream dataOut, BooleanStream bs) throws IOException {
+        super.tightMarshal(wireFormat, o, dataOut, bs);
+
+        MessageId info = (MessageId) o;
+        tightMarshalCachedObject(wireFormat, info.getProducerId(), dataOut, bs);
+        tightMarshalLong(wireFormat, info.getProducerSequenceId(), dataOut, bs);
+        tightMarshalLong(wireFormat, info.getBrokerSequenceId(), dataOut, bs);
+    }
+
     /**
      * Un-marshal an object instance from the data input stream
      *
@@ -132,4 +154,17 @@ public class MessageIdMarshaller extends BaseDataStreamMarshaller {
         looseMarshalLong(wireFormat, info.getProducerSequenceId(), dataOut);
         looseMarshalLong(wireFormat, info.getBrokerSequenceId(), dataOut);
     }
+
+    /**
+     * Compute the number of bytes the loose encoding of this object takes
+     */
+    @Override
+    public int looseMarshalSize(OpenWireFormat wireFormat, Object o) throws IOException {
+        MessageId info = (MessageId) o;
+
+        int rc = super.looseMarshalSize(wireFormat, o);
+        rc += looseMarshalCachedObjectSize(wireFormat, info.getProducerId());
+
+        return rc + 16;
+    }
 }
@@ -30,6 +30,8 @@ import java.io.DataInput;
 import java.io.DataOutput;
 import java.io.IOException;
 
+import org.fusesource.hawtbuf.DataByteArrayOutputStream;
+
 public abstract class MessageMarshaller extends BaseCommandMarshaller {
 
     /**
@@ -64,8 +66,8 @@ public abstract class MessageMarshaller extends BaseCommandMarshaller {
         info.setReplyTo((OpenWireDestination) tightUnmarsalNestedObject(wireFormat, dataIn, bs));
         info.setTimestamp(tightUnmarshalLong(wireFormat, dataIn, bs));
         info.setType(tightUnmarshalString(dataIn, bs));
-        info.setContent(tightUnmarshalByteSequence(dataIn, bs));
-        info.setMarshalledProperties(tightUnmarshalByteSequence(dataIn, bs));
+        info.setContent(tightUnmarshalByteSequence(wireFormat, dataIn, bs));
+        info.setMarshalledProperties(tightUnmarshalByteSequence(wireFormat, dataIn, bs));
         info.setDataStructure(tightUnmarsalNestedObject(wireFormat, dataIn, bs));
         info.setTargetConsumerId((ConsumerId) tightUnmarsalCachedObject(wireFormat, dataIn, bs));
         info.setCompressed(bs.readBoolean());
@@ -172,6 +174,53 @@ public abstract class MessageMarshaller extends BaseCommandMarshaller {
         info.afterMarshall(wireFormat);
     }
 
+    /**
+     * Write the booleans and the data of this object in a single pass
+     *
+     * @param o
+     *        the instance to be marshaled
+     * @param dataOut
+     *        the output stream
+     * @throws IOException
+     *         thrown if an error occurs
+     */
+    @Override
+    public void tightMarshal(OpenWireFormat wireFormat, Object o, DataByteArrayOutputStream dataOut, BooleanStream bs) throws IOException {
+        Message info = (Message) o;
+
+        info.beforeMarshall(wireFormat);
+
+        super.tightMarshal(wireFormat, o, dataOut, bs);
+        tightMarshalCachedObject(wireFormat, info.getProducerId(), dataOut, bs);
+        tightMarshalCachedObject(wireFormat, info.getDestination(), dataOut, bs);
+        tightMarshalCachedObject(wireFormat, info.getTransactionId(), dataOut, bs);
+        tightMarshalCachedObject(wireFormat, info.getOriginalDestination(), dataOut, bs);
+        tightMarshalNestedObject(wireFormat, info.getMessageId(), dataOut, bs);
+        tightMarshalCachedObject(wireFormat, info.getOriginalTransactionId(), dataOut, bs);
+        tightMarshalString(info.getGroupId(), dataOut, bs);
+        dataOut.writeInt(info.getGroupSequence());
+        tightMarshalString(info.getCorrelationId(), dataOut, bs);
+        bs.writeBoolean(info.isPersistent());
+        tightMarshalLong(wireFormat, info.getExpiration(), dataOut, bs);
+        dataOut.writeByte(info.getPriority());
+        tightMarshalNestedObject(wireFormat, info.getReplyTo(), dataOut, bs);
+        tightMarshalLong(wireFormat, info.getTimestamp(), dataOut, bs);
+        tightMarshalString(info.getType(), dataOut, bs);
+        tightMarshalByteSequence(info.getContent(), dataOut, bs);
+        tightMarshalByteSequence(info.getMarshalledProperties(), dataOut, bs);
+        tightMarshalNestedObject(wireFormat, info.getDataStructure(), dataOut, bs);
+        tightMarshalCachedObject(wireFormat, info.getTargetConsumerId(), dataOut, bs);
+        bs.writeBoolean(info.isCompressed());
+        dataOut.writeInt(info.getRedeliveryCounter());
+        tightMarshalObjectArray(wireFormat, info.getBrokerPath(), dataOut, bs);
+        tightMarshalLong(wireFormat, info.getArrival(), dataOut, bs);
+        tightMarshalString(info.getUserId(), dataOut, bs);
+        bs.writeBoolean(info.isRecievedByDFBridge());
+        bs.writeBoolean(info.isDroppable());
+
+        info.afterMarshall(wireFormat);
+    }
+
     /**
      * Un-marshal an object instance from the data input stream
      *
@@ -204,8 +253,8 @@ public abstract class MessageMarshaller extends BaseCommandMarshaller {
         info.setReplyTo((OpenWireDestination) looseUnmarsalNestedObject(wireFormat, dataIn));
         info.setTimestamp(looseUnmarshalLong(wireFormat, dataIn));
         info.setType(looseUnmarshalString(dataIn));
-        info.setContent(looseUnmarshalByteSequence(dataIn));
-        info.setMarshalledProperties(looseUnmarshalByteSequence(dataIn));
+        info.setContent(looseUnmarshalByteSequence(wireFormat, dataIn));
+        info.setMarshalledProperties(looseUnmarshalByteSequence(wireFormat, dataIn));
         info.setDataStructure(looseUnmarsalNestedObject(wireFormat, dataIn));
         info.setTargetConsumerId((ConsumerId) looseUnmarsalCachedObject(wireFormat, dataIn));
         info.setCompressed(dataIn.readBoolean());
@@ -236,7 +285,9 @@ public abstract class MessageMarshaller extends BaseCommandMarshaller {
     public void looseMarshal(OpenWireFormat wireFormat, Object o, DataOutput dataOut) throws IOException {
         Message info = (Message) o;
 
-        info.beforeMarshall(wireFormat);
+        if (!wireFormat.isLooseMarshalSized()) {
+            info.beforeMarshall(wireFormat);
+        }
 
         super.looseMarshal(wireFormat, o, dataOut);
         looseMarshalCachedObject(wireFormat, info.getProducerId(), dataOut);
@@ -266,4 +317,34 @@ public abstract class MessageMarshaller extends BaseCommandMarshaller {
         dataOut.writeBoolean(info.isRecievedByDFBridge());
         dataOut.writeBoolean(info.isDroppable());
     }
+
+    /**
+     * Compute the number of bytes the loose encoding of this object takes
+     */
+    @Override
+    public int looseMarshalSize(OpenWireFormat wireFormat, Object o) throws IOException {
+        Message info = (Message) o;
+
+        info.beforeMarshall(wireFormat);
+
+        int rc = super.looseMarshalSize(wireFormat, o);
+        rc += looseMarshalCachedObjectSize(wireFormat, info.getProducerId());
+        rc += looseMarshalCachedObjectSize(wireFormat, info.getDestination());
+        rc += looseMarshalCachedObjectSize(wireFormat, info.getTransactionId());
+        rc += looseMarshalCachedObjectSize(wireFormat, info.getOriginalDestination());
+        rc += looseMarshalNestedObjectSize(wireFormat, info.getMessageId());
+        rc += looseMarshalCachedObjectSize(wireFormat, info.getOriginalTransactionId());
+        rc += looseMarshalStringSize(info.getGroupId());
+        rc += looseMarshalStringSize(info.getCorrelationId());
+        rc += looseMarshalNestedObjectSize(wireFormat, info.getReplyTo());
+        rc += looseMarshalStringSize(info.getType());
+        rc += looseMarshalByteSequenceSize(wireFormat, info.getContent());
+        rc += looseMarshalByteSequenceSize(wireFormat, info.getMarshalledProperties());
+        rc += looseMarshalNestedObjectSize(wireFormat, info.getDataStructure());
+        rc += looseMarshalCachedObjectSize(wireFormat, info.getTargetConsumerId());
+        rc += looseMarshalObjectArraySize(wireFormat, info.getBrokerPath());
+        rc += looseMarshalStringSize(info.getUserId());
+
+        return rc + 37;
+    }
 }
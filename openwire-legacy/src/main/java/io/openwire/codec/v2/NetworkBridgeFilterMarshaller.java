@@ -1 +1 @@
-/** * Licensed to the Apache Software Foundation (ASF) under one or more * contributor license agreements.  See the NOTICE file distributed with * this work for additional information regarding copyright ownership. * The ASF licenses this file to You under the Apache License, Version 2.0 * (the "License"); you may not use this file except in compliance with * the License.  You may obtain a copy of the License at * * http://www.apache.org/licenses/LICENSE-2.0 * * Unless required by applicable law or agreed to in writing, software * distributed under the License is distributed on an "AS IS" BASIS, * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. * See the License for the specific language governing permissions and * limitations under the License. */package io.openwire.codec.v2;import io.openwire.codec.BaseDataStreamMarshaller;import io.openwire.codec.BooleanStream;import io.openwire.codec.OpenWireFormat;import io.openwire.commands.BrokerId;import io.openwire.commands.DataStructure;import io.openwire.commands.NetworkBridgeFilter;import java.io.DataInput;import java.io.DataOutput;import java.io.IOException;public class NetworkBridgeFilterMarshaller extends BaseDataStreamMarshaller {    /**     * Return the type of Data Structure we marshal     * @return short representation of the type data structure     */    @Override    public byte getDataStructureType() {        return NetworkBridgeFilter.DATA_STRUCTURE_TYPE;    }    /**     * @return a new object instance     */    @Override    public DataStructure createObject() {        return new NetworkBridgeFilter();    }    /**     * Un-marshal an object instance from the data input stream     *     * @param o the object to un-marshal     * @param dataIn the data input stream to build the object from     * @throws IOException     */    @Override    public void tightUnmarshal(OpenWireFormat wireFormat, Object o, DataInput dataIn, BooleanStream bs) throws IOException {        super.tightUnmarshal(wireFormat, o, dataIn, bs);        NetworkBridgeFilter info = (NetworkBridgeFilter)o;        info.setNetworkTTL(dataIn.readInt());        info.setNetworkBrokerId((BrokerId) tightUnmarsalCachedObject(wireFormat, dataIn, bs));    }    /**     * Write the booleans that this object uses to a BooleanStream     */    @Override    public int tightMarshal1(OpenWireFormat wireFormat, Object o, BooleanStream bs) throws IOException {        NetworkBridgeFilter info = (NetworkBridgeFilter)o;        int rc = super.tightMarshal1(wireFormat, o, bs);        rc += tightMarshalCachedObject1(wireFormat, info.getNetworkBrokerId(), bs);        return rc + 4;    }    /**     * Write a object instance to data output stream     *     * @param o the instance to be marshaled     * @param dataOut the output stream     * @throws IOException thrown if an error occurs     */    @Override    public void tightMarshal2(OpenWireFormat wireFormat, Object o, DataOutput dataOut, BooleanStream bs) throws IOException {        super.tightMarshal2(wireFormat, o, dataOut, bs);        NetworkBridgeFilter info = (NetworkBridgeFilter)o;        dataOut.writeInt(info.getNetworkTTL());        tightMarshalCachedObject2(wireFormat, info.getNetworkBrokerId(), dataOut, bs);    }    /**     * Un-marshal an object instance from the data input stream     *     * @param o the object to un-marshal     * @param dataIn the data input stream to build the object from     * @throws IOException     */    @Override    public void looseUnmarshal(OpenWireFormat wireFormat, Object o, DataInput dataIn) throws IOException {        super.looseUnmarshal(wireFormat, o, dataIn);        NetworkBridgeFilter info = (NetworkBridgeFilter)o;        info.setNetworkTTL(dataIn.readInt());        info.setNetworkBrokerId((BrokerId) looseUnmarsalCachedObject(wireFormat, dataIn));    }    /**     * Write the booleans that this object uses to a BooleanStream     */    @Override    public void looseMarshal(OpenWireFormat wireFormat, Object o, DataOutput dataOut) throws IOException {        NetworkBridgeFilter info = (NetworkBridgeFilter)o;        super.looseMarshal(wireFormat, o, dataOut);        dataOut.writeInt(info.getNetworkTTL());        looseMarshalCachedObject(wireFormat, info.getNetworkBrokerId(), dataOut);    }}
\ No newline at end of file
+/** * Licensed to the Apache Software Foundation (ASF) under one or more * contributor license agreements.  See the NOTICE file distributed with * this work for additional information regarding copyright ownership. * The ASF licenses this file to You under the Apache License, Version 2.0 * (the "License"); you may not use this file except in compliance with * the License.  You may obtain a copy of the License at * * http://www.apache.org/licenses/LICENSE-2.0 * * Unless required by applicable law or agreed to in writing, software * distributed under the License is distributed on an "AS IS" BASIS, * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. * See the License for the specific language governing permissions and * limitations under the License. */package io.openwire.codec.v2;import io.openwire.codec.BaseDataStreamMarshaller;import io.openwire.codec.BooleanStream;import io.openwire.codec.OpenWireFormat;import io.openwire.commands.BrokerId;import io.openwire.commands.DataStructure;import io.openwire.commands.NetworkBridgeFilter;import java.io.DataInput;import java.io.DataOutput;import java.io.IOException;import org.fusesource.hawtbuf.DataByteArrayOutputStream;public class NetworkBridgeFilterMarshaller extends BaseDataStreamMarshaller {    /**     * Return the type of Data Structure we marshal     * @return short representation of the type data structure     */    @Override    public byte getDataStructureType() {        return NetworkBridgeFilter.DATA_STRUCTURE_TYPE;    }    /**     * @return a new object instance     */    @Override    public DataStructure createObject() {        return new NetworkBridgeFilter();    }    /**     * Un-marshal an object instance from the data input stream     *     * @param o the object to un-marshal     * @param dataIn the data input stream to build the object from     * @throws IOException     */    @Override    public void tightUnmarshal(OpenWireFormat wireFormat, Object o, DataInput dataIn, BooleanStream bs) throws IOException {        super.tightUnmarshal(wireFormat, o, dataIn, bs);        NetworkBridgeFilter info = (NetworkBridgeFilter)o;        info.setNetworkTTL(dataIn.readInt());        info.setNetworkBrokerId((BrokerId) tightUnmarsalCachedObject(wireFormat, dataIn, bs));    }    /**     * Write the booleans that this object uses to a BooleanStream     */    @Override    public int tightMarshal1(OpenWireFormat wireFormat, Object o, BooleanStream bs) throws IOException {        NetworkBridgeFilter info = (NetworkBridgeFilter)o;        int rc = super.tightMarshal1(wireFormat, o, bs);        rc += tightMarshalCachedObject1(wireFormat, info.getNetworkBrokerId(), bs);        return rc + 4;    }    /**     * Write a object instance to data output stream     *     * @param o the instance to be marshaled     * @param dataOut the output stream     * @throws IOException thrown if an error occurs     */    @Override    public void tightMarshal2(OpenWireFormat wireFormat, Object o, DataOutput dataOut, BooleanStream bs) throws IOException {        super.tightMarshal2(wireFormat, o, dataOut, bs);        NetworkBridgeFilter info = (NetworkBridgeFilter)o;        dataOut.writeInt(info.getNetworkTTL());        tightMarshalCachedObject2(wireFormat, info.getNetworkBrokerId(), dataOut, bs);    }    /**     * Write the booleans and the data of this object in a single pass     *     * @param o     *        the instance to be marshaled     * @param dataOut     *        the output stream     * @throws IOException     *         thrown if an error occurs     */    @Override    public void tightMarshal(OpenWireFormat wireFormat, Object o, DataByteArrayOutputStream dataOut, BooleanStream bs) throws IOException {        super.tightMarshal(wireFormat, o, dataOut, bs);        NetworkBridgeFilter info = (NetworkBridgeFilter)o;        dataOut.writeInt(info.getNetworkTTL());        tightMarshalCachedObject(wireFormat, info.getNetworkBrokerId(), dataOut, bs);    }    /**     * Un-marshal an object instance from the data input stream     *     * @param o the object to un-marshal     * @param dataIn the data input stream to build the object from     * @throws IOException     */    @Override    public void looseUnmarshal(OpenWireFormat wireFormat, Object o, DataInput dataIn) throws IOException {        super.looseUnmarshal(wireFormat, o, dataIn);        NetworkBridgeFilter info = (NetworkBridgeFilter)o;        info.setNetworkTTL(dataIn.readInt());        info.setNetworkBrokerId((BrokerId) looseUnmarsalCachedObject(wireFormat, dataIn));    }    /**     * Write the booleans that this object uses to a BooleanStream     */    @Override    public void looseMarshal(OpenWireFormat wireFormat, Object o, DataOutput dataOut) throws IOException {        NetworkBridgeFilter info = (NetworkBridgeFilter)o;        super.looseMarshal(wireFormat, o, dataOut);        dataOut.writeInt(info.getNetworkTTL());        looseMarshalCachedObject(wireFormat, info.getNetworkBrokerId(), dataOut);    }    /**     * Compute the number of bytes the loose encoding of this object takes     */    @Override    public int looseMarshalSize(OpenWireFormat wireFormat, Object o) throws IOException {        NetworkBridgeFilter info = (NetworkBridgeFilter)o;        int rc = super.looseMarshalSize(wireFormat, o);        rc += looseMarshalCachedObjectSize(wireFormat, info.getNetworkBrokerId());        return rc + 4;    }}
\ No newline at end of file
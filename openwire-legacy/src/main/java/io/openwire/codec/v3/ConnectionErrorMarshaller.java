@@ -26,6 +26,8 @@ import java.io.DataInput;
 import java.io.DataOutput;
 import java.io.IOException;
 
+import org.fusesource.hawtbuf.DataByteArrayOutputStream;
+
 public class ConnectionErrorMarshaller extends BaseCommandMarshaller {
 
     /**
@@ -97,6 +99,25 @@ public class ConnectionErrorMarshaller extends BaseCommandMarshaller {
         tightMarshalNestedObject2(wireFormat, info.getConnectionId(), dataOut, bs);
     }
 
+    /**
+     * Write the booleans and the data of this object in a single pass
+     *
+     * @param o
+     *        the instance to be marshaled
+     * @param dataOut
+     *        the output stream
+     * @throws IOException
+     *         thrown if an error occurs
+     */
+    @Override
+    public void tightMarshal(OpenWireFormat wireFormat, Object o, DataByteArrayOutputStream dataOut, BooleanStream bs) throws IOException {
+        super.tightMarshal(wireFormat, o, dataOut, bs);
+
+        ConnectionError info = (ConnectionError) o;
+        tightMarshalThrowable(wireFormat, info.getException(), dataOut, bs);
+        tightMarshalNestedObject(wireFormat, info.getConnectionId(), dataOut, bs);
+    }
+
     /**
      * Un-marshal an object instance from the data input stream
      *
@@ -126,4 +147,18 @@ public class ConnectionErrorMarshaller extends BaseCommandMarshaller {
         looseMarshalThrowable(wireFormat, info.getException(), dataOut);
         looseMarshalNestedObject(wireFormat, info.getConnectionId(), dataOut);
     }
+
+    /**
+     * Compute the number of bytes the loose encoding of this object takes
+     */
+    @Override
+    public int looseMarshalSize(OpenWireFormat wireFormat, Object o) throws IOException {
+        ConnectionError info = (ConnectionError) o;
+
+        int rc = super.looseMarshalSize(wireFormat, o);
+        rc += looseMarshalThrowableSize(wireFormat, info.getException());
+        rc += looseMarshalNestedObjectSize(wireFormat, info.getConnectionId());
+
+        return rc + 0;
+    }
 }
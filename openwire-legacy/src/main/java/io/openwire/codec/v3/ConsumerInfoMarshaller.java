@@ -28,6 +28,8 @@ import java.io.DataInput;
 import java.io.DataOutput;
 import java.io.IOException;
 
+import org.fusesource.hawtbuf.DataByteArrayOutputStream;
+
 public class ConsumerInfoMarshaller extends BaseCommandMarshaller {
 
     /**
@@ -151,6 +153,40 @@ public class ConsumerInfoMarshaller extends BaseCommandMarshaller {
         bs.readBoolean();
     }
 
+    /**
+     * Write the booleans and the data of this object in a single pass
+     *
+     * @param o
+     *        the instance to be marshaled
+     * @param dataOut
+     *        the output stream
+     * @throws IOException
+     *         thrown if an error occurs
+     */
+    @Override
+    public void tightMarshal(OpenWireFormat wireFormat, Object o, DataByteArrayOutputStream dataOut, BooleanStream bs) throws IOException {
+        super.tightMarshal(wireFormat, o, dataOut, bs);
+
+        ConsumerInfo info = (ConsumerInfo) o;
+        tightMarshalCachedObject(wireFormat, info.getConsumerId(), dataOut, bs);
+        bs.writeBoolean(info.isBrowser());
+        tightMarshalCachedObject(wireFormat, info.getDestination(), dataOut, bs);
+        dataOut.writeInt(info.getPrefetchSize());
+        dataOut.writeInt(info.getMaximumPendingMessageLimit());
+        bs.writeBoolean(info.isDispatchAsync());
+        tightMarshalString(info.getSelector(), dataOut, bs);
+        tightMarshalString(info.getSubscriptionName(), dataOut, bs);
+        bs.writeBoolean(info.isNoLocal());
+        bs.writeBoolean(info.isExclusive());
+        bs.writeBoolean(info.isRetroactive());
+        dataOut.writeByte(info.getPriority());
+        tightMarshalObjectArray(wireFormat, info.getBrokerPath(), dataOut, bs);
+        tightMarshalNestedObject(wireFormat, (DataStructure) info.getAdditionalPredicate(), dataOut, bs);
+        bs.writeBoolean(info.isNetworkSubscription());
+        bs.writeBoolean(info.isOptimizedAcknowledge());
+        bs.writeBoolean(info.isNoRangeAcks());
+    }
+
     /**
      * Un-marshal an object instance from the data input stream
      *
@@ -220,4 +256,22 @@ public class ConsumerInfoMarshaller extends BaseCommandMarshaller {
         dataOut.writeBoolean(info.isOptimizedAcknowledge());
         dataOut.writeBoolean(info.isNoRangeAcks());
     }
+
+    /**
+     * Compute the number of bytes the loose encoding of this object takes
+     */
+    @Override
+    public int looseMarshalSize(OpenWireFormat wireFormat, Object o) throws IOException {
+        ConsumerInfo info = (ConsumerInfo) o;
+
+        int rc = super.looseMarshalSize(wireFormat, o);
+        rc += looseMarshalCachedObjectSize(wireFormat, info.getConsumerId());
+        rc += looseMarshalCachedObjectSize(wireFormat, info.getDestination());
+        rc += looseMarshalStringSize(info.getSelector());
+        rc += looseMarshalStringSize(info.getSubscriptionName());
+        rc += looseMarshalObjectArraySize(wireFormat, info.getBrokerPath());
+        rc += looseMarshalNestedObjectSize(wireFormat, (DataStructure) info.getAdditionalPredicate());
+
+        return rc + 17;
+    }
 }
@@ -26,6 +26,8 @@ import java.io.DataInput;
 import java.io.DataOutput;
 import java.io.IOException;
 
+import org.fusesource.hawtbuf.DataByteArrayOutputStream;
+
 public class ProducerIdMarshaller extends BaseDataStreamMarshaller {
 
     /**
@@ -100,6 +102,26 @@ public class ProducerIdMarshaller extends BaseDataStreamMarshaller {
         tightMarshalLong2(wireFormat, info.getSessionId(), dataOut, bs);
     }
 
+    /**
+     * Write the booleans and the data of this object in a single pass
+     *
+     * @param o
+     *        the instance to be marshaled
+     * @param dataOut
+     *        the output stream
+     * @throws IOException
+     *         thrown if an error occurs
+     */
+    @Override
+    public void tightMarshal(OpenWireFormat wireFormat, Object o, DataByteArrayOutputStream dataOut, BooleanStream bs) throws IOException {
+        super.tightMarshal(wireFormat, o, dataOut, bs);
+
+        ProducerId info = (ProducerId) o;
+        tightMarshalString(info.getConnectionId(), dataOut, bs);
+        tightMarshalLong(wireFormat, info.getValue(), dataOut, bs);
+        tightMarshalLong(wireFormat, info.getSessionId(), dataOut, bs);
+    }
+
     /**
      * Un-marshal an object instance from the data input stream
      *
@@ -131,4 +153,17 @@ public class ProducerIdMarshaller extends BaseDataStreamMarshaller {
         looseMarshalLong(wireFormat, info.getValue(), dataOut);
         looseMarshalLong(wireFormat, info.getSessionId(), dataOut);
     }
+
+    /**
+     * Compute the number of bytes the loose encoding of this object takes
+     */
+    @Override
+    public int looseMarshalSize(OpenWireFormat wireFormat, Object o) throws IOException {
+        ProducerId info = (ProducerId) o;
+
+        int rc = super.looseMarshalSize(wireFormat, o);
+        rc += looseMarshalStringSize(info.getConnectionId());
+
+        return rc + 16;
+    }
 }
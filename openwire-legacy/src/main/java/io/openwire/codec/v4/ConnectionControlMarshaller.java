@@ -25,6 +25,8 @@ import java.io.DataInput;
 import java.io.DataOutput;
 import java.io.IOException;
 
+import org.fusesource.hawtbuf.DataByteArrayOutputStream;
+
 public class ConnectionControlMarshaller extends BaseCommandMarshaller {
 
     /**
@@ -98,6 +100,28 @@ public class ConnectionControlMarshaller extends BaseCommandMarshaller {
         bs.readBoolean();
     }
 
+    /**
+     * Write the booleans and the data of this object in a single pass
+     *
+     * @param o
+     *        the instance to be marshaled
+     * @param dataOut
+     *        the output stream
+     * @throws IOException
+     *         thrown if an error occurs
+     */
+    @Override
+    public void tightMarshal(OpenWireFormat wireFormat, Object o, DataByteArrayOutputStream dataOut, BooleanStream bs) throws IOException {
+        super.tightMarshal(wireFormat, o, dataOut, bs);
+
+        ConnectionControl info = (ConnectionControl)o;
+        bs.writeBoolean(info.isClose());
+        bs.writeBoolean(info.isExit());
+        bs.writeBoolean(info.isFaultTolerant());
+        bs.writeBoolean(info.isResume());
+        bs.writeBoolean(info.isSuspend());
+    }
+
     /**
      * Un-marshal an object instance from the data input stream
      *
@@ -131,4 +155,16 @@ public class ConnectionControlMarshaller extends BaseCommandMarshaller {
         dataOut.writeBoolean(info.isResume());
         dataOut.writeBoolean(info.isSuspend());
     }
+
+    /**
+     * Compute the number of bytes the loose encoding of this object takes
+     */
+    @Override
+    public int looseMarshalSize(OpenWireFormat wireFormat, Object o) throws IOException {
+        ConnectionControl info = (ConnectionControl)o;
+
+        int rc = super.looseMarshalSize(wireFormat, o);
+
+        return rc + 5;
+    }
 }
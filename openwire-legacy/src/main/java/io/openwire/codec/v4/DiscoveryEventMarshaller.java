@@ -26,6 +26,8 @@ import java.io.DataInput;
 import java.io.DataOutput;
 import java.io.IOException;
 
+import org.fusesource.hawtbuf.DataByteArrayOutputStream;
+
 public class DiscoveryEventMarshaller extends BaseDataStreamMarshaller {
 
     /**
@@ -97,6 +99,25 @@ public class DiscoveryEventMarshaller extends BaseDataStreamMarshaller {
         tightMarshalString2(info.getBrokerName(), dataOut, bs);
     }
 
+    /**
+     * Write the booleans and the data of this object in a single pass
+     *
+     * @param o
+     *        the instance to be marshaled
+     * @param dataOut
+     *        the output stream
+     * @throws IOException
+     *         thrown if an error occurs
+     */
+    @Override
+    public void tightMarshal(OpenWireFormat wireFormat, Object o, DataByteArrayOutputStream dataOut, BooleanStream bs) throws IOException {
+        super.tightMarshal(wireFormat, o, dataOut, bs);
+
+        DiscoveryEvent info = (DiscoveryEvent) o;
+        tightMarshalString(info.getServiceName(), dataOut, bs);
+        tightMarshalString(info.getBrokerName(), dataOut, bs);
+    }
+
     /**
      * Un-marshal an object instance from the data input stream
      *
@@ -126,4 +147,18 @@ public class DiscoveryEventMarshaller extends BaseDataStreamMarshaller {
         looseMarshalString(info.getServiceName(), dataOut);
         looseMarshalString(info.getBrokerName(), dataOut);
     }
+
+    /**
+     * Compute the number of bytes the loose encoding of this object takes
+     */
+    @Override
+    public int looseMarshalSize(OpenWireFormat wireFormat, Object o) throws IOException {
+        DiscoveryEvent info = (DiscoveryEvent) o;
+
+        int rc = super.looseMarshalSize(wireFormat, o);
+        rc += looseMarshalStringSize(info.getServiceName());
+        rc += looseMarshalStringSize(info.getBrokerName());
+
+        return rc + 0;
+    }
 }
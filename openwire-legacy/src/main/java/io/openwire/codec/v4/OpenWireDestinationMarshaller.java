@@ -25,6 +25,8 @@ import java.io.DataInput;
 import java.io.DataOutput;
 import java.io.IOException;
 
+import org.fusesource.hawtbuf.DataByteArrayOutputStream;
+
 public abstract class OpenWireDestinationMarshaller extends BaseDataStreamMarshaller {
 
     /**
@@ -75,6 +77,24 @@ public abstract class OpenWireDestinationMarshaller extends BaseDataStreamMarsha
         tightMarshalString2(info.getPhysicalName(), dataOut, bs);
     }
 
+    /**
+     * Write the booleans and the data of this object in a single pass
+     *
+     * @param o
+     *        the instance to be marshaled
+     * @param dataOut
+     *        the output stream
+     * @throws IOException
+     *         thrown if an error occurs
+     */
+    @Override
+    public void tightMarshal(OpenWireFormat wireFormat, Object o, DataByteArrayOutputStream dataOut, BooleanStream bs) throws IOException {
+        super.tightMarshal(wireFormat, o, dataOut, bs);
+
+        OpenWireDestination info = (OpenWireDestination) o;
+        tightMarshalString(info.getPhysicalName(), dataOut, bs);
+    }
+
     /**
      * Un-marshal an object instance from the data input stream
      *
@@ -102,4 +122,17 @@ public abstract class OpenWireDestinationMarshaller extends BaseDataStreamMarsha
         super.looseMarshal(wireFormat, o, dataOut);
         looseMarshalString(info.getPhysicalName(), dataOut);
     }
+
+    /**
+     * Compute the number of bytes the loose encoding of this object takes
+     */
+    @Override
+    public int looseMarshalSize(OpenWireFormat wireFormat, Object o) throws IOException {
+        OpenWireDestination info = (OpenWireDestination) o;
+
+        int rc = super.looseMarshalSize(wireFormat, o);
+        rc += looseMarshalStringSize(info.getPhysicalName());
+
+        return rc + 0;
+    }
 }
@@ -26,6 +26,8 @@ import java.io.DataInput;
 import java.io.DataOutput;
 import java.io.IOException;
 
+import org.fusesource.hawtbuf.DataByteArrayOutputStream;
+
 public class LocalTransactionIdMarshaller extends TransactionIdMarshaller {
 
     /**
@@ -97,6 +99,25 @@ public class LocalTransactionIdMarshaller extends TransactionIdMarshaller {
         tightMarshalCachedObject2(wireFormat, info.getConnectionId(), dataOut, bs);
     }
 
+    /**
+     * Write the booleans and the data of this object in a single pass
+     *
+     * @param o
+     *        the instance to be marshaled
+     * @param dataOut
+     *        the output stream
+     * @throws IOException
+     *         thrown if an error occurs
+     */
+    @Override
+    public void tightMarshal(OpenWireFormat wireFormat, Object o, DataByteArrayOutputStream dataOut, BooleanStream bs) throws IOException {
+        super.tightMarshal(wireFormat, o, dataOut, bs);
+
+        LocalTransactionId info = (LocalTransactionId) o;
+        tightMarshalLong(wireFormat, info.getValue(), dataOut, bs);
+        tightMarshalCachedObject(wireFormat, info.getConnectionId(), dataOut, bs);
+    }
+
     /**
      * Un-marshal an object instance from the data input stream
      *
@@ -126,4 +147,17 @@ public class LocalTransactionIdMarshaller extends TransactionIdMarshaller {
         looseMarshalLong(wireFormat, info.getValue(), dataOut);
         looseMarshalCachedObject(wireFormat, info.getConnectionId(), dataOut);
     }
+
+    /**
+     * Compute the number of bytes the loose encoding of this object takes
+     */
+    @Override
+    public int looseMarshalSize(OpenWireFormat wireFormat, Object o) throws IOException {
+        LocalTransactionId info = (LocalTransactionId) o;
+
+        int rc = super.looseMarshalSize(wireFormat, o);
+        rc += looseMarshalCachedObjectSize(wireFormat, info.getConnectionId());
+
+        return rc + 8;
+    }
 }
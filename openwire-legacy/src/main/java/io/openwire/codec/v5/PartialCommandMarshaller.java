@@ -26,6 +26,8 @@ import java.io.DataInput;
 import java.io.DataOutput;
 import java.io.IOException;
 
+import org.fusesource.hawtbuf.DataByteArrayOutputStream;
+
 public class PartialCommandMarshaller extends BaseDataStreamMarshaller {
 
     /**
@@ -96,6 +98,25 @@ public class PartialCommandMarshaller extends BaseDataStreamMarshaller {
         tightMarshalByteArray2(info.getData(), dataOut, bs);
     }
 
+    /**
+     * Write the booleans and the data of this object in a single pass
+     *
+     * @param o
+     *        the instance to be marshaled
+     * @param dataOut
+     *        the output stream
+     * @throws IOException
+     *         thrown if an error occurs
+     */
+    @Override
+    public void tightMarshal(OpenWireFormat wireFormat, Object o, DataByteArrayOutputStream dataOut, BooleanStream bs) throws IOException {
+        super.tightMarshal(wireFormat, o, dataOut, bs);
+
+        PartialCommand info = (PartialCommand) o;
+        dataOut.writeInt(info.getCommandId());
+        tightMarshalByteArray(info.getData(), dataOut, bs);
+    }
+
     /**
      * Un-marshal an object instance from the data input stream
      *
@@ -125,4 +146,17 @@ public class PartialCommandMarshaller extends BaseDataStreamMarshaller {
         dataOut.writeInt(info.getCommandId());
         looseMarshalByteArray(wireFormat, info.getData(), dataOut);
     }
+
+    /**
+     * Compute the number of bytes the loose encoding of this object takes
+     */
+    @Override
+    public int looseMarshalSize(OpenWireFormat wireFormat, Object o) throws IOException {
+        PartialCommand info = (PartialCommand) o;
+
+        int rc = super.looseMarshalSize(wireFormat, o);
+        rc += looseMarshalByteArraySize(wireFormat, info.getData());
+
+        return rc + 4;
+    }
 }
@@ -25,6 +25,8 @@ import java.io.DataInput;
 import java.io.DataOutput;
 import java.io.IOException;
 
+import org.fusesource.hawtbuf.DataByteArrayOutputStream;
+
 public class OpenWireBlobMessageMarshaller extends OpenWireMessageMarshaller {
 
     /**
@@ -99,6 +101,26 @@ public class OpenWireBlobMessageMarshaller extends OpenWireMessageMarshaller {
         bs.readBoolean();
     }
 
+    /**
+     * Write the booleans and the data of this object in a single pass
+     *
+     * @param o
+     *        the instance to be marshaled
+     * @param dataOut
+     *        the output stream
+     * @throws IOException
+     *         thrown if an error occurs
+     */
+    @Override
+    public void tightMarshal(OpenWireFormat wireFormat, Object o, DataByteArrayOutputStream dataOut, BooleanStream bs) throws IOException {
+        super.tightMarshal(wireFormat, o, dataOut, bs);
+
+        OpenWireBlobMessage info = (OpenWireBlobMessage) o;
+        tightMarshalString(info.getRemoteBlobUrl(), dataOut, bs);
+        tightMarshalString(info.getMimeType(), dataOut, bs);
+        bs.writeBoolean(info.isDeletedByBroker());
+    }
+
     /**
      * Un-marshal an object instance from the data input stream
      *
@@ -130,4 +152,18 @@ public class OpenWireBlobMessageMarshaller extends OpenWireMessageMarshaller {
         looseMarshalString(info.getMimeType(), dataOut);
         dataOut.writeBoolean(info.isDeletedByBroker());
     }
+
+    /**
+     * Compute the number of bytes the loose encoding of this object takes
+     */
+    @Override
+    public int looseMarshalSize(OpenWireFormat wireFormat, Object o) throws IOException {
+        OpenWireBlobMessage info = (OpenWireBlobMessage) o;
+
+        int rc = super.looseMarshalSize(wireFormat, o);
+        rc += looseMarshalStringSize(info.getRemoteBlobUrl());
+        rc += looseMarshalStringSize(info.getMimeType());
+
+        return rc + 1;
+    }
 }
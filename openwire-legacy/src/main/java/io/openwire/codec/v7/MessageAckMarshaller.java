@@ -29,6 +29,8 @@ import java.io.DataInput;
 import java.io.DataOutput;
 import java.io.IOException;
 
+import org.fusesource.hawtbuf.DataByteArrayOutputStream;
+
 public class MessageAckMarshaller extends BaseCommandMarshaller {
 
     /**
@@ -116,6 +118,31 @@ public class MessageAckMarshaller extends BaseCommandMarshaller {
         tightMarshalThrowable2(wireFormat, info.getPoisonCause(), dataOut, bs);
     }
 
+    /**
+     * Write the booleans and the data of this object in a single pass
+     *
+     * @param o
+     *        the instance to be marshaled
+     * @param dataOut
+     *        the output stream
+     * @throws IOException
+     *         thrown if an error occurs
+     */
+    @Override
+    public void tightMarshal(OpenWireFormat wireFormat, Object o, DataByteArrayOutputStream dataOut, BooleanStream bs) throws IOException {
+        super.tightMarshal(wireFormat, o, dataOut, bs);
+
+        MessageAck info = (MessageAck) o;
+        tightMarshalCachedObject(wireFormat, info.getDestination(), dataOut, bs);
+        tightMarshalCachedObject(wireFormat, info.getTransactionId(), dataOut, bs);
+        tightMarshalCachedObject(wireFormat, info.getConsumerId(), dataOut, bs);
+        dataOut.writeByte(info.getAckType());
+        tightMarshalNestedObject(wireFormat, info.getFirstMessageId(), dataOut, bs);
+        tightMarshalNestedObject(wireFormat, info.getLastMessageId(), dataOut, bs);
+        dataOut.writeInt(info.getMessageCount());
+        tightMarshalThrowable(wireFormat, info.getPoisonCause(), dataOut, bs);
+    }
+
     /**
      * Un-marshal an object instance from the data input stream
      * 
@@ -157,4 +184,22 @@ public class MessageAckMarshaller extends BaseCommandMarshaller {
         dataOut.writeInt(info.getMessageCount());
         looseMarshalThrowable(wireFormat, info.getPoisonCause(), dataOut);
     }
+
+    /**
+     * Compute the number of bytes the loose encoding of this object takes
+     */
+    @Override
+    public int looseMarshalSize(OpenWireFormat wireFormat, Object o) throws IOException {
+        MessageAck info = (MessageAck) o;
+
+        int rc = super.looseMarshalSize(wireFormat, o);
+        rc += looseMarshalCachedObjectSize(wireFormat, info.getDestination());
+        rc += looseMarshalCachedObjectSize(wireFormat, info.getTransactionId());
+        rc += looseMarshalCachedObjectSize(wireFormat, info.getConsumerId());
+        rc += looseMarshalNestedObjectSize(wireFormat, info.getFirstMessageId());
+        rc += looseMarshalNestedObjectSize(wireFormat, info.getLastMessageId());
+        rc += looseMarshalThrowableSize(wireFormat, info.getPoisonCause());
+
+        return rc + 5;
+    }
 }
@@ -25,6 +25,8 @@ import java.io.DataInput;
 import java.io.DataOutput;
 import java.io.IOException;
 
+import org.fusesource.hawtbuf.DataByteArrayOutputStream;
+
 public class ConnectionControlMarshaller extends BaseCommandMarshaller {
 
     /**
@@ -117,6 +119,32 @@ public class ConnectionControlMarshaller extends BaseCommandMarshaller {
         tightMarshalByteArray2(info.getToken(), dataOut, bs);
     }
 
+    /**
+     * Write the booleans and the data of this object in a single pass
+     *
+     * @param o
+     *        the instance to be marshaled
+     * @param dataOut
+     *        the output stream
+     * @throws IOException
+     *         thrown if an error occurs
+     */
+    @Override
+    public void tightMarshal(OpenWireFormat wireFormat, Object o, DataByteArrayOutputStream dataOut, BooleanStream bs) throws IOException {
+        super.tightMarshal(wireFormat, o, dataOut, bs);
+
+        ConnectionControl info = (ConnectionControl) o;
+        bs.writeBoolean(info.isClose());
+        bs.writeBoolean(info.isExit());
+        bs.writeBoolean(info.isFaultTolerant());
+        bs.writeBoolean(info.isResume());
+        bs.writeBoolean(info.isSuspend());
+        tightMarshalString(info.getConnectedBrokers(), dataOut, bs);
+        tightMarshalString(info.getReconnectTo(), dataOut, bs);
+        bs.writeBoolean(info.isRebalanceConnection());
+        tightMarshalByteArray(info.getToken(), dataOut, bs);
+    }
+
     /**
      * Un-marshal an object instance from the data input stream
      *
@@ -160,4 +188,19 @@ public class ConnectionControlMarshaller extends BaseCommandMarshaller {
         dataOut.writeBoolean(info.isRebalanceConnection());
         looseMarshalByteArray(wireFormat, info.getToken(), dataOut);
     }
+
+    /**
+     * Compute the number of bytes the loose encoding of this object takes
+     */
+    @Override
+    public int looseMarshalSize(OpenWireFormat wireFormat, Object o) throws IOException {
+        ConnectionControl info = (ConnectionControl) o;
+
+        int rc = super.looseMarshalSize(wireFormat, o);
+        rc += looseMarshalStringSize(info.getConnectedBrokers());
+        rc += looseMarshalStringSize(info.getReconnectTo());
+        rc += looseMarshalByteArraySize(wireFormat, info.getToken());
+
+        return rc + 6;
+    }
 }
@@ -25,6 +25,8 @@ import java.io.DataInput;
 import java.io.DataOutput;
 import java.io.IOException;
 
+import org.fusesource.hawtbuf.DataByteArrayOutputStream;
+
 public class IntegerResponseMarshaller extends ResponseMarshaller {
 
     /**
@@ -89,6 +91,24 @@ public class IntegerResponseMarshaller extends ResponseMarshaller {
         dataOut.writeInt(info.getResult());
     }
 
+    /**
+     * Write the booleans and the data of this object in a single pass
+     *
+     * @param o
+     *        the instance to be marshaled
+     * @param dataOut
+     *        the output stream
+     * @throws IOException
+     *         thrown if an error occurs
+     */
+    @Override
+    public void tightMarshal(OpenWireFormat wireFormat, Object o, DataByteArrayOutputStream dataOut, BooleanStream bs) throws IOException {
+        super.tightMarshal(wireFormat, o, dataOut, bs);
+
+        IntegerResponse info = (IntegerResponse) o;
+        dataOut.writeInt(info.getResult());
+    }
+
     /**
      * Un-marshal an object instance from the data input stream
      *
@@ -116,4 +136,16 @@ public class IntegerResponseMarshaller extends ResponseMarshaller {
         super.looseMarshal(wireFormat, o, dataOut);
         dataOut.writeInt(info.getResult());
     }
+
+    /**
+     * Compute the number of bytes the loose encoding of this object takes
+     */
+    @Override
+    public int looseMarshalSize(OpenWireFormat wireFormat, Object o) throws IOException {
+        IntegerResponse info = (IntegerResponse) o;
+
+        int rc = super.looseMarshalSize(wireFormat, o);
+
+        return rc + 4;
+    }
 }
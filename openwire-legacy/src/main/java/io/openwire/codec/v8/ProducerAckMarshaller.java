@@ -26,6 +26,8 @@ import java.io.DataInput;
 import java.io.DataOutput;
 import java.io.IOException;
 
+import org.fusesource.hawtbuf.DataByteArrayOutputStream;
+
 public class ProducerAckMarshaller extends BaseCommandMarshaller {
 
     /**
@@ -96,6 +98,25 @@ public class ProducerAckMarshaller extends BaseCommandMarshaller {
         dataOut.writeInt(info.getSize());
     }
 
+    /**
+     * Write the booleans and the data of this object in a single pass
+     *
+     * @param o
+     *        the instance to be marshaled
+     * @param dataOut
+     *        the output stream
+     * @throws IOException
+     *         thrown if an error occurs
+     */
+    @Override
+    public void tightMarshal(OpenWireFormat wireFormat, Object o, DataByteArrayOutputStream dataOut, BooleanStream bs) throws IOException {
+        super.tightMarshal(wireFormat, o, dataOut, bs);
+
+        ProducerAck info = (ProducerAck) o;
+        tightMarshalNestedObject(wireFormat, info.getProducerId(), dataOut, bs);
+        dataOut.writeInt(info.getSize());
+    }
+
     /**
      * Un-marshal an object instance from the data input stream
      *
@@ -125,4 +146,17 @@ public class ProducerAckMarshaller extends BaseCommandMarshaller {
         looseMarshalNestedObject(wireFormat, info.getProducerId(), dataOut);
         dataOut.writeInt(info.getSize());
     }
+
+    /**
+     * Compute the number of bytes the loose encoding of this object takes
+     */
+    @Override
+    public int looseMarshalSize(OpenWireFormat wireFormat, Object o) throws IOException {
+        ProducerAck info = (ProducerAck) o;
+
+        int rc = super.looseMarshalSize(wireFormat, o);
+        rc += looseMarshalNestedObjectSize(wireFormat, info.getProducerId());
+
+        return rc + 4;
+    }
 }
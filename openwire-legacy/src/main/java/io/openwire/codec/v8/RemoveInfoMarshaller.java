@@ -25,6 +25,8 @@ import java.io.DataInput;
 import java.io.DataOutput;
 import java.io.IOException;
 
+import org.fusesource.hawtbuf.DataByteArrayOutputStream;
+
 public class RemoveInfoMarshaller extends BaseCommandMarshaller {
 
     /**
@@ -96,6 +98,25 @@ public class RemoveInfoMarshaller extends BaseCommandMarshaller {
         tightMarshalLong2(wireFormat, info.getLastDeliveredSequenceId(), dataOut, bs);
     }
 
+    /**
+     * Write the booleans and the data of this object in a single pass
+     *
+     * @param o
+     *        the instance to be marshaled
+     * @param dataOut
+     *        the output stream
+     * @throws IOException
+     *         thrown if an error occurs
+     */
+    @Override
+    public void tightMarshal(OpenWireFormat wireFormat, Object o, DataByteArrayOutputStream dataOut, BooleanStream bs) throws IOException {
+        super.tightMarshal(wireFormat, o, dataOut, bs);
+
+        RemoveInfo info = (RemoveInfo) o;
+        tightMarshalCachedObject(wireFormat, info.getObjectId(), dataOut, bs);
+        tightMarshalLong(wireFormat, info.getLastDeliveredSequenceId(), dataOut, bs);
+    }
+
     /**
      * Un-marshal an object instance from the data input stream
      *
@@ -125,4 +146,17 @@ public class RemoveInfoMarshaller extends BaseCommandMarshaller {
         looseMarshalCachedObject(wireFormat, info.getObjectId(), dataOut);
         looseMarshalLong(wireFormat, info.getLastDeliveredSequenceId(), dataOut);
     }
+
+    /**
+     * Compute the number of bytes the loose encoding of this object takes
+     */
+    @Override
+    public int looseMarshalSize(OpenWireFormat wireFormat, Object o) throws IOException {
+        RemoveInfo info = (RemoveInfo) o;
+
+        int rc = super.looseMarshalSize(wireFormat, o);
+        rc += looseMarshalCachedObjectSize(wireFormat, info.getObjectId());
+
+        return rc + 8;
+    }
 }
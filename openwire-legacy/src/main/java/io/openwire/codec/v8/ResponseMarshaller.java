@@ -25,6 +25,8 @@ import java.io.DataInput;
 import java.io.DataOutput;
 import java.io.IOException;
 
+import org.fusesource.hawtbuf.DataByteArrayOutputStream;
+
 public class ResponseMarshaller extends BaseCommandMarshaller {
 
     /**
@@ -89,6 +91,24 @@ public class ResponseMarshaller extends BaseCommandMarshaller {
         dataOut.writeInt(info.getCorrelationId());
     }
 
+    /**
+     * Write the booleans and the data of this object in a single pass
+     *
+     * @param o
+     *        the instance to be marshaled
+     * @param dataOut
+     *        the output stream
+     * @throws IOException
+     *         thrown if an error occurs
+     */
+    @Override
+    public void tightMarshal(OpenWireFormat wireFormat, Object o, DataByteArrayOutputStream dataOut, BooleanStream bs) throws IOException {
+        super.tightMarshal(wireFormat, o, dataOut, bs);
+
+        Response info = (Response) o;
+        dataOut.writeInt(info.getCorrelationId());
+    }
+
     /**
      * Un-marshal an object instance from the data input stream
      *
@@ -115,4 +135,15 @@ public class ResponseMarshaller extends BaseCommandMarshaller {
         super.looseMarshal(wireFormat, o, dataOut);
         dataOut.writeInt(info.getCorrelationId());
     }
+
+    /**
+     * Compute the number of bytes the loose encoding of this object takes
+     */
+    @Override
+    public int looseMarshalSize(OpenWireFormat wireFormat, Object o) throws IOException {
+        Response info = (Response) o;
+        int rc = super.looseMarshalSize(wireFormat, o);
+
+        return rc + 4;
+    }
 }